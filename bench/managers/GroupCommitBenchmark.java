@@ -0,0 +1,48 @@
+package managers;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import tasks.Task;
+
+/**
+ * Пропускная способность записи в журнальном режиме при восьми параллельных клиентах:
+ * fsync на каждое изменение (ALWAYS) против групповой фиксации (GROUP).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class GroupCommitBenchmark {
+    @Param({"ALWAYS", "GROUP"})
+    public JournalConfig.SyncPolicy syncPolicy;
+
+    private File file;
+    private FileBackedTaskManager manager;
+
+    @Setup
+    public void setUp() throws IOException {
+        file = File.createTempFile("bench-tasks", ".csv");
+        manager = new FileBackedTaskManager(file, JournalConfig.of(syncPolicy)
+                .withCompactionThreshold(Integer.MAX_VALUE));
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        manager.close();
+        Files.deleteIfExists(Path.of(file.getPath() + ".journal"));
+        Files.deleteIfExists(file.toPath());
+    }
+
+    @Benchmark
+    public void addTask() {
+        manager.addTask(new Task("Task", "Description"));
+    }
+}
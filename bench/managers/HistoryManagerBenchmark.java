@@ -0,0 +1,56 @@
+package managers;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import tasks.Task;
+import util.Status;
+
+/**
+ * InMemoryHistoryManager с size просмотренными задачами: повторный просмотр (перенос в конец),
+ * удаление с возвратом задачи в историю и получение всей истории.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HistoryManagerBenchmark {
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int size;
+
+    private HistoryManager history;
+    private Task[] tasks;
+    private final SplittableRandom random = new SplittableRandom(42);
+
+    @Setup
+    public void setUp() {
+        history = new InMemoryHistoryManager();
+        tasks = new Task[size];
+        for (int i = 0; i < size; i++) {
+            tasks[i] = new Task("Задача " + i, "Описание", i + 1, Status.NEW).freeze();
+            history.add(tasks[i]);
+        }
+    }
+
+    @Benchmark
+    public void add() {
+        history.add(tasks[random.nextInt(size)]);
+    }
+
+    // Размер истории сохраняется: удалённая задача сразу просматривается снова
+    @Benchmark
+    public void removeAndAdd() {
+        Task task = tasks[random.nextInt(size)];
+        history.remove(task.getId());
+        history.add(task);
+    }
+
+    @Benchmark
+    public List<Task> getHistory() {
+        return history.getHistory();
+    }
+}
@@ -0,0 +1,76 @@
+package managers;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import tasks.Epic;
+import tasks.Subtask;
+import tasks.Task;
+import util.Status;
+
+/**
+ * Время загрузки CSV-снимка: последовательный loadFromFile против loadFromFileParallel
+ * с пулом на parallelism потоков. Файл: эпики по десять подзадач и столько же обычных задач.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = "-Xmx8g")
+public class ParallelLoadBenchmark {
+    private static final LocalDateTime BASE = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    @Param({"100000", "1000000"})
+    public int rows;
+
+    @Param({"4", "16"})
+    public int parallelism;
+
+    private File file;
+    private ForkJoinPool pool;
+
+    @Setup
+    public void setUp() throws IOException {
+        file = File.createTempFile("bench-load", ".csv");
+        pool = new ForkJoinPool(parallelism);
+        int id = 0;
+        try (BufferedWriter writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+            writer.write("id,type,name,status,description,epic,duration,startTime,endTime\n");
+            while (id < rows) {
+                Epic epic = new Epic("Epic " + id, "Description, with comma");
+                epic.setId(++id);
+                writer.write(epic.toCsv() + "\n");
+                for (int i = 0; i < 10; i++, id++) {
+                    writer.write(new Subtask("Subtask " + id, "Description", id + 1, Status.values()[i % 3],
+                            epic.getId(), Duration.ofMinutes(30), BASE.plusHours(id)).toCsv() + "\n");
+                }
+                writer.write(new Task("Task " + id, "Description", ++id, Status.NEW, null, null).toCsv() + "\n");
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        pool.shutdown();
+        Files.deleteIfExists(file.toPath());
+    }
+
+    @Benchmark
+    public FileBackedTaskManager sequential() {
+        return FileBackedTaskManager.loadFromFile(file);
+    }
+
+    @Benchmark
+    public FileBackedTaskManager parallel() {
+        return FileBackedTaskManager.loadFromFileParallel(file, pool);
+    }
+}
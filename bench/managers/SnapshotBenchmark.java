@@ -0,0 +1,57 @@
+package managers;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Полная запись снимка FileBackedTaskManager.save и загрузка loadFromFile для
+ * менеджера из TaskManagerSeed в обоих форматах снимка.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx8g")
+public class SnapshotBenchmark {
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int size;
+
+    @Param({"CSV", "BINARY"})
+    public SnapshotFormat format;
+
+    private File file;
+    private FileBackedTaskManager manager;
+
+    @Setup
+    public void setUp() throws IOException {
+        file = File.createTempFile("bench-snapshot", ".data");
+        File csv = File.createTempFile("bench-snapshot", ".csv");
+        try {
+            TaskManagerImplementation.FILE_BACKED.create(new TaskManagerSeed(size), csv);
+            FileBackedTaskManager.convert(csv, file, format);
+        } finally {
+            Files.deleteIfExists(csv.toPath());
+        }
+        manager = FileBackedTaskManager.loadFromFile(file);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file.toPath());
+    }
+
+    @Benchmark
+    public void save() {
+        manager.save();
+    }
+
+    @Benchmark
+    public FileBackedTaskManager loadFromFile() {
+        return FileBackedTaskManager.loadFromFile(file);
+    }
+}
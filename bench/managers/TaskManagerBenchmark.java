@@ -0,0 +1,109 @@
+package managers;
+
+import exceptions.TimeConflictException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import tasks.Subtask;
+import tasks.Task;
+import util.Status;
+
+/**
+ * Основные операции TaskManager на заполненном менеджере (см. TaskManagerSeed) для каждой
+ * реализации из TaskManagerImplementation. Бенчмарки добавления наращивают менеджер
+ * в течение итерации; у FILE_BACKED каждое изменение переписывает снимок целиком.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = "-Xmx8g")
+public class TaskManagerBenchmark {
+    @Param({"IN_MEMORY", "CONCURRENT", "FILE_BACKED"})
+    public TaskManagerImplementation implementation;
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int size;
+
+    private TaskManagerSeed seed;
+    private File file;
+    private TaskManager manager;
+    private final SplittableRandom random = new SplittableRandom(42);
+
+    @Setup(Level.Iteration)
+    public void setUp() throws IOException {
+        file = File.createTempFile("bench-manager", ".csv");
+        seed = new TaskManagerSeed(size);
+        manager = implementation.create(seed, file);
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file.toPath());
+    }
+
+    @Benchmark
+    public Task addTask() {
+        Task task = new Task("Новая задача", "Описание", 0, Status.NEW, TaskManagerSeed.SLOT, seed.nextSlot());
+        manager.addTask(task);
+        return task;
+    }
+
+    // Отказ из-за пересечения: проверка интервалов без изменения менеджера
+    @Benchmark
+    public boolean addTaskOverlapping() {
+        Task task = new Task("Пересекается", "Описание", 0, Status.NEW, TaskManagerSeed.SLOT,
+                seed.occupiedSlot(random.nextInt(size)));
+        try {
+            manager.addTask(task);
+            return true;
+        } catch (TimeConflictException e) {
+            return false;
+        }
+    }
+
+    @Benchmark
+    public Subtask addSubtask() {
+        Subtask subtask = new Subtask("Новая подзадача", "Описание", 0, Status.NEW, seed.epicId,
+                TaskManagerSeed.SLOT, seed.nextSlot());
+        manager.addSubtask(subtask);
+        return subtask;
+    }
+
+    @Benchmark
+    public boolean addSubtaskOverlapping() {
+        Subtask subtask = new Subtask("Пересекается", "Описание", 0, Status.NEW, seed.epicId,
+                TaskManagerSeed.SLOT, seed.occupiedSlot(random.nextInt(size)));
+        try {
+            manager.addSubtask(subtask);
+            return true;
+        } catch (TimeConflictException e) {
+            return false;
+        }
+    }
+
+    // Включает побочный эффект — запись в историю просмотров
+    @Benchmark
+    public Task getTaskById() {
+        return manager.getTaskById(seed.taskIds[random.nextInt(seed.taskIds.length)]);
+    }
+
+    // Смена статуса подзадачи эпика с size / 2 подзадачами: пересчёт статуса и времени эпика
+    @Benchmark
+    public void updateSubtask() {
+        Subtask update = seed.subtasks[random.nextInt(seed.subtasks.length)].copy();
+        update.setStatus(Status.values()[random.nextInt(3)]);
+        manager.updateSubtask(update);
+    }
+
+    @Benchmark
+    public List<Task> getPrioritizedTasks() {
+        return manager.getPrioritizedTasks();
+    }
+}
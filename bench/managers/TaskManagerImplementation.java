@@ -0,0 +1,67 @@
+package managers;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import tasks.Epic;
+import tasks.Subtask;
+import tasks.Task;
+import util.CsvCodec;
+
+/**
+ * Реализации TaskManager, которые сравниваются в бенчмарках. Новая реализация добавляется
+ * сюда одной константой и сразу попадает во все бенчмарки с параметром implementation.
+ */
+public enum TaskManagerImplementation {
+    IN_MEMORY {
+        @Override
+        TaskManager create(TaskManagerSeed seed, File file) {
+            InMemoryTaskManager manager = new InMemoryTaskManager();
+            seed.fill(manager);
+            return manager;
+        }
+    },
+    CONCURRENT {
+        @Override
+        TaskManager create(TaskManagerSeed seed, File file) {
+            ConcurrentTaskManager manager = new ConcurrentTaskManager();
+            seed.fill(manager);
+            return manager;
+        }
+    },
+    FILE_BACKED {
+        // Заполнение через addTask перезаписывало бы файл на каждой задаче, поэтому
+        // снимок пишется один раз и загружается
+        @Override
+        TaskManager create(TaskManagerSeed seed, File file) {
+            InMemoryTaskManager source = new InMemoryTaskManager();
+            seed.fill(source);
+            writeCsv(source, file);
+            return FileBackedTaskManager.loadFromFile(file);
+        }
+    };
+
+    abstract TaskManager create(TaskManagerSeed seed, File file);
+
+    static void writeCsv(TaskManager source, File file) {
+        try (BufferedWriter writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+            CsvCodec codec = new CsvCodec();
+            writer.write("id,type,name,status,description,epic,duration,startTime,endTime\n");
+            for (Task task : source.getAllTasks()) {
+                codec.writeRow(task, writer);
+            }
+            for (Epic epic : source.getAllEpics()) {
+                codec.writeRow(epic, writer);
+            }
+            for (Subtask subtask : source.getAllSubtasks()) {
+                codec.writeRow(subtask, writer);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
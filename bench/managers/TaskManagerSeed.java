@@ -0,0 +1,59 @@
+package managers;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import tasks.Epic;
+import tasks.Subtask;
+import tasks.Task;
+import util.Status;
+
+/**
+ * Исходные данные бенчмарков: size / 2 обычных задач и один эпик с size / 2 подзадачами.
+ * Каждая задача занимает 30 минут в своём часе, поэтому следующие свободные часы
+ * (nextSlot) не пересекаются ни с чем, а начало любого занятого часа — пересекается.
+ */
+final class TaskManagerSeed {
+    static final LocalDateTime BASE = LocalDateTime.of(2024, 1, 1, 0, 0);
+    static final Duration SLOT = Duration.ofMinutes(30);
+
+    final int size;
+    final int[] taskIds;
+    final Subtask[] subtasks;
+    int epicId;
+    private long slots;
+
+    TaskManagerSeed(int size) {
+        this.size = size;
+        this.taskIds = new int[size / 2];
+        this.subtasks = new Subtask[size - size / 2];
+    }
+
+    // Заполняет менеджер; id задач назначает сам менеджер и запоминаются после каждого заполнения
+    void fill(TaskManager manager) {
+        slots = 0;
+        Epic epic = new Epic("Большой эпик", "Эпик со всеми подзадачами");
+        manager.addEpic(epic);
+        epicId = epic.getId();
+        for (int i = 0; i < subtasks.length; i++) {
+            Subtask subtask = new Subtask("Подзадача " + i, "Описание", 0, Status.NEW, epicId, SLOT, nextSlot());
+            manager.addSubtask(subtask);
+            subtasks[i] = subtask;
+        }
+        for (int i = 0; i < taskIds.length; i++) {
+            Task task = new Task("Задача " + i, "Описание", 0, Status.NEW, SLOT, nextSlot());
+            manager.addTask(task);
+            taskIds[i] = task.getId();
+        }
+    }
+
+    // Начало следующего свободного часа
+    LocalDateTime nextSlot() {
+        return BASE.plusHours(slots++);
+    }
+
+    // Начало одного из уже занятых часов
+    LocalDateTime occupiedSlot(int index) {
+        return BASE.plusHours(Math.floorMod(index, size));
+    }
+}
@@ -0,0 +1,76 @@
+package managers;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import tasks.Task;
+import util.Status;
+
+/**
+ * Сравнение проверки пересечений через TimeIntervalIndex с прежним линейным проходом
+ * по всем задачам. Время индекса должно расти логарифмически с размером календаря.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TimeIntervalIndexBenchmark {
+    private static final LocalDateTime BASE = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int size;
+
+    private TimeIntervalIndex index;
+    private List<Task> timedTasks;
+    private Task[] probes;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        index = new TimeIntervalIndex();
+        timedTasks = new ArrayList<>(size);
+        // Задачи по 30 минут каждый час: половина пробников попадает в задачу, половина в промежуток
+        for (int i = 0; i < size; i++) {
+            Task task = new Task("Task " + i, "Desc", i + 1, Status.NEW,
+                    Duration.ofMinutes(30), BASE.plusHours(i));
+            index.add(task);
+            timedTasks.add(task);
+        }
+        Random random = new Random(42);
+        probes = new Task[1024];
+        for (int i = 0; i < probes.length; i++) {
+            probes[i] = new Task("Probe", "Desc", -1, Status.NEW,
+                    Duration.ofMinutes(20), BASE.plusMinutes(random.nextInt(size * 60)));
+        }
+    }
+
+    private Task nextProbe() {
+        return probes[next++ & (probes.length - 1)];
+    }
+
+    @Benchmark
+    public boolean indexHasOverlap() {
+        return index.hasOverlap(nextProbe());
+    }
+
+    @Benchmark
+    public List<Task> indexFindOverlaps() {
+        return index.findOverlaps(nextProbe());
+    }
+
+    // Прежняя реализация InMemoryTaskManager.hasTimeOverlap
+    @Benchmark
+    public boolean linearScan() {
+        Task probe = nextProbe();
+        return timedTasks.stream()
+                .anyMatch(task -> task.getStartTime().isBefore(probe.getEndTime())
+                        && task.getEndTime().isAfter(probe.getStartTime()));
+    }
+}
@@ -0,0 +1,37 @@
+package server.loadtest;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Id созданных задач одного типа: случайная выборка и изъятие для удаления
+final class IdPool {
+    private int[] ids = new int[1024];
+    private int size;
+
+    synchronized void add(int id) {
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, size * 2);
+        }
+        ids[size++] = id;
+    }
+
+    // Случайный id или 0, если пул пуст
+    synchronized int pick() {
+        return size == 0 ? 0 : ids[ThreadLocalRandom.current().nextInt(size)];
+    }
+
+    // Случайный id, который удаляется из пула, или 0
+    synchronized int take() {
+        if (size == 0) {
+            return 0;
+        }
+        int index = ThreadLocalRandom.current().nextInt(size);
+        int id = ids[index];
+        ids[index] = ids[--size];
+        return id;
+    }
+
+    synchronized int size() {
+        return size;
+    }
+}
@@ -0,0 +1,57 @@
+package server.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+// Общее состояние прогона для построения запросов: адрес сервера и пулы созданных id
+final class LoadContext {
+    private final URI base;
+    private final Duration timeout;
+    private final int pageSize;
+    private final IdPool tasks = new IdPool();
+    private final IdPool subtasks = new IdPool();
+    private final IdPool epics = new IdPool();
+
+    LoadContext(URI base, Duration timeout, int pageSize) {
+        this.base = base;
+        this.timeout = timeout;
+        this.pageSize = pageSize;
+    }
+
+    HttpRequest get(String path) {
+        return request(path).GET().build();
+    }
+
+    HttpRequest post(String path, String json) {
+        return request(path)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json, StandardCharsets.UTF_8))
+                .build();
+    }
+
+    HttpRequest delete(String path) {
+        return request(path).DELETE().build();
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(base.resolve(path)).timeout(timeout);
+    }
+
+    int pageSize() {
+        return pageSize;
+    }
+
+    IdPool tasks() {
+        return tasks;
+    }
+
+    IdPool subtasks() {
+        return subtasks;
+    }
+
+    IdPool epics() {
+        return epics;
+    }
+}
@@ -0,0 +1,286 @@
+package server.loadtest;
+
+import com.google.gson.JsonParser;
+import managers.ConcurrentTaskManager;
+import server.HttpServerConfig;
+import server.HttpTaskServer;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Нагрузочный прогон HttpTaskServer на localhost: смесь запросов из LoadTestConfig
+ * отправляется через java.net.http.HttpClient, каждый запрос — в своём виртуальном потоке.
+ * Запуск (классы src и bench плюс gson на classpath):
+ * <pre>
+ * java server.loadtest.LoadTest --mode=open --rate=2000 --duration=30 --out=load.json
+ * java server.loadtest.LoadTest --mode=closed --concurrency=128 --target=http://localhost:8080/
+ * java server.loadtest.LoadTest --mix=GET_TASK=70,POST_TASK=20,DELETE_TASK=10
+ * </pre>
+ * Без --target поднимается собственный сервер (ConcurrentTaskManager, VIRTUAL_THREADS).
+ * Итог печатается таблицей, полный отчёт в JSON пишется в --out (по умолчанию в stdout).
+ */
+public final class LoadTest {
+    private final LoadTestConfig config;
+    private final EnumMap<Operation, LatencyHistogram> histograms = new EnumMap<>(Operation.class);
+    private final EnumMap<Operation, LongAdder> errors = new EnumMap<>(Operation.class);
+    private final Map<Integer, LongAdder> statusCodes = new ConcurrentHashMap<>();
+    private final LongAdder skipped = new LongAdder();
+    private final AtomicLong lastCompletion = new AtomicLong();
+    private final Operation[] operations;
+    private final int[] cumulativeWeights;
+    private HttpClient client;
+    private LoadContext context;
+
+    LoadTest(LoadTestConfig config) {
+        this.config = config;
+        Map<Operation, Integer> mix = config.getMix();
+        operations = mix.entrySet().stream().filter(entry -> entry.getValue() > 0)
+                .map(Map.Entry::getKey).toArray(Operation[]::new);
+        cumulativeWeights = new int[operations.length];
+        int total = 0;
+        for (int i = 0; i < operations.length; i++) {
+            total += mix.get(operations[i]);
+            cumulativeWeights[i] = total;
+            histograms.put(operations[i], new LatencyHistogram());
+            errors.put(operations[i], new LongAdder());
+        }
+    }
+
+    LoadTestReport run() throws IOException, InterruptedException {
+        HttpTaskServer server = null;
+        URI target = config.getTarget();
+        if (target == null) {
+            server = new HttpTaskServer(new ConcurrentTaskManager(), HttpServerConfig.defaults().withPort(0)
+                    .withExecutionMode(HttpServerConfig.ExecutionMode.VIRTUAL_THREADS));
+            server.start();
+            target = URI.create("http://localhost:" + server.getPort() + "/");
+        }
+        ExecutorService clientExecutor = Executors.newVirtualThreadPerTaskExecutor();
+        try {
+            client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(config.getRequestTimeout())
+                    .executor(clientExecutor)
+                    .build();
+            context = new LoadContext(target, config.getRequestTimeout(), config.getPageSize());
+            seed();
+            long measuredFrom = config.getMode() == LoadTestConfig.Mode.OPEN ? runOpen() : runClosed();
+            double seconds = Math.max(0, lastCompletion.get() - measuredFrom) / 1e9;
+            return LoadTestReport.of(config, target.toString(), seconds, histograms, sums(errors),
+                    sums(statusCodes), skipped.sum());
+        } finally {
+            clientExecutor.shutdown();
+            if (server != null) {
+                server.stop();
+            }
+        }
+    }
+
+    // Эпики, задачи и подзадачи, на которые будут ссылаться запросы по id
+    private void seed() throws InterruptedException {
+        int count = config.getSeedTasks();
+        try (ExecutorService seeders = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < Math.max(1, count / 100); i++) {
+                seeders.execute(() -> send(Operation.POST_EPIC, System.nanoTime(), false));
+            }
+        }
+        try (ExecutorService seeders = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < count; i++) {
+                Operation operation = i % 4 == 3 ? Operation.POST_SUBTASK : Operation.POST_TASK;
+                seeders.execute(() -> send(operation, System.nanoTime(), false));
+            }
+        }
+    }
+
+    /*
+     * Открытая модель: i-й запрос планируется на start + i / rate и отправляется в этот момент,
+     * даже если предыдущие ещё не ответили. Задержка отсчитывается от запланированного момента,
+     * так что отставание генератора или сервера попадает в хвост распределения.
+     */
+    private long runOpen() {
+        long start = System.nanoTime();
+        long measuredFrom = start + config.getWarmup().toNanos();
+        long end = measuredFrom + config.getDuration().toNanos();
+        double interval = 1e9 / config.getRate();
+        try (ExecutorService requests = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (long i = 0; ; i++) {
+                long scheduled = start + (long) (i * interval);
+                if (scheduled >= end) {
+                    break;
+                }
+                waitUntil(scheduled);
+                boolean measured = scheduled >= measuredFrom;
+                requests.execute(() -> send(pick(), scheduled, measured));
+            }
+        }
+        return measuredFrom;
+    }
+
+    // Закрытая модель: concurrency клиентов, каждый отправляет следующий запрос после ответа
+    private long runClosed() {
+        long start = System.nanoTime();
+        long measuredFrom = start + config.getWarmup().toNanos();
+        long end = measuredFrom + config.getDuration().toNanos();
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < config.getConcurrency(); i++) {
+                clients.execute(() -> {
+                    long now;
+                    while ((now = System.nanoTime()) < end) {
+                        send(pick(), now, now >= measuredFrom);
+                    }
+                });
+            }
+        }
+        return measuredFrom;
+    }
+
+    private void send(Operation operation, long startNanos, boolean measured) {
+        HttpRequest request = operation.next(context);
+        if (request == null) {
+            skipped.increment();
+            return;
+        }
+        int status = 0;
+        String body = null;
+        try {
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            status = response.statusCode();
+            body = response.body();
+        } catch (IOException e) {
+            // Сбой соединения или тайм-аут: учитывается как ответ с кодом 0
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        long finished = System.nanoTime();
+        IdPool created = operation.createdPool(context);
+        if (created != null && status == 201 && body != null) {
+            created.add(JsonParser.parseString(body).getAsJsonObject().get("id").getAsInt());
+        }
+        if (!measured) {
+            return;
+        }
+        histograms.get(operation).record((finished - startNanos) / 1_000);
+        statusCodes.computeIfAbsent(status, code -> new LongAdder()).increment();
+        if (status == 0 || status >= 500) {
+            errors.get(operation).increment();
+        }
+        lastCompletion.accumulateAndGet(finished, Math::max);
+    }
+
+    private Operation pick() {
+        int value = ThreadLocalRandom.current().nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; ; i++) {
+            if (value < cumulativeWeights[i]) {
+                return operations[i];
+            }
+        }
+    }
+
+    private static void waitUntil(long nanoTime) {
+        long delay;
+        while ((delay = nanoTime - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(delay);
+        }
+    }
+
+    private static EnumMap<Operation, Long> sums(EnumMap<Operation, LongAdder> adders) {
+        EnumMap<Operation, Long> result = new EnumMap<>(Operation.class);
+        adders.forEach((key, adder) -> result.put(key, adder.sum()));
+        return result;
+    }
+
+    private static Map<Integer, Long> sums(Map<Integer, LongAdder> adders) {
+        Map<Integer, Long> result = new TreeMap<>();
+        adders.forEach((key, adder) -> result.put(key, adder.sum()));
+        return result;
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = LoadTestConfig.defaults();
+        Path out = null;
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (!arg.startsWith("--") || separator < 0) {
+                throw new IllegalArgumentException("Ожидается --параметр=значение: " + arg);
+            }
+            String value = arg.substring(separator + 1);
+            switch (arg.substring(2, separator)) {
+                case "target":
+                    config = config.withTarget(URI.create(value));
+                    break;
+                case "mode":
+                    config = config.withMode(LoadTestConfig.Mode.valueOf(value.toUpperCase()));
+                    break;
+                case "rate":
+                    config = config.withRate(Integer.parseInt(value));
+                    break;
+                case "concurrency":
+                    config = config.withConcurrency(Integer.parseInt(value));
+                    break;
+                case "warmup":
+                    config = config.withWarmup(Duration.ofSeconds(Long.parseLong(value)));
+                    break;
+                case "duration":
+                    config = config.withDuration(Duration.ofSeconds(Long.parseLong(value)));
+                    break;
+                case "timeout":
+                    config = config.withRequestTimeout(Duration.ofSeconds(Long.parseLong(value)));
+                    break;
+                case "seed":
+                    config = config.withSeedTasks(Integer.parseInt(value));
+                    break;
+                case "page":
+                    config = config.withPageSize(Integer.parseInt(value));
+                    break;
+                case "mix":
+                    config = config.withMix(parseMix(value));
+                    break;
+                case "out":
+                    out = Path.of(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Неизвестный параметр: " + arg);
+            }
+        }
+
+        LoadTestReport report = new LoadTest(config).run();
+        System.out.println(report.summary());
+        if (out == null) {
+            System.out.println(report.toJson());
+        } else {
+            Files.writeString(out, report.toJson(), StandardCharsets.UTF_8);
+        }
+    }
+
+    // GET_TASK=70,POST_TASK=20 — веса операций
+    private static Map<Operation, Integer> parseMix(String value) {
+        Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+        for (String part : value.split(",")) {
+            String[] entry = part.split("=", 2);
+            if (entry.length != 2) {
+                throw new IllegalArgumentException("Ожидается ОПЕРАЦИЯ=вес: " + part);
+            }
+            mix.put(Operation.valueOf(entry[0].trim().toUpperCase()), Integer.parseInt(entry[1].trim()));
+        }
+        return mix;
+    }
+}
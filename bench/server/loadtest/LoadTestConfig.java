@@ -0,0 +1,172 @@
+package server.loadtest;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Параметры нагрузочного прогона. Объект неизменяемый: методы with* возвращают новую конфигурацию.
+ * <p>
+ * OPEN — запросы отправляются с постоянной частотой rate независимо от ответов, а задержка
+ * считается от запланированного момента отправки, поэтому медленные ответы не «прячут»
+ * очередь (coordinated omission). CLOSED — concurrency клиентов шлют запросы друг за другом;
+ * так измеряется предельная пропускная способность, но не хвост задержек под заданной нагрузкой.
+ */
+final class LoadTestConfig {
+    enum Mode {
+        OPEN,
+        CLOSED
+    }
+
+    private final URI target;
+    private final Mode mode;
+    private final int rate;
+    private final int concurrency;
+    private final Duration warmup;
+    private final Duration duration;
+    private final Duration requestTimeout;
+    private final Map<Operation, Integer> mix;
+    private final int seedTasks;
+    private final int pageSize;
+
+    private LoadTestConfig(URI target, Mode mode, int rate, int concurrency, Duration warmup, Duration duration,
+                           Duration requestTimeout, Map<Operation, Integer> mix, int seedTasks, int pageSize) {
+        if (rate <= 0 || concurrency <= 0 || pageSize <= 0 || seedTasks < 0) {
+            throw new IllegalArgumentException("rate, concurrency и pageSize должны быть положительными");
+        }
+        if (duration.isNegative() || duration.isZero() || warmup.isNegative()) {
+            throw new IllegalArgumentException("Некорректная длительность прогона");
+        }
+        if (mix.values().stream().mapToInt(Integer::intValue).sum() <= 0
+                || mix.values().stream().anyMatch(weight -> weight < 0)) {
+            throw new IllegalArgumentException("Веса операций должны быть неотрицательными, хотя бы один — положительным");
+        }
+        this.target = target;
+        this.mode = Objects.requireNonNull(mode);
+        this.rate = rate;
+        this.concurrency = concurrency;
+        this.warmup = warmup;
+        this.duration = duration;
+        this.requestTimeout = Objects.requireNonNull(requestTimeout);
+        this.mix = Collections.unmodifiableMap(new EnumMap<>(mix));
+        this.seedTasks = seedTasks;
+        this.pageSize = pageSize;
+    }
+
+    // Чтение преобладает: списки, задача по id, история; запись и удаление — около трети
+    static LoadTestConfig defaults() {
+        Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+        mix.put(Operation.GET_TASKS, 15);
+        mix.put(Operation.GET_TASK, 25);
+        mix.put(Operation.POST_TASK, 15);
+        mix.put(Operation.DELETE_TASK, 10);
+        mix.put(Operation.GET_SUBTASKS, 5);
+        mix.put(Operation.POST_SUBTASK, 5);
+        mix.put(Operation.GET_EPICS, 5);
+        mix.put(Operation.POST_EPIC, 2);
+        mix.put(Operation.GET_HISTORY, 8);
+        mix.put(Operation.GET_PRIORITIZED, 10);
+        return new LoadTestConfig(null, Mode.OPEN, 1_000, 64, Duration.ofSeconds(5), Duration.ofSeconds(30),
+                Duration.ofSeconds(10), mix, 1_000, 50);
+    }
+
+    // null — поднять HttpTaskServer на свободном порту localhost
+    LoadTestConfig withTarget(URI target) {
+        return new LoadTestConfig(target, mode, rate, concurrency, warmup, duration, requestTimeout, mix,
+                seedTasks, pageSize);
+    }
+
+    LoadTestConfig withMode(Mode mode) {
+        return new LoadTestConfig(target, mode, rate, concurrency, warmup, duration, requestTimeout, mix,
+                seedTasks, pageSize);
+    }
+
+    // Запросов в секунду в режиме OPEN
+    LoadTestConfig withRate(int rate) {
+        return new LoadTestConfig(target, mode, rate, concurrency, warmup, duration, requestTimeout, mix,
+                seedTasks, pageSize);
+    }
+
+    // Число клиентов в режиме CLOSED
+    LoadTestConfig withConcurrency(int concurrency) {
+        return new LoadTestConfig(target, mode, rate, concurrency, warmup, duration, requestTimeout, mix,
+                seedTasks, pageSize);
+    }
+
+    // Запросы прогрева выполняются, но в результаты не попадают
+    LoadTestConfig withWarmup(Duration warmup) {
+        return new LoadTestConfig(target, mode, rate, concurrency, warmup, duration, requestTimeout, mix,
+                seedTasks, pageSize);
+    }
+
+    LoadTestConfig withDuration(Duration duration) {
+        return new LoadTestConfig(target, mode, rate, concurrency, warmup, duration, requestTimeout, mix,
+                seedTasks, pageSize);
+    }
+
+    LoadTestConfig withRequestTimeout(Duration requestTimeout) {
+        return new LoadTestConfig(target, mode, rate, concurrency, warmup, duration, requestTimeout, mix,
+                seedTasks, pageSize);
+    }
+
+    // Относительные веса операций; операции без веса не выполняются
+    LoadTestConfig withMix(Map<Operation, Integer> mix) {
+        return new LoadTestConfig(target, mode, rate, concurrency, warmup, duration, requestTimeout,
+                mix.isEmpty() ? Map.of() : new EnumMap<>(mix), seedTasks, pageSize);
+    }
+
+    // Сколько задач и подзадач создать до начала прогона, чтобы запросам по id было что читать
+    LoadTestConfig withSeedTasks(int seedTasks) {
+        return new LoadTestConfig(target, mode, rate, concurrency, warmup, duration, requestTimeout, mix,
+                seedTasks, pageSize);
+    }
+
+    // Параметр limit для списков
+    LoadTestConfig withPageSize(int pageSize) {
+        return new LoadTestConfig(target, mode, rate, concurrency, warmup, duration, requestTimeout, mix,
+                seedTasks, pageSize);
+    }
+
+    URI getTarget() {
+        return target;
+    }
+
+    Mode getMode() {
+        return mode;
+    }
+
+    int getRate() {
+        return rate;
+    }
+
+    int getConcurrency() {
+        return concurrency;
+    }
+
+    Duration getWarmup() {
+        return warmup;
+    }
+
+    Duration getDuration() {
+        return duration;
+    }
+
+    Duration getRequestTimeout() {
+        return requestTimeout;
+    }
+
+    Map<Operation, Integer> getMix() {
+        return mix;
+    }
+
+    int getSeedTasks() {
+        return seedTasks;
+    }
+
+    int getPageSize() {
+        return pageSize;
+    }
+}
@@ -0,0 +1,119 @@
+package server.loadtest;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Результат прогона: пропускная способность, коды ответов и задержки (мкс) по всем запросам
+ * и по каждой операции. Ошибки — сбои соединения, тайм-ауты и ответы 5xx; ответы 4xx
+ * (например, 404 на уже удалённую задачу) видны в statusCodes.
+ */
+final class LoadTestReport {
+    static final class Latency {
+        long count;
+        double mean;
+        long p50;
+        long p90;
+        long p99;
+        long p999;
+        long p9999;
+        long max;
+        Map<String, Long> distribution = new LinkedHashMap<>();
+
+        static Latency of(LatencyHistogram histogram) {
+            Latency latency = new Latency();
+            latency.count = histogram.count();
+            latency.mean = Math.round(histogram.mean() * 10) / 10.0;
+            latency.p50 = histogram.valueAtPercentile(50);
+            latency.p90 = histogram.valueAtPercentile(90);
+            latency.p99 = histogram.valueAtPercentile(99);
+            latency.p999 = histogram.valueAtPercentile(99.9);
+            latency.p9999 = histogram.valueAtPercentile(99.99);
+            latency.max = histogram.max();
+            // Точки как в outputPercentileDistribution HdrHistogram: 50, 75, 87.5, ... — по половине остатка
+            for (double remaining = 50; remaining >= 0.001; remaining /= 2) {
+                double percentile = 100 - remaining;
+                latency.distribution.put(String.format(Locale.ROOT, "%.4f", percentile),
+                        histogram.valueAtPercentile(percentile));
+            }
+            latency.distribution.put("100.0000", histogram.max());
+            return latency;
+        }
+    }
+
+    static final class OperationReport {
+        long errors;
+        Latency latencyMicros;
+    }
+
+    String mode;
+    String target;
+    Integer targetRate;
+    Integer concurrency;
+    double durationSeconds;
+    long requests;
+    long errors;
+    long skipped;
+    double requestsPerSecond;
+    Map<String, Long> statusCodes = new TreeMap<>();
+    Latency latencyMicros;
+    Map<String, OperationReport> operations = new LinkedHashMap<>();
+
+    static LoadTestReport of(LoadTestConfig config, String target, double durationSeconds,
+                             EnumMap<Operation, LatencyHistogram> histograms, EnumMap<Operation, Long> errors,
+                             Map<Integer, Long> statusCodes, long skipped) {
+        LoadTestReport report = new LoadTestReport();
+        report.mode = config.getMode().name();
+        report.target = target;
+        if (config.getMode() == LoadTestConfig.Mode.OPEN) {
+            report.targetRate = config.getRate();
+        } else {
+            report.concurrency = config.getConcurrency();
+        }
+        report.durationSeconds = Math.round(durationSeconds * 1000) / 1000.0;
+        LatencyHistogram all = new LatencyHistogram();
+        histograms.forEach((operation, histogram) -> {
+            all.add(histogram);
+            OperationReport operationReport = new OperationReport();
+            operationReport.errors = errors.getOrDefault(operation, 0L);
+            operationReport.latencyMicros = Latency.of(histogram);
+            report.operations.put(operation.name(), operationReport);
+            report.errors += operationReport.errors;
+        });
+        report.requests = all.count();
+        report.skipped = skipped;
+        report.requestsPerSecond = durationSeconds > 0 ? Math.round(all.count() / durationSeconds * 10) / 10.0 : 0;
+        statusCodes.forEach((code, count) -> report.statusCodes.put(code == 0 ? "failed" : String.valueOf(code), count));
+        report.latencyMicros = Latency.of(all);
+        return report;
+    }
+
+    String toJson() {
+        Gson gson = new GsonBuilder().setPrettyPrinting().create();
+        return gson.toJson(this);
+    }
+
+    // Краткая таблица для консоли
+    String summary() {
+        StringBuilder builder = new StringBuilder();
+        builder.append(String.format(Locale.ROOT, "%s %s: %d запросов за %.1f с, %.1f запросов/с, ошибок %d%n",
+                mode, target, requests, durationSeconds, requestsPerSecond, errors));
+        builder.append(String.format(Locale.ROOT, "%-16s %8s %9s %9s %9s %9s %9s %9s%n",
+                "операция, мкс", "count", "mean", "p50", "p90", "p99", "p99.9", "max"));
+        appendRow(builder, "ALL", latencyMicros);
+        operations.forEach((name, operation) -> appendRow(builder, name, operation.latencyMicros));
+        builder.append("Коды ответов: ").append(statusCodes);
+        return builder.toString();
+    }
+
+    private static void appendRow(StringBuilder builder, String name, Latency latency) {
+        builder.append(String.format(Locale.ROOT, "%-16s %8d %9.1f %9d %9d %9d %9d %9d%n", name, latency.count,
+                latency.mean, latency.p50, latency.p90, latency.p99, latency.p999, latency.max));
+    }
+}
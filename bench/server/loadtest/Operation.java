@@ -0,0 +1,98 @@
+package server.loadtest;
+
+import java.net.http.HttpRequest;
+
+/**
+ * Запросы, из которых составляется нагрузка. Запрос по id берёт id из пула созданных задач;
+ * если пул пуст, операция не выполняется (next возвращает null) и не учитывается.
+ */
+enum Operation {
+    GET_TASKS {
+        @Override
+        HttpRequest next(LoadContext context) {
+            return context.get("/tasks?limit=" + context.pageSize());
+        }
+    },
+    GET_TASK {
+        @Override
+        HttpRequest next(LoadContext context) {
+            int id = context.tasks().pick();
+            return id == 0 ? null : context.get("/tasks/" + id);
+        }
+    },
+    POST_TASK {
+        @Override
+        HttpRequest next(LoadContext context) {
+            return context.post("/tasks", "{\"name\":\"Нагрузка\",\"description\":\"Задача нагрузочного теста\","
+                    + "\"id\":0,\"status\":\"NEW\"}");
+        }
+    },
+    DELETE_TASK {
+        @Override
+        HttpRequest next(LoadContext context) {
+            int id = context.tasks().take();
+            return id == 0 ? null : context.delete("/tasks/" + id);
+        }
+    },
+    GET_SUBTASKS {
+        @Override
+        HttpRequest next(LoadContext context) {
+            return context.get("/subtasks?limit=" + context.pageSize());
+        }
+    },
+    POST_SUBTASK {
+        @Override
+        HttpRequest next(LoadContext context) {
+            int epicId = context.epics().pick();
+            return epicId == 0 ? null : context.post("/subtasks", "{\"name\":\"Нагрузка\",\"description\":\"Подзадача\","
+                    + "\"id\":0,\"status\":\"NEW\",\"epicId\":" + epicId + "}");
+        }
+    },
+    DELETE_SUBTASK {
+        @Override
+        HttpRequest next(LoadContext context) {
+            int id = context.subtasks().take();
+            return id == 0 ? null : context.delete("/subtasks/" + id);
+        }
+    },
+    GET_EPICS {
+        @Override
+        HttpRequest next(LoadContext context) {
+            return context.get("/epics?limit=" + context.pageSize());
+        }
+    },
+    POST_EPIC {
+        @Override
+        HttpRequest next(LoadContext context) {
+            return context.post("/epics", "{\"name\":\"Нагрузка\",\"description\":\"Эпик\",\"id\":0,\"status\":\"NEW\"}");
+        }
+    },
+    GET_HISTORY {
+        @Override
+        HttpRequest next(LoadContext context) {
+            return context.get("/history");
+        }
+    },
+    GET_PRIORITIZED {
+        @Override
+        HttpRequest next(LoadContext context) {
+            return context.get("/prioritized?limit=" + context.pageSize());
+        }
+    };
+
+    abstract HttpRequest next(LoadContext context);
+
+    // Пул, в который попадает id созданной задачи; null — операция ничего не создаёт
+    IdPool createdPool(LoadContext context) {
+        switch (this) {
+            case POST_TASK:
+                return context.tasks();
+            case POST_SUBTASK:
+                return context.subtasks();
+            case POST_EPIC:
+                return context.epics();
+            default:
+                return null;
+        }
+    }
+}
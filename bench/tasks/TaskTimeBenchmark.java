@@ -0,0 +1,67 @@
+package tasks;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import util.Status;
+
+/**
+ * Цена работы со временем задачи: прежний расчёт endTime через startTime.plus(duration)
+ * на каждый вызов против примитивного кеша в Task. Запускать с -prof gc и смотреть
+ * gc.alloc.rate.norm (байт на операцию): у кешированных вариантов он должен быть 0.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TaskTimeBenchmark {
+    private static final LocalDateTime BASE = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    private Task[] tasks;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        tasks = new Task[1024];
+        for (int i = 0; i < tasks.length; i++) {
+            tasks[i] = new Task("Task " + i, "Desc", i + 1, Status.NEW,
+                    Duration.ofMinutes(15 + random.nextInt(90)), BASE.plusMinutes(random.nextInt(100_000)))
+                    .freeze();
+        }
+    }
+
+    private Task nextTask() {
+        return tasks[next++ & (tasks.length - 1)];
+    }
+
+    @Benchmark
+    public LocalDateTime legacyEndTime() {
+        Task task = nextTask();
+        return task.getStartTime().plus(task.getDuration());
+    }
+
+    @Benchmark
+    public LocalDateTime cachedEndTime() {
+        return nextTask().getEndTime();
+    }
+
+    // Прежняя проверка пересечения двух задач
+    @Benchmark
+    public boolean legacyOverlap() {
+        Task a = nextTask();
+        Task b = nextTask();
+        return a.getStartTime().isBefore(b.getStartTime().plus(b.getDuration()))
+                && a.getStartTime().plus(a.getDuration()).isAfter(b.getStartTime());
+    }
+
+    @Benchmark
+    public boolean primitiveOverlap() {
+        return nextTask().overlaps(nextTask());
+    }
+}
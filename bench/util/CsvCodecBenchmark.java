@@ -0,0 +1,92 @@
+package util;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import tasks.Subtask;
+import tasks.Task;
+
+/**
+ * Пропускная способность CSV в МБ/с (счётчик megabytes, байты UTF-8 строк снимка):
+ * запись через TaskUtils.toCsv + "\n" против CsvCodec.writeRow и разбор строк CsvCodec.decode.
+ * Каждый вызов обрабатывает блок из 10 000 задач; смотрите строку megabytes в отчёте,
+ * для сравнения аллокаций — запуск с -prof gc.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CsvCodecBenchmark {
+    private static final LocalDateTime BASE = LocalDateTime.of(2024, 1, 1, 9, 0);
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Throughput {
+        public double megabytes;
+    }
+
+    private final List<Task> tasks = new ArrayList<>();
+    private final CsvCodec codec = new CsvCodec();
+    private final Writer sink = Writer.nullWriter();
+    private char[] text;
+    private int[] lineEnds;
+    private double blockMegabytes;
+
+    @Setup
+    public void setUp() {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 1; i <= 10_000; i++) {
+            Task task = i % 3 == 0
+                    ? new Task("Задача " + i, "Описание, с запятой и \"кавычками\"", i, Status.NEW, null, null)
+                    : new Subtask("Subtask " + i, "Plain description", i, Status.IN_PROGRESS, i / 10 + 1,
+                    Duration.ofMinutes(45), BASE.plusMinutes(i * 50L));
+            tasks.add(task);
+            builder.append(task.toCsv()).append('\n');
+        }
+        text = builder.toString().toCharArray();
+        lineEnds = new int[tasks.size()];
+        for (int i = 0, line = 0; i < text.length; i++) {
+            if (text[i] == '\n') {
+                lineEnds[line++] = i;
+            }
+        }
+        blockMegabytes = builder.toString().getBytes(StandardCharsets.UTF_8).length / 1_000_000.0;
+    }
+
+    @Benchmark
+    public void encodeTaskUtils(Throughput throughput) throws IOException {
+        for (Task task : tasks) {
+            String extra = task instanceof Subtask ? String.valueOf(((Subtask) task).getEpicId()) : "";
+            sink.write(TaskUtils.toCsv(task, extra) + "\n");
+        }
+        throughput.megabytes += blockMegabytes;
+    }
+
+    @Benchmark
+    public void encodeCodec(Throughput throughput) throws IOException {
+        for (Task task : tasks) {
+            codec.writeRow(task, sink);
+        }
+        throughput.megabytes += blockMegabytes;
+    }
+
+    @Benchmark
+    public void decodeCodec(Throughput throughput, Blackhole blackhole) {
+        int start = 0;
+        for (int end : lineEnds) {
+            blackhole.consume(codec.decode(text, start, end));
+            start = end + 1;
+        }
+        throughput.megabytes += blockMegabytes;
+    }
+}
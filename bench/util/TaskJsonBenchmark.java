@@ -0,0 +1,110 @@
+package util;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import tasks.Epic;
+import tasks.Subtask;
+import tasks.Task;
+
+/**
+ * JSON задач: прежний рефлективный Gson (только адаптеры Duration и LocalDateTime) против общего
+ * Managers.getGson() с потоковыми адаптерами TaskAdapterFactory. Операция — запись блока из
+ * 1 000 задач в JsonWriter (как в потоковом ответе сервера) или разбор массива из 1 000 подзадач.
+ * writeBinary и readBinary — те же задачи в двоичном формате TaskWireFormat (Accept:
+ * application/x-kanban-binary). Смотрите ops/s, для сравнения аллокаций — запуск с -prof gc.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TaskJsonBenchmark {
+    private static final LocalDateTime BASE = LocalDateTime.of(2024, 1, 1, 9, 0);
+
+    private final Gson reflective = new GsonBuilder()
+            .registerTypeAdapter(Duration.class, new DurationAdapter())
+            .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeAdapter())
+            .create();
+    private final Gson adapters = Managers.getGson();
+    private final List<Task> tasks = new ArrayList<>();
+    private String subtasksJson;
+    private byte[] subtasksBinary;
+
+    @Setup
+    public void setUp() {
+        List<Subtask> subtasks = new ArrayList<>();
+        for (int i = 1; i <= 1_000; i++) {
+            if (i % 10 == 0) {
+                Epic epic = new Epic("Epic " + i, "Description", List.of(i + 1, i + 2, i + 3));
+                epic.setId(i);
+                tasks.add(epic);
+            } else if (i % 3 == 0) {
+                tasks.add(new Task("Task " + i, "Description", i, Status.NEW, Duration.ofMinutes(30),
+                        BASE.plusMinutes(i * 40L)));
+            } else {
+                Subtask subtask = new Subtask("Subtask " + i, "Description", i, Status.IN_PROGRESS, i / 10 * 10,
+                        Duration.ofMinutes(45), BASE.plusMinutes(i * 50L));
+                tasks.add(subtask);
+                subtasks.add(subtask);
+            }
+        }
+        subtasksJson = reflective.toJson(subtasks);
+        subtasksBinary = TaskWireFormat.encode(subtasks);
+    }
+
+    @Benchmark
+    public void writeReflective() throws IOException {
+        write(reflective);
+    }
+
+    @Benchmark
+    public void writeAdapters() throws IOException {
+        write(adapters);
+    }
+
+    @Benchmark
+    public void readReflective(Blackhole blackhole) {
+        blackhole.consume(reflective.fromJson(subtasksJson, Subtask[].class));
+    }
+
+    @Benchmark
+    public void readAdapters(Blackhole blackhole) {
+        blackhole.consume(adapters.fromJson(subtasksJson, Subtask[].class));
+    }
+
+    @Benchmark
+    public void writeBinary() throws IOException {
+        TaskWireFormat.Encoder encoder = new TaskWireFormat.Encoder(OutputStream.nullOutputStream());
+        for (Task task : tasks) {
+            encoder.write(task);
+        }
+    }
+
+    @Benchmark
+    public void readBinary(Blackhole blackhole) {
+        blackhole.consume(TaskWireFormat.decode(subtasksBinary));
+    }
+
+    private void write(Gson gson) throws IOException {
+        try (JsonWriter writer = new JsonWriter(Writer.nullWriter())) {
+            writer.beginArray();
+            for (Task task : tasks) {
+                gson.toJson(task, task.getClass(), writer);
+            }
+            writer.endArray();
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package managers;
+
+// Семантика TaskManager.applyBatch при ошибке в одной из операций
+public enum BatchMode {
+    // Всё или ничего: при любой ошибке пакет не применяется
+    ATOMIC,
+    // Операции применяются по порядку, ошибочные пропускаются
+    PER_ITEM
+}
@@ -0,0 +1,58 @@
+package managers;
+
+import java.util.Objects;
+
+import tasks.Task;
+
+/**
+ * Одна операция пакета для TaskManager.applyBatch: добавление или обновление задачи любого
+ * типа либо удаление по id. Тип задачи определяется её классом (Task, Epic, Subtask).
+ * Объект неизменяемый; переданная задача в пакете не меняется — id добавленной задачи
+ * возвращается в BatchResult.
+ */
+public final class BatchOperation {
+    public enum Kind {
+        CREATE,
+        UPDATE,
+        DELETE
+    }
+
+    private final Kind kind;
+    private final Task task;
+    private final int id;
+
+    private BatchOperation(Kind kind, Task task, int id) {
+        this.kind = kind;
+        this.task = task;
+        this.id = id;
+    }
+
+    // id задачи сохраняется, если он положительный и свободен; иначе назначается новый
+    public static BatchOperation create(Task task) {
+        return new BatchOperation(Kind.CREATE, Objects.requireNonNull(task, "Задача не может быть null"), 0);
+    }
+
+    // У эпика обновляются только имя и описание, как в updateEpic
+    public static BatchOperation update(Task task) {
+        return new BatchOperation(Kind.UPDATE, Objects.requireNonNull(task, "Задача не может быть null"),
+                task.getId());
+    }
+
+    // Удаление задачи, эпика (вместе с подзадачами) или подзадачи
+    public static BatchOperation delete(int id) {
+        return new BatchOperation(Kind.DELETE, null, id);
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    // null для удаления
+    public Task getTask() {
+        return task;
+    }
+
+    public int getId() {
+        return id;
+    }
+}
@@ -0,0 +1,86 @@
+package managers;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Результат TaskManager.applyBatch: по одному элементу на операцию пакета в том же порядке.
+ */
+public final class BatchResult {
+    public enum Outcome {
+        APPLIED,
+        // Изменяемая или удаляемая задача, эпик подзадачи не найдены
+        NOT_FOUND,
+        // Пересечение по времени с существующей задачей или другой задачей пакета
+        CONFLICT,
+        // Некорректная операция, например обновление задачи другим типом
+        INVALID,
+        // Операция корректна, но атомарный пакет отклонён из-за других операций
+        ABORTED
+    }
+
+    public static final class Item {
+        private final Outcome outcome;
+        private final int id;
+        private final String message;
+
+        Item(Outcome outcome, int id, String message) {
+            this.outcome = outcome;
+            this.id = id;
+            this.message = message;
+        }
+
+        public Outcome getOutcome() {
+            return outcome;
+        }
+
+        // id задачи операции; для добавления — назначенный id
+        public int getId() {
+            return id;
+        }
+
+        // Причина отказа; null для применённой операции
+        public String getMessage() {
+            return message;
+        }
+
+        public boolean isApplied() {
+            return outcome == Outcome.APPLIED;
+        }
+    }
+
+    private final BatchMode mode;
+    private final List<Item> items;
+
+    BatchResult(BatchMode mode, List<Item> items) {
+        this.mode = mode;
+        this.items = Collections.unmodifiableList(items);
+    }
+
+    public BatchMode getMode() {
+        return mode;
+    }
+
+    public List<Item> getItems() {
+        return items;
+    }
+
+    public Item getItem(int index) {
+        return items.get(index);
+    }
+
+    public int getAppliedCount() {
+        int applied = 0;
+        for (Item item : items) {
+            if (item.isApplied()) {
+                applied++;
+            }
+        }
+        return applied;
+    }
+
+    // Применены ли все операции пакета
+    public boolean isApplied() {
+        return getAppliedCount() == items.size();
+    }
+}
@@ -0,0 +1,142 @@
+package managers;
+
+import exceptions.ManagerSaveException;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+import tasks.Epic;
+import tasks.Subtask;
+import tasks.Task;
+import util.TaskBinaryCodec;
+
+/**
+ * Двоичный снимок задач. Заголовок (32 байта): сигнатура, версия, число задач, эпиков
+ * и подзадач, длина данных и CRC32 данных. Далее записи TaskBinaryCodec: задачи, эпики,
+ * подзадачи. Файл читается через MappedByteBuffer без промежуточного копирования;
+ * контрольная сумма проверяется до разбора записей.
+ */
+final class BinarySnapshot {
+    static final int MAGIC = 0x544B4253; // "TKBS"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 32;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private BinarySnapshot() {
+    }
+
+    static void write(Path path, Collection<? extends Task> tasks, Collection<Epic> epics,
+                      Collection<Subtask> subtasks, boolean sync) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel.position(HEADER_SIZE);
+            PayloadWriter writer = new PayloadWriter(channel);
+            tasks.forEach(writer::write);
+            epics.forEach(writer::write);
+            subtasks.forEach(writer::write);
+            writer.flush();
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC)
+                    .putInt(VERSION)
+                    .putInt(tasks.size())
+                    .putInt(epics.size())
+                    .putInt(subtasks.size())
+                    .putLong(writer.length)
+                    .putInt((int) writer.crc.getValue())
+                    .flip();
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+            if (sync) {
+                channel.force(true);
+            }
+        }
+    }
+
+    // Передаёт задачи снимка в порядке записи: задачи, эпики, подзадачи
+    static void read(Path path, Consumer<Task> consumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE) {
+                throw new ManagerSaveException("Двоичный снимок повреждён: нет заголовка");
+            }
+            if (size > Integer.MAX_VALUE) {
+                throw new ManagerSaveException("Двоичный снимок больше 2 ГБ не поддерживается");
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (buffer.getInt() != MAGIC) {
+                throw new ManagerSaveException("Файл не является двоичным снимком задач");
+            }
+            int version = buffer.getInt();
+            if (version != VERSION) {
+                throw new ManagerSaveException("Неподдерживаемая версия двоичного снимка: " + version);
+            }
+            long count = (long) buffer.getInt() + buffer.getInt() + buffer.getInt();
+            long length = buffer.getLong();
+            int checksum = buffer.getInt();
+            if (length != size - HEADER_SIZE) {
+                throw new ManagerSaveException("Двоичный снимок повреждён: неверная длина данных");
+            }
+            CRC32 crc = new CRC32();
+            crc.update(buffer.slice(HEADER_SIZE, (int) length));
+            if ((int) crc.getValue() != checksum) {
+                throw new ManagerSaveException("Двоичный снимок повреждён: не совпадает контрольная сумма");
+            }
+            try {
+                for (long i = 0; i < count; i++) {
+                    consumer.accept(TaskBinaryCodec.read(buffer));
+                }
+            } catch (BufferUnderflowException | IllegalArgumentException e) {
+                throw new ManagerSaveException("Двоичный снимок повреждён: некорректная запись", e);
+            }
+        }
+    }
+
+    // Буферизованная запись данных снимка с подсчётом длины и CRC32
+    private static final class PayloadWriter {
+        private final FileChannel channel;
+        private final CRC32 crc = new CRC32();
+        private ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        private long length;
+
+        private PayloadWriter(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        private void write(Task task) {
+            byte[] name = TaskBinaryCodec.utf8(task.getName());
+            byte[] description = TaskBinaryCodec.utf8(task.getDescription());
+            int size = TaskBinaryCodec.encodedSize(name, description);
+            try {
+                if (buffer.remaining() < size) {
+                    flush();
+                    if (buffer.capacity() < size) {
+                        buffer = ByteBuffer.allocateDirect(size); // Запись длиннее буфера
+                    }
+                }
+            } catch (IOException e) {
+                throw new ManagerSaveException("Ошибка сохранения в файл", e);
+            }
+            TaskBinaryCodec.write(buffer, task, name, description);
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            length += buffer.remaining();
+            crc.update(buffer.duplicate());
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+}
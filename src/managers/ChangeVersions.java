@@ -0,0 +1,30 @@
+package managers;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import util.TaskType;
+
+/*
+ * Счётчики изменений менеджера: общий и по типам задач. Изменение типа получает следующее
+ * значение общего счётчика, поэтому версии типов сравнимы между собой, а версия набора типов —
+ * их максимум. Счётчик увеличивается после изменения, читатель читает его до данных.
+ */
+final class ChangeVersions {
+    private final AtomicLong version = new AtomicLong();
+    private final AtomicLongArray byType = new AtomicLongArray(TaskType.values().length);
+
+    void changed(TaskType... types) {
+        long next = version.incrementAndGet();
+        for (TaskType type : types) {
+            byType.accumulateAndGet(type.ordinal(), next, Math::max);
+        }
+    }
+
+    long get() {
+        return version.get();
+    }
+
+    long get(TaskType type) {
+        return byType.get(type.ordinal());
+    }
+}
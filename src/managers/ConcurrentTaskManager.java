@@ -0,0 +1,585 @@
+package managers;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.PrimitiveIterator;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+import exceptions.TimeConflictException;
+import tasks.*;
+import util.Managers;
+import util.Status;
+import util.TaskType;
+
+/**
+ * Потокобезопасный менеджер задач для многопоточного HttpTaskServer.
+ * <p>
+ * Чтение по id и списков идёт без блокировок, как и запросы к индексу приоритетов по диапазону
+ * и страницам (он хранится в ConcurrentSkipListSet); блокировку расписания берёт только
+ * пересборка полного снимка приоритетов после изменения. Изменения задач со временем
+ * сериализуются блокировкой расписания: проверка пересечения и вставка в индекс выполняются
+ * атомарно.
+ * Под ней же выбираются id новых задач, эпиков и подзадач — у них одно пространство id.
+ * Изменения подзадач и эпиков берут блокировку полосы (stripe) своего эпика, поэтому
+ * статус и время эпика всегда пересчитываются согласованно. Порядок захвата:
+ * полосы эпиков (по возрастанию номера), затем блокировка расписания.
+ * Массовые операции (removeAll*) атомарны для каждой задачи, но не для набора целиком.
+ * applyBatch захватывает все полосы и блокировку расписания, поэтому пакет проверяется
+ * и применяется без параллельных изменений; читатели без блокировок могут увидеть
+ * пакет применённым частично.
+ */
+public class ConcurrentTaskManager implements TaskManager {
+    private static final int EPIC_LOCK_STRIPES = 64;
+
+    private final AtomicInteger ids = new AtomicInteger();
+    // Увеличиваются после каждого изменения, уже вне блокировок
+    private final ChangeVersions versions = new ChangeVersions();
+    // Упорядочены по id для постраничной выборки findTasks
+    private final NavigableMap<Integer, Task> tasks = new ConcurrentSkipListMap<>();
+    private final NavigableMap<Integer, Epic> epics = new ConcurrentSkipListMap<>();
+    private final NavigableMap<Integer, Subtask> subtasks = new ConcurrentSkipListMap<>();
+    private final HistoryManager historyManager = Managers.getDefaultHistory();
+    // Изменяется под scheduleLock; запросы диапазонов и страниц читают его без блокировки
+    private final PrioritizedIndex prioritizedTasks = PrioritizedIndex.concurrent();
+    // Индекс пересечений не потокобезопасен и охраняется scheduleLock
+    private final TimeIntervalIndex timeIndex = new TimeIntervalIndex();
+    private final ReentrantLock scheduleLock = new ReentrantLock();
+    private final ReentrantLock[] epicLocks = new ReentrantLock[EPIC_LOCK_STRIPES];
+
+    public ConcurrentTaskManager() {
+        for (int i = 0; i < epicLocks.length; i++) {
+            epicLocks[i] = new ReentrantLock();
+        }
+    }
+
+    public int generateId() {
+        int next = ids.incrementAndGet();
+        while (isIdTaken(next)) { // id, заданные клиентом, не выдаются повторно
+            next = ids.incrementAndGet();
+        }
+        return next;
+    }
+
+    // Счётчик переходит за id, заданный клиентом, чтобы generateId его не выдал
+    private void reserveId(int reserved) {
+        ids.accumulateAndGet(reserved, Math::max);
+    }
+
+    // Задачи, эпики и подзадачи делят одно пространство id
+    private boolean isIdTaken(int candidate) {
+        return tasks.containsKey(candidate) || epics.containsKey(candidate) || subtasks.containsKey(candidate);
+    }
+
+    // id новой задачи: заданный клиентом, если он свободен, иначе следующий из счётчика
+    private void assignId(Task task) {
+        if (task.getId() <= 0 || isIdTaken(task.getId())) {
+            task.setId(generateId());
+        } else {
+            reserveId(task.getId());
+        }
+    }
+
+    @Override
+    public List<Task> getAllTasks() {
+        return new ArrayList<>(tasks.values());
+    }
+
+    @Override
+    public List<Subtask> getAllSubtasks() {
+        return new ArrayList<>(subtasks.values());
+    }
+
+    @Override
+    public List<Epic> getAllEpics() {
+        List<Epic> result = new ArrayList<>(epics.size());
+        for (Epic epic : epics.values()) {
+            result.add(withEpicLock(epic.getId(), epic::snapshot));
+        }
+        return result;
+    }
+
+    @Override
+    public void removeAllTasks() {
+        tasks.keySet().forEach(this::removeTaskById);
+    }
+
+    @Override
+    public void removeAllSubtasks() {
+        subtasks.keySet().forEach(this::removeSubtaskById);
+    }
+
+    @Override
+    public void removeAllEpics() {
+        epics.keySet().forEach(this::removeEpicById);
+        // Подзадачи без эпика, добавленные в момент очистки
+        subtasks.keySet().forEach(this::removeSubtaskById);
+    }
+
+    @Override
+    public Task getTaskById(int id) {
+        Task task = tasks.get(id);
+        if (task == null) {
+            return null;
+        }
+        historyManager.add(task); // Хранимые задачи заморожены и разделяются между читателями
+        return task;
+    }
+
+    @Override
+    public Epic getEpicById(int id) {
+        Epic epic = epics.get(id);
+        if (epic == null) {
+            return null;
+        }
+        Epic snapshot = withEpicLock(id, epic::snapshot);
+        historyManager.add(snapshot);
+        return snapshot;
+    }
+
+    @Override
+    public Subtask getSubtaskById(int id) {
+        Subtask subtask = subtasks.get(id);
+        if (subtask == null) {
+            return null;
+        }
+        historyManager.add(subtask);
+        return subtask;
+    }
+
+    @Override
+    public void addTask(Task task) {
+        if (task == null) return;
+        withSchedule(() -> {
+            if (timeIndex.hasOverlap(task)) {
+                throw new TimeConflictException("Задача пересекается по времени с существующей.");
+            }
+            assignId(task);
+            Task taskCopy = task.copy().freeze();
+            while (tasks.putIfAbsent(taskCopy.getId(), taskCopy) != null) {
+                task.setId(generateId());
+                taskCopy = task.copy().freeze();
+            }
+            index(taskCopy);
+            return null;
+        });
+        versions.changed(TaskType.TASK);
+    }
+
+    @Override
+    public void addEpic(Epic epic) {
+        if (epic == null) return;
+        // id выбирается под той же блокировкой, что и у задач и подзадач: иначе эпик и задача
+        // могут одновременно занять один и тот же свободный id
+        withSchedule(() -> {
+            assignId(epic);
+            Epic epicCopy = new Epic(epic.getName(), epic.getDescription());
+            epicCopy.setId(epic.getId());
+            epicCopy.setStatus(Status.NEW);
+            epics.put(epicCopy.getId(), epicCopy);
+            return null;
+        });
+        versions.changed(TaskType.EPIC);
+    }
+
+    @Override
+    public void addSubtask(Subtask subtask) {
+        if (subtask == null) return;
+        withEpicLock(subtask.getEpicId(), () -> withSchedule(() -> {
+            if (timeIndex.hasOverlap(subtask)) {
+                throw new TimeConflictException("Подзадача пересекается по времени");
+            }
+            Epic epic = epics.get(subtask.getEpicId());
+            if (epic == null) return null;
+            assignId(subtask);
+
+            Subtask subtaskCopy = subtask.copy().freeze();
+            if (subtasks.putIfAbsent(subtaskCopy.getId(), subtaskCopy) != null) return null;
+            index(subtaskCopy);
+            if (epic.addSubtaskId(subtaskCopy.getId())) {
+                epic.includeSubtask(subtaskCopy);
+            }
+            return null;
+        }));
+        versions.changed(TaskType.SUBTASK, TaskType.EPIC);
+    }
+
+    @Override
+    public void updateTask(Task task) {
+        if (task == null || !tasks.containsKey(task.getId())) return;
+        withSchedule(() -> {
+            Task oldTask = tasks.get(task.getId());
+            if (oldTask == null) return null;
+            if (timeIndex.hasOverlap(task, task.getId())) {
+                throw new TimeConflictException("Задача пересекается по времени с существующей.");
+            }
+            Task taskCopy = task.copy().freeze();
+            unindex(oldTask);
+            tasks.put(taskCopy.getId(), taskCopy);
+            index(taskCopy);
+            return null;
+        });
+        versions.changed(TaskType.TASK);
+    }
+
+    @Override
+    public void updateEpic(Epic epic) {
+        if (epic == null) return;
+        withEpicLock(epic.getId(), () -> {
+            Epic oldEpic = epics.get(epic.getId());
+            if (oldEpic != null) {
+                oldEpic.setName(epic.getName());
+                oldEpic.setDescription(epic.getDescription());
+            }
+            return null;
+        });
+        versions.changed(TaskType.EPIC);
+    }
+
+    @Override
+    public void updateSubtask(Subtask subtask) {
+        if (subtask == null) return;
+        boolean done = false;
+        while (!done) {
+            Subtask current = subtasks.get(subtask.getId());
+            if (current == null) return;
+            done = withEpicLocks(current.getEpicId(), subtask.getEpicId(), () -> withSchedule(() -> {
+                Subtask oldSubtask = subtasks.get(subtask.getId());
+                if (oldSubtask == null) return true;
+                if (oldSubtask.getEpicId() != current.getEpicId()) {
+                    return false; // Подзадачу успели перенести в другой эпик — повторяем под нужными блокировками
+                }
+                if (timeIndex.hasOverlap(subtask, subtask.getId())) {
+                    throw new TimeConflictException("Обновленная подзадача пересекается по времени с существующими");
+                }
+                Subtask subtaskCopy = subtask.copy().freeze();
+                unindex(oldSubtask);
+                subtasks.put(subtaskCopy.getId(), subtaskCopy);
+                index(subtaskCopy);
+
+                Epic oldEpic = epics.get(oldSubtask.getEpicId());
+                Epic newEpic = epics.get(subtaskCopy.getEpicId());
+                if (oldEpic != null && oldEpic == newEpic) {
+                    oldEpic.replaceSubtask(oldSubtask, subtaskCopy);
+                    return true;
+                }
+                if (oldEpic != null && oldEpic.removeSubtaskById(subtaskCopy.getId())) {
+                    oldEpic.excludeSubtask(oldSubtask);
+                }
+                if (newEpic != null && newEpic.addSubtaskId(subtaskCopy.getId())) {
+                    newEpic.includeSubtask(subtaskCopy);
+                }
+                return true;
+            }));
+        }
+        versions.changed(TaskType.SUBTASK, TaskType.EPIC);
+    }
+
+    @Override
+    public void removeTaskById(int id) {
+        Task task = tasks.get(id);
+        if (task == null) return;
+        withSchedule(() -> {
+            Task removed = tasks.remove(id);
+            if (removed != null) {
+                unindex(removed);
+                historyManager.remove(id);
+            }
+            return null;
+        });
+        versions.changed(TaskType.TASK);
+    }
+
+    @Override
+    public void removeEpicById(int id) {
+        withEpicLock(id, () -> {
+            Epic epic = epics.remove(id);
+            if (epic == null) return null;
+            for (PrimitiveIterator.OfInt it = epic.subtaskIdIterator(); it.hasNext(); ) {
+                int subtaskId = it.nextInt();
+                Subtask subtask = subtasks.remove(subtaskId);
+                if (subtask != null) {
+                    withSchedule(() -> {
+                        unindex(subtask);
+                        return null;
+                    });
+                }
+                historyManager.remove(subtaskId);
+            }
+            historyManager.remove(id);
+            return null;
+        });
+        versions.changed(TaskType.EPIC, TaskType.SUBTASK);
+    }
+
+    @Override
+    public void removeSubtaskById(int id) {
+        boolean done = false;
+        while (!done) {
+            Subtask current = subtasks.get(id);
+            if (current == null) return;
+            done = withEpicLock(current.getEpicId(), () -> {
+                Subtask stored = subtasks.get(id);
+                if (stored == null) return true;
+                if (stored.getEpicId() != current.getEpicId()) {
+                    return false; // Подзадачу успели перенести в другой эпик — повторяем под нужной блокировкой
+                }
+                subtasks.remove(id);
+                withSchedule(() -> {
+                    unindex(stored);
+                    return null;
+                });
+                Epic epic = epics.get(stored.getEpicId());
+                if (epic != null && epic.removeSubtaskById(id)) {
+                    epic.excludeSubtask(stored);
+                }
+                historyManager.remove(id);
+                return true;
+            });
+        }
+        versions.changed(TaskType.SUBTASK, TaskType.EPIC);
+    }
+
+    @Override
+    public List<Subtask> getAllSubtasksOfEpic(Epic epic) {
+        return withEpicLock(epic.getId(), () -> {
+            Epic stored = epics.get(epic.getId());
+            return subtasksOf(stored != null ? stored : epic);
+        });
+    }
+
+    @Override
+    public void updateEpicStatus(Epic epic) {
+        withEpicLock(epic.getId(), () -> {
+            Epic stored = epics.get(epic.getId());
+            Epic target = stored != null ? stored : epic;
+            if (target.getAggregatedSubtaskCount() != target.getSubtaskCount()) {
+                target.updateTimeParameters(subtasksOf(target));
+            }
+            target.setStatus(target.calculateStatus());
+            return null;
+        });
+        versions.changed(TaskType.EPIC);
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        return historyManager.getHistory();
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks() {
+        List<Task> snapshot = prioritizedTasks.cachedSnapshot();
+        return snapshot != null ? snapshot : withSchedule(prioritizedTasks::snapshot);
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks(LocalDateTime from, LocalDateTime to) {
+        return prioritizedTasks.between(from, to);
+    }
+
+    @Override
+    public List<Task> getNextPrioritizedTasks(int limit) {
+        return prioritizedTasks.next(limit);
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasksAfter(int cursorId, int limit) {
+        Task cursor = tasks.containsKey(cursorId) ? tasks.get(cursorId) : subtasks.get(cursorId);
+        if (cursor == null || cursor.getStartTime() == null) {
+            return List.of();
+        }
+        return prioritizedTasks.after(cursor, limit);
+    }
+
+    @Override
+    public boolean hasTimeOverlap(Task task) {
+        scheduleLock.lock();
+        try {
+            return timeIndex.hasOverlap(task);
+        } finally {
+            scheduleLock.unlock();
+        }
+    }
+
+    @Override
+    public List<Task> getOverlappingTasks(Task task) {
+        scheduleLock.lock();
+        try {
+            return timeIndex.findOverlaps(task);
+        } finally {
+            scheduleLock.unlock();
+        }
+    }
+
+    @Override
+    public void updateEpicTimeParameters(Epic epic) {
+        withEpicLock(epic.getId(), () -> {
+            Epic stored = epics.get(epic.getId());
+            Epic target = stored != null ? stored : epic;
+            target.updateTimeParameters(subtasksOf(target));
+            return null;
+        });
+        versions.changed(TaskType.EPIC);
+    }
+
+    private List<Subtask> subtasksOf(Epic epic) {
+        List<Subtask> result = new ArrayList<>(epic.getSubtaskCount());
+        epic.forEachSubtaskId(subtaskId -> {
+            Subtask subtask = subtasks.get(subtaskId);
+            if (subtask != null) {
+                result.add(subtask);
+            }
+        });
+        return result;
+    }
+
+    @Override
+    public BatchResult applyBatch(List<BatchOperation> operations, BatchMode mode) {
+        BatchResult result = withAllEpicLocks(() -> withSchedule(() -> new TaskBatch(tasks, epics, subtasks,
+                prioritizedTasks, timeIndex, historyManager, this::generateId, this::reserveId, null)
+                .apply(operations, mode)));
+        versions.changed(TaskType.values());
+        return result;
+    }
+
+    @Override
+    public long getVersion() {
+        return versions.get();
+    }
+
+    @Override
+    public long getVersion(TaskType type) {
+        return versions.get(type);
+    }
+
+    @Override
+    public long getHistoryVersion() {
+        return historyManager.getVersion();
+    }
+
+    // size() у ConcurrentSkipListMap обходит карту, но задачи при этом не копируются
+    @Override
+    public ManagerStats getStats() {
+        return new ManagerStats(tasks.size(), epics.size(), subtasks.size(), prioritizedTasks.size(),
+                historyManager.size());
+    }
+
+    // Индексированные фильтры — как в InMemoryTaskManager.findTasks
+    @Override
+    public List<Task> findTasks(TaskQuery query) {
+        if (query.getEpicId() != null) {
+            Epic epic = epics.get(query.getEpicId());
+            if (epic == null || !query.includes(TaskType.SUBTASK)) {
+                return new ArrayList<>();
+            }
+            List<Subtask> candidates = withEpicLock(epic.getId(), () -> subtasksOf(epic));
+            return query.selectUnordered(List.of(candidates.iterator()));
+        }
+        if (query.hasStartRange()) {
+            List<Iterator<? extends Task>> sources = new ArrayList<>(2);
+            sources.add(prioritizedTasks.range(query.getStartFrom(), query.getStartTo()).iterator());
+            if (query.includes(TaskType.EPIC)) {
+                sources.add(epics.tailMap(query.getAfterId(), false).values().stream()
+                        .map(epic -> withEpicLock(epic.getId(), epic::snapshot))
+                        .iterator());
+            }
+            return query.selectUnordered(sources);
+        }
+        List<Iterator<? extends Task>> sources = new ArrayList<>(3);
+        if (query.includes(TaskType.TASK)) {
+            sources.add(tasks.tailMap(query.getAfterId(), false).values().iterator());
+        }
+        if (query.includes(TaskType.EPIC)) {
+            sources.add(epics.tailMap(query.getAfterId(), false).values().stream()
+                    .map(epic -> withEpicLock(epic.getId(), epic::snapshot))
+                    .iterator());
+        }
+        if (query.includes(TaskType.SUBTASK)) {
+            sources.add(subtasks.tailMap(query.getAfterId(), false).values().iterator());
+        }
+        return query.select(sources);
+    }
+
+    // Вызывается под scheduleLock
+    private void index(Task task) {
+        prioritizedTasks.add(task);
+        timeIndex.add(task);
+    }
+
+    private void unindex(Task task) {
+        prioritizedTasks.remove(task);
+        timeIndex.remove(task);
+    }
+
+    // Проверка пересечений и изменение индексов по времени выполняются атомарно
+    private <T> T withSchedule(Supplier<T> action) {
+        scheduleLock.lock();
+        try {
+            return action.get();
+        } finally {
+            scheduleLock.unlock();
+        }
+    }
+
+    private <T> T withEpicLock(int epicId, Supplier<T> action) {
+        ReentrantLock lock = epicLock(epicId);
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private <T> T withEpicLocks(int firstEpicId, int secondEpicId, Supplier<T> action) {
+        int first = stripe(firstEpicId);
+        int second = stripe(secondEpicId);
+        if (first == second) {
+            return withEpicLock(firstEpicId, action);
+        }
+        ReentrantLock lower = epicLocks[Math.min(first, second)];
+        ReentrantLock upper = epicLocks[Math.max(first, second)];
+        lower.lock();
+        try {
+            upper.lock();
+            try {
+                return action.get();
+            } finally {
+                upper.unlock();
+            }
+        } finally {
+            lower.unlock();
+        }
+    }
+
+    // Все полосы по возрастанию номера — тот же порядок, что и при захвате двух полос
+    private <T> T withAllEpicLocks(Supplier<T> action) {
+        int locked = 0;
+        try {
+            while (locked < epicLocks.length) {
+                epicLocks[locked].lock();
+                locked++;
+            }
+            return action.get();
+        } finally {
+            while (locked > 0) {
+                epicLocks[--locked].unlock();
+            }
+        }
+    }
+
+    private ReentrantLock epicLock(int epicId) {
+        return epicLocks[stripe(epicId)];
+    }
+
+    private static int stripe(int epicId) {
+        return Math.floorMod(Objects.hashCode(epicId) * 0x9E3779B9, EPIC_LOCK_STRIPES);
+    }
+}
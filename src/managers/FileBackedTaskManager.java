@@ -2,49 +2,171 @@ package managers;
 
 import exceptions.*;
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
-import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
 
 import tasks.*;
 import util.*;
 
-public class FileBackedTaskManager extends InMemoryTaskManager {
+public class FileBackedTaskManager extends InMemoryTaskManager implements AutoCloseable {
     private final File file;
+    private final SnapshotFormat snapshotFormat;
     private static final String CSV_HEADER = "id,type,name,status,description,epic,duration,startTime,endTime\n";
+    // Минимальный размер части файла при параллельной загрузке: мелкие файлы читаются одним куском
+    private static final long MIN_CHUNK_SIZE = 1 << 20;
+    // Верхняя граница части: её байты читаются в один массив
+    private static final long MAX_CHUNK_SIZE = 1 << 30;
+
+    // Журнальный режим: null — каждое изменение перезаписывает файл целиком
+    private final JournalConfig journalConfig;
+    private final TaskJournal journal;
+    private final ExecutorService compactor;
+    private Future<?> compaction = CompletableFuture.completedFuture(null);
+
+    // Сохранения снимков и фиксации записей журнала; байты — суммарно в снимки и журнал
+    private final DurationHistogram saveLatency = new DurationHistogram();
+    private final LongAdder snapshotBytes = new LongAdder();
+    private final LongAdder compactionFailures = new LongAdder();
 
     public FileBackedTaskManager(File file) {
+        this(file, SnapshotFormat.CSV);
+    }
+
+    // Каждое изменение перезаписывает файл целиком в указанном формате
+    public FileBackedTaskManager(File file, SnapshotFormat snapshotFormat) {
+        Objects.requireNonNull(file, "Файл не может быть null");
+        this.file = file;
+        this.snapshotFormat = Objects.requireNonNull(snapshotFormat, "Формат снимка не может быть null");
+        this.journalConfig = null;
+        this.journal = null;
+        this.compactor = null;
+    }
+
+    /**
+     * Менеджер в журнальном режиме: изменения дописываются в журнал {@code <file>.journal},
+     * а файл {@code file} служит снимком, в который журнал периодически сворачивается в фоне.
+     * Существующие в файле данные заменяются пустым снимком; для продолжения работы
+     * с сохранённым состоянием используйте {@link #loadFromFile(File, JournalConfig)}.
+     */
+    public FileBackedTaskManager(File file, JournalConfig journalConfig) {
+        this(file, journalConfig, true);
+    }
+
+    private FileBackedTaskManager(File file, JournalConfig journalConfig, boolean fresh) {
         Objects.requireNonNull(file, "Файл не может быть null");
+        Objects.requireNonNull(journalConfig, "Настройки журнала не могут быть null");
         this.file = file;
+        this.snapshotFormat = journalConfig.getSnapshotFormat();
+        this.journalConfig = journalConfig;
+        this.journal = new TaskJournal(journalPath(file), journalConfig);
+        this.compactor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "task-journal-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (fresh) {
+            checkpoint(List.of(), List.of(), List.of());
+        }
     }
 
     // Метод для сохранения текущего состояния в файл
     protected void save() {
+        writeSnapshot(file.toPath(), getAllTasks(), getAllEpics(), getAllSubtasks(), false);
+    }
+
+    private void writeSnapshot(Path path, Collection<? extends Task> tasks, Collection<Epic> epics,
+                               Collection<Subtask> subtasks, boolean sync) {
+        long start = System.nanoTime();
+        writeSnapshot(path, snapshotFormat, tasks, epics, subtasks, sync);
+        saveLatency.record(System.nanoTime() - start);
+        snapshotBytes.add(path.toFile().length());
+    }
+
+    /*
+     * Надёжно записывает состояние в снимок и только после этого очищает журнал. Снимок пишется
+     * во временный файл с fsync и атомарно заменяет прежний, после чего синхронизируется каталог:
+     * сбой на любом шаге оставляет либо старый снимок с журналом, либо новый снимок целиком.
+     */
+    private void checkpoint(Collection<? extends Task> tasks, Collection<Epic> epics, Collection<Subtask> subtasks) {
+        replaceSnapshot(tasks, epics, subtasks);
+        journal.reset();
+    }
+
+    private void replaceSnapshot(Collection<? extends Task> tasks, Collection<Epic> epics,
+                                 Collection<Subtask> subtasks) {
+        Path target = file.toPath();
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        writeSnapshot(temp, tasks, epics, subtasks, true);
+        try {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка замены снимка", e);
+        }
+        syncDirectory(target.toAbsolutePath().getParent());
+    }
+
+    // Фиксирует переименование в каталоге; там, где каталог нельзя открыть (Windows), пропускается
+    private static void syncDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            if (!System.getProperty("os.name", "").startsWith("Windows")) {
+                throw new ManagerSaveException("Ошибка синхронизации каталога снимка", e);
+            }
+        }
+    }
+
+    private static void writeSnapshot(Path path, SnapshotFormat format, Collection<? extends Task> tasks,
+                                      Collection<Epic> epics, Collection<Subtask> subtasks, boolean sync) {
         try {
             // Создаем директории только если путь содержит поддиректории
-            Path path = file.toPath();
             if (path.getParent() != null) {
                 Files.createDirectories(path.getParent());
             }
+            if (format == SnapshotFormat.BINARY) {
+                BinarySnapshot.write(path, tasks, epics, subtasks, sync);
+                return;
+            }
 
-            try (BufferedWriter writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+            try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+                CsvCodec codec = new CsvCodec();
                 // Заголовок CSV
                 writer.write(CSV_HEADER);
                 // Сохраняем задачи
-                for (Task task : getAllTasks()) {
-                    writer.write(toString(task) + "\n");
+                for (Task task : tasks) {
+                    codec.writeRow(task, writer);
                 }
                 // Сохраняем эпики
-                for (Epic epic : getAllEpics()) {
-                    writer.write(toString(epic) + "\n");
+                for (Epic epic : epics) {
+                    codec.writeRow(epic, writer);
                 }
                 // Сохраняем подзадачи
-                for (Subtask subtask : getAllSubtasks()) {
-                    writer.write(toString(subtask) + "\n");
+                for (Subtask subtask : subtasks) {
+                    codec.writeRow(subtask, writer);
+                }
+            }
+            if (sync) {
+                try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                    channel.force(true);
                 }
             }
         } catch (IOException e) {
@@ -53,231 +175,797 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
     }
 
     // Метод загрузки данных из файла в память
+    // Формат файла определяется по сигнатуре; дальнейшие сохранения идут в том же формате
     public static FileBackedTaskManager loadFromFile(File file) {
-        FileBackedTaskManager manager = new FileBackedTaskManager(file);
-        int maxId = 0;
+        FileBackedTaskManager manager = new FileBackedTaskManager(file, SnapshotFormat.detect(file));
+        manager.readSnapshot();
+        manager.recalculateEpics();
+        return manager;
+    }
 
-        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
-            // Пропускаем заголовок
-            reader.readLine();
+    public static FileBackedTaskManager loadFromFileParallel(File file) {
+        return loadFromFileParallel(file, ForkJoinPool.commonPool());
+    }
 
-            String line;
-            while ((line = reader.readLine()) != null) {
-                if (line.trim().isEmpty()) {
-                    continue;
-                }
-                String[] parts = line.split(",", -1); // -1 сохраняет пустые значения
-                if (parts.length < 6) {
-                    throw new ManagerSaveException("Некорректная строка: " + line);
-                }
-                Task task = fromString(line);
-                if (task == null) continue;
-                // Обновляем максимальный ID
-                if (task.getId() > maxId) {
-                    maxId = task.getId();
-                }
-                // Распределяем задачи по соответствующим мапам
-                switch (task.getType()) {
-                    case "TASK":
-                        manager.tasks.put(task.getId(), task);
-                        break;
-                    case "EPIC":
-                        manager.epics.put(task.getId(), (Epic) task);
-                        break;
-                    case "SUBTASK":
-                        Subtask subtask = (Subtask) task;
-                        manager.subtasks.put(subtask.getId(), subtask);
-                        Epic epic = manager.epics.get(subtask.getEpicId());
-                        if (epic != null) {
-                            epic.addSubtaskId(subtask.getId());
-                        }
-                        break;
-                    default:
-                        throw new ManagerSaveException("Неизвестный тип задачи: " + task.getType());
-                }
+    /**
+     * Загружает файл так же, как {@link #loadFromFile(File)}, но на нескольких ядрах: CSV
+     * делится на части по границам строк, части разбираются параллельно в pool, результаты
+     * раскладываются по мапам в порядке строк файла, после чего агрегаты эпиков
+     * пересчитываются параллельно. Итоговое состояние совпадает с последовательной загрузкой,
+     * включая ошибку для первой некорректной строки. Двоичный снимок читается последовательно.
+     */
+    public static FileBackedTaskManager loadFromFileParallel(File file, ForkJoinPool pool) {
+        return loadFromFileParallel(file, pool, MIN_CHUNK_SIZE);
+    }
+
+    static FileBackedTaskManager loadFromFileParallel(File file, ForkJoinPool pool, long minChunkSize) {
+        Objects.requireNonNull(pool, "Пул потоков не может быть null");
+        FileBackedTaskManager manager = new FileBackedTaskManager(file, SnapshotFormat.detect(file));
+        if (manager.snapshotFormat == SnapshotFormat.CSV) {
+            manager.readCsvParallel(pool, minChunkSize);
+        } else {
+            manager.readSnapshot();
+        }
+        manager.recalculateEpics(pool);
+        return manager;
+    }
+
+    /**
+     * Загружает снимок, проигрывает поверх него журнал и продолжает работу в журнальном режиме.
+     * После восстановления состояние сразу записывается в новый снимок, а журнал очищается.
+     */
+    public static FileBackedTaskManager loadFromFile(File file, JournalConfig journalConfig) {
+        FileBackedTaskManager manager = new FileBackedTaskManager(file, journalConfig, false);
+        if (file.exists()) {
+            manager.readSnapshot();
+        }
+        CsvCodec codec = new CsvCodec();
+        manager.journal.replay(record -> manager.applyJournalRecord(record, codec));
+        manager.recalculateEpics();
+        manager.checkpoint(manager.tasks.values(), manager.epics.values(), manager.subtasks.values());
+        return manager;
+    }
+
+    /**
+     * Конвертирует снимок source (CSV или двоичный, определяется автоматически) в формат
+     * targetFormat и записывает его в target. В CSV длительность хранится в минутах,
+     * поэтому при переводе из двоичного формата секунды отбрасываются.
+     */
+    public static void convert(File source, File target, SnapshotFormat targetFormat) {
+        FileBackedTaskManager manager = loadFromFile(source);
+        writeSnapshot(target.toPath(), targetFormat, manager.getAllTasks(), manager.getAllEpics(),
+                manager.getAllSubtasks(), true);
+    }
+
+    private void readSnapshot() {
+        if (SnapshotFormat.detect(file) == SnapshotFormat.BINARY) {
+            try {
+                BinarySnapshot.read(file.toPath(), this::restore);
+            } catch (IOException e) {
+                throw new ManagerSaveException("Ошибка чтения файла", e);
+            }
+            return;
+        }
+        try (Reader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            if (!readCsvRows(reader, true, new CsvCodec(), this::restore)) {
+                throw new ManagerSaveException("Файл обрывается внутри поля в кавычках");
             }
-            // Обновляем статусы и временные параметры эпиков
-            manager.epics.values().forEach(epic -> {
-                manager.updateEpicStatus(epic);
-                epic.updateTimeParameters(manager.getAllSubtasksOfEpic(epic));
-            });
-            manager.id = maxId;
         } catch (IOException e) {
             throw new ManagerSaveException("Ошибка чтения файла", e);
         }
-        return manager;
     }
 
-    // Преобразование задачи в строку CSV
-    private String toString(Task task) {
-        return task.toCsv();
+    // Читает строки CSV; skipHeader — первая строка является заголовком.
+    // false — данные оборвались внутри поля в кавычках
+    private static boolean readCsvRows(Reader reader, boolean skipHeader, CsvCodec codec, Consumer<Task> consumer)
+            throws IOException {
+        boolean[] header = {skipHeader};
+        LineReader lines = new LineReader(reader);
+        lines.forEach((chars, start, end) -> {
+            if (header[0]) {
+                header[0] = false;
+                return;
+            }
+            Task task = parseSnapshotLine(codec, chars, start, end);
+            if (task != null) {
+                consumer.accept(task);
+            }
+        });
+        return !lines.endedInQuotes();
     }
 
-    // Преобразование строки CSV в объект задачи
-    private static Task fromString(String value) {
-        if (value == null || value.trim().isEmpty()) {
-            throw new ManagerSaveException("Строка не может быть пустой");
+    // Задача из строки снимка CSV; null — пустая строка, которую нужно пропустить
+    private static Task parseSnapshotLine(CsvCodec codec, char[] chars, int start, int end) {
+        if (CsvCodec.isBlank(chars, start, end)) {
+            return null;
+        }
+        int separators = 0;
+        for (int i = start; i < end && separators < 5; i++) {
+            if (chars[i] == ',') {
+                separators++;
+            }
         }
+        if (separators < 5) {
+            throw new ManagerSaveException("Некорректная строка: " + new String(chars, start, end - start));
+        }
+        return codec.decode(chars, start, end);
+    }
+
+    private void readCsvParallel(ForkJoinPool pool, long minChunkSize) {
+        List<Future<List<Task>>> chunks;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long[] bounds = chunkBounds(channel, pool.getParallelism(), minChunkSize);
+            List<Callable<List<Task>>> jobs = new ArrayList<>(bounds.length - 1);
+            for (int i = 0; i + 1 < bounds.length; i++) {
+                long start = bounds[i];
+                long end = bounds[i + 1];
+                boolean header = i == 0;
+                jobs.add(() -> parseChunk(readChunk(channel, start, end), header));
+            }
+            chunks = pool.invokeAll(jobs);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка чтения файла", e);
+        }
+        List<List<Task>> parsed = new ArrayList<>(chunks.size());
+        for (Future<List<Task>> chunk : chunks) {
+            List<Task> tasks = joinChunk(chunk);
+            if (tasks == null) {
+                // Граница части попала на перевод строки внутри поля в кавычках: читаем подряд
+                readSnapshot();
+                return;
+            }
+            parsed.add(tasks);
+        }
+        // Порядок частей сохраняется: повторы id и связи эпиков разрешаются как при чтении подряд
+        for (List<Task> tasks : parsed) {
+            for (Task task : tasks) {
+                restore(task);
+            }
+        }
+    }
+
+    /*
+     * Границы частей файла: каждая часть, кроме последней, заканчивается переводом строки,
+     * поэтому строки не разрываются. Байт '\n' не встречается внутри многобайтовых символов
+     * UTF-8, так что части декодируются независимо.
+     */
+    private static long[] chunkBounds(FileChannel channel, int parallelism, long minChunkSize) throws IOException {
+        long size = channel.size();
+        long chunks = Math.min(size / Math.max(minChunkSize, 1), parallelism * 4L);
+        chunks = Math.max(chunks, (size + MAX_CHUNK_SIZE / 2 - 1) / (MAX_CHUNK_SIZE / 2));
+        chunks = Math.max(chunks, 1);
+        List<Long> bounds = new ArrayList<>();
+        bounds.add(0L);
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+        for (long i = 1; i < chunks; i++) {
+            long position = Math.max(size / chunks * i, bounds.get(bounds.size() - 1));
+            long boundary = nextLineStart(channel, position, buffer);
+            if (boundary >= size) {
+                break;
+            }
+            if (boundary > bounds.get(bounds.size() - 1)) {
+                bounds.add(boundary);
+            }
+        }
+        bounds.add(size);
+        return bounds.stream().mapToLong(Long::longValue).toArray();
+    }
 
-        String[] values = parseCsvLine(value);
-        if (values.length < 6) {
-            throw new ManagerSaveException("Недостаточно данных в строке: " + value);
+    // Позиция сразу за первым '\n', начиная с position; конец файла, если перевода строки нет
+    private static long nextLineStart(FileChannel channel, long position, ByteBuffer buffer) throws IOException {
+        while (true) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                return channel.size();
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
         }
+    }
 
+    private static byte[] readChunk(FileChannel channel, long start, long end) throws IOException {
+        if (end - start > MAX_CHUNK_SIZE) {
+            throw new ManagerSaveException("Строка файла длиннее " + MAX_CHUNK_SIZE + " байт");
+        }
+        ByteBuffer buffer = ByteBuffer.allocate((int) (end - start));
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, start + buffer.position()) < 0) {
+                throw new EOFException("Файл укоротился во время чтения");
+            }
+        }
+        return buffer.array();
+    }
+
+    /*
+     * Разбирает часть файла; декодер строгий, как у Files.newBufferedReader при чтении подряд.
+     * null — часть кончилась внутри кавычек, то есть её граница разрезала поле с переводом
+     * строки. Первая часть начинается с начала файла, поэтому, если ни одна часть так
+     * не кончилась, все границы совпадают с концами записей.
+     */
+    private static List<Task> parseChunk(byte[] data, boolean skipHeader) throws IOException {
+        List<Task> result = new ArrayList<>();
+        Reader reader = new InputStreamReader(new ByteArrayInputStream(data), StandardCharsets.UTF_8.newDecoder());
+        // Заморозка заполняет кеш времени — эта работа тоже выполняется параллельно
+        boolean complete = readCsvRows(reader, skipHeader, new CsvCodec(),
+                task -> result.add(task instanceof Epic ? task : task.freeze()));
+        return complete ? result : null;
+    }
+
+    private static List<Task> joinChunk(Future<List<Task>> chunk) {
         try {
-            int id = Integer.parseInt(values[0].trim());
-            String type = values[1].trim();
-            String name = values[2].trim();
-            Status status = Status.valueOf(values[3].trim().toUpperCase());
-            String description = values.length > 4 ? values[4].trim() : "";
-            Duration duration = null;
-            LocalDateTime startTime = null;
-            if (values.length > 6 && !values[6].isEmpty()) {
-                duration = Duration.ofMinutes(Long.parseLong(values[6].trim()));
+            return chunk.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
             }
-            if (values.length > 7 && !values[7].isEmpty()) {
-                startTime = LocalDateTime.parse(values[7].trim());
+            if (cause instanceof Error) {
+                throw (Error) cause;
             }
+            throw new ManagerSaveException("Ошибка чтения файла", cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ManagerSaveException("Загрузка файла прервана", e);
+        }
+    }
 
-            switch (type) {
-                case "TASK":
-                    Task task = new Task(name, description);
-                    task.setId(id);
-                    task.setStatus(status);
-                    task.setDuration(duration);
-                    task.setStartTime(startTime);
-                    return task;
-                case "EPIC":
-                    Epic epic = new Epic(name, description);
-                    epic.setId(id);
-                    epic.setStatus(status);
-                    epic.setDuration(duration);
-                    epic.setStartTime(startTime);
-                    return epic;
-                case "SUBTASK":
-                    if (values.length < 6 || values[5].trim().isEmpty()) {
-                        throw new ManagerSaveException("Для подзадачи не указан ID эпика");
+    // Распределяет восстановленную задачу по соответствующим мапам
+    private void restore(Task task) {
+        // Обновляем максимальный ID
+        if (task.getId() > id) {
+            id = task.getId();
+        }
+        switch (task.getType()) {
+            case "TASK":
+                task.freeze();
+                Task oldTask = tasks.put(task.getId(), task);
+                if (oldTask != null) {
+                    unindexTask(oldTask);
+                }
+                indexTask(task);
+                break;
+            case "EPIC":
+                Epic oldEpic = epics.get(task.getId());
+                if (oldEpic != null) {
+                    oldEpic.setName(task.getName());
+                    oldEpic.setDescription(task.getDescription());
+                } else {
+                    epics.put(task.getId(), (Epic) task);
+                }
+                break;
+            case "SUBTASK":
+                Subtask subtask = ((Subtask) task).freeze();
+                Subtask oldSubtask = subtasks.put(subtask.getId(), subtask);
+                if (oldSubtask != null) {
+                    unindexTask(oldSubtask);
+                    if (oldSubtask.getEpicId() != subtask.getEpicId()) {
+                        Epic previousEpic = epics.get(oldSubtask.getEpicId());
+                        if (previousEpic != null) {
+                            previousEpic.removeSubtaskById(subtask.getId());
+                        }
                     }
-                    int epicId = Integer.parseInt(values[5].trim());
-                    Subtask subtask = new Subtask(name, description, epicId);
-                    subtask.setId(id);
-                    subtask.setStatus(status);
-                    subtask.setDuration(duration);
-                    subtask.setStartTime(startTime);
-                    return subtask;
-                default:
-                    throw new ManagerSaveException("Неизвестный тип задачи: " + type);
+                }
+                indexTask(subtask);
+                Epic epic = epics.get(subtask.getEpicId());
+                if (epic != null) {
+                    epic.addSubtaskId(subtask.getId());
+                }
+                break;
+            default:
+                throw new ManagerSaveException("Неизвестный тип задачи: " + task.getType());
+        }
+    }
+
+    // Пересобираем агрегаты эпиков после загрузки, затем статусы по ним
+    private void recalculateEpics() {
+        epics.values().forEach(this::recalculateEpic);
+        changed(TaskType.EPIC);
+    }
+
+    // Эпики пересчитываются независимо: каждый читает только мапу подзадач и меняет только себя.
+    // Публичные методы не вызываются — они берут монитор менеджера и свели бы пересчёт к очереди
+    private void recalculateEpics(ForkJoinPool pool) {
+        List<Epic> all = new ArrayList<>(epics.values());
+        pool.submit(() -> all.parallelStream().forEach(this::recalculateEpic)).join();
+        changed(TaskType.EPIC);
+    }
+
+    private void recalculateEpic(Epic epic) {
+        List<Subtask> own = new ArrayList<>(epic.getSubtaskCount());
+        epic.forEachSubtaskId(subtaskId -> {
+            Subtask subtask = subtasks.get(subtaskId);
+            if (subtask != null) {
+                own.add(subtask);
             }
-        } catch (NumberFormatException e) {
-            throw new ManagerSaveException("Ошибка формата числа в строке: " + value, e);
-        } catch (IllegalArgumentException e) {
-            throw new ManagerSaveException("Некорректное значение статуса в строке: " + value, e);
-        }
-    }
-
-    private static String[] parseCsvLine(String line) {
-        List<String> fields = new ArrayList<>();
-        StringBuilder field = new StringBuilder();
-        boolean inQuotes = false;
-
-        for (char c : line.toCharArray()) {
-            if (c == '"') {
-                inQuotes = !inQuotes;
-            } else if (c == ',' && !inQuotes) {
-                fields.add(field.toString());
-                field.setLength(0);
-            } else {
-                field.append(c);
+        });
+        epic.updateTimeParameters(own);
+        epic.setStatus(epic.calculateStatus());
+    }
+
+    /*
+     * Записи журнала: U,<строка CSV> — добавление или обновление, D,<id> — удаление, C,<тип> — очистка,
+     * B,<длина>:<запись><длина>:<запись>... — пакет applyBatch, записанный одной записью журнала.
+     */
+    private void applyJournalRecord(String record, CsvCodec codec) {
+        if (record.charAt(0) == 'B') {
+            int position = 2;
+            while (position < record.length()) {
+                int colon = record.indexOf(':', position);
+                int end = colon + 1 + Integer.parseInt(record, position, colon, 10);
+                applyJournalRecord(record.substring(colon + 1, end), codec);
+                position = end;
             }
+            return;
+        }
+        String argument = record.substring(2);
+        switch (record.charAt(0)) {
+            case 'U':
+                restore(codec.decode(argument));
+                break;
+            case 'D':
+                removeQuietly(Integer.parseInt(argument));
+                break;
+            case 'C':
+                clearQuietly(TaskType.valueOf(argument));
+                break;
+            default:
+                throw new ManagerSaveException("Неизвестная запись журнала: " + record);
+        }
+    }
+
+    private void removeQuietly(int id) {
+        if (tasks.containsKey(id)) {
+            super.removeTaskById(id);
+        } else if (epics.containsKey(id)) {
+            super.removeEpicById(id);
+        } else {
+            super.removeSubtaskById(id);
         }
-        fields.add(field.toString());
-        return fields.toArray(new String[0]);
     }
 
+    private void clearQuietly(TaskType type) {
+        switch (type) {
+            case TASK:
+                super.removeAllTasks();
+                break;
+            case SUBTASK:
+                super.removeAllSubtasks();
+                break;
+            case EPIC:
+                super.removeAllEpics();
+                break;
+        }
+    }
+
+    // Фиксирует добавление или обновление задачи
+    private CompletableFuture<Void> saveUpsert(Task stored) {
+        if (journal == null) {
+            save();
+        } else if (stored != null) {
+            return appendToJournal("U," + toString(stored));
+        }
+        return CompletableFuture.completedFuture(null);
+    }
+
+    // Фиксирует удаление задачи любого типа
+    private CompletableFuture<Void> saveRemoval(int id) {
+        if (journal == null) {
+            save();
+            return CompletableFuture.completedFuture(null);
+        }
+        return appendToJournal("D," + id);
+    }
+
+    // Фиксирует очистку всех задач одного типа
+    private CompletableFuture<Void> saveClear(TaskType type) {
+        if (journal == null) {
+            save();
+            return CompletableFuture.completedFuture(null);
+        }
+        return appendToJournal("C," + type);
+    }
+
+    // Фиксирует применённый пакет одним сохранением снимка или одной записью журнала
+    private CompletableFuture<Void> saveBatch(List<String> records) {
+        if (journal == null) {
+            save();
+            return CompletableFuture.completedFuture(null);
+        }
+        StringBuilder batch = new StringBuilder("B,");
+        for (String record : records) {
+            batch.append(record.length()).append(':').append(record);
+        }
+        return appendToJournal(batch.toString());
+    }
+
+    private CompletableFuture<Void> appendToJournal(String record) {
+        long start = System.nanoTime();
+        CompletableFuture<Void> commit = journal.append(record);
+        commit.whenComplete((ignored, error) -> saveLatency.record(System.nanoTime() - start));
+        int liveTasks = tasks.size() + epics.size() + subtasks.size();
+        if (journal.size() >= Math.max(journalConfig.getCompactionThreshold(), liveTasks)) {
+            compact();
+        }
+        return commit;
+    }
+
+    // Изменение подтверждается вызывающему только после фиксации записи на диске
+    private static void awaitCommit(CompletableFuture<Void> commit) {
+        try {
+            commit.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof ManagerSaveException) {
+                throw (ManagerSaveException) e.getCause();
+            }
+            throw new ManagerSaveException("Ошибка фиксации изменения", e.getCause());
+        }
+    }
+
+    /**
+     * Сворачивает журнал в снимок. Снимок состояния собирается в вызывающем потоке
+     * (копируются только ссылки и эпики), а запись на диск выполняется в фоне.
+     * Если предыдущая компактификация ещё идёт, вызов ничего не делает.
+     */
+    public synchronized void compact() {
+        if (journal == null || !compaction.isDone()) {
+            return;
+        }
+        if (compactionFailed() || journal.hasRotated()) {
+            // Снимок предыдущей компактификации не записан — сохраняемся синхронно
+            checkpoint(tasks.values(), epics.values(), subtasks.values());
+            return;
+        }
+        List<Task> taskSnapshot = new ArrayList<>(tasks.values());
+        List<Epic> epicSnapshot = new ArrayList<>(epics.size());
+        epics.values().forEach(epic -> epicSnapshot.add(epic.snapshot()));
+        List<Subtask> subtaskSnapshot = new ArrayList<>(subtasks.values());
+        journal.rotate();
+
+        compaction = compactor.submit(() -> {
+            try {
+                replaceSnapshot(taskSnapshot, epicSnapshot, subtaskSnapshot);
+                journal.discardRotated();
+            } catch (RuntimeException | IOException e) {
+                // Сбой виден в getStats сразу, не дожидаясь следующей компактификации
+                compactionFailures.increment();
+                throw e;
+            }
+            return null;
+        });
+    }
+
+    private boolean compactionFailed() {
+        try {
+            compaction.get();
+            return false;
+        } catch (ExecutionException e) {
+            compaction = CompletableFuture.completedFuture(null);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return true;
+        }
+    }
+
+    @Override
+    public ManagerStats getStats() {
+        long journalBytes = journal == null ? 0 : journal.bytesWritten();
+        ManagerStats stats;
+        synchronized (this) {
+            stats = super.getStats();
+        }
+        stats = stats.withPersistence(saveLatency, snapshotBytes.sum() + journalBytes);
+        if (journal == null) {
+            return stats;
+        }
+        return stats.withJournalFailures(journal.syncFailures(), compactionFailures.sum());
+    }
+
+    /*
+     * Чтения выполняются под тем же монитором, что и изменения: мапы и индексы времени
+     * InMemoryTaskManager не потокобезопасны, а get*ById ещё и пишут в историю. Результаты —
+     * копии списков, замороженные задачи и снимки эпиков, так что после выхода из монитора
+     * параллельные изменения их не затрагивают.
+     */
+    @Override
+    public synchronized List<Task> getAllTasks() {
+        return super.getAllTasks();
+    }
+
+    @Override
+    public synchronized List<Subtask> getAllSubtasks() {
+        return super.getAllSubtasks();
+    }
+
+    @Override
+    public synchronized List<Epic> getAllEpics() {
+        return super.getAllEpics();
+    }
+
+    @Override
+    public synchronized Task getTaskById(int id) {
+        return super.getTaskById(id);
+    }
+
+    @Override
+    public synchronized Epic getEpicById(int id) {
+        return super.getEpicById(id);
+    }
+
+    @Override
+    public synchronized Subtask getSubtaskById(int id) {
+        return super.getSubtaskById(id);
+    }
+
+    @Override
+    public synchronized List<Subtask> getAllSubtasksOfEpic(Epic epic) {
+        return super.getAllSubtasksOfEpic(epic);
+    }
+
+    @Override
+    public synchronized List<Task> getHistory() {
+        return super.getHistory();
+    }
+
+    @Override
+    public synchronized List<Task> getPrioritizedTasks() {
+        return super.getPrioritizedTasks();
+    }
+
+    @Override
+    public synchronized List<Task> getPrioritizedTasks(LocalDateTime from, LocalDateTime to) {
+        return super.getPrioritizedTasks(from, to);
+    }
+
+    @Override
+    public synchronized List<Task> getNextPrioritizedTasks(int limit) {
+        return super.getNextPrioritizedTasks(limit);
+    }
+
+    @Override
+    public synchronized List<Task> getPrioritizedTasksAfter(int cursorId, int limit) {
+        return super.getPrioritizedTasksAfter(cursorId, limit);
+    }
+
+    @Override
+    public synchronized boolean hasTimeOverlap(Task task) {
+        return super.hasTimeOverlap(task);
+    }
+
+    @Override
+    public synchronized List<Task> getOverlappingTasks(Task task) {
+        return super.getOverlappingTasks(task);
+    }
+
+    @Override
+    public synchronized List<Task> findTasks(TaskQuery query) {
+        return super.findTasks(query);
+    }
+
+    @Override
+    public synchronized void updateEpicStatus(Epic epic) {
+        super.updateEpicStatus(epic);
+    }
+
+    // Дожидается фоновой компактификации и закрывает журнал
     @Override
-    public void updateEpicTimeParameters(Epic epic) {
+    public void close() {
+        if (journal == null) {
+            return;
+        }
+        compactor.shutdown();
+        try {
+            compactor.awaitTermination(1, java.util.concurrent.TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        journal.close();
+    }
+
+    private static Path journalPath(File file) {
+        return file.toPath().resolveSibling(file.getName() + ".journal");
+    }
+
+    // Преобразование задачи в строку CSV
+    private String toString(Task task) {
+        return task.toCsv();
+    }
+
+    @Override
+    public synchronized void updateEpicTimeParameters(Epic epic) {
         List<Subtask> subtasks = getAllSubtasksOfEpic(epic);
         epic.updateTimeParameters(subtasks);
+        changed(TaskType.EPIC);
     }
 
-    // Переопределяем методы, изменяющие состояние, и добавляем сохранение
+    /*
+     * Переопределяем методы, изменяющие состояние, и добавляем сохранение.
+     * Изменение и постановка записи в журнал выполняются под монитором менеджера, а ожидание
+     * fsync — уже без него, чтобы в режиме GROUP параллельные изменения попадали в одну пачку.
+     */
     @Override
     public void addTask(Task task) {
-        super.addTask(task);
-        save();
+        CompletableFuture<Void> commit;
+        synchronized (this) {
+            super.addTask(task);
+            commit = saveUpsert(task == null ? null : tasks.get(task.getId()));
+        }
+        awaitCommit(commit);
     }
 
     @Override
     public void addEpic(Epic epic) {
-        super.addEpic(epic);
-        save();
+        CompletableFuture<Void> commit;
+        synchronized (this) {
+            super.addEpic(epic);
+            commit = saveUpsert(epic == null ? null : epics.get(epic.getId()));
+        }
+        awaitCommit(commit);
     }
 
     @Override
     public void addSubtask(Subtask subtask) {
-        super.addSubtask(subtask);
-        save();
+        CompletableFuture<Void> commit;
+        synchronized (this) {
+            super.addSubtask(subtask);
+            commit = saveUpsert(subtask == null ? null : subtasks.get(subtask.getId()));
+        }
+        awaitCommit(commit);
     }
 
     @Override
     public void updateTask(Task task) {
-        super.updateTask(task);
-        save();
+        CompletableFuture<Void> commit;
+        synchronized (this) {
+            super.updateTask(task);
+            commit = saveUpsert(task == null ? null : tasks.get(task.getId()));
+        }
+        awaitCommit(commit);
     }
 
     @Override
     public void updateEpic(Epic epic) {
-        super.updateEpic(epic);
-        save();
+        CompletableFuture<Void> commit;
+        synchronized (this) {
+            super.updateEpic(epic);
+            commit = saveUpsert(epic == null ? null : epics.get(epic.getId()));
+        }
+        awaitCommit(commit);
     }
 
     @Override
     public void updateSubtask(Subtask subtask) {
-        super.updateSubtask(subtask);
-        Epic epic = getEpicById(subtask.getEpicId());
-        if (epic != null) {
-            epic.updateTimeParameters(getAllSubtasksOfEpic(epic));
+        CompletableFuture<Void> commit;
+        synchronized (this) {
+            super.updateSubtask(subtask);
+            commit = saveUpsert(subtask == null ? null : subtasks.get(subtask.getId()));
         }
-        save();
+        awaitCommit(commit);
     }
 
     @Override
     public void removeTaskById(int id) {
-        super.removeTaskById(id);
-        save();
+        CompletableFuture<Void> commit;
+        synchronized (this) {
+            super.removeTaskById(id);
+            commit = saveRemoval(id);
+        }
+        awaitCommit(commit);
     }
 
     @Override
     public void removeEpicById(int id) {
-        super.removeEpicById(id);
-        save();
+        CompletableFuture<Void> commit;
+        synchronized (this) {
+            super.removeEpicById(id);
+            commit = saveRemoval(id);
+        }
+        awaitCommit(commit);
     }
 
     @Override
     public void removeSubtaskById(int id) {
-        super.removeSubtaskById(id);
-        save();
+        CompletableFuture<Void> commit;
+        synchronized (this) {
+            super.removeSubtaskById(id);
+            commit = saveRemoval(id);
+        }
+        awaitCommit(commit);
     }
 
     @Override
     public void removeAllTasks() {
-        super.removeAllTasks();
-        save();
+        CompletableFuture<Void> commit;
+        synchronized (this) {
+            super.removeAllTasks();
+            commit = saveClear(TaskType.TASK);
+        }
+        awaitCommit(commit);
     }
 
     @Override
     public void removeAllSubtasks() {
-        super.removeAllSubtasks();
-        for (Epic epic : getAllEpics()) {
-            epic.clearSubtaskIds();
-            epic.updateTimeParameters(List.of());
+        CompletableFuture<Void> commit;
+        synchronized (this) {
+            super.removeAllSubtasks();
+            commit = saveClear(TaskType.SUBTASK);
         }
-        save();
+        awaitCommit(commit);
     }
 
     @Override
     public void removeAllEpics() {
-        super.removeAllEpics();
-        save();
+        CompletableFuture<Void> commit;
+        synchronized (this) {
+            super.removeAllEpics();
+            commit = saveClear(TaskType.EPIC);
+        }
+        awaitCommit(commit);
+    }
+
+    /*
+     * Импорт по пакетам, как TaskManager.importTasks: очередные IMPORT_CHUNK_SIZE задач читаются
+     * из источника без монитора, а применяются под ним, поэтому медленный источник не держит
+     * остальные изменения. В журнал каждый пакет пишется одной записью; без журнала снимок
+     * сохраняется один раз в конце (и при обрыве источника), а не после каждого пакета.
+     */
+    @Override
+    public ImportResult importTasks(Iterator<? extends Task> source) {
+        if (journal != null) {
+            return importChunks(source, chunk -> applyBatch(chunk, BatchMode.PER_ITEM));
+        }
+        try {
+            return importChunks(source, chunk -> {
+                synchronized (this) {
+                    return applyBatch(chunk, BatchMode.PER_ITEM, null);
+                }
+            });
+        } finally {
+            synchronized (this) {
+                save();
+            }
+        }
+    }
+
+    private static ImportResult importChunks(Iterator<? extends Task> source,
+                                             Function<List<BatchOperation>, BatchResult> apply) {
+        ImportResult result = new ImportResult();
+        List<BatchOperation> chunk = new ArrayList<>(IMPORT_CHUNK_SIZE);
+        try {
+            while (source.hasNext()) {
+                chunk.add(BatchOperation.create(source.next()));
+                if (chunk.size() == IMPORT_CHUNK_SIZE) {
+                    List<BatchOperation> full = chunk;
+                    chunk = new ArrayList<>(IMPORT_CHUNK_SIZE);
+                    result.addAll(apply.apply(full));
+                }
+            }
+        } finally {
+            // Прочитанное до обрыва источника тоже применяется
+            if (!chunk.isEmpty()) {
+                result.addAll(apply.apply(chunk));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public BatchResult applyBatch(List<BatchOperation> operations, BatchMode mode) {
+        CompletableFuture<Void> commit = CompletableFuture.completedFuture(null);
+        BatchResult result;
+        synchronized (this) {
+            List<String> records = journal == null ? null : new ArrayList<>();
+            result = applyBatch(operations, mode, records);
+            if (result.getAppliedCount() > 0) {
+                commit = saveBatch(records);
+            }
+        }
+        awaitCommit(commit);
+        return result;
     }
 }
@@ -10,4 +10,11 @@ public interface HistoryManager {
     void remove(int id);
 
     List<Task> getHistory();
+
+    // Растёт при каждом изменении истории
+    long getVersion();
+
+    default int size() {
+        return getHistory().size();
+    }
 }
@@ -0,0 +1,78 @@
+package managers;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Итог TaskManager.importTasks. В отличие от BatchResult элементы по каждой задаче не хранятся —
+ * только счётчики и первые {@link #MAX_FAILURES} отказов, поэтому объём результата не зависит
+ * от размера импорта.
+ */
+public final class ImportResult {
+    public static final int MAX_FAILURES = 100;
+
+    // Отказ по одной задаче; position — её порядковый номер в источнике, с 1
+    public static final class Failure {
+        private final long position;
+        private final BatchResult.Outcome outcome;
+        private final String message;
+
+        Failure(long position, BatchResult.Outcome outcome, String message) {
+            this.position = position;
+            this.outcome = outcome;
+            this.message = message;
+        }
+
+        public long getPosition() {
+            return position;
+        }
+
+        public BatchResult.Outcome getOutcome() {
+            return outcome;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+    }
+
+    private long applied;
+    private long rejected;
+    private final List<Failure> failures = new ArrayList<>();
+
+    // Заполняется только менеджером до возврата из importTasks
+    ImportResult() {
+    }
+
+    void add(BatchResult.Item item) {
+        if (item.isApplied()) {
+            applied++;
+            return;
+        }
+        rejected++;
+        if (failures.size() < MAX_FAILURES) {
+            failures.add(new Failure(applied + rejected, item.getOutcome(), item.getMessage()));
+        }
+    }
+
+    void addAll(BatchResult result) {
+        result.getItems().forEach(this::add);
+    }
+
+    public long getApplied() {
+        return applied;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public long getTotal() {
+        return applied + rejected;
+    }
+
+    public List<Failure> getFailures() {
+        return Collections.unmodifiableList(failures);
+    }
+}
@@ -3,26 +3,43 @@ package managers;
 import java.util.*;
 import tasks.*;
 
+// Методы синхронизированы: историю может читать и менять многопоточный ConcurrentTaskManager
 public class InMemoryHistoryManager implements HistoryManager {
     private final CustomLinkedList history = new CustomLinkedList();
+    // Меняется под монитором, читается без него
+    private volatile long version;
 
     @Override
-    public void add(Task task) {
+    public synchronized void add(Task task) {
         if (task != null) {
             history.linkLast(task);
+            version++;
         }
     }
 
     @Override
-    public void remove(int id) {
-        history.removeNode(id);
+    public synchronized void remove(int id) {
+        if (history.nodeMap.containsKey(id)) {
+            history.removeNode(id);
+            version++;
+        }
+    }
+
+    @Override
+    public long getVersion() {
+        return version;
     }
 
     @Override
-    public List<Task> getHistory() {
+    public synchronized List<Task> getHistory() {
         return history.getTasks();
     }
 
+    @Override
+    public synchronized int size() {
+        return history.nodeMap.size();
+    }
+
     private static final class CustomLinkedList {
         private final Map<Integer, Node> nodeMap = new HashMap<>();
         private Node head;
@@ -1,33 +1,62 @@
 package managers;
 
+import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
 
 import tasks.*;
 import util.Managers;
 import util.Status;
+import util.TaskType;
 import exceptions.TimeConflictException;
 
 public class InMemoryTaskManager implements TaskManager {
     static int id;
-    final HashMap<Integer, Task> tasks;
-    final HashMap<Integer, Epic> epics;
-    final HashMap<Integer, Subtask> subtasks;
+    // Упорядочены по id, чтобы постраничная выборка начиналась сразу с курсора
+    final TreeMap<Integer, Task> tasks;
+    final TreeMap<Integer, Epic> epics;
+    final TreeMap<Integer, Subtask> subtasks;
     final HistoryManager historyManager;
-    private final TreeSet<Task> prioritizedTasks = new TreeSet<>(
-            // задачи со startTime == null идут в конец
-            Comparator.comparing(Task::getStartTime, Comparator.nullsLast(Comparator.naturalOrder())));
+    private final PrioritizedIndex prioritizedTasks = new PrioritizedIndex();
+    private final TimeIntervalIndex timeIndex = new TimeIntervalIndex();
+    // Увеличиваются после изменения; атомарные, чтобы версии могли читать потоки без блокировок
+    private final ChangeVersions versions = new ChangeVersions();
 
     public InMemoryTaskManager() {
-        this.tasks = new HashMap<>();
-        this.epics = new HashMap<>();
-        this.subtasks = new HashMap<>();
+        this.tasks = new TreeMap<>();
+        this.epics = new TreeMap<>();
+        this.subtasks = new TreeMap<>();
         this.id = 0; //инициализация счетчика
         this.historyManager = Managers.getDefaultHistory();
     }
 
     public int generateId() { // создание счетчика
-        return ++id;
+        int next = ++id;
+        while (isIdTaken(next)) { // id, заданные клиентом, не выдаются повторно
+            next = ++id;
+        }
+        return next;
+    }
+
+    // Счётчик переходит за id, заданный клиентом, чтобы generateId его не выдал
+    void reserveId(int reserved) {
+        if (reserved > id) {
+            id = reserved;
+        }
+    }
+
+    // Задачи, эпики и подзадачи делят одно пространство id
+    boolean isIdTaken(int candidate) {
+        return tasks.containsKey(candidate) || epics.containsKey(candidate) || subtasks.containsKey(candidate);
+    }
+
+    // id новой задачи: заданный клиентом, если он свободен, иначе следующий из счётчика
+    private void assignId(Task task) {
+        if (task.getId() <= 0 || isIdTaken(task.getId())) {
+            task.setId(generateId());
+        } else {
+            reserveId(task.getId());
+        }
     }
 
     @Override
@@ -42,33 +71,41 @@ public class InMemoryTaskManager implements TaskManager {
 
     @Override
     public List<Epic> getAllEpics() {
-        return new ArrayList<>(epics.values());
+        List<Epic> result = new ArrayList<>(epics.size());
+        epics.values().forEach(epic -> result.add(epic.snapshot()));
+        return result;
     }
 
     @Override
     public void removeAllTasks() {
-        for (Integer taskId : tasks.keySet()) {
-            historyManager.remove(taskId);
+        for (Task task : tasks.values()) {
+            historyManager.remove(task.getId());
+            unindexTask(task);
         }
         tasks.clear();
+        changed(TaskType.TASK);
     }
 
     @Override
     public void removeAllSubtasks() {
         subtasks.keySet().forEach(historyManager::remove);
+        subtasks.values().forEach(this::unindexTask);
         subtasks.clear();
         epics.values().forEach(epic -> {
             epic.clearSubtaskIds();
-            updateEpicStatus(epic);
+            epic.setStatus(Status.NEW);
         });
+        changed(TaskType.SUBTASK, TaskType.EPIC);
     }
 
     @Override
     public void removeAllEpics() {
         subtasks.keySet().forEach(historyManager::remove);
+        subtasks.values().forEach(this::unindexTask);
         epics.keySet().forEach(historyManager::remove);
         subtasks.clear();
         epics.clear();
+        changed(TaskType.EPIC, TaskType.SUBTASK);
     }
 
     @Override
@@ -77,8 +114,8 @@ public class InMemoryTaskManager implements TaskManager {
         if (task == null) {
             return null;
         }
-        historyManager.add(task.copy()); // Добавляем копию в историю
-        return task.copy(); // Возвращаем копию
+        historyManager.add(task); // Хранимые задачи заморожены, поэтому копировать их не нужно
+        return task;
     }
 
     @Override
@@ -87,8 +124,9 @@ public class InMemoryTaskManager implements TaskManager {
         if (epic == null) {
             return null;
         }
-        historyManager.add(epic.copy()); // Добавляем копию в историю
-        return epic.copy(); // Возвращаем копию
+        Epic snapshot = epic.snapshot(); // Эпик меняется на месте, поэтому отдаём замороженный снимок
+        historyManager.add(snapshot);
+        return snapshot;
     }
 
     @Override
@@ -97,8 +135,8 @@ public class InMemoryTaskManager implements TaskManager {
         if (subtask == null) {
             return null;
         }
-        historyManager.add(subtask.copy()); // Добавляем копию в историю
-        return subtask.copy(); // Возвращаем копию
+        historyManager.add(subtask);
+        return subtask;
     }
 
     @Override
@@ -107,27 +145,22 @@ public class InMemoryTaskManager implements TaskManager {
         if (hasTimeOverlap(task)) { // Добавление проверки по пересечению задач
             throw new TimeConflictException("Задача пересекается по времени с существующей.");
         }
-        if (task.getId() <= 0 || tasks.containsKey(task.getId())) {
-            task.setId(generateId());
-        }
-        Task taskCopy = task.copy();
+        assignId(task);
+        Task taskCopy = task.copy().freeze();
         tasks.put(taskCopy.getId(), taskCopy);
-        if (taskCopy.getStartTime() != null) {
-            prioritizedTasks.add(taskCopy);
-        }
+        indexTask(taskCopy);
+        changed(TaskType.TASK);
     }
 
     @Override
     public void addEpic(Epic epic) {
         if (epic == null) return;
-        if (epic.getId() <= 0 || epics.containsKey(epic.getId())) {
-            epic.setId(generateId());
-        }
+        assignId(epic);
         Epic epicCopy = new Epic(epic.getName(), epic.getDescription());
         epicCopy.setId(epic.getId());
         epicCopy.setStatus(Status.NEW);
-        epicCopy.getSubIds().addAll(epic.getSubIds());
         epics.put(epicCopy.getId(), epicCopy);
+        changed(TaskType.EPIC);
     }
 
     @Override
@@ -136,40 +169,33 @@ public class InMemoryTaskManager implements TaskManager {
         if (hasTimeOverlap(subtask)) {
             throw new TimeConflictException("Подзадача пересекается по времени");
         }
-        if (subtask.getId() <= 0 || subtasks.containsKey(subtask.getId())) {
-            subtask.setId(generateId());
-        }
-        if (subtasks.containsKey(subtask.getId())) return;
+        if (!epics.containsKey(subtask.getEpicId())) return;
+        assignId(subtask);
 
-        Subtask subtaskCopy = subtask.copy();
+        Subtask subtaskCopy = subtask.copy().freeze();
 
-        if (!epics.containsKey(subtask.getEpicId())) return;
         subtasks.put(subtaskCopy.getId(), subtaskCopy);
-        if (subtaskCopy.getStartTime() != null) {
-            prioritizedTasks.add(subtaskCopy);
-        }
+        indexTask(subtaskCopy);
         Epic epic = epics.get(subtaskCopy.getEpicId());
         if (epic.addSubtaskId(subtaskCopy.getId())) {
-            updateEpicStatus(epic);
+            epic.includeSubtask(subtaskCopy);
         }
-        updateEpicTimeParameters(epic);
+        changed(TaskType.SUBTASK, TaskType.EPIC);
     }
 
     @Override
     public void updateTask(Task task) {
         if (task != null && tasks.containsKey(task.getId())) {
-            if (hasTimeOverlap(task)) {
+            if (timeIndex.hasOverlap(task, task.getId())) {
                 throw new TimeConflictException("Задача пересекается по времени с существующей.");
             }
             Task oldTask = tasks.get(task.getId());
-            prioritizedTasks.remove(oldTask); // Удаляем старую версию
+            unindexTask(oldTask); // Удаляем старую версию
 
-            Task taskCopy = task.copy();
+            Task taskCopy = task.copy().freeze();
             tasks.put(taskCopy.getId(), taskCopy);
-
-            if (taskCopy.getStartTime() != null) {
-                prioritizedTasks.add(taskCopy); // Добавляем обновленную
-            }
+            indexTask(taskCopy); // Добавляем обновленную
+            changed(TaskType.TASK);
         }
     }
 
@@ -183,6 +209,7 @@ public class InMemoryTaskManager implements TaskManager {
         oldEpic.setDescription(epic.getDescription());
         epics.put(oldEpic.getId(), oldEpic);
         updateEpicStatus(oldEpic);
+        changed(TaskType.EPIC);
     }
 
     @Override
@@ -190,27 +217,44 @@ public class InMemoryTaskManager implements TaskManager {
         if (subtask == null || !subtasks.containsKey(subtask.getId())) {
             return;
         }
-        if (hasTimeOverlap(subtask)) {
+        if (timeIndex.hasOverlap(subtask, subtask.getId())) {
             throw new TimeConflictException("Обновленная подзадача пересекается по времени с существующими");
         }
         Subtask oldSubtask = subtasks.get(subtask.getId());
-        prioritizedTasks.remove(oldSubtask);
+        unindexTask(oldSubtask);
 
-        Subtask subtaskCopy = subtask.copy();
+        Subtask subtaskCopy = subtask.copy().freeze();
         subtasks.put(subtaskCopy.getId(), subtaskCopy);
+        indexTask(subtaskCopy);
+        relinkSubtask(oldSubtask, subtaskCopy);
+        changed(TaskType.SUBTASK, TaskType.EPIC);
+    }
 
-        if (subtaskCopy.getStartTime() != null) {
-            prioritizedTasks.add(subtaskCopy);
+    // Переносит подзадачу в агрегатах эпиков: тот же эпик — замена, другой — исключение и добавление
+    void relinkSubtask(Subtask oldSubtask, Subtask newSubtask) {
+        Epic oldEpic = epics.get(oldSubtask.getEpicId());
+        if (oldSubtask.getEpicId() == newSubtask.getEpicId()) {
+            if (oldEpic != null) {
+                oldEpic.replaceSubtask(oldSubtask, newSubtask);
+            }
+            return;
+        }
+        if (oldEpic != null && oldEpic.removeSubtaskById(oldSubtask.getId())) {
+            oldEpic.excludeSubtask(oldSubtask);
+        }
+        Epic newEpic = epics.get(newSubtask.getEpicId());
+        if (newEpic != null && newEpic.addSubtaskId(newSubtask.getId())) {
+            newEpic.includeSubtask(newSubtask);
         }
-        updateEpicStatus(epics.get(subtaskCopy.getEpicId()));
     }
 
     @Override
     public void removeTaskById(int id) {
         Task task = tasks.remove(id);
         if (task != null) {
-            prioritizedTasks.remove(task);
+            unindexTask(task);
             historyManager.remove(id);
+            changed(TaskType.TASK);
         }
     }
 
@@ -219,13 +263,16 @@ public class InMemoryTaskManager implements TaskManager {
     public void removeEpicById(int id) {
         Epic epic = epics.get(id);
         if (epic != null) {
-            epic.getSubIds().stream()
-                    .forEach(subtaskId -> {
-                        subtasks.remove(subtaskId);
-                        historyManager.remove(subtaskId);
-                    });
+            epic.forEachSubtaskId(subtaskId -> {
+                Subtask subtask = subtasks.remove(subtaskId);
+                if (subtask != null) {
+                    unindexTask(subtask);
+                }
+                historyManager.remove(subtaskId);
+            });
             historyManager.remove(id);
             epics.remove(id);
+            changed(TaskType.EPIC, TaskType.SUBTASK);
         }
     }
 
@@ -233,50 +280,38 @@ public class InMemoryTaskManager implements TaskManager {
     public void removeSubtaskById(int id) {
         Subtask subtask = subtasks.remove(id);
         if (subtask != null) {
-            prioritizedTasks.remove(subtask);
+            unindexTask(subtask);
             int epicId = subtask.getEpicId();
             Epic epic = epics.get(epicId);
             if (epic != null) {
-                epic.removeSubtaskById(id);
-                updateEpicStatus(epic);
-                updateEpicTimeParameters(epic);
+                if (epic.removeSubtaskById(id)) {
+                    epic.excludeSubtask(subtask);
+                }
             }
             historyManager.remove(id);
+            changed(TaskType.SUBTASK, TaskType.EPIC);
         }
     }
 
     @Override
     public List<Subtask> getAllSubtasksOfEpic(Epic epic) {
-        return epic.getSubIds().stream()
-                .map(subtasks::get)
-                .filter(Objects::nonNull)
-                .collect(Collectors.toList());
+        List<Subtask> result = new ArrayList<>(epic.getSubtaskCount());
+        epic.forEachSubtaskId(subtaskId -> {
+            Subtask subtask = subtasks.get(subtaskId);
+            if (subtask != null) {
+                result.add(subtask);
+            }
+        });
+        return result;
     }
 
     @Override
     public void updateEpicStatus(Epic epic) {
-        if (epic.getSubIds().isEmpty()) {
-            epic.setStatus(Status.NEW);
-            return;
-        }
-        Map<Status, Long> statusCount = epic.getSubIds().stream()
-                .map(subtasks::get)
-                .filter(Objects::nonNull)
-                .collect(Collectors.groupingBy(
-                        Subtask::getStatus,
-                        Collectors.counting()
-                ));
-        long newCount = statusCount.getOrDefault(Status.NEW, 0L);
-        long doneCount = statusCount.getOrDefault(Status.DONE, 0L);
-        int totalSubtasks = epic.getSubIds().size();
-
-        if (newCount == totalSubtasks) {
-            epic.setStatus(Status.NEW);
-        } else if (doneCount == totalSubtasks) {
-            epic.setStatus(Status.DONE);
-        } else {
-            epic.setStatus(Status.IN_PROGRESS);
+        if (epic.getAggregatedSubtaskCount() != epic.getSubtaskCount()) {
+            updateEpicTimeParameters(epic); // Агрегаты не совпадают со списком подзадач — пересобираем
         }
+        epic.setStatus(epic.calculateStatus());
+        changed(TaskType.EPIC);
     }
 
     @Override
@@ -286,30 +321,155 @@ public class InMemoryTaskManager implements TaskManager {
 
     @Override
     public List<Task> getPrioritizedTasks() {
-        return prioritizedTasks.stream()
-                .filter(task -> task.getStartTime() != null) // Исключаем задачи без времени
-                .collect(Collectors.toList());
+        return prioritizedTasks.snapshot();
     }
 
     @Override
-    public boolean hasTimeOverlap(Task newTask) {
-        if (newTask.getStartTime() == null || newTask.getEndTime() == null) {
-            return false;
+    public List<Task> getPrioritizedTasks(LocalDateTime from, LocalDateTime to) {
+        return prioritizedTasks.between(from, to);
+    }
+
+    @Override
+    public List<Task> getNextPrioritizedTasks(int limit) {
+        return prioritizedTasks.next(limit);
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasksAfter(int cursorId, int limit) {
+        Task cursor = tasks.containsKey(cursorId) ? tasks.get(cursorId) : subtasks.get(cursorId);
+        if (cursor == null || cursor.getStartTime() == null) {
+            return List.of();
         }
+        return prioritizedTasks.after(cursor, limit);
+    }
+
+    @Override
+    public boolean hasTimeOverlap(Task newTask) {
+        return timeIndex.hasOverlap(newTask);
+    }
 
-        return prioritizedTasks.stream()
-                .filter(task -> task.getStartTime() != null && task.getEndTime() != null)
-                .anyMatch(existingTask -> isTimeOverlap(existingTask, newTask));
+    @Override
+    public List<Task> getOverlappingTasks(Task task) {
+        return timeIndex.findOverlaps(task);
     }
 
-    private boolean isTimeOverlap(Task a, Task b) {
-        return a.getStartTime().isBefore(b.getEndTime())
-                && a.getEndTime().isAfter(b.getStartTime());
+    // Регистрирует задачу в индексах по времени
+    void indexTask(Task task) {
+        prioritizedTasks.add(task);
+        timeIndex.add(task);
+    }
+
+    // Удаляет задачу из индексов по времени
+    void unindexTask(Task task) {
+        prioritizedTasks.remove(task);
+        timeIndex.remove(task);
     }
 
     @Override
     public void updateEpicTimeParameters(Epic epic) {
         List<Subtask> subtasks = getAllSubtasksOfEpic(epic);
         epic.updateTimeParameters(subtasks);
+        changed(TaskType.EPIC);
+    }
+
+    @Override
+    public long getVersion() {
+        return versions.get();
+    }
+
+    @Override
+    public long getVersion(TaskType type) {
+        return versions.get(type);
+    }
+
+    @Override
+    public long getHistoryVersion() {
+        return historyManager.getVersion();
+    }
+
+    // Вызывается после каждого изменения состояния: types — типы, списки которых изменились
+    void changed(TaskType... types) {
+        versions.changed(types);
+    }
+
+    @Override
+    public BatchResult applyBatch(List<BatchOperation> operations, BatchMode mode) {
+        return applyBatch(operations, mode, null);
+    }
+
+    // records — куда добавить записи журнала применённых операций; null — не нужны
+    BatchResult applyBatch(List<BatchOperation> operations, BatchMode mode, List<String> records) {
+        BatchResult result = new TaskBatch(tasks, epics, subtasks, prioritizedTasks, timeIndex, historyManager,
+                this::generateId, this::reserveId, records).apply(operations, mode);
+        changed(TaskType.values());
+        return result;
+    }
+
+    /*
+     * Весь импорт — один PER_ITEM-пакет, в который задачи подаются по одной: каждый эпик
+     * пересчитывается один раз в конце, даже если источник оборвался исключением.
+     */
+    @Override
+    public ImportResult importTasks(Iterator<? extends Task> source) {
+        TaskBatch batch = new TaskBatch(tasks, epics, subtasks, prioritizedTasks, timeIndex, historyManager,
+                this::generateId, this::reserveId, null);
+        ImportResult result = new ImportResult();
+        try {
+            while (source.hasNext()) {
+                result.add(batch.applyLive(BatchOperation.create(source.next())));
+            }
+        } finally {
+            batch.finish();
+            changed(TaskType.values());
+        }
+        return result;
+    }
+
+    @Override
+    public ManagerStats getStats() {
+        return new ManagerStats(tasks.size(), epics.size(), subtasks.size(), prioritizedTasks.size(),
+                historyManager.size());
+    }
+
+    /*
+     * Фильтр по эпику обходит только подзадачи эпика, фильтр по startTime — диапазон индекса
+     * приоритетов (эпиков в нём нет, их мало, и они проверяются отдельно). Без этих фильтров
+     * задачи читаются по порядку id, пока не наберётся страница.
+     */
+    @Override
+    public List<Task> findTasks(TaskQuery query) {
+        if (query.getEpicId() != null) {
+            Epic epic = epics.get(query.getEpicId());
+            if (epic == null || !query.includes(TaskType.SUBTASK)) {
+                return new ArrayList<>();
+            }
+            List<Subtask> candidates = new ArrayList<>(epic.getSubtaskCount());
+            epic.forEachSubtaskId(subtaskId -> candidates.add(subtasks.get(subtaskId)));
+            return query.selectUnordered(List.of(candidates.iterator()));
+        }
+        if (query.hasStartRange()) {
+            List<Iterator<? extends Task>> sources = new ArrayList<>(2);
+            sources.add(prioritizedTasks.range(query.getStartFrom(), query.getStartTo()).iterator());
+            if (query.includes(TaskType.EPIC)) {
+                sources.add(epics.tailMap(query.getAfterId(), false).values().stream()
+                        .filter(query::matches)
+                        .map(Epic::snapshot)
+                        .iterator());
+            }
+            return query.selectUnordered(sources);
+        }
+        List<Iterator<? extends Task>> sources = new ArrayList<>(3);
+        if (query.includes(TaskType.TASK)) {
+            sources.add(tasks.tailMap(query.getAfterId(), false).values().iterator());
+        }
+        if (query.includes(TaskType.EPIC)) {
+            sources.add(epics.tailMap(query.getAfterId(), false).values().stream()
+                    .map(Epic::snapshot)
+                    .iterator());
+        }
+        if (query.includes(TaskType.SUBTASK)) {
+            sources.add(subtasks.tailMap(query.getAfterId(), false).values().iterator());
+        }
+        return query.select(sources);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,109 @@
+package managers;
+
+import java.util.Objects;
+
+/**
+ * Настройки журнального режима FileBackedTaskManager.
+ * Объект неизменяемый: методы with* возвращают новую конфигурацию.
+ */
+public final class JournalConfig {
+    public static final long DEFAULT_SYNC_INTERVAL_MILLIS = 200;
+    public static final int DEFAULT_COMPACTION_THRESHOLD = 10_000;
+    public static final long DEFAULT_GROUP_COMMIT_WINDOW_MICROS = 2_000;
+    public static final int DEFAULT_MAX_BATCH_SIZE = 256;
+
+    // Когда записи журнала сбрасываются на диск (fsync)
+    public enum SyncPolicy {
+        ALWAYS,   // после каждой записи
+        PERIODIC, // фоновым потоком раз в syncIntervalMillis
+        NONE,     // на усмотрение ОС
+        GROUP     // групповая фиксация: одна запись и один fsync на пачку изменений
+    }
+
+    private final SyncPolicy syncPolicy;
+    private final long syncIntervalMillis;
+    private final int compactionThreshold;
+    private final long groupCommitWindowMicros;
+    private final int maxBatchSize;
+    private final SnapshotFormat snapshotFormat;
+
+    private JournalConfig(SyncPolicy syncPolicy, long syncIntervalMillis, int compactionThreshold,
+                          long groupCommitWindowMicros, int maxBatchSize, SnapshotFormat snapshotFormat) {
+        this.syncPolicy = Objects.requireNonNull(syncPolicy, "Политика синхронизации не может быть null");
+        if (syncIntervalMillis <= 0) {
+            throw new IllegalArgumentException("Интервал синхронизации должен быть положительным");
+        }
+        if (compactionThreshold <= 0) {
+            throw new IllegalArgumentException("Порог компактификации должен быть положительным");
+        }
+        if (groupCommitWindowMicros < 0) {
+            throw new IllegalArgumentException("Окно групповой фиксации не может быть отрицательным");
+        }
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("Размер пачки должен быть положительным");
+        }
+        this.syncIntervalMillis = syncIntervalMillis;
+        this.compactionThreshold = compactionThreshold;
+        this.groupCommitWindowMicros = groupCommitWindowMicros;
+        this.maxBatchSize = maxBatchSize;
+        this.snapshotFormat = Objects.requireNonNull(snapshotFormat, "Формат снимка не может быть null");
+    }
+
+    public static JournalConfig of(SyncPolicy syncPolicy) {
+        return new JournalConfig(syncPolicy, DEFAULT_SYNC_INTERVAL_MILLIS, DEFAULT_COMPACTION_THRESHOLD,
+                DEFAULT_GROUP_COMMIT_WINDOW_MICROS, DEFAULT_MAX_BATCH_SIZE, SnapshotFormat.CSV);
+    }
+
+    public JournalConfig withSyncIntervalMillis(long syncIntervalMillis) {
+        return new JournalConfig(syncPolicy, syncIntervalMillis, compactionThreshold,
+                groupCommitWindowMicros, maxBatchSize, snapshotFormat);
+    }
+
+    // Минимальное число записей в журнале, после которого он сворачивается в снимок
+    public JournalConfig withCompactionThreshold(int compactionThreshold) {
+        return new JournalConfig(syncPolicy, syncIntervalMillis, compactionThreshold,
+                groupCommitWindowMicros, maxBatchSize, snapshotFormat);
+    }
+
+    // Сколько писатель ждёт попутные изменения после первого в пачке (только для GROUP)
+    public JournalConfig withGroupCommitWindowMicros(long groupCommitWindowMicros) {
+        return new JournalConfig(syncPolicy, syncIntervalMillis, compactionThreshold,
+                groupCommitWindowMicros, maxBatchSize, snapshotFormat);
+    }
+
+    // Пачка записывается сразу, как только набрала столько изменений (только для GROUP)
+    public JournalConfig withMaxBatchSize(int maxBatchSize) {
+        return new JournalConfig(syncPolicy, syncIntervalMillis, compactionThreshold,
+                groupCommitWindowMicros, maxBatchSize, snapshotFormat);
+    }
+
+    // В каком формате записывается снимок при компактификации
+    public JournalConfig withSnapshotFormat(SnapshotFormat snapshotFormat) {
+        return new JournalConfig(syncPolicy, syncIntervalMillis, compactionThreshold,
+                groupCommitWindowMicros, maxBatchSize, snapshotFormat);
+    }
+
+    public SyncPolicy getSyncPolicy() {
+        return syncPolicy;
+    }
+
+    public long getSyncIntervalMillis() {
+        return syncIntervalMillis;
+    }
+
+    public int getCompactionThreshold() {
+        return compactionThreshold;
+    }
+
+    public long getGroupCommitWindowMicros() {
+        return groupCommitWindowMicros;
+    }
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    public SnapshotFormat getSnapshotFormat() {
+        return snapshotFormat;
+    }
+}
@@ -0,0 +1,78 @@
+package managers;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * Построчное чтение без создания строк: строка передаётся обработчику как диапазон
+ * переиспользуемого буфера символов. Строки разделяются так же, как в BufferedReader.readLine:
+ * '\n', '\r' или "\r\n"; пустой хвост после последнего перевода строки строкой не считается.
+ * Как в CSV, перевод строки внутри кавычек строку не заканчивает: кавычки внутри поля
+ * удваиваются, поэтому нечётное число '"' с начала строки означает открытые кавычки.
+ */
+final class LineReader {
+    interface LineHandler {
+        // chars[start, end) — строка без перевода строки; буфер действителен только во время вызова
+        void line(char[] chars, int start, int end);
+    }
+
+    private final Reader reader;
+    private char[] buffer = new char[8192];
+    private boolean endedInQuotes;
+
+    LineReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    void forEach(LineHandler handler) throws IOException {
+        int length = 0;
+        int lineStart = 0;
+        int scan = 0;
+        boolean skipLf = false;
+        boolean inQuotes = false;
+        while (true) {
+            for (; scan < length; scan++) {
+                char c = buffer[scan];
+                if (skipLf) {
+                    skipLf = false;
+                    if (c == '\n') {
+                        lineStart = scan + 1;
+                        continue;
+                    }
+                }
+                if (c == '"') {
+                    inQuotes = !inQuotes;
+                } else if ((c == '\n' || c == '\r') && !inQuotes) {
+                    handler.line(buffer, lineStart, scan);
+                    skipLf = c == '\r';
+                    lineStart = scan + 1;
+                }
+            }
+            // Недочитанную строку переносим в начало буфера, длинную — в увеличенный буфер
+            if (lineStart > 0) {
+                System.arraycopy(buffer, lineStart, buffer, 0, length - lineStart);
+                length -= lineStart;
+                scan -= lineStart;
+                lineStart = 0;
+            }
+            if (length == buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+            int read = reader.read(buffer, length, buffer.length - length);
+            if (read < 0) {
+                break;
+            }
+            length += read;
+        }
+        endedInQuotes = inQuotes;
+        if (length > lineStart && !inQuotes) {
+            handler.line(buffer, lineStart, length);
+        }
+    }
+
+    // Данные кончились посреди поля в кавычках; недописанная строка обработчику не передаётся
+    boolean endedInQuotes() {
+        return endedInQuotes;
+    }
+}
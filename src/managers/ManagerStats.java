@@ -0,0 +1,92 @@
+package managers;
+
+import util.DurationHistogram;
+
+/**
+ * Снимок показателей менеджера задач для мониторинга: размеры хранилищ, индекса приоритетов
+ * и истории, а у менеджеров с сохранением на диск — длительность сохранений, объём записанного
+ * и число сбоев журнала.
+ * Объект неизменяемый; гистограмма сохранений — живая и продолжает пополняться.
+ */
+public final class ManagerStats {
+    private final int tasks;
+    private final int epics;
+    private final int subtasks;
+    private final int prioritizedTasks;
+    private final int historySize;
+    private final DurationHistogram saveLatency;
+    private final long bytesWritten;
+    private final long syncFailures;
+    private final long compactionFailures;
+
+    public ManagerStats(int tasks, int epics, int subtasks, int prioritizedTasks, int historySize) {
+        this(tasks, epics, subtasks, prioritizedTasks, historySize, null, 0, 0, 0);
+    }
+
+    private ManagerStats(int tasks, int epics, int subtasks, int prioritizedTasks, int historySize,
+                         DurationHistogram saveLatency, long bytesWritten, long syncFailures,
+                         long compactionFailures) {
+        this.tasks = tasks;
+        this.epics = epics;
+        this.subtasks = subtasks;
+        this.prioritizedTasks = prioritizedTasks;
+        this.historySize = historySize;
+        this.saveLatency = saveLatency;
+        this.bytesWritten = bytesWritten;
+        this.syncFailures = syncFailures;
+        this.compactionFailures = compactionFailures;
+    }
+
+    public ManagerStats withPersistence(DurationHistogram saveLatency, long bytesWritten) {
+        return new ManagerStats(tasks, epics, subtasks, prioritizedTasks, historySize, saveLatency, bytesWritten,
+                syncFailures, compactionFailures);
+    }
+
+    public ManagerStats withJournalFailures(long syncFailures, long compactionFailures) {
+        return new ManagerStats(tasks, epics, subtasks, prioritizedTasks, historySize, saveLatency, bytesWritten,
+                syncFailures, compactionFailures);
+    }
+
+    public int getTasks() {
+        return tasks;
+    }
+
+    public int getEpics() {
+        return epics;
+    }
+
+    public int getSubtasks() {
+        return subtasks;
+    }
+
+    public int getPrioritizedTasks() {
+        return prioritizedTasks;
+    }
+
+    public int getHistorySize() {
+        return historySize;
+    }
+
+    public boolean isPersistent() {
+        return saveLatency != null;
+    }
+
+    // Длительность сохранений (снимков и записей журнала); null — менеджер ничего не сохраняет
+    public DurationHistogram getSaveLatency() {
+        return saveLatency;
+    }
+
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    // Неудачные fsync журнала, в том числе фоновые в режиме PERIODIC
+    public long getSyncFailures() {
+        return syncFailures;
+    }
+
+    // Фоновые компактификации, снимок которых не удалось записать
+    public long getCompactionFailures() {
+        return compactionFailures;
+    }
+}
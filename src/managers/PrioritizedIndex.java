@@ -0,0 +1,127 @@
+package managers;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+import tasks.Task;
+
+/**
+ * Задачи со временем начала в порядке приоритета: по startTime, при равенстве — по id,
+ * поэтому задачи с одинаковым началом не вытесняют друг друга.
+ * <p>
+ * Полный список отдаётся неизменяемым снимком, который пересобирается лениво, только
+ * после изменения индекса. Изменения и сборка снимка выполняются под блокировкой владельца,
+ * без неё можно читать готовый снимок через cachedSnapshot(). Индекс, созданный
+ * {@link #concurrent()}, хранит задачи в ConcurrentSkipListSet: запросы диапазона и страниц
+ * (between, range, next, after) тогда тоже идут без блокировки и видят согласованное
+ * по времени состояние каждой задачи, но не всего индекса сразу.
+ */
+class PrioritizedIndex {
+    private static final Comparator<Task> PRIORITY_ORDER = (a, b) -> {
+        int result = a.compareStartTo(b);
+        return result != 0 ? result : Integer.compare(a.getId(), b.getId());
+    };
+
+    private final NavigableSet<Task> tasks;
+    private volatile List<Task> snapshot = List.of();
+    // size() у ConcurrentSkipListSet обходит весь набор
+    private volatile int size;
+
+    PrioritizedIndex() {
+        this(new TreeSet<>(PRIORITY_ORDER));
+    }
+
+    private PrioritizedIndex(NavigableSet<Task> tasks) {
+        this.tasks = tasks;
+    }
+
+    static PrioritizedIndex concurrent() {
+        return new PrioritizedIndex(new ConcurrentSkipListSet<>(PRIORITY_ORDER));
+    }
+
+    void add(Task task) {
+        if (task.getStartTime() != null && tasks.add(task)) {
+            size++;
+            snapshot = null;
+        }
+    }
+
+    void remove(Task task) {
+        if (task.getStartTime() != null && tasks.remove(task)) {
+            size--;
+            snapshot = null;
+        }
+    }
+
+    void clear() {
+        tasks.clear();
+        size = 0;
+        snapshot = List.of();
+    }
+
+    int size() {
+        return size;
+    }
+
+    // Все задачи по приоритету; повторные вызовы без изменений возвращают тот же список
+    List<Task> snapshot() {
+        List<Task> current = snapshot;
+        if (current == null) {
+            current = Collections.unmodifiableList(new ArrayList<>(tasks));
+            snapshot = current;
+        }
+        return current;
+    }
+
+    // Готовый снимок или null, если после последнего изменения он ещё не собран
+    List<Task> cachedSnapshot() {
+        return snapshot;
+    }
+
+    // Задачи с startTime в [from, to); null — граница не задана
+    List<Task> between(LocalDateTime from, LocalDateTime to) {
+        return new ArrayList<>(range(from, to));
+    }
+
+    // Представление индекса без копирования; обходится под той же блокировкой владельца
+    NavigableSet<Task> range(LocalDateTime from, LocalDateTime to) {
+        NavigableSet<Task> range = tasks;
+        if (from != null) {
+            range = range.tailSet(probe(from), true);
+        }
+        if (to != null) {
+            range = range.headSet(probe(to), false);
+        }
+        return range;
+    }
+
+    // Первые limit задач по приоритету
+    List<Task> next(int limit) {
+        return take(tasks.iterator(), limit);
+    }
+
+    // limit задач, следующих за cursor в порядке приоритета
+    List<Task> after(Task cursor, int limit) {
+        return take(tasks.tailSet(cursor, false).iterator(), limit);
+    }
+
+    private static List<Task> take(Iterator<Task> iterator, int limit) {
+        List<Task> result = new ArrayList<>(Math.min(limit, 64));
+        while (result.size() < limit && iterator.hasNext()) {
+            result.add(iterator.next());
+        }
+        return result;
+    }
+
+    // Пробник меньше любой задачи, начинающейся в time
+    private static Task probe(LocalDateTime time) {
+        return new Task(null, null, Integer.MIN_VALUE, null, null, time);
+    }
+}
@@ -0,0 +1,28 @@
+package managers;
+
+import exceptions.ManagerSaveException;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+// Формат файла-снимка FileBackedTaskManager
+public enum SnapshotFormat {
+    CSV,    // текстовый, совместим с прежними версиями
+    BINARY; // компактный двоичный, загружается через отображение файла в память
+
+    // Формат существующего файла по сигнатуре; пустой или отсутствующий файл считается CSV
+    public static SnapshotFormat detect(File file) {
+        if (!file.exists() || file.length() < Integer.BYTES) {
+            return CSV;
+        }
+        try (DataInputStream input = new DataInputStream(Files.newInputStream(file.toPath()))) {
+            return input.readInt() == BinarySnapshot.MAGIC ? BINARY : CSV;
+        } catch (EOFException e) {
+            return CSV;
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка чтения файла", e);
+        }
+    }
+}
@@ -0,0 +1,438 @@
+package managers;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.IntConsumer;
+import java.util.function.IntSupplier;
+
+import tasks.Epic;
+import tasks.Subtask;
+import tasks.Task;
+import util.Status;
+
+/**
+ * Выполнение TaskManager.applyBatch над хранилищами менеджера. Владелец вызывает apply
+ * под блокировками, исключающими параллельные изменения.
+ * <p>
+ * ATOMIC: операции по порядку проверяются на наложении поверх хранилищ, сами хранилища
+ * не меняются. Затем итоговые интервалы пакета проверяются на пересечения за один проход:
+ * с хранимыми задачами — запросом к индексу (задачи, которые пакет заменяет или удаляет,
+ * не учитываются), между собой — сортировкой по началу и проходом с максимальным концом.
+ * Пакет применяется, только если ошибок нет.
+ * <p>
+ * PER_ITEM: каждая операция проверяется по текущему состоянию и сразу применяется, поэтому
+ * отклонённая операция не влияет на проверку следующих.
+ * <p>
+ * В обоих режимах агрегаты эпиков не обновляются по одной подзадаче: каждый затронутый
+ * эпик пересчитывается один раз в конце пакета.
+ */
+final class TaskBatch {
+    private final Map<Integer, Task> tasks;
+    private final Map<Integer, Epic> epics;
+    private final Map<Integer, Subtask> subtasks;
+    private final PrioritizedIndex prioritizedTasks;
+    private final TimeIntervalIndex timeIndex;
+    private final HistoryManager historyManager;
+    private final IntSupplier ids;
+    // Переводит счётчик id владельца за id, заданный клиентом
+    private final IntConsumer reserveId;
+    // Записи журнала применённых операций в формате FileBackedTaskManager; null — не нужны
+    private final List<String> records;
+
+    // Наложение ATOMIC-пакета: id -> итоговая версия задачи, null — задача удалена
+    private final Map<Integer, Task> overlay = new HashMap<>();
+    // Номер операции, давшей итоговую версию задачи в наложении
+    private final Map<Integer, Integer> lastWriter = new HashMap<>();
+    // Подзадачи, добавленные или перенесённые пакетом в эпик, — для каскадного удаления эпика
+    private final Map<Integer, List<Integer>> movedIn = new HashMap<>();
+    private final Set<Integer> touchedEpics = new LinkedHashSet<>();
+
+    TaskBatch(Map<Integer, Task> tasks, Map<Integer, Epic> epics, Map<Integer, Subtask> subtasks,
+              PrioritizedIndex prioritizedTasks, TimeIntervalIndex timeIndex, HistoryManager historyManager,
+              IntSupplier ids, IntConsumer reserveId, List<String> records) {
+        this.tasks = tasks;
+        this.epics = epics;
+        this.subtasks = subtasks;
+        this.prioritizedTasks = prioritizedTasks;
+        this.timeIndex = timeIndex;
+        this.historyManager = historyManager;
+        this.ids = ids;
+        this.reserveId = reserveId;
+        this.records = records;
+    }
+
+    // Проверенная операция: подготовленная версия задачи или причина отказа
+    private static final class Step {
+        private final BatchOperation.Kind kind;
+        private final int id;
+        private final Task task;
+        private BatchResult.Outcome failure;
+        private String message;
+
+        Step(BatchOperation.Kind kind, int id, Task task) {
+            this.kind = kind;
+            this.id = id;
+            this.task = task;
+        }
+
+        static Step failed(BatchOperation.Kind kind, int id, BatchResult.Outcome failure, String message) {
+            Step step = new Step(kind, id, null);
+            step.fail(failure, message);
+            return step;
+        }
+
+        void fail(BatchResult.Outcome failure, String message) {
+            if (this.failure == null) {
+                this.failure = failure;
+                this.message = message;
+            }
+        }
+
+        BatchResult.Item toItem(boolean applied) {
+            if (failure != null) {
+                return new BatchResult.Item(failure, kind == BatchOperation.Kind.CREATE ? 0 : id, message);
+            }
+            if (!applied) {
+                return new BatchResult.Item(BatchResult.Outcome.ABORTED, kind == BatchOperation.Kind.CREATE ? 0 : id,
+                        "Пакет отклонён из-за ошибок в других операциях");
+            }
+            return new BatchResult.Item(BatchResult.Outcome.APPLIED, id, null);
+        }
+    }
+
+    BatchResult apply(List<BatchOperation> operations, BatchMode mode) {
+        Objects.requireNonNull(operations, "Список операций не может быть null");
+        Objects.requireNonNull(mode, "Режим пакета не может быть null");
+        List<BatchResult.Item> items = new ArrayList<>(operations.size());
+        if (mode == BatchMode.PER_ITEM) {
+            for (BatchOperation operation : operations) {
+                items.add(applyLive(operation));
+            }
+        } else {
+            List<Step> plan = new ArrayList<>(operations.size());
+            boolean failed = false;
+            for (BatchOperation operation : operations) {
+                Step step = prepare(operation, false);
+                if (step.failure == null) {
+                    stage(step, plan.size());
+                } else {
+                    failed = true;
+                }
+                plan.add(step);
+            }
+            failed |= findConflicts(plan);
+            for (Step step : plan) {
+                if (!failed) {
+                    execute(step);
+                }
+                items.add(step.toItem(!failed));
+            }
+        }
+        recalculateTouchedEpics();
+        return new BatchResult(mode, items);
+    }
+
+    /*
+     * Одна операция в режиме PER_ITEM без пересчёта эпиков. Для потокового импорта: операции
+     * подаются по одной, не собираясь в список, а затронутые эпики пересчитывает finish().
+     */
+    BatchResult.Item applyLive(BatchOperation operation) {
+        Step step = prepare(operation, true);
+        if (step.failure == null) {
+            execute(step);
+        }
+        return step.toItem(true);
+    }
+
+    // Пересчитывает эпики, затронутые операциями applyLive
+    void finish() {
+        recalculateTouchedEpics();
+    }
+
+    private Step prepare(BatchOperation operation, boolean live) {
+        if (operation == null) {
+            return Step.failed(BatchOperation.Kind.CREATE, 0, BatchResult.Outcome.INVALID,
+                    "Операция не может быть null");
+        }
+        switch (operation.getKind()) {
+            case CREATE:
+                return prepareCreate(operation.getTask(), live);
+            case UPDATE:
+                return prepareUpdate(operation.getTask(), live);
+            default:
+                return prepareDelete(operation.getId());
+        }
+    }
+
+    private Step prepareCreate(Task task, boolean live) {
+        BatchOperation.Kind kind = BatchOperation.Kind.CREATE;
+        if (task instanceof Subtask && !(current(((Subtask) task).getEpicId()) instanceof Epic)) {
+            return Step.failed(kind, 0, BatchResult.Outcome.NOT_FOUND,
+                    "Эпик с ID=" + ((Subtask) task).getEpicId() + " не найден");
+        }
+        Task prepared = prepareCopy(task, task.getId() > 0 && current(task.getId()) == null ? task.getId() : 0);
+        if (live && timeIndex.hasOverlap(prepared)) {
+            return Step.failed(kind, 0, BatchResult.Outcome.CONFLICT, "Задача пересекается по времени с существующей.");
+        }
+        if (prepared.getId() == 0) {
+            int id = ids.getAsInt();
+            while (current(id) != null) {
+                id = ids.getAsInt();
+            }
+            prepared = prepareCopy(prepared, id);
+        } else {
+            // Иначе addTask и следующие пакеты выдали бы этот id повторно
+            reserveId.accept(prepared.getId());
+        }
+        return new Step(kind, prepared.getId(), prepared);
+    }
+
+    private Step prepareUpdate(Task task, boolean live) {
+        BatchOperation.Kind kind = BatchOperation.Kind.UPDATE;
+        Task stored = current(task.getId());
+        if (stored == null) {
+            return Step.failed(kind, task.getId(), BatchResult.Outcome.NOT_FOUND,
+                    "Задача с ID=" + task.getId() + " не найдена");
+        }
+        if (!stored.getType().equals(task.getType())) {
+            return Step.failed(kind, task.getId(), BatchResult.Outcome.INVALID,
+                    "Задача с ID=" + task.getId() + " имеет тип " + stored.getType());
+        }
+        if (task instanceof Subtask && !(current(((Subtask) task).getEpicId()) instanceof Epic)) {
+            return Step.failed(kind, task.getId(), BatchResult.Outcome.NOT_FOUND,
+                    "Эпик с ID=" + ((Subtask) task).getEpicId() + " не найден");
+        }
+        Task prepared = prepareCopy(task, task.getId());
+        if (live && timeIndex.hasOverlap(prepared, task.getId())) {
+            return Step.failed(kind, task.getId(), BatchResult.Outcome.CONFLICT,
+                    "Задача пересекается по времени с существующей.");
+        }
+        return new Step(kind, task.getId(), prepared);
+    }
+
+    private Step prepareDelete(int id) {
+        Task stored = current(id);
+        if (stored == null) {
+            return Step.failed(BatchOperation.Kind.DELETE, id, BatchResult.Outcome.NOT_FOUND,
+                    "Задача с ID=" + id + " не найдена");
+        }
+        return new Step(BatchOperation.Kind.DELETE, id, stored);
+    }
+
+    // Версия задачи для хранения: замороженная копия, у эпика — только имя и описание
+    private static Task prepareCopy(Task task, int id) {
+        if (task instanceof Epic) {
+            Epic epic = new Epic(task.getName(), task.getDescription());
+            epic.setId(id);
+            epic.setStatus(Status.NEW);
+            return epic;
+        }
+        Task copy = task.copy();
+        copy.setId(id);
+        return copy.freeze();
+    }
+
+    // Задача с данным id с учётом наложения; null — её нет
+    private Task current(int id) {
+        if (overlay.containsKey(id)) {
+            return overlay.get(id);
+        }
+        Task task = tasks.get(id);
+        if (task == null) {
+            task = epics.get(id);
+        }
+        if (task == null) {
+            task = subtasks.get(id);
+        }
+        return task;
+    }
+
+    // Переносит проверенную операцию ATOMIC-пакета в наложение
+    private void stage(Step step, int index) {
+        if (step.kind != BatchOperation.Kind.DELETE) {
+            overlay.put(step.id, step.task);
+            lastWriter.put(step.id, index);
+            if (step.task instanceof Subtask) {
+                movedIn.computeIfAbsent(((Subtask) step.task).getEpicId(), epicId -> new ArrayList<>()).add(step.id);
+            }
+            return;
+        }
+        overlay.put(step.id, null);
+        if (step.task instanceof Epic) {
+            Epic stored = epics.get(step.id);
+            if (stored != null) {
+                stored.forEachSubtaskId(subtaskId -> dropFromEpic(subtaskId, step.id));
+            }
+            for (int subtaskId : movedIn.getOrDefault(step.id, List.of())) {
+                dropFromEpic(subtaskId, step.id);
+            }
+        }
+    }
+
+    private void dropFromEpic(int subtaskId, int epicId) {
+        Task subtask = current(subtaskId);
+        if (subtask instanceof Subtask && ((Subtask) subtask).getEpicId() == epicId) {
+            overlay.put(subtaskId, null);
+        }
+    }
+
+    // Проверяет итоговые интервалы ATOMIC-пакета; true — найдено пересечение
+    private boolean findConflicts(List<Step> plan) {
+        List<Task> candidates = new ArrayList<>();
+        for (Task task : overlay.values()) {
+            if (task != null && !(task instanceof Epic) && task.hasTimeInterval()) {
+                candidates.add(task);
+            }
+        }
+        boolean found = false;
+        for (Task candidate : candidates) {
+            for (Task existing : timeIndex.findOverlaps(candidate)) {
+                if (!overlay.containsKey(existing.getId())) {
+                    writerOf(plan, candidate).fail(BatchResult.Outcome.CONFLICT,
+                            "Задача пересекается по времени с задачей ID=" + existing.getId());
+                    found = true;
+                    break;
+                }
+            }
+        }
+        /*
+         * Между собой: среди задач, начавшихся раньше, пересечься с очередной может лишь та,
+         * что заканчивается позже всех. Если очередная пересекается с какой-то другой из них,
+         * та пересекается и с этой последней и уже отмечена.
+         */
+        candidates.sort(Task::compareStartTo);
+        Task latest = null;
+        for (Task candidate : candidates) {
+            if (latest != null && latest.overlaps(candidate)) {
+                writerOf(plan, candidate).fail(BatchResult.Outcome.CONFLICT,
+                        "Задача пересекается по времени с задачей ID=" + latest.getId() + " из пакета");
+                writerOf(plan, latest).fail(BatchResult.Outcome.CONFLICT,
+                        "Задача пересекается по времени с задачей ID=" + candidate.getId() + " из пакета");
+                found = true;
+            }
+            if (latest == null || candidate.compareEndTo(latest) > 0) {
+                latest = candidate;
+            }
+        }
+        return found;
+    }
+
+    private Step writerOf(List<Step> plan, Task task) {
+        return plan.get(lastWriter.get(task.getId()));
+    }
+
+    private void execute(Step step) {
+        if (step.kind == BatchOperation.Kind.DELETE) {
+            remove(step.id);
+            if (records != null) {
+                records.add("D," + step.id);
+            }
+            return;
+        }
+        if (step.task instanceof Epic) {
+            Epic stored = epics.get(step.id);
+            if (stored == null) {
+                epics.put(step.id, (Epic) step.task);
+            } else {
+                stored.setName(step.task.getName());
+                stored.setDescription(step.task.getDescription());
+            }
+        } else if (step.task instanceof Subtask) {
+            putSubtask((Subtask) step.task);
+        } else {
+            Task old = tasks.put(step.id, step.task);
+            if (old != null) {
+                unindex(old);
+            }
+            index(step.task);
+        }
+        if (records != null) {
+            records.add("U," + step.task.toCsv());
+        }
+    }
+
+    private void putSubtask(Subtask subtask) {
+        Subtask old = subtasks.put(subtask.getId(), subtask);
+        if (old != null) {
+            unindex(old);
+            if (old.getEpicId() != subtask.getEpicId()) {
+                Epic previous = epics.get(old.getEpicId());
+                if (previous != null) {
+                    previous.removeSubtaskById(subtask.getId());
+                    touchedEpics.add(previous.getId());
+                }
+            }
+        }
+        index(subtask);
+        Epic epic = epics.get(subtask.getEpicId());
+        if (epic != null) {
+            epic.addSubtaskId(subtask.getId());
+            touchedEpics.add(epic.getId());
+        }
+    }
+
+    private void remove(int id) {
+        Task task = tasks.remove(id);
+        if (task != null) {
+            unindex(task);
+            historyManager.remove(id);
+            return;
+        }
+        Epic epic = epics.remove(id);
+        if (epic != null) {
+            epic.forEachSubtaskId(subtaskId -> {
+                Subtask subtask = subtasks.remove(subtaskId);
+                if (subtask != null) {
+                    unindex(subtask);
+                }
+                historyManager.remove(subtaskId);
+            });
+            historyManager.remove(id);
+            return;
+        }
+        Subtask subtask = subtasks.remove(id);
+        if (subtask != null) {
+            unindex(subtask);
+            Epic owner = epics.get(subtask.getEpicId());
+            if (owner != null) {
+                owner.removeSubtaskById(id);
+                touchedEpics.add(owner.getId());
+            }
+            historyManager.remove(id);
+        }
+    }
+
+    // Полный пересчёт агрегатов и статуса каждого затронутого эпика — по одному разу
+    private void recalculateTouchedEpics() {
+        for (int epicId : touchedEpics) {
+            Epic epic = epics.get(epicId);
+            if (epic == null) {
+                continue;
+            }
+            List<Subtask> epicSubtasks = new ArrayList<>(epic.getSubtaskCount());
+            epic.forEachSubtaskId(subtaskId -> {
+                Subtask subtask = subtasks.get(subtaskId);
+                if (subtask != null) {
+                    epicSubtasks.add(subtask);
+                }
+            });
+            epic.updateTimeParameters(epicSubtasks);
+            epic.setStatus(epic.calculateStatus());
+        }
+    }
+
+    private void index(Task task) {
+        prioritizedTasks.add(task);
+        timeIndex.add(task);
+    }
+
+    private void unindex(Task task) {
+        prioritizedTasks.remove(task);
+        timeIndex.remove(task);
+    }
+}
@@ -0,0 +1,436 @@
+package managers;
+
+import exceptions.ManagerSaveException;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Журнал изменений (write-ahead log) для FileBackedTaskManager.
+ * <p>
+ * Каждая запись — одна строка вида {@code <crc32 в hex> <данные>\n}. Переводы строк и обратная
+ * косая черта в данных экранируются как в Java ({@code \\n}, {@code \\r}, {@code \\\\}), CRC
+ * считается по экранированной строке. При чтении журнал обрывается на первой повреждённой
+ * или недописанной записи (повреждение в {@code *.old} обрывает и текущий журнал), так что
+ * сбой посреди записи теряет только её и более поздние записи. Во время
+ * компактификации текущий журнал переименовывается в {@code *.old} и удаляется после того,
+ * как снимок надёжно записан.
+ * <p>
+ * В режиме GROUP записи попадают в очередь, а отдельный поток-писатель собирает их в пачки
+ * (окно groupCommitWindowMicros или maxBatchSize записей) и фиксирует каждую пачку одной
+ * записью и одним fsync. {@link #append} возвращает future, который завершается после fsync.
+ * <p>
+ * В режиме PERIODIC запись подтверждается до fsync, поэтому ошибку фоновой синхронизации
+ * некому вернуть сразу: она запоминается и передаётся следующему append (уже после
+ * записи его данных) или close исключением ManagerSaveException. Все неудачные fsync
+ * считаются в {@link #syncFailures}.
+ */
+class TaskJournal implements AutoCloseable {
+    private static final CompletableFuture<Void> DONE = CompletableFuture.completedFuture(null);
+
+    private final Path path;
+    private final Path rotatedPath;
+    private final JournalConfig config;
+    private final ScheduledExecutorService syncer;
+    private final Thread groupWriter;
+    // Канал и флаг dirty охраняются channelLock, очередь пачки — монитором журнала
+    private final Object channelLock = new Object();
+    private final ArrayDeque<PendingRecord> pending = new ArrayDeque<>();
+    private CompletableFuture<Void> lastCommit = DONE;
+    private boolean closed;
+    private FileChannel channel;
+    private long records;
+    private boolean dirty;
+    // Ошибка фоновой синхронизации, ещё не переданная вызывающему; охраняется channelLock
+    private IOException syncFailure;
+    private final LongAdder bytesWritten = new LongAdder();
+    private final LongAdder syncFailures = new LongAdder();
+
+    TaskJournal(Path path, JournalConfig config) {
+        this.path = path;
+        this.rotatedPath = path.resolveSibling(path.getFileName() + ".old");
+        this.config = config;
+        this.channel = open(path);
+        if (config.getSyncPolicy() == JournalConfig.SyncPolicy.PERIODIC) {
+            syncer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "task-journal-sync");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long interval = config.getSyncIntervalMillis();
+            syncer.scheduleWithFixedDelay(this::syncInBackground, interval, interval, TimeUnit.MILLISECONDS);
+        } else {
+            syncer = null;
+        }
+        if (config.getSyncPolicy() == JournalConfig.SyncPolicy.GROUP) {
+            groupWriter = new Thread(this::writeBatches, "task-journal-group-commit");
+            groupWriter.setDaemon(true);
+            groupWriter.start();
+        } else {
+            groupWriter = null;
+        }
+    }
+
+    /**
+     * Дописывает запись в конец журнала. Возвращённый future завершается, когда запись
+     * записана (и синхронизирована, если этого требует политика).
+     */
+    CompletableFuture<Void> append(String payload) {
+        ByteBuffer record = encode(payload);
+        if (groupWriter != null) {
+            CompletableFuture<Void> commit = new CompletableFuture<>();
+            synchronized (this) {
+                if (closed) {
+                    throw new ManagerSaveException("Журнал закрыт");
+                }
+                pending.add(new PendingRecord(record, commit));
+                records++;
+                lastCommit = commit;
+                notifyAll();
+            }
+            return commit;
+        }
+        synchronized (channelLock) {
+            try {
+                write(new ByteBuffer[]{record});
+                synchronized (this) {
+                    records++;
+                }
+                if (config.getSyncPolicy() == JournalConfig.SyncPolicy.ALWAYS) {
+                    sync();
+                }
+            } catch (IOException e) {
+                throw new ManagerSaveException("Ошибка записи в журнал", e);
+            }
+            // Изменение уже применено в памяти, поэтому запись пишется до сообщения о прошлом сбое
+            throwSyncFailure();
+        }
+        return DONE;
+    }
+
+    // Число записей с момента последней ротации
+    synchronized long size() {
+        return records;
+    }
+
+    // Байт, записанных в журнал за всё время работы, включая файлы до ротаций
+    long bytesWritten() {
+        return bytesWritten.sum();
+    }
+
+    // Неудачных fsync за всё время работы
+    long syncFailures() {
+        return syncFailures.sum();
+    }
+
+    boolean hasRotated() {
+        return Files.exists(rotatedPath);
+    }
+
+    // Закрывает текущий журнал как *.old и начинает новый
+    void rotate() {
+        awaitPending();
+        synchronized (channelLock) {
+            try {
+                sync();
+                channel.close();
+                Files.move(path, rotatedPath, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                throw new ManagerSaveException("Ошибка ротации журнала", e);
+            } finally {
+                channel = open(path);
+                synchronized (this) {
+                    records = 0;
+                }
+            }
+        }
+    }
+
+    // Удаляет журнал, уже вошедший в снимок
+    void discardRotated() throws IOException {
+        Files.deleteIfExists(rotatedPath);
+    }
+
+    // Очищает журнал целиком: вызывается, когда снимок содержит всё состояние
+    void reset() {
+        awaitPending();
+        synchronized (channelLock) {
+            try {
+                channel.truncate(0);
+                channel.force(true);
+                dirty = false;
+                synchronized (this) {
+                    records = 0;
+                }
+                discardRotated();
+            } catch (IOException e) {
+                throw new ManagerSaveException("Ошибка очистки журнала", e);
+            }
+        }
+    }
+
+    // Передаёт записи ротированного и текущего журналов в порядке их появления
+    // Повреждённая запись в *.old останавливает и чтение текущего журнала: его записи идут после пропуска
+    void replay(Consumer<String> consumer) {
+        if (read(rotatedPath, consumer)) {
+            read(path, consumer);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (syncer != null) {
+            syncer.shutdownNow();
+        }
+        if (groupWriter != null) {
+            synchronized (this) {
+                closed = true;
+                notifyAll();
+            }
+            try {
+                groupWriter.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        synchronized (channelLock) {
+            try {
+                sync();
+                channel.close();
+            } catch (IOException e) {
+                throw new ManagerSaveException("Ошибка закрытия журнала", e);
+            }
+            throwSyncFailure();
+        }
+    }
+
+    // Цикл потока-писателя в режиме GROUP
+    private void writeBatches() {
+        long window = TimeUnit.MICROSECONDS.toNanos(config.getGroupCommitWindowMicros());
+        int maxBatch = config.getMaxBatchSize();
+        while (true) {
+            List<PendingRecord> batch = new ArrayList<>();
+            synchronized (this) {
+                try {
+                    while (pending.isEmpty() && !closed) {
+                        wait();
+                    }
+                    // Ждём попутные изменения, пока не истечёт окно или не наберётся пачка
+                    long deadline = System.nanoTime() + window;
+                    long remaining = window;
+                    while (pending.size() < maxBatch && remaining > 0 && !closed) {
+                        TimeUnit.NANOSECONDS.timedWait(this, remaining);
+                        remaining = deadline - System.nanoTime();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    closed = true;
+                }
+                if (pending.isEmpty() && closed) {
+                    return;
+                }
+                while (!pending.isEmpty() && batch.size() < maxBatch) {
+                    batch.add(pending.poll());
+                }
+            }
+            commit(batch);
+        }
+    }
+
+    private void commit(List<PendingRecord> batch) {
+        ByteBuffer[] buffers = new ByteBuffer[batch.size()];
+        for (int i = 0; i < buffers.length; i++) {
+            buffers[i] = batch.get(i).data;
+        }
+        try {
+            synchronized (channelLock) {
+                write(buffers);
+                sync();
+            }
+            batch.forEach(record -> record.commit.complete(null));
+        } catch (IOException e) {
+            ManagerSaveException failure = new ManagerSaveException("Ошибка записи в журнал", e);
+            batch.forEach(record -> record.commit.completeExceptionally(failure));
+        }
+    }
+
+    // Дожидается фиксации всех записей, поставленных в очередь
+    private void awaitPending() {
+        CompletableFuture<Void> commit;
+        synchronized (this) {
+            commit = lastCommit;
+        }
+        try {
+            commit.join();
+        } catch (RuntimeException e) {
+            // Ошибка уже передана тому, кто ждал эту запись
+        }
+    }
+
+    private void write(ByteBuffer[] buffers) throws IOException {
+        long remaining = 0;
+        for (ByteBuffer buffer : buffers) {
+            remaining += buffer.remaining();
+        }
+        while (remaining > 0) {
+            long written = channel.write(buffers);
+            remaining -= written;
+            bytesWritten.add(written);
+        }
+        dirty = true;
+    }
+
+    private void sync() throws IOException {
+        if (dirty && channel.isOpen()) {
+            try {
+                channel.force(false);
+            } catch (IOException e) {
+                syncFailures.increment();
+                throw e;
+            }
+            dirty = false;
+        }
+    }
+
+    // Фоновая синхронизация в режиме PERIODIC: ошибка достанется следующему append
+    private void syncInBackground() {
+        synchronized (channelLock) {
+            try {
+                sync();
+            } catch (IOException e) {
+                if (syncFailure == null) {
+                    syncFailure = e;
+                } else {
+                    syncFailure.addSuppressed(e);
+                }
+            }
+        }
+    }
+
+    // Вызывается под channelLock
+    private void throwSyncFailure() {
+        IOException failure = syncFailure;
+        if (failure != null) {
+            syncFailure = null;
+            throw new ManagerSaveException("Фоновая синхронизация журнала не удалась, "
+                    + "подтверждённые записи могли не сохраниться", failure);
+        }
+    }
+
+    private static ByteBuffer encode(String payload) {
+        byte[] data = escape(payload).getBytes(StandardCharsets.UTF_8);
+        CRC32 crc = new CRC32();
+        crc.update(data);
+        byte[] prefix = (Long.toHexString(crc.getValue()) + " ").getBytes(StandardCharsets.US_ASCII);
+
+        ByteBuffer buffer = ByteBuffer.allocate(prefix.length + data.length + 1);
+        buffer.put(prefix).put(data).put((byte) '\n').flip();
+        return buffer;
+    }
+
+    private static FileChannel open(Path path) {
+        try {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка открытия журнала", e);
+        }
+    }
+
+    // false — чтение остановлено на повреждённой записи
+    private static boolean read(Path path, Consumer<String> consumer) {
+        if (!Files.exists(path)) {
+            return true;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String payload = verify(line);
+                if (payload == null) {
+                    return false; // Хвост журнала повреждён: дальше записей нет
+                }
+                consumer.accept(payload);
+            }
+            return true;
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка чтения журнала", e);
+        }
+    }
+
+    private static String verify(String line) {
+        int space = line.indexOf(' ');
+        if (space <= 0) {
+            return null;
+        }
+        String payload = line.substring(space + 1);
+        CRC32 crc = new CRC32();
+        crc.update(payload.getBytes(StandardCharsets.UTF_8));
+        return Long.toHexString(crc.getValue()).equals(line.substring(0, space)) ? unescape(payload) : null;
+    }
+
+    // Имя или описание задачи может содержать перевод строки, а запись обязана занимать одну строку
+    private static String escape(String payload) {
+        StringBuilder escaped = null;
+        for (int i = 0; i < payload.length(); i++) {
+            char c = payload.charAt(i);
+            String replacement = c == '\\' ? "\\\\" : c == '\n' ? "\\n" : c == '\r' ? "\\r" : null;
+            if (replacement == null) {
+                if (escaped != null) {
+                    escaped.append(c);
+                }
+                continue;
+            }
+            if (escaped == null) {
+                escaped = new StringBuilder(payload.length() + 16).append(payload, 0, i);
+            }
+            escaped.append(replacement);
+        }
+        return escaped == null ? payload : escaped.toString();
+    }
+
+    private static String unescape(String payload) {
+        int backslash = payload.indexOf('\\');
+        if (backslash < 0) {
+            return payload;
+        }
+        StringBuilder result = new StringBuilder(payload.length()).append(payload, 0, backslash);
+        for (int i = backslash; i < payload.length(); i++) {
+            char c = payload.charAt(i);
+            if (c == '\\' && i + 1 < payload.length()) {
+                char next = payload.charAt(++i);
+                c = next == 'n' ? '\n' : next == 'r' ? '\r' : next;
+            }
+            result.append(c);
+        }
+        return result.toString();
+    }
+
+    private static final class PendingRecord {
+        final ByteBuffer data;
+        final CompletableFuture<Void> commit;
+
+        PendingRecord(ByteBuffer data, CompletableFuture<Void> commit) {
+            this.data = data;
+            this.commit = commit;
+        }
+    }
+}
@@ -3,9 +3,15 @@ package managers;
 import tasks.Epic;
 import tasks.Subtask;
 import tasks.Task;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import util.TaskType;
 
 public interface TaskManager {
+    //Число задач в одном пакете importTasks по умолчанию
+    int IMPORT_CHUNK_SIZE = 1024;
 
     List<Task> getAllTasks();
 
@@ -52,9 +58,61 @@ public interface TaskManager {
     //Получить список задач в порядке приоритета (по startTime)
     List<Task> getPrioritizedTasks();
 
+    //Задачи в порядке приоритета со startTime в [from, to); null — граница не задана
+    List<Task> getPrioritizedTasks(LocalDateTime from, LocalDateTime to);
+
+    //Первые limit задач в порядке приоритета
+    List<Task> getNextPrioritizedTasks(int limit);
+
+    //limit задач, следующих в порядке приоритета за задачей cursorId (пусто, если её нет в списке)
+    List<Task> getPrioritizedTasksAfter(int cursorId, int limit);
+
     //Проверить пересечение по времени с существующими задачами
     boolean hasTimeOverlap(Task task);
 
+    //Получить все задачи, пересекающиеся по времени с данной (в порядке startTime)
+    List<Task> getOverlappingTasks(Task task);
+
     //Обновить временные параметры эпика
     void updateEpicTimeParameters(Epic epic);
+
+    //Получить страницу задач по фильтрам запроса в порядке id, начиная после курсора
+    List<Task> findTasks(TaskQuery query);
+
+    //Применить пакет добавлений, обновлений и удалений: пересечения по времени проверяются для всего
+    //пакета, каждый затронутый эпик пересчитывается один раз, изменения сохраняются одной записью
+    BatchResult applyBatch(List<BatchOperation> operations, BatchMode mode);
+
+    //Добавить задачи из источника, читая его по одной: как PER_ITEM-пакет, но без списка операций
+    //в памяти. Эпики пересчитываются и изменения сохраняются реже, чем при добавлении по одной
+    default ImportResult importTasks(Iterator<? extends Task> source) {
+        ImportResult result = new ImportResult();
+        List<BatchOperation> chunk = new ArrayList<>(IMPORT_CHUNK_SIZE);
+        while (source.hasNext()) {
+            chunk.add(BatchOperation.create(source.next()));
+            if (chunk.size() == IMPORT_CHUNK_SIZE || !source.hasNext()) {
+                result.addAll(applyBatch(chunk, BatchMode.PER_ITEM));
+                chunk.clear();
+            }
+        }
+        return result;
+    }
+
+    //Версия состояния: растёт после каждого изменения задач, эпиков или подзадач. Кеши, читающие
+    //версию до чтения данных, никогда не связывают с ней устаревшие данные
+    long getVersion();
+
+    //Версия списка задач одного типа: растёт при изменении любой его задачи. Эпик меняется и при
+    //изменении своих подзадач. Версии типов взяты из общего счётчика, поэтому версия нескольких
+    //списков — максимум их версий
+    long getVersion(TaskType type);
+
+    //Версия истории просмотров: растёт при каждом добавлении и удалении
+    long getHistoryVersion();
+
+    //Показатели для мониторинга; реализации с дешёвым доступом к размерам переопределяют метод
+    default ManagerStats getStats() {
+        return new ManagerStats(getAllTasks().size(), getAllEpics().size(), getAllSubtasks().size(),
+                getPrioritizedTasks().size(), getHistory().size());
+    }
 }
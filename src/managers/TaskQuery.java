@@ -0,0 +1,228 @@
+package managers;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+import tasks.Subtask;
+import tasks.Task;
+import util.Status;
+import util.TaskType;
+
+/**
+ * Запрос страницы задач для TaskManager.findTasks: фильтры по типу, статусу, эпику
+ * и интервалу startTime плюс курсор. Задачи возвращаются по возрастанию id; курсор —
+ * id последней задачи предыдущей страницы. Объект неизменяемый: методы with* возвращают
+ * новый запрос.
+ */
+public final class TaskQuery {
+    public static final int UNLIMITED = Integer.MAX_VALUE;
+    private static final Comparator<Task> BY_ID = Comparator.comparingInt(Task::getId);
+
+    private final Set<TaskType> types;
+    private final Status status;
+    private final Integer epicId;
+    private final LocalDateTime startFrom;
+    private final LocalDateTime startTo;
+    private final int afterId;
+    private final int limit;
+
+    private TaskQuery(Set<TaskType> types, Status status, Integer epicId, LocalDateTime startFrom,
+                      LocalDateTime startTo, int afterId, int limit) {
+        if (types.isEmpty()) {
+            throw new IllegalArgumentException("Нужно указать хотя бы один тип задач");
+        }
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Размер страницы должен быть положительным");
+        }
+        if (startFrom != null && startTo != null && startTo.isBefore(startFrom)) {
+            throw new IllegalArgumentException("Конец интервала раньше его начала");
+        }
+        this.types = Collections.unmodifiableSet(EnumSet.copyOf(types));
+        this.status = status;
+        this.epicId = epicId;
+        this.startFrom = startFrom;
+        this.startTo = startTo;
+        this.afterId = afterId;
+        this.limit = limit;
+    }
+
+    // Все задачи всех типов без ограничения размера
+    public static TaskQuery all() {
+        return new TaskQuery(EnumSet.allOf(TaskType.class), null, null, null, null, 0, UNLIMITED);
+    }
+
+    public static TaskQuery of(TaskType type, TaskType... more) {
+        return all().withTypes(EnumSet.of(type, more));
+    }
+
+    public TaskQuery withTypes(Set<TaskType> types) {
+        return new TaskQuery(Objects.requireNonNull(types), status, epicId, startFrom, startTo, afterId, limit);
+    }
+
+    // null — любой статус
+    public TaskQuery withStatus(Status status) {
+        return new TaskQuery(types, status, epicId, startFrom, startTo, afterId, limit);
+    }
+
+    // Только подзадачи указанного эпика; null — без фильтра
+    public TaskQuery withEpicId(Integer epicId) {
+        return new TaskQuery(types, status, epicId, startFrom, startTo, afterId, limit);
+    }
+
+    // startTime в [from, to); задачи без времени не попадают. null — граница не задана
+    public TaskQuery withStartBetween(LocalDateTime from, LocalDateTime to) {
+        return new TaskQuery(types, status, epicId, from, to, afterId, limit);
+    }
+
+    // Курсор: вернуть задачи с id больше указанного
+    public TaskQuery withAfterId(int afterId) {
+        return new TaskQuery(types, status, epicId, startFrom, startTo, afterId, limit);
+    }
+
+    public TaskQuery withLimit(int limit) {
+        return new TaskQuery(types, status, epicId, startFrom, startTo, afterId, limit);
+    }
+
+    public Set<TaskType> getTypes() {
+        return types;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public Integer getEpicId() {
+        return epicId;
+    }
+
+    public LocalDateTime getStartFrom() {
+        return startFrom;
+    }
+
+    public LocalDateTime getStartTo() {
+        return startTo;
+    }
+
+    public int getAfterId() {
+        return afterId;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public boolean includes(TaskType type) {
+        return types.contains(type);
+    }
+
+    // Задан фильтр по startTime: кандидатов можно брать из индекса приоритетов
+    public boolean hasStartRange() {
+        return startFrom != null || startTo != null;
+    }
+
+    public boolean matches(Task task) {
+        if (!types.contains(TaskType.valueOf(task.getType()))) {
+            return false;
+        }
+        if (status != null && task.getStatus() != status) {
+            return false;
+        }
+        if (epicId != null && !(task instanceof Subtask && ((Subtask) task).getEpicId() == epicId)) {
+            return false;
+        }
+        if (startFrom == null && startTo == null) {
+            return true;
+        }
+        LocalDateTime start = task.getStartTime();
+        if (start == null) {
+            return false;
+        }
+        return (startFrom == null || !start.isBefore(startFrom)) && (startTo == null || start.isBefore(startTo));
+    }
+
+    // Равные запросы возвращают одну и ту же страницу, поэтому запрос годится в ключ кеша ответов
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof TaskQuery)) {
+            return false;
+        }
+        TaskQuery other = (TaskQuery) o;
+        return afterId == other.afterId && limit == other.limit && types.equals(other.types)
+                && status == other.status && Objects.equals(epicId, other.epicId)
+                && Objects.equals(startFrom, other.startFrom) && Objects.equals(startTo, other.startTo);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(types, status, epicId, startFrom, startTo, afterId, limit);
+    }
+
+    /*
+     * Сливает упорядоченные по id последовательности задач (по одной на тип), пропускает
+     * неподходящие и останавливается, набрав limit задач. Читается только нужная часть
+     * источников.
+     */
+    List<Task> select(List<Iterator<? extends Task>> sources) {
+        List<Task> heads = new ArrayList<>(sources.size());
+        for (Iterator<? extends Task> source : sources) {
+            heads.add(source.hasNext() ? source.next() : null);
+        }
+        List<Task> page = new ArrayList<>(Math.min(limit, 64));
+        while (page.size() < limit) {
+            int next = -1;
+            for (int i = 0; i < heads.size(); i++) {
+                Task head = heads.get(i);
+                if (head != null && (next < 0 || head.getId() < heads.get(next).getId())) {
+                    next = i;
+                }
+            }
+            if (next < 0) {
+                break;
+            }
+            Task task = heads.get(next);
+            Iterator<? extends Task> source = sources.get(next);
+            heads.set(next, source.hasNext() ? source.next() : null);
+            if (matches(task)) {
+                page.add(task);
+            }
+        }
+        return page;
+    }
+
+    /*
+     * То же для источников в произвольном порядке (подзадачи эпика, диапазон индекса по времени):
+     * подходящие задачи с id больше курсора проходят через кучу из limit наименьших id, так что
+     * память — O(limit), а время — O(кандидатов), а не O(всех задач).
+     */
+    List<Task> selectUnordered(List<Iterator<? extends Task>> sources) {
+        PriorityQueue<Task> smallest = new PriorityQueue<>(BY_ID.reversed());
+        for (Iterator<? extends Task> source : sources) {
+            while (source.hasNext()) {
+                Task task = source.next();
+                if (task.getId() <= afterId || !matches(task)) {
+                    continue;
+                }
+                if (smallest.size() < limit) {
+                    smallest.add(task);
+                } else if (task.getId() < smallest.peek().getId()) {
+                    smallest.poll();
+                    smallest.add(task);
+                }
+            }
+        }
+        List<Task> page = new ArrayList<>(smallest);
+        page.sort(BY_ID);
+        return page;
+    }
+}
@@ -0,0 +1,103 @@
+package managers;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+
+import tasks.Task;
+
+/**
+ * Индекс временных интервалов [startTime, endTime) для проверки пересечений за O(log n).
+ * <p>
+ * Интервалы упорядочены по (startTime, endTime, id). Менеджер не пропускает пересекающиеся
+ * задачи, поэтому в таком порядке концы интервалов не убывают: пересечение с новым интервалом
+ * достаточно искать среди ближайших интервалов, начинающихся раньше его конца.
+ */
+class TimeIntervalIndex {
+    // id хранимых задач положительны, поэтому 0 не исключает ни одну
+    private static final int NO_EXCLUSION = 0;
+    // Сравнение по примитивному кешу времени задач, без создания объектов
+    private static final Comparator<Task> INTERVAL_ORDER = (a, b) -> {
+        int result = a.compareStartTo(b);
+        if (result == 0) {
+            result = a.compareEndTo(b);
+        }
+        return result != 0 ? result : Integer.compare(a.getId(), b.getId());
+    };
+
+    private final NavigableSet<Task> intervals = new TreeSet<>(INTERVAL_ORDER);
+    // Пробник для поиска по концу интервала; индекс всегда используется под блокировкой владельца
+    private final Task probe = new Task(null, null, Integer.MIN_VALUE, null, Duration.ZERO, null);
+
+    void add(Task task) {
+        if (hasInterval(task)) {
+            intervals.add(task);
+        }
+    }
+
+    void remove(Task task) {
+        if (hasInterval(task)) {
+            intervals.remove(task);
+        }
+    }
+
+    void clear() {
+        intervals.clear();
+    }
+
+    int size() {
+        return intervals.size();
+    }
+
+    // Есть ли хотя бы одна хранимая задача, пересекающаяся с данной
+    boolean hasOverlap(Task task) {
+        return hasOverlap(task, NO_EXCLUSION);
+    }
+
+    // То же без хранимой задачи excludedId: при обновлении её заменяет task
+    boolean hasOverlap(Task task, int excludedId) {
+        if (!hasInterval(task)) {
+            return false;
+        }
+        for (Task existing = lastStartingBefore(task); existing != null; existing = intervals.lower(existing)) {
+            if (!existing.endsAfterStartOf(task)) {
+                return false;
+            }
+            if (existing.getId() != excludedId) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Все задачи, пересекающиеся с данной, в порядке startTime
+    List<Task> findOverlaps(Task task) {
+        if (!hasInterval(task)) {
+            return List.of();
+        }
+        List<Task> overlaps = new ArrayList<>();
+        for (Task existing = lastStartingBefore(task); existing != null; existing = intervals.lower(existing)) {
+            if (!existing.endsAfterStartOf(task)) {
+                break;
+            }
+            overlaps.add(existing);
+        }
+        Collections.reverse(overlaps);
+        return overlaps;
+    }
+
+    // Самый поздний интервал, начинающийся строго раньше конца task; дальше обход идёт через lower()
+    private Task lastStartingBefore(Task task) {
+        // Пробник меньше любого интервала, начинающегося ровно в конце task
+        probe.setStartTime(task.getEndTime());
+        return intervals.lower(probe);
+    }
+
+    private static boolean hasInterval(Task task) {
+        return task.hasTimeInterval();
+    }
+}
@@ -0,0 +1,65 @@
+package server;
+
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.HttpExchange;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Считает выполняющиеся запросы и после начала остановки отвечает на новые 503,
+ * чтобы HttpTaskServer.stop() мог дождаться завершения уже начатых.
+ * <p>
+ * Запросы не берут общий монитор: счётчик атомарный, флаг остановки volatile, а stop()
+ * ждёт защёлку, которую открывает последний завершившийся запрос. Запрос сначала
+ * увеличивает счётчик и лишь потом проверяет флаг, поэтому drain() не может увидеть ноль,
+ * пока после него запускается ещё не учтённый запрос.
+ */
+class DrainFilter extends Filter {
+    private static final byte[] UNAVAILABLE =
+            "{\"error\":\"Server is shutting down\"}".getBytes(StandardCharsets.UTF_8);
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final CountDownLatch drained = new CountDownLatch(1);
+    private volatile boolean draining;
+
+    @Override
+    public void doFilter(HttpExchange exchange, Chain chain) throws IOException {
+        inFlight.incrementAndGet();
+        try {
+            if (draining) {
+                reject(exchange);
+                return;
+            }
+            chain.doFilter(exchange);
+        } finally {
+            if (inFlight.decrementAndGet() == 0 && draining) {
+                drained.countDown();
+            }
+        }
+    }
+
+    @Override
+    public String description() {
+        return "Ожидание завершения запросов при остановке сервера";
+    }
+
+    // Перестаёт принимать запросы и ждёт завершения начатых; false — если время вышло
+    boolean drain(long timeoutMillis) throws InterruptedException {
+        draining = true;
+        if (inFlight.get() == 0) {
+            return true;
+        }
+        return drained.await(timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private static void reject(HttpExchange exchange) throws IOException {
+        exchange.getResponseHeaders().add("Content-Type", "application/json;charset=utf-8");
+        exchange.getResponseHeaders().add("Connection", "close");
+        exchange.sendResponseHeaders(503, UNAVAILABLE.length);
+        exchange.getResponseBody().write(UNAVAILABLE);
+        exchange.close();
+    }
+}
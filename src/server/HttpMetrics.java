@@ -0,0 +1,170 @@
+package server;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import util.DurationHistogram;
+
+/**
+ * Метрики HTTP-запросов по маршрутам (контекстам сервера) и методам: гистограмма длительности,
+ * счётчики кодов ответа и число выполняющихся запросов. Маршрут регистрируется один раз при
+ * создании контекста, и фильтр держит ссылку на его счётчики, поэтому запись запроса — это
+ * несколько LongAdder без поиска по картам и без блокировок.
+ */
+public final class HttpMetrics {
+    private static final String[] METHODS = {"GET", "POST", "PUT", "DELETE", "OTHER"};
+    private static final int MAX_STATUS = 600;
+
+    private final List<Route> routes = new CopyOnWriteArrayList<>();
+
+    // Счётчики одного маршрута
+    public static final class Route {
+        private final String path;
+        private final LongAdder inFlight = new LongAdder();
+        private final MethodMetrics[] methods = new MethodMetrics[METHODS.length];
+
+        private Route(String path) {
+            this.path = path;
+            for (int i = 0; i < methods.length; i++) {
+                methods[i] = new MethodMetrics();
+            }
+        }
+
+        void started() {
+            inFlight.increment();
+        }
+
+        // status -1 — ответ не был отправлен (соединение оборвано)
+        void finished(String method, int status, long nanos) {
+            inFlight.decrement();
+            methods[methodIndex(method)].record(status, nanos);
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public long getInFlight() {
+            return inFlight.sum();
+        }
+
+        public DurationHistogram getLatency(String method) {
+            return methods[methodIndex(method)].latency;
+        }
+
+        public long getResponses(String method, int status) {
+            LongAdder counter = methods[methodIndex(method)].statuses.get(statusIndex(status));
+            return counter == null ? 0 : counter.sum();
+        }
+
+        private static int methodIndex(String method) {
+            switch (method) {
+                case "GET":
+                    return 0;
+                case "POST":
+                    return 1;
+                case "PUT":
+                    return 2;
+                case "DELETE":
+                    return 3;
+                default:
+                    return 4;
+            }
+        }
+    }
+
+    private static final class MethodMetrics {
+        private final DurationHistogram latency = new DurationHistogram();
+        // Счётчики создаются при первом ответе с этим кодом; индекс 0 — ответа не было
+        private final AtomicReferenceArray<LongAdder> statuses = new AtomicReferenceArray<>(MAX_STATUS);
+
+        void record(int status, long nanos) {
+            latency.record(nanos);
+            int index = statusIndex(status);
+            LongAdder counter = statuses.get(index);
+            if (counter == null) {
+                statuses.compareAndSet(index, null, new LongAdder());
+                counter = statuses.get(index);
+            }
+            counter.increment();
+        }
+    }
+
+    private static int statusIndex(int status) {
+        return status >= 100 && status < MAX_STATUS ? status : 0;
+    }
+
+    // Регистрирует маршрут; вызывается при создании контекста сервера
+    Route register(String path) {
+        Route route = new Route(path);
+        routes.add(route);
+        return route;
+    }
+
+    public List<Route> getRoutes() {
+        return new ArrayList<>(routes);
+    }
+
+    // Метрики HTTP в текстовом формате Prometheus; методы без запросов пропускаются
+    public void writePrometheus(StringBuilder out) {
+        writeHeader(out, "kanban_http_requests_total", "counter", "HTTP responses by route, method and status code");
+        for (Route route : routes) {
+            for (int m = 0; m < METHODS.length; m++) {
+                AtomicReferenceArray<LongAdder> statuses = route.methods[m].statuses;
+                for (int status = 0; status < MAX_STATUS; status++) {
+                    LongAdder counter = statuses.get(status);
+                    if (counter != null) {
+                        out.append("kanban_http_requests_total{route=\"").append(route.path)
+                                .append("\",method=\"").append(METHODS[m])
+                                .append("\",code=\"").append(status == 0 ? "none" : String.valueOf(status))
+                                .append("\"} ").append(counter.sum()).append('\n');
+                    }
+                }
+            }
+        }
+        writeHeader(out, "kanban_http_request_duration_seconds", "histogram",
+                "HTTP request handling time by route and method");
+        for (Route route : routes) {
+            for (int m = 0; m < METHODS.length; m++) {
+                DurationHistogram latency = route.methods[m].latency;
+                if (latency.getCount() > 0) {
+                    writeHistogram(out, "kanban_http_request_duration_seconds",
+                            "route=\"" + route.path + "\",method=\"" + METHODS[m] + "\"", latency);
+                }
+            }
+        }
+        writeHeader(out, "kanban_http_requests_in_flight", "gauge", "HTTP requests being handled by route");
+        for (Route route : routes) {
+            out.append("kanban_http_requests_in_flight{route=\"").append(route.path).append("\"} ")
+                    .append(route.getInFlight()).append('\n');
+        }
+    }
+
+    public static void writeHeader(StringBuilder out, String name, String type, String help) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    // Серия гистограммы: накопленные корзины _bucket{le}, _sum в секундах и _count
+    public static void writeHistogram(StringBuilder out, String name, String labels, DurationHistogram histogram) {
+        String prefix = labels.isEmpty() ? "" : labels + ",";
+        long[] bounds = histogram.getBoundsNanos();
+        long[] counts = histogram.cumulativeCounts();
+        for (int i = 0; i < bounds.length; i++) {
+            out.append(name).append("_bucket{").append(prefix).append("le=\"").append(seconds(bounds[i]))
+                    .append("\"} ").append(counts[i]).append('\n');
+        }
+        long count = counts[counts.length - 1];
+        out.append(name).append("_bucket{").append(prefix).append("le=\"+Inf\"} ").append(count).append('\n');
+        String suffix = labels.isEmpty() ? " " : "{" + labels + "} ";
+        out.append(name).append("_sum").append(suffix).append(seconds(histogram.getSumNanos())).append('\n');
+        out.append(name).append("_count").append(suffix).append(count).append('\n');
+    }
+
+    private static String seconds(long nanos) {
+        return String.format(Locale.ROOT, "%s", nanos / 1e9);
+    }
+}
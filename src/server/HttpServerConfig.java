@@ -0,0 +1,155 @@
+package server;
+
+import java.util.Objects;
+
+/**
+ * Настройки HttpTaskServer: порт, очередь входящих соединений, модель выполнения запросов
+ * объём кеша сериализованных ответов и сжатие ответов.
+ * Объект неизменяемый: методы with* возвращают новую конфигурацию.
+ */
+public final class HttpServerConfig {
+    public static final int DEFAULT_PORT = 8080;
+    public static final int DEFAULT_BACKLOG = 0; // 0 — значение по умолчанию ОС
+    public static final int DEFAULT_POOL_SIZE = Runtime.getRuntime().availableProcessors() * 2;
+    public static final long DEFAULT_DRAIN_TIMEOUT_MILLIS = 5_000;
+    public static final long DEFAULT_RESPONSE_CACHE_BYTES = 16 * 1024 * 1024;
+    public static final int DEFAULT_COMPRESSION_THRESHOLD = 1024;
+    public static final int DEFAULT_COMPRESSION_LEVEL = 6;
+
+    /*
+     * Как выполняются обработчики запросов. Многопоточные режимы требуют потокобезопасного
+     * менеджера задач (ConcurrentTaskManager).
+     */
+    public enum ExecutionMode {
+        SINGLE_THREAD,  // все запросы в потоке-диспетчере HttpServer
+        POOLED,         // ограниченный пул платформенных потоков
+        VIRTUAL_THREADS // отдельный виртуальный поток на каждый запрос
+    }
+
+    private final int port;
+    private final int backlog;
+    private final ExecutionMode executionMode;
+    private final int poolSize;
+    private final long drainTimeoutMillis;
+    private final long responseCacheBytes;
+    private final int compressionThreshold;
+    private final int compressionLevel;
+
+    private HttpServerConfig(int port, int backlog, ExecutionMode executionMode, int poolSize,
+                             long drainTimeoutMillis, long responseCacheBytes, int compressionThreshold,
+                             int compressionLevel) {
+        if (port < 0 || port > 65535) {
+            throw new IllegalArgumentException("Некорректный порт: " + port);
+        }
+        if (backlog < 0) {
+            throw new IllegalArgumentException("Размер очереди соединений не может быть отрицательным");
+        }
+        if (poolSize <= 0) {
+            throw new IllegalArgumentException("Размер пула должен быть положительным");
+        }
+        if (drainTimeoutMillis < 0) {
+            throw new IllegalArgumentException("Время ожидания завершения запросов не может быть отрицательным");
+        }
+        if (responseCacheBytes < 0) {
+            throw new IllegalArgumentException("Размер кеша ответов не может быть отрицательным");
+        }
+        if (compressionThreshold < 0) {
+            throw new IllegalArgumentException("Порог сжатия не может быть отрицательным");
+        }
+        if (compressionLevel < 0 || compressionLevel > 9) {
+            throw new IllegalArgumentException("Уровень сжатия должен быть от 0 до 9");
+        }
+        this.port = port;
+        this.backlog = backlog;
+        this.executionMode = Objects.requireNonNull(executionMode, "Режим выполнения не может быть null");
+        this.poolSize = poolSize;
+        this.drainTimeoutMillis = drainTimeoutMillis;
+        this.responseCacheBytes = responseCacheBytes;
+        this.compressionThreshold = compressionThreshold;
+        this.compressionLevel = compressionLevel;
+    }
+
+    public static HttpServerConfig defaults() {
+        return new HttpServerConfig(DEFAULT_PORT, DEFAULT_BACKLOG, ExecutionMode.SINGLE_THREAD,
+                DEFAULT_POOL_SIZE, DEFAULT_DRAIN_TIMEOUT_MILLIS, DEFAULT_RESPONSE_CACHE_BYTES,
+                DEFAULT_COMPRESSION_THRESHOLD, DEFAULT_COMPRESSION_LEVEL);
+    }
+
+    // 0 — любой свободный порт; фактический порт возвращает HttpTaskServer.getPort()
+    public HttpServerConfig withPort(int port) {
+        return new HttpServerConfig(port, backlog, executionMode, poolSize, drainTimeoutMillis, responseCacheBytes,
+                compressionThreshold, compressionLevel);
+    }
+
+    public HttpServerConfig withBacklog(int backlog) {
+        return new HttpServerConfig(port, backlog, executionMode, poolSize, drainTimeoutMillis, responseCacheBytes,
+                compressionThreshold, compressionLevel);
+    }
+
+    public HttpServerConfig withExecutionMode(ExecutionMode executionMode) {
+        return new HttpServerConfig(port, backlog, executionMode, poolSize, drainTimeoutMillis, responseCacheBytes,
+                compressionThreshold, compressionLevel);
+    }
+
+    // Число потоков для режима POOLED
+    public HttpServerConfig withPoolSize(int poolSize) {
+        return new HttpServerConfig(port, backlog, executionMode, poolSize, drainTimeoutMillis, responseCacheBytes,
+                compressionThreshold, compressionLevel);
+    }
+
+    // Сколько stop() ждёт завершения начатых запросов
+    public HttpServerConfig withDrainTimeoutMillis(long drainTimeoutMillis) {
+        return new HttpServerConfig(port, backlog, executionMode, poolSize, drainTimeoutMillis, responseCacheBytes,
+                compressionThreshold, compressionLevel);
+    }
+
+    // Суммарный объём тел в кеше ответов (см. ResponseCache); 0 — кеш выключен
+    public HttpServerConfig withResponseCacheBytes(long responseCacheBytes) {
+        return new HttpServerConfig(port, backlog, executionMode, poolSize, drainTimeoutMillis, responseCacheBytes,
+                compressionThreshold, compressionLevel);
+    }
+
+    // Ответы не короче порога (в байтах) сжимаются, если клиент прислал Accept-Encoding с gzip или deflate
+    public HttpServerConfig withCompressionThreshold(int compressionThreshold) {
+        return new HttpServerConfig(port, backlog, executionMode, poolSize, drainTimeoutMillis, responseCacheBytes,
+                compressionThreshold, compressionLevel);
+    }
+
+    // Уровень Deflater от 1 (быстрее) до 9 (плотнее); 0 — сжатие выключено
+    public HttpServerConfig withCompressionLevel(int compressionLevel) {
+        return new HttpServerConfig(port, backlog, executionMode, poolSize, drainTimeoutMillis, responseCacheBytes,
+                compressionThreshold, compressionLevel);
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    public int getBacklog() {
+        return backlog;
+    }
+
+    public ExecutionMode getExecutionMode() {
+        return executionMode;
+    }
+
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    public long getDrainTimeoutMillis() {
+        return drainTimeoutMillis;
+    }
+
+    public long getResponseCacheBytes() {
+        return responseCacheBytes;
+    }
+
+    public int getCompressionThreshold() {
+        return compressionThreshold;
+    }
+
+    public int getCompressionLevel() {
+        return compressionLevel;
+    }
+}
@@ -1,67 +1,139 @@
 package server;
 
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
+import com.sun.net.httpserver.HttpContext;
+import com.sun.net.httpserver.HttpHandler;
 import com.sun.net.httpserver.HttpServer;
-import util.DurationAdapter;
-import util.LocalDateTimeAdapter;
 import util.Managers;
 import managers.TaskManager;
 import server.handlers.*;
 
 import java.io.IOException;
 import java.net.InetSocketAddress;
-import java.time.Duration;
-import java.time.LocalDateTime;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 /**
  * HTTP-сервер, обрабатывающий REST-запросы к TaskManager.
+ * Порт, очередь соединений и модель выполнения запросов задаются через {@link HttpServerConfig}.
  */
 public class HttpTaskServer {
-    private static final int PORT = 8080;
-
     private final HttpServer server;
     private final TaskManager taskManager;
-    private final Gson gson;
+    private final HttpServerConfig config;
+    private final ExecutorService executor;
+    private final DrainFilter drainFilter = new DrainFilter();
+    private final HttpMetrics metrics = new HttpMetrics();
+    private final ResponseCache responseCache;
+    private final ResponseCompression responseCompression;
 
     public HttpTaskServer() throws IOException {
-        this.taskManager = Managers.getDefault();
-        this.gson = new GsonBuilder()
-                .registerTypeAdapter(Duration.class, new DurationAdapter())
-                .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeAdapter())
-                .create();
-        this.server = HttpServer.create(new InetSocketAddress(PORT), 0);
-        setupContexts();
+        this(Managers.getDefault(), HttpServerConfig.defaults());
     }
 
     public HttpTaskServer(TaskManager taskManager) throws IOException {
+        this(taskManager, HttpServerConfig.defaults());
+    }
+
+    public HttpTaskServer(TaskManager taskManager, HttpServerConfig config) throws IOException {
         this.taskManager = taskManager;
-        this.gson = new Gson();
-        server = HttpServer.create(new InetSocketAddress(PORT), 0);
+        this.config = config;
+        this.responseCache = new ResponseCache(config.getResponseCacheBytes());
+        this.responseCompression = new ResponseCompression(config.getCompressionThreshold(),
+                config.getCompressionLevel());
+        this.server = HttpServer.create(new InetSocketAddress(config.getPort()), config.getBacklog());
+        this.executor = createExecutor(config);
+        server.setExecutor(executor); // null — запросы обрабатывает поток-диспетчер
         setupContexts();
     }
 
+    private static ExecutorService createExecutor(HttpServerConfig config) {
+        switch (config.getExecutionMode()) {
+            case POOLED:
+                return Executors.newFixedThreadPool(config.getPoolSize());
+            case VIRTUAL_THREADS:
+                return Executors.newVirtualThreadPerTaskExecutor();
+            default:
+                return null;
+        }
+    }
+
     private void setupContexts() {
-        server.createContext("/tasks", new TasksHandler(taskManager));
-        server.createContext("/subtasks", new SubtasksHandler(taskManager));
-        server.createContext("/epics", new EpicsHandler(taskManager));
-        server.createContext("/history", new HistoryHandler(taskManager));
-        server.createContext("/prioritized", new PrioritizedTasksHandler(taskManager));
+        createContext("/tasks", new TasksHandler(taskManager, responseCache));
+        createContext("/subtasks", new SubtasksHandler(taskManager, responseCache));
+        createContext("/epics", new EpicsHandler(taskManager, responseCache));
+        createContext("/history", new HistoryHandler(taskManager));
+        createContext("/prioritized", new PrioritizedTasksHandler(taskManager, responseCache));
+        createContext("/batch", new BatchHandler(taskManager));
+        createContext("/import", new ImportHandler(taskManager));
+        createContext("/metrics", new MetricsHandler(taskManager, metrics, responseCache));
+    }
+
+    private void createContext(String path, HttpHandler handler) {
+        HttpContext context = server.createContext(path, handler);
+        context.getFilters().add(new MetricsFilter(metrics.register(path)));
+        context.getFilters().add(drainFilter);
+        context.getAttributes().put(ResponseCompression.CONTEXT_ATTRIBUTE, responseCompression);
+    }
+
+    public HttpMetrics getMetrics() {
+        return metrics;
+    }
+
+    public ResponseCache getResponseCache() {
+        return responseCache;
+    }
+
+    public ResponseCompression getResponseCompression() {
+        return responseCompression;
+    }
+
+    // Фактический порт (полезно при HttpServerConfig.withPort(0))
+    public int getPort() {
+        return server.getAddress().getPort();
     }
 
     public void start() {
         server.start();
-        System.out.println("HTTP-сервер запущен на порту " + PORT);
+        System.out.println("HTTP-сервер запущен на порту " + getPort()
+                + " (" + config.getExecutionMode() + ")");
     }
 
+    /**
+     * Останавливает сервер: новые запросы получают 503, начатые дорабатывают
+     * не дольше drainTimeoutMillis, после чего сервер и пул потоков закрываются.
+     */
     public void stop() {
+        try {
+            if (!drainFilter.drain(config.getDrainTimeoutMillis())) {
+                System.out.println("Не все запросы завершились до остановки сервера.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
         server.stop(0);
+        if (executor != null) {
+            executor.shutdown();
+            try {
+                if (!executor.awaitTermination(config.getDrainTimeoutMillis(), TimeUnit.MILLISECONDS)) {
+                    executor.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                executor.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
         System.out.println("HTTP-сервер остановлен.");
     }
 
     public static void main(String[] args) {
         try {
-            HttpTaskServer server = new HttpTaskServer();
+            HttpServerConfig config = HttpServerConfig.defaults()
+                    .withExecutionMode(HttpServerConfig.ExecutionMode.VIRTUAL_THREADS);
+            if (args.length > 0) {
+                config = config.withPort(Integer.parseInt(args[0]));
+            }
+            HttpTaskServer server = new HttpTaskServer(Managers.getConcurrent(), config);
             server.start();
         } catch (IOException e) {
             System.out.println("Не удалось запустить сервер: " + e.getMessage());
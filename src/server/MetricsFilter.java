@@ -0,0 +1,33 @@
+package server;
+
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.HttpExchange;
+import java.io.IOException;
+
+/**
+ * Записывает в HttpMetrics длительность и код ответа каждого запроса маршрута. Стоит первым
+ * в цепочке, поэтому учитывает и ответы 503 во время остановки сервера.
+ */
+class MetricsFilter extends Filter {
+    private final HttpMetrics.Route route;
+
+    MetricsFilter(HttpMetrics.Route route) {
+        this.route = route;
+    }
+
+    @Override
+    public void doFilter(HttpExchange exchange, Chain chain) throws IOException {
+        long start = System.nanoTime();
+        route.started();
+        try {
+            chain.doFilter(exchange);
+        } finally {
+            route.finished(exchange.getRequestMethod(), exchange.getResponseCode(), System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public String description() {
+        return "Метрики запросов маршрута " + route.getPath();
+    }
+}
@@ -0,0 +1,168 @@
+package server;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import tasks.Task;
+
+/**
+ * Кеш сериализованных JSON-ответов. Задача хранится по id вместе с версией, из которой
+ * получено тело, коллекция — по ключу из разобранных параметров запроса (например, TaskQuery)
+ * вместе с версией менеджера. Для каждого
+ * ключа хранится только последняя версия: запрос с другой версией — промах, и его результат
+ * заменяет запись. Попадание — это отдача готового byte[] без Gson и без обхода мап.
+ * <p>
+ * Объём ограничен суммой длин тел и ENTRY_OVERHEAD байт на запись, поэтому и множество
+ * крошечных тел не растит кучу без предела; при превышении записи вытесняются в порядке
+ * появления ключей (FIFO). Тела длиннее maxEntryBytes не кешируются. Класс потокобезопасен.
+ */
+public final class ResponseCache {
+    // Оценка памяти на запись сверх тела: узлы мапы и очереди, Entry, заголовок массива и ключ
+    static final int ENTRY_OVERHEAD = 256;
+
+    private final long maxBytes;
+    private final int maxEntryBytes;
+    private final ConcurrentHashMap<Object, Entry> entries = new ConcurrentHashMap<>();
+    // Каждый ключ из entries стоит в очереди ровно один раз — с момента первой вставки
+    private final Queue<Object> order = new ConcurrentLinkedQueue<>();
+    private final AtomicLong bytes = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    // Готовый ответ: тело и курсор следующей страницы (null, если страница последняя)
+    public static final class Entry {
+        private final long version;
+        private final byte[] body;
+        private final String nextCursor;
+
+        private Entry(long version, byte[] body, String nextCursor) {
+            this.version = version;
+            this.body = body;
+            this.nextCursor = nextCursor;
+        }
+
+        public byte[] getBody() {
+            return body;
+        }
+
+        public String getNextCursor() {
+            return nextCursor;
+        }
+    }
+
+    // maxBytes — суммарный объём тел; 0 — кеш выключен
+    public ResponseCache(long maxBytes) {
+        if (maxBytes < 0) {
+            throw new IllegalArgumentException("Размер кеша не может быть отрицательным");
+        }
+        this.maxBytes = maxBytes;
+        this.maxEntryBytes = (int) Math.min(Integer.MAX_VALUE, Math.max(maxBytes / 16, 64 * 1024));
+    }
+
+    public static ResponseCache disabled() {
+        return new ResponseCache(0);
+    }
+
+    public boolean isEnabled() {
+        return maxBytes > 0;
+    }
+
+    public int getMaxEntryBytes() {
+        return maxEntryBytes;
+    }
+
+    /*
+     * JSON задачи из кеша по (id, версия). serializer вызывается при промахе; незамороженные
+     * задачи (версия 0) не кешируются.
+     */
+    public byte[] entity(Task task, Supplier<byte[]> serializer) {
+        long version = task.getVersion();
+        if (!isEnabled() || version == 0) {
+            return serializer.get();
+        }
+        Integer key = task.getId();
+        Entry entry = entries.get(key);
+        if (entry != null && entry.version == version) {
+            hits.increment();
+            return entry.body;
+        }
+        misses.increment();
+        byte[] body = serializer.get();
+        put(key, new Entry(version, body, null));
+        return body;
+    }
+
+    // Готовый ответ коллекции для версии менеджера; null — промах
+    public Entry collection(Object key, long version) {
+        if (!isEnabled()) {
+            return null;
+        }
+        Entry entry = entries.get(key);
+        if (entry != null && entry.version == version) {
+            hits.increment();
+            return entry;
+        }
+        misses.increment();
+        return null;
+    }
+
+    // version — версия менеджера, прочитанная до построения ответа
+    public void putCollection(Object key, long version, byte[] body, String nextCursor) {
+        if (isEnabled()) {
+            put(key, new Entry(version, body, nextCursor));
+        }
+    }
+
+    private void put(Object key, Entry entry) {
+        if (entry.body.length > maxEntryBytes) {
+            return;
+        }
+        Entry previous = entries.put(key, entry);
+        if (previous == null) {
+            order.add(key);
+        } else {
+            bytes.addAndGet(-charge(previous));
+        }
+        bytes.addAndGet(charge(entry));
+        while (bytes.get() > maxBytes) {
+            Object oldest = order.poll();
+            if (oldest == null) {
+                return;
+            }
+            Entry removed = entries.remove(oldest);
+            if (removed != null) {
+                bytes.addAndGet(-charge(removed));
+                evictions.increment();
+            }
+        }
+    }
+
+    private static long charge(Entry entry) {
+        return entry.body.length + ENTRY_OVERHEAD;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    // Занятый объём с учётом ENTRY_OVERHEAD на запись
+    public long getBytes() {
+        return bytes.get();
+    }
+
+    public int getEntries() {
+        return entries.size();
+    }
+}
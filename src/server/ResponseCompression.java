@@ -0,0 +1,215 @@
+package server;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Сжатие ответов по Accept-Encoding: gzip или deflate (zlib) уровнем level для тел не короче
+ * threshold байт. Экземпляр общий для всех контекстов сервера и хранится в их атрибутах
+ * под {@link #CONTEXT_ATTRIBUTE}; там же копятся счётчики для /metrics: число сжатых ответов,
+ * байты до и после сжатия и время, потраченное самим Deflater (без записи в сокет).
+ */
+public final class ResponseCompression {
+    public static final String CONTEXT_ATTRIBUTE = ResponseCompression.class.getName();
+    public static final String GZIP = "gzip";
+    public static final String DEFLATE = "deflate";
+
+    private static final int BUFFER_SIZE = 8 * 1024;
+    private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+
+    private final int threshold;
+    private final int level;
+    private final LongAdder responses = new LongAdder();
+    private final LongAdder bytesIn = new LongAdder();
+    private final LongAdder bytesOut = new LongAdder();
+    private final LongAdder nanos = new LongAdder();
+
+    // level 1..9; 0 — сжатие выключено
+    public ResponseCompression(int threshold, int level) {
+        if (threshold < 0) {
+            throw new IllegalArgumentException("Порог сжатия не может быть отрицательным");
+        }
+        if (level < 0 || level > Deflater.BEST_COMPRESSION) {
+            throw new IllegalArgumentException("Уровень сжатия должен быть от 0 до 9");
+        }
+        this.threshold = threshold;
+        this.level = level;
+    }
+
+    public static ResponseCompression disabled() {
+        return new ResponseCompression(0, 0);
+    }
+
+    public boolean isEnabled() {
+        return level > 0;
+    }
+
+    public int getThreshold() {
+        return threshold;
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    /*
+     * Кодировка ответа по заголовку Accept-Encoding: gzip или deflate с наибольшим q
+     * (при равных — указанная раньше), "*" означает gzip. null — отвечать без сжатия.
+     */
+    public String negotiate(String acceptEncoding) {
+        if (!isEnabled() || acceptEncoding == null) {
+            return null;
+        }
+        String best = null;
+        double bestQuality = 0;
+        for (String part : acceptEncoding.split(",")) {
+            String[] params = part.split(";");
+            String coding = params[0].trim().toLowerCase(Locale.ROOT);
+            if (coding.equals("*") || coding.equals("x-gzip")) {
+                coding = GZIP;
+            }
+            if (!coding.equals(GZIP) && !coding.equals(DEFLATE)) {
+                continue;
+            }
+            double quality = quality(params);
+            if (quality > bestQuality) {
+                best = coding;
+                bestQuality = quality;
+            }
+        }
+        return best;
+    }
+
+    private static double quality(String[] params) {
+        for (int i = 1; i < params.length; i++) {
+            String param = params[i].trim();
+            if (param.startsWith("q=")) {
+                try {
+                    return Double.parseDouble(param.substring(2));
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+
+    // Поток, сжимающий всё записанное в out; close() дописывает конец сжатых данных и закрывает out
+    public OutputStream compress(OutputStream out, String encoding) throws IOException {
+        return new DeflatingOutputStream(out, GZIP.equals(encoding));
+    }
+
+    public long getCompressedResponses() {
+        return responses.sum();
+    }
+
+    public long getBytesIn() {
+        return bytesIn.sum();
+    }
+
+    public long getBytesOut() {
+        return bytesOut.sum();
+    }
+
+    public long getCompressionNanos() {
+        return nanos.sum();
+    }
+
+    /*
+     * Deflater напрямую, а не GZIPOutputStream: так время считается только по вызовам
+     * deflate() и CRC, а запись в сокет в него не попадает. Для gzip заголовок и трейлер
+     * (CRC32 и длина по модулю 2^32) пишутся вручную, deflate — формат zlib из самого Deflater.
+     */
+    private final class DeflatingOutputStream extends OutputStream {
+        private final OutputStream out;
+        private final Deflater deflater;
+        private final CRC32 crc;
+        private final byte[] buffer = new byte[BUFFER_SIZE];
+        private long written;
+        private long elapsed;
+        private boolean closed;
+
+        DeflatingOutputStream(OutputStream out, boolean gzip) throws IOException {
+            this.out = out;
+            this.deflater = new Deflater(level, gzip);
+            this.crc = gzip ? new CRC32() : null;
+            if (gzip) {
+                out.write(GZIP_HEADER);
+                written = GZIP_HEADER.length;
+            }
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return;
+            }
+            long start = System.nanoTime();
+            deflater.setInput(b, off, len);
+            if (crc != null) {
+                crc.update(b, off, len);
+            }
+            elapsed += System.nanoTime() - start;
+            while (!deflater.needsInput()) {
+                deflateOnce();
+            }
+        }
+
+        private void deflateOnce() throws IOException {
+            long start = System.nanoTime();
+            int length = deflater.deflate(buffer, 0, buffer.length);
+            elapsed += System.nanoTime() - start;
+            if (length > 0) {
+                out.write(buffer, 0, length);
+                written += length;
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                deflater.finish();
+                while (!deflater.finished()) {
+                    deflateOnce();
+                }
+                if (crc != null) {
+                    writeIntLe(crc.getValue());
+                    writeIntLe(deflater.getBytesRead());
+                }
+                responses.increment();
+                bytesIn.add(deflater.getBytesRead());
+                bytesOut.add(written);
+                nanos.add(elapsed);
+            } finally {
+                deflater.end();
+                out.close();
+            }
+        }
+
+        private void writeIntLe(long value) throws IOException {
+            out.write((int) value & 0xff);
+            out.write((int) (value >>> 8) & 0xff);
+            out.write((int) (value >>> 16) & 0xff);
+            out.write((int) (value >>> 24) & 0xff);
+            written += 4;
+        }
+    }
+}
@@ -1,38 +1,313 @@
 package server.handlers;
 
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
+import com.google.gson.JsonIOException;
+import com.google.gson.stream.JsonWriter;
 import com.sun.net.httpserver.HttpExchange;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
-import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import managers.TaskManager;
-import util.DurationAdapter;
-import util.LocalDateTimeAdapter;
+import managers.TaskQuery;
+import server.ResponseCache;
+import server.ResponseCompression;
+import tasks.Task;
+import util.Managers;
+import util.Status;
+import util.TaskType;
+import util.TaskWireFormat;
 
 public abstract class BaseHttpHandler {
+    private static final int STREAM_BUFFER_SIZE = 8 * 1024;
+    private static final String JSON_CONTENT_TYPE = "application/json;charset=utf-8";
+    private static final String NEXT_CURSOR = "X-Next-Cursor";
+    // Отличает версии этого запуска от версий предыдущих: счётчики после перезапуска начинаются заново
+    private static final String ETAG_EPOCH = Long.toString(System.currentTimeMillis(), 36);
+    private static final ResponseCompression NO_COMPRESSION = ResponseCompression.disabled();
+
     protected final TaskManager taskManager;
+    protected final ResponseCache responseCache;
     protected final Gson gson;
 
     protected BaseHttpHandler(TaskManager taskManager) {
+        this(taskManager, ResponseCache.disabled());
+    }
+
+    protected BaseHttpHandler(TaskManager taskManager, ResponseCache responseCache) {
         this.taskManager = taskManager;
-        this.gson = new GsonBuilder()
-                .registerTypeAdapter(Duration.class, new DurationAdapter())
-                .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeAdapter())
-                .create();
+        this.responseCache = responseCache;
+        this.gson = Managers.getGson();
     }
 
     // Основной метод отправки текстового ответа
     protected void sendText(HttpExchange exchange, String text, int statusCode) throws IOException {
-        byte[] response = text.getBytes(StandardCharsets.UTF_8);
-        exchange.getResponseHeaders().add("Content-Type", "application/json;charset=utf-8");
+        sendText(exchange, text, statusCode, JSON_CONTENT_TYPE);
+    }
+
+    protected void sendText(HttpExchange exchange, String text, int statusCode, String contentType)
+            throws IOException {
+        sendBytes(exchange, text.getBytes(StandardCharsets.UTF_8), statusCode, contentType);
+    }
+
+    protected void sendBytes(HttpExchange exchange, byte[] response, int statusCode, String contentType)
+            throws IOException {
+        exchange.getResponseHeaders().add("Content-Type", contentType);
+        ResponseCompression compression = compression(exchange);
+        String encoding = negotiateEncoding(exchange, compression);
+        if (encoding != null && response.length >= compression.getThreshold()) {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(response.length / 4 + 64);
+            try (OutputStream out = compression.compress(compressed, encoding)) {
+                out.write(response);
+            }
+            markEncoded(exchange, encoding);
+            response = compressed.toByteArray();
+        }
         exchange.sendResponseHeaders(statusCode, response.length);
         exchange.getResponseBody().write(response);
         exchange.close();
     }
 
+    // Задача в JSON (тело берётся из кеша по id и версии задачи) или в двоичном формате
+    protected void sendEntity(HttpExchange exchange, Task task) throws IOException {
+        if (task.getVersion() != 0 && sendNotModified(exchange, task.getVersion())) {
+            return;
+        }
+        if (negotiateBinary(exchange)) {
+            sendBytes(exchange, TaskWireFormat.encode(List.of(task)), 200, TaskWireFormat.CONTENT_TYPE);
+            return;
+        }
+        byte[] body = responseCache.entity(task, () -> gson.toJson(task).getBytes(StandardCharsets.UTF_8));
+        sendBytes(exchange, body, 200, JSON_CONTENT_TYPE);
+    }
+
+    /*
+     * Ставит ETag версии version и, если клиент прислал его же в If-None-Match, отвечает
+     * 304 без тела. Версию нужно прочитать до данных, как и для кеша; тогда проверка не
+     * обращается ни к задачам, ни к Gson. У двоичного представления свой ETag.
+     */
+    protected boolean sendNotModified(HttpExchange exchange, long version) throws IOException {
+        String etag = "\"" + ETAG_EPOCH + "-" + version + (negotiateBinary(exchange) ? "-b" : "") + "\"";
+        exchange.getResponseHeaders().set("ETag", etag);
+        String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+        if (ifNoneMatch == null || !etagMatches(ifNoneMatch, etag)) {
+            return false;
+        }
+        exchange.sendResponseHeaders(304, -1);
+        exchange.close();
+        return true;
+    }
+
+    // Версия ответа с задачами types: максимум версий их списков
+    protected long versionOf(Set<TaskType> types) {
+        long version = 0;
+        for (TaskType type : types) {
+            version = Math.max(version, taskManager.getVersion(type));
+        }
+        return version;
+    }
+
+    /*
+     * Отдаёт ответ на GET коллекции из кеша, если он построен для версии version.
+     * version нужно прочитать до обращения к данным: тогда кеш не свяжет с ней устаревший ответ.
+     * key строится из разобранных параметров, а не из строки запроса: лишние параметры
+     * не должны порождать новые записи.
+     */
+    protected boolean sendCachedCollection(HttpExchange exchange, Object key, long version) throws IOException {
+        if (negotiateBinary(exchange)) {
+            return false; // В кеше только JSON; двоичный ответ дёшев и без него
+        }
+        ResponseCache.Entry cached = responseCache.collection(key, version);
+        if (cached == null) {
+            return false;
+        }
+        if (cached.getNextCursor() != null) {
+            exchange.getResponseHeaders().add(NEXT_CURSOR, cached.getNextCursor());
+        }
+        sendBytes(exchange, cached.getBody(), 200, JSON_CONTENT_TYPE);
+        return true;
+    }
+
+    /*
+     * Потоковая отправка списка задач: JSON-массив или, если клиент просит, двоичный формат
+     * TaskWireFormat. Задачи пишутся по одной прямо в тело ответа с chunked-кодированием,
+     * поэтому всё тело в памяти не собирается.
+     * При ошибке сериализации поток не закрывается: sendServerError либо ответит 500, если
+     * заголовки ещё не ушли, либо оборвёт соединение, и клиент не примет обрывок за ответ.
+     */
+    protected void sendTasks(HttpExchange exchange, Iterable<? extends Task> tasks) throws IOException {
+        if (negotiateBinary(exchange)) {
+            exchange.getResponseHeaders().add("Content-Type", TaskWireFormat.CONTENT_TYPE);
+            OutputStream body = openBody(exchange);
+            TaskWireFormat.Encoder encoder = new TaskWireFormat.Encoder(body);
+            for (Task task : tasks) {
+                encoder.write(task);
+            }
+            body.close();
+            exchange.close();
+            return;
+        }
+        exchange.getResponseHeaders().add("Content-Type", JSON_CONTENT_TYPE);
+        writeJsonArray(openBody(exchange), tasks);
+        exchange.close();
+    }
+
+    // То же с сохранением JSON-ответа в кеш под key для версии version, если он не длиннее предела записи
+    protected void sendTasks(HttpExchange exchange, Iterable<? extends Task> tasks, Object key, long version)
+            throws IOException {
+        if (!responseCache.isEnabled() || negotiateBinary(exchange)) {
+            sendTasks(exchange, tasks);
+            return;
+        }
+        exchange.getResponseHeaders().add("Content-Type", JSON_CONTENT_TYPE);
+        // Кешируется тело до сжатия: кодировка у следующего клиента может быть другой
+        CapturingOutputStream body = new CapturingOutputStream(openBody(exchange), responseCache.getMaxEntryBytes());
+        writeJsonArray(body, tasks);
+        exchange.close();
+        byte[] captured = body.captured();
+        if (captured != null) {
+            responseCache.putCollection(key, version, captured,
+                    exchange.getResponseHeaders().getFirst(NEXT_CURSOR));
+        }
+    }
+
+    // Закрывает out только после успешной записи всего массива
+    private void writeJsonArray(OutputStream out, Iterable<? extends Task> items) throws IOException {
+        JsonWriter writer = new JsonWriter(new BufferedWriter(
+                new OutputStreamWriter(out, StandardCharsets.UTF_8), STREAM_BUFFER_SIZE));
+        try {
+            writer.beginArray();
+            for (Task item : items) {
+                gson.toJson(item, item.getClass(), writer);
+            }
+            writer.endArray();
+        } catch (JsonIOException e) {
+            throw new IOException(e);
+        }
+        writer.close();
+    }
+
+    /*
+     * Тело ответа 200 неизвестной длины. Без сжатия заголовки отправляются сразу (chunked).
+     * Если клиент принимает сжатие, начало тела копится до порога: короткий ответ уходит
+     * как есть с известной длиной, длинный — сжатым потоком.
+     */
+    private OutputStream openBody(HttpExchange exchange) throws IOException {
+        ResponseCompression compression = compression(exchange);
+        String encoding = negotiateEncoding(exchange, compression);
+        if (encoding == null) {
+            exchange.sendResponseHeaders(200, 0); // 0 — длина неизвестна, chunked
+            return exchange.getResponseBody();
+        }
+        return new ThresholdOutputStream(exchange, compression, encoding);
+    }
+
+    // Настройки сжатия из атрибутов контекста (их ставит HttpTaskServer); без них сжатие выключено
+    protected ResponseCompression compression(HttpExchange exchange) {
+        Object compression = exchange.getHttpContext().getAttributes().get(ResponseCompression.CONTEXT_ATTRIBUTE);
+        return compression instanceof ResponseCompression ? (ResponseCompression) compression : NO_COMPRESSION;
+    }
+
+    // Кодировка по Accept-Encoding; при включённом сжатии ответ зависит от заголовка — отсюда Vary
+    private static String negotiateEncoding(HttpExchange exchange, ResponseCompression compression) {
+        if (!compression.isEnabled()) {
+            return null;
+        }
+        addVary(exchange, "Accept-Encoding");
+        return compression.negotiate(exchange.getRequestHeaders().getFirst("Accept-Encoding"));
+    }
+
+    /*
+     * Двоичный ответ выбирается, только если Accept явно называет TaskWireFormat.CONTENT_TYPE
+     * с q не ниже, чем у application/json; подстановки вида * / * означают JSON.
+     */
+    protected static boolean negotiateBinary(HttpExchange exchange) {
+        addVary(exchange, "Accept");
+        String accept = exchange.getRequestHeaders().getFirst("Accept");
+        if (accept == null || !accept.contains(TaskWireFormat.CONTENT_TYPE)) {
+            return false;
+        }
+        double binary = 0;
+        double json = 0;
+        for (String range : accept.split(",")) {
+            String[] params = range.split(";");
+            String type = params[0].trim();
+            double quality = 1;
+            for (int i = 1; i < params.length; i++) {
+                String param = params[i].trim();
+                if (param.startsWith("q=")) {
+                    try {
+                        quality = Double.parseDouble(param.substring(2));
+                    } catch (NumberFormatException e) {
+                        quality = 0;
+                    }
+                }
+            }
+            if (type.equals(TaskWireFormat.CONTENT_TYPE)) {
+                binary = Math.max(binary, quality);
+            } else if (type.equals("application/json")) {
+                json = Math.max(json, quality);
+            }
+        }
+        return binary > 0 && binary >= json;
+    }
+
+    private static void addVary(HttpExchange exchange, String header) {
+        List<String> vary = exchange.getResponseHeaders().get("Vary");
+        if (vary == null || !vary.contains(header)) {
+            exchange.getResponseHeaders().add("Vary", header);
+        }
+    }
+
+    // Сжатое тело отличается от исходного побайтно, поэтому его ETag становится слабым (W/)
+    private static void markEncoded(HttpExchange exchange, String encoding) {
+        exchange.getResponseHeaders().set("Content-Encoding", encoding);
+        String etag = exchange.getResponseHeaders().getFirst("ETag");
+        if (etag != null && !etag.startsWith("W/")) {
+            exchange.getResponseHeaders().set("ETag", "W/" + etag);
+        }
+    }
+
+    // Ответ на GET коллекции: страница findTasks по параметрам запроса
+    protected void sendTaskPage(HttpExchange exchange, TaskType type, boolean allowTypeParam) throws IOException {
+        TaskQuery query;
+        try {
+            query = buildTaskQuery(exchange, type, allowTypeParam);
+        } catch (IllegalArgumentException e) {
+            sendBadRequest(exchange, "Некорректные параметры запроса: " + e.getMessage());
+            return;
+        }
+        long version = versionOf(query.getTypes());
+        if (sendNotModified(exchange, version) || sendCachedCollection(exchange, query, version)) {
+            return;
+        }
+        sendPage(exchange, query, taskManager.findTasks(query), version);
+    }
+
+    /*
+     * Страница результатов findTasks. Если страница заполнена целиком, id её последней задачи
+     * передаётся в заголовке X-Next-Cursor: клиент запрашивает продолжение с ?after=<курсор>.
+     */
+    protected void sendPage(HttpExchange exchange, TaskQuery query, List<Task> page, long version)
+            throws IOException {
+        if (query.getLimit() != TaskQuery.UNLIMITED && page.size() == query.getLimit()) {
+            exchange.getResponseHeaders().add(NEXT_CURSOR, String.valueOf(page.get(page.size() - 1).getId()));
+        }
+        sendTasks(exchange, page, query, version);
+    }
+
     // Успешные ответы
     protected void sendSuccess(HttpExchange exchange, String responseData) throws IOException {
         sendText(exchange, responseData, 200);
@@ -60,6 +335,10 @@ public abstract class BaseHttpHandler {
     }
 
     protected void sendServerError(HttpExchange exchange, Exception e) throws IOException {
+        if (exchange.getResponseCode() != -1) {
+            exchange.close(); // Заголовки уже отправлены (потоковый ответ) — остаётся оборвать соединение
+            return;
+        }
         sendText(exchange, "{\"error\":\"" + escapeJson(e.getMessage()) + "\"}", 500);
     }
 
@@ -70,11 +349,176 @@ public abstract class BaseHttpHandler {
         }
     }
 
+    // Параметры строки запроса; при повторе имени берётся последнее значение
+    protected Map<String, String> parseQuery(HttpExchange exchange) {
+        Map<String, String> params = new HashMap<>();
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null || query.isEmpty()) {
+            return params;
+        }
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            String name = eq < 0 ? pair : pair.substring(0, eq);
+            String value = eq < 0 ? "" : pair.substring(eq + 1);
+            params.put(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+
+    /*
+     * Запрос к findTasks из параметров: type (через запятую, если allowTypeParam), status,
+     * epicId, from и to (ISO-8601, интервал startTime), after (курсор), limit.
+     * Некорректные значения — IllegalArgumentException.
+     */
+    protected TaskQuery buildTaskQuery(HttpExchange exchange, TaskType defaultType, boolean allowTypeParam) {
+        Map<String, String> params = parseQuery(exchange);
+        TaskQuery query = TaskQuery.of(defaultType);
+        if (allowTypeParam && params.containsKey("type")) {
+            Set<TaskType> types = EnumSet.noneOf(TaskType.class);
+            for (String type : params.get("type").split(",")) {
+                types.add(TaskType.valueOf(type.trim().toUpperCase()));
+            }
+            query = query.withTypes(types);
+        }
+        if (params.containsKey("status")) {
+            query = query.withStatus(Status.valueOf(params.get("status").trim().toUpperCase()));
+        }
+        if (params.containsKey("epicId")) {
+            query = query.withEpicId(Integer.parseInt(params.get("epicId")));
+        }
+        if (params.containsKey("from") || params.containsKey("to")) {
+            query = query.withStartBetween(parseDateTime(params.get("from")), parseDateTime(params.get("to")));
+        }
+        if (params.containsKey("after")) {
+            query = query.withAfterId(Integer.parseInt(params.get("after")));
+        }
+        if (params.containsKey("limit")) {
+            query = query.withLimit(Integer.parseInt(params.get("limit")));
+        }
+        return query;
+    }
+
+    // Дата в ISO-8601; null или пустая строка — null. Некорректная дата — IllegalArgumentException
+    protected LocalDateTime parseDateTime(String value) {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        try {
+            return LocalDateTime.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Некорректная дата: " + value, e);
+        }
+    }
+
     protected int extractIdFromPath(String path) throws NumberFormatException {
         String[] parts = path.split("/");
         return Integer.parseInt(parts[parts.length - 1]);
     }
 
+    // If-None-Match: список ETag через запятую или *; слабые ETag (W/) сравниваются без префикса
+    private static boolean etagMatches(String ifNoneMatch, String etag) {
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.startsWith("W/")) {
+                value = value.substring(2);
+            }
+            if (value.equals(etag) || value.equals("*")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Пишет поток дальше и копирует его начало; копия отбрасывается, если поток длиннее limit
+    private static final class CapturingOutputStream extends FilterOutputStream {
+        private final int limit;
+        private ByteArrayOutputStream copy = new ByteArrayOutputStream();
+
+        CapturingOutputStream(OutputStream out, int limit) {
+            super(out);
+            this.limit = limit;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            capture(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            capture(b, off, len);
+        }
+
+        private void capture(byte[] b, int off, int len) {
+            if (copy != null && copy.size() + len <= limit) {
+                copy.write(b, off, len);
+            } else {
+                copy = null;
+            }
+        }
+
+        // Весь записанный поток или null, если он не поместился
+        byte[] captured() {
+            return copy == null ? null : copy.toByteArray();
+        }
+    }
+
+    // Копит начало тела до порога сжатия; после порога отправляет заголовки и сжимает весь поток
+    private static final class ThresholdOutputStream extends OutputStream {
+        private final HttpExchange exchange;
+        private final ResponseCompression compression;
+        private final String encoding;
+        private ByteArrayOutputStream pending;
+        private OutputStream out;
+
+        ThresholdOutputStream(HttpExchange exchange, ResponseCompression compression, String encoding) {
+            this.exchange = exchange;
+            this.compression = compression;
+            this.encoding = encoding;
+            this.pending = new ByteArrayOutputStream(Math.min(compression.getThreshold(), STREAM_BUFFER_SIZE));
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (out == null && pending.size() + len < compression.getThreshold()) {
+                pending.write(b, off, len);
+                return;
+            }
+            if (out == null) {
+                markEncoded(exchange, encoding);
+                exchange.sendResponseHeaders(200, 0);
+                out = compression.compress(exchange.getResponseBody(), encoding);
+                pending.writeTo(out);
+                pending = null;
+            }
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (out != null) {
+                out.flush();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (out == null) {
+                out = exchange.getResponseBody();
+                exchange.sendResponseHeaders(200, pending.size() == 0 ? -1 : pending.size());
+                pending.writeTo(out);
+            }
+            out.close();
+        }
+    }
+
     private String escapeJson(String input) {
         return input.replace("\"", "\\\"")
                 .replace("\n", "\\n")
@@ -0,0 +1,148 @@
+package server.handlers;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import java.io.IOException;
+import java.time.DateTimeException;
+import java.util.ArrayList;
+import java.util.List;
+import managers.BatchMode;
+import managers.BatchOperation;
+import managers.BatchResult;
+import managers.TaskManager;
+import tasks.Epic;
+import tasks.Subtask;
+import tasks.Task;
+import util.TaskType;
+
+/**
+ * POST /batch — пакет изменений одним запросом:
+ * <pre>
+ * {"mode": "ATOMIC" | "PER_ITEM",
+ *  "operations": [{"op": "CREATE", "type": "SUBTASK", "task": {...}},
+ *                 {"op": "UPDATE", "type": "TASK", "task": {...}},
+ *                 {"op": "DELETE", "id": 7}]}
+ * </pre>
+ * Режим по умолчанию — ATOMIC. В ответе по элементу на операцию: outcome, id и message.
+ * Отклонённый атомарный пакет возвращается с кодом по первой ошибке: 406 — пересечение
+ * по времени, 404 — задача не найдена, 400 — некорректная операция.
+ */
+public class BatchHandler extends BaseHttpHandler implements HttpHandler {
+
+    public BatchHandler(TaskManager taskManager) {
+        super(taskManager);
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                sendMethodNotAllowed(exchange);
+                return;
+            }
+            if (!exchange.getRequestURI().getPath().equals("/batch")) {
+                sendNotFound(exchange);
+                return;
+            }
+            BatchMode mode;
+            List<BatchOperation> operations;
+            try {
+                JsonElement json = JsonParser.parseString(readRequest(exchange));
+                if (!json.isJsonObject()) {
+                    sendBadRequest(exchange, "Тело запроса должно быть объектом");
+                    return;
+                }
+                JsonObject body = json.getAsJsonObject();
+                mode = body.has("mode") ? BatchMode.valueOf(body.get("mode").getAsString().toUpperCase())
+                        : BatchMode.ATOMIC;
+                operations = parseOperations(body.getAsJsonArray("operations"));
+            } catch (JsonParseException | IllegalStateException | ClassCastException | DateTimeException e) {
+                sendBadRequest(exchange, "Неверный формат JSON");
+                return;
+            } catch (IllegalArgumentException e) {
+                sendBadRequest(exchange, e.getMessage());
+                return;
+            }
+            BatchResult result = taskManager.applyBatch(operations, mode);
+            sendText(exchange, gson.toJson(result), statusOf(result));
+        } catch (Exception e) {
+            sendServerError(exchange, e);
+        }
+    }
+
+    private List<BatchOperation> parseOperations(JsonArray array) {
+        if (array == null) {
+            throw new IllegalArgumentException("Не указан список операций");
+        }
+        List<BatchOperation> operations = new ArrayList<>(array.size());
+        for (int i = 0; i < array.size(); i++) {
+            JsonObject operation = array.get(i).getAsJsonObject();
+            try {
+                operations.add(parseOperation(operation));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Некорректная операция №" + i + ": " + e.getMessage());
+            }
+        }
+        return operations;
+    }
+
+    private BatchOperation parseOperation(JsonObject operation) {
+        BatchOperation.Kind kind = BatchOperation.Kind.valueOf(
+                required(operation, "op").getAsString().toUpperCase());
+        if (kind == BatchOperation.Kind.DELETE) {
+            return BatchOperation.delete(required(operation, "id").getAsInt());
+        }
+        TaskType type = TaskType.valueOf(required(operation, "type").getAsString().toUpperCase());
+        Task task = gson.fromJson(required(operation, "task"), taskClass(type));
+        if (task == null) {
+            throw new IllegalArgumentException("Не указана задача");
+        }
+        if (!type.name().equals(task.getType())) {
+            throw new IllegalArgumentException("тип задачи " + task.getType() + " не совпадает с type " + type);
+        }
+        return kind == BatchOperation.Kind.CREATE ? BatchOperation.create(task) : BatchOperation.update(task);
+    }
+
+    private static JsonElement required(JsonObject object, String name) {
+        JsonElement value = object.get(name);
+        if (value == null || value.isJsonNull()) {
+            throw new IllegalArgumentException("не указано поле " + name);
+        }
+        return value;
+    }
+
+    private static Class<? extends Task> taskClass(TaskType type) {
+        switch (type) {
+            case EPIC:
+                return Epic.class;
+            case SUBTASK:
+                return Subtask.class;
+            default:
+                return Task.class;
+        }
+    }
+
+    private static int statusOf(BatchResult result) {
+        if (result.getMode() == BatchMode.PER_ITEM || result.isApplied()) {
+            return 200;
+        }
+        for (BatchResult.Item item : result.getItems()) {
+            switch (item.getOutcome()) {
+                case CONFLICT:
+                    return 406;
+                case NOT_FOUND:
+                    return 404;
+                case INVALID:
+                    return 400;
+                default:
+                    break;
+            }
+        }
+        return 400;
+    }
+}
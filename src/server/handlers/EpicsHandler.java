@@ -4,10 +4,10 @@ import com.google.gson.JsonSyntaxException;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 import java.io.IOException;
-import java.util.List;
 import managers.TaskManager;
+import server.ResponseCache;
 import tasks.Epic;
-import tasks.Subtask;
+import util.TaskType;
 
 public class EpicsHandler extends BaseHttpHandler implements HttpHandler {
 
@@ -15,6 +15,10 @@ public class EpicsHandler extends BaseHttpHandler implements HttpHandler {
         super(taskManager);
     }
 
+    public EpicsHandler(TaskManager taskManager, ResponseCache responseCache) {
+        super(taskManager, responseCache);
+    }
+
     @Override
     public void handle(HttpExchange exchange) throws IOException {
         try {
@@ -41,8 +45,7 @@ public class EpicsHandler extends BaseHttpHandler implements HttpHandler {
 
     private void handleGet(HttpExchange exchange, String path) throws IOException {
         if (path.equals("/epics")) {
-            List<Epic> epics = taskManager.getAllEpics();
-            sendSuccess(exchange, gson.toJson(epics));
+            sendTaskPage(exchange, TaskType.EPIC, false);
         } else if (path.startsWith("/epics/") && path.endsWith("/subtasks")) {
             handleGetEpicSubtasks(exchange, path);
         } else if (path.startsWith("/epics/")) {
@@ -57,7 +60,7 @@ public class EpicsHandler extends BaseHttpHandler implements HttpHandler {
             int id = extractIdFromPath(path.replace("/subtasks", ""));
             Epic epic = taskManager.getEpicById(id);
             if (epic != null) {
-                sendSuccess(exchange, gson.toJson(epic));
+                sendEntity(exchange, epic);
             } else {
                 sendNotFound(exchange);
             }
@@ -69,13 +72,16 @@ public class EpicsHandler extends BaseHttpHandler implements HttpHandler {
     private void handleGetEpicSubtasks(HttpExchange exchange, String path) throws IOException {
         try {
             int epicId = extractIdFromPath(path.replace("/subtasks", ""));
+            long version = taskManager.getVersion(TaskType.SUBTASK);
             Epic epic = taskManager.getEpicById(epicId);
             if (epic == null) {
                 sendNotFound(exchange);
                 return;
             }
-            List<Subtask> subtasks = taskManager.getAllSubtasksOfEpic(epic);
-            sendSuccess(exchange, gson.toJson(subtasks));
+            String key = "/epics/" + epicId + "/subtasks";
+            if (!sendNotModified(exchange, version) && !sendCachedCollection(exchange, key, version)) {
+                sendTasks(exchange, taskManager.getAllSubtasksOfEpic(epic), key, version);
+            }
         } catch (NumberFormatException e) {
             sendBadRequest(exchange, "Некорректный формат ID эпика");
         }
@@ -134,4 +140,4 @@ public class EpicsHandler extends BaseHttpHandler implements HttpHandler {
             sendNotFound(exchange);
         }
     }
-}
\ No newline at end of file
+}
@@ -3,9 +3,7 @@ package server.handlers;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 import java.io.IOException;
-import java.util.List;
 import managers.TaskManager;
-import tasks.Task;
 
 public class HistoryHandler extends BaseHttpHandler implements HttpHandler {
 
@@ -21,8 +19,9 @@ public class HistoryHandler extends BaseHttpHandler implements HttpHandler {
                 return;
             }
 
-            List<Task> history = taskManager.getHistory();
-            sendSuccess(exchange, gson.toJson(history));
+            if (!sendNotModified(exchange, taskManager.getHistoryVersion())) {
+                sendTasks(exchange, taskManager.getHistory());
+            }
 
         } catch (Exception e) {
             sendServerError(exchange, e);
@@ -0,0 +1,262 @@
+package server.handlers;
+
+import com.google.gson.JsonParseException;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+import java.util.zip.GZIPInputStream;
+import managers.ImportResult;
+import managers.TaskManager;
+import tasks.Task;
+
+/**
+ * POST /import — массовое добавление задач из тела в формате NDJSON: по JSON-объекту задачи
+ * на строку, тип — по полю "type" (по умолчанию TASK), пустые строки пропускаются. Тело может
+ * быть сжато gzip (Content-Encoding: gzip).
+ * <p>
+ * Тело читается по мере разбора и задачи передаются в TaskManager.importTasks по одной, поэтому
+ * память не зависит от размера тела: держится одна строка (не длиннее MAX_LINE_CHARS) и первые
+ * сообщения об ошибках. Пока менеджер применяет задачу, тело не читается, и TCP притормаживает
+ * клиента. Некорректные строки и отклонённые задачи не прерывают импорт; обрыв соединения
+ * прерывает, но уже добавленные задачи остаются.
+ * <p>
+ * Ответ 200: {"lines", "bytes", "applied", "rejected", "malformed", "seconds", "tasksPerSecond",
+ * "failures": [{"position", "outcome", "message"}], "malformedLines": [{"line", "message"}]},
+ * где position — номер задачи среди разобранных строк, line — номер строки тела.
+ */
+public class ImportHandler extends BaseHttpHandler implements HttpHandler {
+    static final int MAX_LINE_CHARS = 1024 * 1024;
+    private static final long PROGRESS_INTERVAL = 100_000;
+
+    public ImportHandler(TaskManager taskManager) {
+        super(taskManager);
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                sendMethodNotAllowed(exchange);
+                return;
+            }
+            if (!exchange.getRequestURI().getPath().equals("/import")) {
+                sendNotFound(exchange);
+                return;
+            }
+            String encoding = exchange.getRequestHeaders().getFirst("Content-Encoding");
+            if (encoding != null && !encoding.trim().equalsIgnoreCase("gzip")
+                    && !encoding.trim().equalsIgnoreCase("identity")) {
+                sendText(exchange, "{\"error\":\"Неподдерживаемый Content-Encoding\"}", 415);
+                return;
+            }
+            try (CountingInputStream counted = new CountingInputStream(exchange.getRequestBody())) {
+                InputStream body = encoding != null && encoding.trim().equalsIgnoreCase("gzip")
+                        ? new GZIPInputStream(counted) : counted;
+                LineSource source = new LineSource(new InputStreamReader(body, StandardCharsets.UTF_8), counted);
+                long start = System.nanoTime();
+                ImportResult result = taskManager.importTasks(source);
+                double seconds = (System.nanoTime() - start) / 1e9;
+                sendText(exchange, gson.toJson(new Summary(source, result, seconds)), 200);
+            }
+        } catch (UncheckedIOException e) {
+            sendServerError(exchange, e.getCause());
+        } catch (Exception e) {
+            sendServerError(exchange, e);
+        }
+    }
+
+    // Ответ на импорт; сериализуется Gson по полям
+    private static final class Summary {
+        private final long lines;
+        private final long bytes;
+        private final long applied;
+        private final long rejected;
+        private final long malformed;
+        private final double seconds;
+        private final long tasksPerSecond;
+        private final List<ImportResult.Failure> failures;
+        private final List<LineError> malformedLines;
+
+        Summary(LineSource source, ImportResult result, double seconds) {
+            this.lines = source.lineNumber;
+            this.bytes = source.counted.count;
+            this.applied = result.getApplied();
+            this.rejected = result.getRejected();
+            this.malformed = source.malformed;
+            this.seconds = seconds;
+            this.tasksPerSecond = seconds > 0 ? (long) (result.getApplied() / seconds) : 0;
+            this.failures = result.getFailures();
+            this.malformedLines = source.errors;
+        }
+    }
+
+    private static final class LineError {
+        private final long line;
+        private final String message;
+
+        LineError(long line, String message) {
+            this.line = line;
+            this.message = message;
+        }
+    }
+
+    /*
+     * Задачи тела по одной. Строки режутся вручную по '\n' ("\r" перед ним убирает trim),
+     * а не BufferedReader.readLine: так строка без перевода строки не растёт без предела —
+     * после MAX_LINE_CHARS символов её остаток пропускается, а строка считается некорректной.
+     */
+    private final class LineSource implements Iterator<Task> {
+        private final Reader reader;
+        private final CountingInputStream counted;
+        private final char[] buffer = new char[8192];
+        private final StringBuilder line = new StringBuilder();
+        private final List<LineError> errors = new ArrayList<>();
+        private final long started = System.nanoTime();
+        private int position;
+        private int limit;
+        private boolean tooLong;
+        private boolean eof;
+        private Task next;
+        private long lineNumber;
+        private long malformed;
+
+        LineSource(Reader reader, CountingInputStream counted) {
+            this.reader = reader;
+            this.counted = counted;
+        }
+
+        @Override
+        public boolean hasNext() {
+            try {
+                while (next == null && !eof) {
+                    if (!readLine()) {
+                        eof = true;
+                    } else {
+                        parseLine();
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return next != null;
+        }
+
+        @Override
+        public Task next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Task task = next;
+            next = null;
+            return task;
+        }
+
+        private void parseLine() {
+            lineNumber++;
+            if (lineNumber % PROGRESS_INTERVAL == 0) {
+                reportProgress();
+            }
+            if (tooLong) {
+                reject("Строка длиннее " + MAX_LINE_CHARS + " символов");
+                return;
+            }
+            String text = line.toString().trim();
+            if (text.isEmpty()) {
+                return;
+            }
+            try {
+                next = gson.fromJson(text, Task.class);
+                if (next == null) {
+                    reject("Строка не содержит задачу");
+                }
+            } catch (JsonParseException e) {
+                reject("Неверный формат JSON");
+            }
+        }
+
+        private void reject(String message) {
+            malformed++;
+            if (errors.size() < ImportResult.MAX_FAILURES) {
+                errors.add(new LineError(lineNumber, message));
+            }
+        }
+
+        private void reportProgress() {
+            double seconds = (System.nanoTime() - started) / 1e9;
+            System.out.printf(Locale.ROOT, "Импорт: %d строк, %.1f МБ, %.0f строк/с%n",
+                    lineNumber, counted.count / (1024.0 * 1024.0), lineNumber / Math.max(seconds, 1e-9));
+        }
+
+        // Читает следующую строку в line; false — тело закончилось
+        private boolean readLine() throws IOException {
+            line.setLength(0);
+            tooLong = false;
+            boolean any = false;
+            while (true) {
+                if (position == limit) {
+                    limit = reader.read(buffer, 0, buffer.length);
+                    position = 0;
+                    if (limit < 0) {
+                        limit = 0;
+                        return any;
+                    }
+                }
+                any = true;
+                int start = position;
+                while (position < limit && buffer[position] != '\n') {
+                    position++;
+                }
+                if (!tooLong) {
+                    if (line.length() + position - start > MAX_LINE_CHARS) {
+                        tooLong = true;
+                        line.setLength(0);
+                    } else {
+                        line.append(buffer, start, position - start);
+                    }
+                }
+                if (position < limit) {
+                    position++; // '\n'
+                    return true;
+                }
+            }
+        }
+    }
+
+    // Считает байты тела в том виде, в каком они пришли по сети
+    private static final class CountingInputStream extends FilterInputStream {
+        private long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if (read > 0) {
+                count += read;
+            }
+            return read;
+        }
+    }
+}
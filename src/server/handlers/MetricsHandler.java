@@ -0,0 +1,111 @@
+package server.handlers;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import java.io.IOException;
+import java.util.Locale;
+import managers.ManagerStats;
+import managers.TaskManager;
+import server.HttpMetrics;
+import server.ResponseCache;
+import server.ResponseCompression;
+
+/**
+ * GET /metrics — метрики сервера и менеджера задач в текстовом формате Prometheus
+ * (text/plain; version=0.0.4).
+ */
+public class MetricsHandler extends BaseHttpHandler implements HttpHandler {
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final HttpMetrics metrics;
+
+    public MetricsHandler(TaskManager taskManager, HttpMetrics metrics) {
+        this(taskManager, metrics, ResponseCache.disabled());
+    }
+
+    public MetricsHandler(TaskManager taskManager, HttpMetrics metrics, ResponseCache responseCache) {
+        super(taskManager, responseCache);
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                sendMethodNotAllowed(exchange);
+                return;
+            }
+            StringBuilder out = new StringBuilder(4096);
+            metrics.writePrometheus(out);
+            if (responseCache.isEnabled()) {
+                writeCacheStats(out, responseCache);
+            }
+            ResponseCompression compression = compression(exchange);
+            if (compression.isEnabled()) {
+                writeCompressionStats(out, compression);
+            }
+            writeManagerStats(out, taskManager.getStats());
+            sendText(exchange, out.toString(), 200, CONTENT_TYPE);
+        } catch (Exception e) {
+            sendServerError(exchange, e);
+        }
+    }
+
+    private static void writeCacheStats(StringBuilder out, ResponseCache cache) {
+        HttpMetrics.writeHeader(out, "kanban_response_cache_requests_total", "counter",
+                "Serialized response cache lookups by result");
+        out.append("kanban_response_cache_requests_total{result=\"hit\"} ").append(cache.getHits()).append('\n');
+        out.append("kanban_response_cache_requests_total{result=\"miss\"} ").append(cache.getMisses()).append('\n');
+        HttpMetrics.writeHeader(out, "kanban_response_cache_evictions_total", "counter",
+                "Entries evicted from the response cache");
+        out.append("kanban_response_cache_evictions_total ").append(cache.getEvictions()).append('\n');
+        HttpMetrics.writeHeader(out, "kanban_response_cache_bytes", "gauge", "Bytes held by the response cache");
+        out.append("kanban_response_cache_bytes ").append(cache.getBytes()).append('\n');
+        HttpMetrics.writeHeader(out, "kanban_response_cache_entries", "gauge", "Entries in the response cache");
+        out.append("kanban_response_cache_entries ").append(cache.getEntries()).append('\n');
+    }
+
+    // Степень сжатия — отношение input к output; время — только работа Deflater
+    private static void writeCompressionStats(StringBuilder out, ResponseCompression compression) {
+        HttpMetrics.writeHeader(out, "kanban_http_compressed_responses_total", "counter",
+                "Responses sent with gzip or deflate content encoding");
+        out.append("kanban_http_compressed_responses_total ").append(compression.getCompressedResponses())
+                .append('\n');
+        HttpMetrics.writeHeader(out, "kanban_http_compression_input_bytes_total", "counter",
+                "Response bytes before compression");
+        out.append("kanban_http_compression_input_bytes_total ").append(compression.getBytesIn()).append('\n');
+        HttpMetrics.writeHeader(out, "kanban_http_compression_output_bytes_total", "counter",
+                "Response bytes after compression");
+        out.append("kanban_http_compression_output_bytes_total ").append(compression.getBytesOut()).append('\n');
+        HttpMetrics.writeHeader(out, "kanban_http_compression_seconds_total", "counter",
+                "Time spent compressing responses");
+        out.append("kanban_http_compression_seconds_total ")
+                .append(String.format(Locale.ROOT, "%.9f", compression.getCompressionNanos() / 1e9)).append('\n');
+    }
+
+    private static void writeManagerStats(StringBuilder out, ManagerStats stats) {
+        HttpMetrics.writeHeader(out, "kanban_tasks", "gauge", "Stored tasks by type");
+        out.append("kanban_tasks{type=\"TASK\"} ").append(stats.getTasks()).append('\n');
+        out.append("kanban_tasks{type=\"EPIC\"} ").append(stats.getEpics()).append('\n');
+        out.append("kanban_tasks{type=\"SUBTASK\"} ").append(stats.getSubtasks()).append('\n');
+        HttpMetrics.writeHeader(out, "kanban_prioritized_tasks", "gauge", "Tasks in the prioritized index");
+        out.append("kanban_prioritized_tasks ").append(stats.getPrioritizedTasks()).append('\n');
+        HttpMetrics.writeHeader(out, "kanban_history_size", "gauge", "Tasks in the view history");
+        out.append("kanban_history_size ").append(stats.getHistorySize()).append('\n');
+        if (stats.isPersistent()) {
+            HttpMetrics.writeHeader(out, "kanban_save_duration_seconds", "histogram",
+                    "Snapshot writes and journal commits");
+            HttpMetrics.writeHistogram(out, "kanban_save_duration_seconds", "", stats.getSaveLatency());
+            HttpMetrics.writeHeader(out, "kanban_saved_bytes_total", "counter",
+                    "Bytes written to snapshots and the journal");
+            out.append("kanban_saved_bytes_total ").append(stats.getBytesWritten()).append('\n');
+            HttpMetrics.writeHeader(out, "kanban_journal_sync_failures_total", "counter",
+                    "Failed journal fsync calls");
+            out.append("kanban_journal_sync_failures_total ").append(stats.getSyncFailures()).append('\n');
+            HttpMetrics.writeHeader(out, "kanban_journal_compaction_failures_total", "counter",
+                    "Background journal compactions that failed to write the snapshot");
+            out.append("kanban_journal_compaction_failures_total ").append(stats.getCompactionFailures())
+                    .append('\n');
+        }
+    }
+}
@@ -4,8 +4,11 @@ import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 import java.io.IOException;
 import java.util.List;
+import java.util.Map;
 import managers.TaskManager;
+import server.ResponseCache;
 import tasks.Task;
+import util.TaskType;
 
 public class PrioritizedTasksHandler extends BaseHttpHandler implements HttpHandler {
 
@@ -13,6 +16,10 @@ public class PrioritizedTasksHandler extends BaseHttpHandler implements HttpHand
         super(taskManager);
     }
 
+    public PrioritizedTasksHandler(TaskManager taskManager, ResponseCache responseCache) {
+        super(taskManager, responseCache);
+    }
+
     @Override
     public void handle(HttpExchange exchange) throws IOException {
         try {
@@ -21,11 +28,68 @@ public class PrioritizedTasksHandler extends BaseHttpHandler implements HttpHand
                 return;
             }
 
-            List<Task> prioritizedTasks = taskManager.getPrioritizedTasks();
-            sendSuccess(exchange, gson.toJson(prioritizedTasks));
+            // Расписание состоит из задач и подзадач; эпики в него не входят
+            long version = Math.max(taskManager.getVersion(TaskType.TASK), taskManager.getVersion(TaskType.SUBTASK));
+            Map<String, String> params;
+            String key;
+            try {
+                params = parseQuery(exchange);
+                key = cacheKey(params);
+            } catch (IllegalArgumentException e) {
+                sendBadRequest(exchange, "Некорректные параметры запроса: " + e.getMessage());
+                return;
+            }
+            if (sendNotModified(exchange, version) || sendCachedCollection(exchange, key, version)) {
+                return;
+            }
+            List<Task> prioritized;
+            try {
+                prioritized = findPrioritized(exchange, params);
+            } catch (IllegalArgumentException e) {
+                sendBadRequest(exchange, "Некорректные параметры запроса: " + e.getMessage());
+                return;
+            }
+            sendTasks(exchange, prioritized, key, version);
 
         } catch (Exception e) {
             sendServerError(exchange, e);
         }
     }
-}
\ No newline at end of file
+
+    // Ключ кеша из разобранных значений параметров: прочие параметры и запись чисел на него не влияют
+    private String cacheKey(Map<String, String> params) {
+        if (params.containsKey("from") || params.containsKey("to")) {
+            return "/prioritized?from=" + parseDateTime(params.get("from")) + "&to=" + parseDateTime(params.get("to"));
+        }
+        if (!params.containsKey("limit")) {
+            return "/prioritized";
+        }
+        String key = "/prioritized?limit=" + Integer.parseInt(params.get("limit"));
+        return params.containsKey("after") ? key + "&after=" + Integer.parseInt(params.get("after")) : key;
+    }
+
+    /*
+     * Без параметров — весь список. from/to — задачи со startTime в интервале.
+     * limit (и after=<id последней задачи>) — постранично; курсор следующей страницы
+     * возвращается в заголовке X-Next-Cursor.
+     */
+    private List<Task> findPrioritized(HttpExchange exchange, Map<String, String> params) {
+        if (params.containsKey("from") || params.containsKey("to")) {
+            return taskManager.getPrioritizedTasks(parseDateTime(params.get("from")), parseDateTime(params.get("to")));
+        }
+        if (!params.containsKey("limit")) {
+            return taskManager.getPrioritizedTasks();
+        }
+        int limit = Integer.parseInt(params.get("limit"));
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Размер страницы должен быть положительным");
+        }
+        List<Task> page = params.containsKey("after")
+                ? taskManager.getPrioritizedTasksAfter(Integer.parseInt(params.get("after")), limit)
+                : taskManager.getNextPrioritizedTasks(limit);
+        if (page.size() == limit) {
+            exchange.getResponseHeaders().add("X-Next-Cursor", String.valueOf(page.get(limit - 1).getId()));
+        }
+        return page;
+    }
+}
@@ -3,10 +3,12 @@ package server.handlers;
 import com.google.gson.JsonSyntaxException;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
+import exceptions.TimeConflictException;
 import java.io.IOException;
-import java.util.List;
 import managers.TaskManager;
+import server.ResponseCache;
 import tasks.Subtask;
+import util.TaskType;
 
 public class SubtasksHandler extends BaseHttpHandler implements HttpHandler {
 
@@ -14,6 +16,10 @@ public class SubtasksHandler extends BaseHttpHandler implements HttpHandler {
         super(taskManager);
     }
 
+    public SubtasksHandler(TaskManager taskManager, ResponseCache responseCache) {
+        super(taskManager, responseCache);
+    }
+
     @Override
     public void handle(HttpExchange exchange) throws IOException {
         try {
@@ -40,8 +46,7 @@ public class SubtasksHandler extends BaseHttpHandler implements HttpHandler {
 
     private void handleGet(HttpExchange exchange, String path) throws IOException {
         if (path.equals("/subtasks")) {
-            List<Subtask> subtasks = taskManager.getAllSubtasks();
-            sendSuccess(exchange, gson.toJson(subtasks));
+            sendTaskPage(exchange, TaskType.SUBTASK, false);
         } else if (path.startsWith("/subtasks/")) {
             handleGetSubtaskById(exchange, path);
         } else {
@@ -54,7 +59,7 @@ public class SubtasksHandler extends BaseHttpHandler implements HttpHandler {
             int id = extractIdFromPath(path);
             Subtask subtask = taskManager.getSubtaskById(id);
             if (subtask != null) {
-                sendSuccess(exchange, gson.toJson(subtask));
+                sendEntity(exchange, subtask);
             } else {
                 sendNotFound(exchange);
             }
@@ -105,7 +110,7 @@ public class SubtasksHandler extends BaseHttpHandler implements HttpHandler {
             }
         } catch (JsonSyntaxException e) {
             sendBadRequest(exchange, "Неверный формат JSON");
-        } catch (IllegalStateException e) {
+        } catch (TimeConflictException e) {
             sendHasInteractions(exchange);
         }
     }
@@ -135,4 +140,4 @@ public class SubtasksHandler extends BaseHttpHandler implements HttpHandler {
     private boolean epicExists(int epicId) {
         return taskManager.getEpicById(epicId) != null;
     }
-}
\ No newline at end of file
+}
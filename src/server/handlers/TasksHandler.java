@@ -3,10 +3,12 @@ package server.handlers;
 import com.google.gson.JsonSyntaxException;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
+import exceptions.TimeConflictException;
 import java.io.IOException;
-import java.util.List;
 import managers.TaskManager;
+import server.ResponseCache;
 import tasks.Task;
+import util.TaskType;
 
 public class TasksHandler extends BaseHttpHandler implements HttpHandler {
 
@@ -14,6 +16,10 @@ public class TasksHandler extends BaseHttpHandler implements HttpHandler {
         super(taskManager);
     }
 
+    public TasksHandler(TaskManager taskManager, ResponseCache responseCache) {
+        super(taskManager, responseCache);
+    }
+
     @Override
     public void handle(HttpExchange exchange) throws IOException {
         try {
@@ -40,14 +46,13 @@ public class TasksHandler extends BaseHttpHandler implements HttpHandler {
 
     private void handleGet(HttpExchange exchange, String path) throws IOException {
         if (path.equals("/tasks")) {
-            List<Task> tasks = taskManager.getAllTasks();
-            sendSuccess(exchange, gson.toJson(tasks));
+            sendTaskPage(exchange, TaskType.TASK, true);
         } else {
             try {
                 int id = extractIdFromPath(path);
                 Task task = taskManager.getTaskById(id);
                 if (task != null) {
-                    sendSuccess(exchange, gson.toJson(task));
+                    sendEntity(exchange, task);
                 } else {
                     sendNotFound(exchange);
                 }
@@ -66,6 +71,11 @@ public class TasksHandler extends BaseHttpHandler implements HttpHandler {
                 sendBadRequest(exchange, "Тело запроса не может быть пустым");
                 return;
             }
+            // Task.class читается полиморфно: эпики и подзадачи создаются через свои маршруты
+            if (!TaskType.TASK.name().equals(task.getType())) {
+                sendBadRequest(exchange, "Ожидалась задача типа TASK, получен " + task.getType());
+                return;
+            }
 
             if (path.equals("/tasks")) {
                 if (task.getId() != 0) {
@@ -89,7 +99,7 @@ public class TasksHandler extends BaseHttpHandler implements HttpHandler {
             }
         } catch (JsonSyntaxException e) {
             sendBadRequest(exchange, "Неверный формат JSON");
-        } catch (IllegalStateException e) {
+        } catch (TimeConflictException e) {
             sendHasInteractions(exchange);
         }
     }
@@ -108,4 +118,4 @@ public class TasksHandler extends BaseHttpHandler implements HttpHandler {
             }
         }
     }
-}
\ No newline at end of file
+}
@@ -1,48 +1,123 @@
 package tasks;
 
+import util.IntSet;
+import util.Status;
 import util.TaskUtils;
 import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
-import java.util.Optional;
+import java.util.PrimitiveIterator;
+import java.util.TreeMap;
+import java.util.function.IntConsumer;
 
 public class Epic extends Task {
-    private final List<Integer> subIds;
+    private final IntSet subIds;
     private LocalDateTime endTime;
+    // Накопленные данные подзадач для пересчёта статуса и времени без обхода всех подзадач
+    private transient Aggregates aggregates;
+    // Замороженная копия для читателей; сбрасывается при любом изменении эпика
+    private transient Epic snapshot;
 
     public Epic(String name, String description) {
         super(name, description);
-        this.subIds = new ArrayList<>();
+        this.subIds = new IntSet();
     }
 
     public Epic(String name, String description, List<Integer> subIds) {
         super(name, description);
-        this.subIds = new ArrayList<>(subIds);
+        this.subIds = IntSet.of(subIds);
     }
 
+    // Копия списка ID; в горячих путях используйте forEachSubtaskId или subtaskIdIterator
     public List<Integer> getSubIds() {
-        return new ArrayList<>(subIds);
+        return subIds.toList();
+    }
+
+    public void forEachSubtaskId(IntConsumer action) {
+        subIds.forEach(action);
+    }
+
+    // Итератор без упаковки; эпик нельзя изменять, пока итератор используется
+    public PrimitiveIterator.OfInt subtaskIdIterator() {
+        return subIds.iterator();
+    }
+
+    public boolean containsSubtaskId(int subtaskId) {
+        return subIds.contains(subtaskId);
+    }
+
+    public int getSubtaskCount() {
+        return subIds.size();
+    }
+
+    public void setEndTime(LocalDateTime endTime) {
+        beforeChange();
+        this.endTime = endTime;
+        invalidateTime();
     }
 
     @Override
-    public LocalDateTime getEndTime() {
+    protected LocalDateTime computeEndTime() {
         return endTime;
     }
 
     public boolean addSubtaskId(int subtaskId) {
-        if (subIds.contains(subtaskId)) return false;
-        subIds.add(subtaskId);
-        return true;
+        beforeChange();
+        return subIds.add(subtaskId);
     }
 
     public boolean removeSubtaskById(int subtaskId) {
-        return subIds.remove(Integer.valueOf(subtaskId));
+        beforeChange();
+        return subIds.remove(subtaskId);
     }
 
     public void clearSubtaskIds() {
+        beforeChange();
         subIds.clear();
+        aggregates = new Aggregates();
+        applyTimeParameters();
+    }
+
+    // Учитывает новую подзадачу в статусе и времени эпика за O(log n)
+    public void includeSubtask(Subtask subtask) {
+        beforeChange();
+        aggregates().add(subtask);
+        applyAggregates();
+    }
+
+    // Исключает подзадачу из статуса и времени эпика за O(log n)
+    public void excludeSubtask(Subtask subtask) {
+        beforeChange();
+        aggregates().remove(subtask);
+        applyAggregates();
+    }
+
+    // Заменяет учтённую версию подзадачи обновлённой за O(log n)
+    public void replaceSubtask(Subtask oldSubtask, Subtask newSubtask) {
+        beforeChange();
+        Aggregates current = aggregates();
+        current.remove(oldSubtask);
+        current.add(newSubtask);
+        applyAggregates();
+    }
+
+    // Сколько подзадач учтено в накопленных данных
+    public int getAggregatedSubtaskCount() {
+        return aggregates().count;
+    }
+
+    // Статус по накопленным данным подзадач
+    public Status calculateStatus() {
+        Aggregates current = aggregates();
+        if (current.count == 0 || current.count(Status.NEW) == current.count) {
+            return Status.NEW;
+        }
+        if (current.count(Status.DONE) == current.count) {
+            return Status.DONE;
+        }
+        return Status.IN_PROGRESS;
     }
 
     @Override
@@ -50,46 +125,71 @@ public class Epic extends Task {
         return "EPIC";
     }
 
+    // Полный пересчёт накопленных данных и времени по списку подзадач
     public void updateTimeParameters(List<Subtask> subtasks) {
-        if (subtasks == null || subtasks.isEmpty()) {
-            this.duration = null;
-            this.startTime = null;
-            this.endTime = null;
-            return;
+        beforeChange();
+        aggregates = new Aggregates();
+        if (subtasks != null) {
+            subtasks.forEach(aggregates::add);
+        }
+        applyTimeParameters();
+    }
+
+    private Aggregates aggregates() {
+        if (aggregates == null) {
+            aggregates = new Aggregates(); // Эпик создан Gson в обход конструктора
         }
+        return aggregates;
+    }
 
-        Optional<LocalDateTime> minStartTime = subtasks.stream()
-                .map(Subtask::getStartTime)
-                .filter(Objects::nonNull)
-                .min(LocalDateTime::compareTo);
+    private void applyAggregates() {
+        status = calculateStatus();
+        applyTimeParameters();
+    }
 
-        Optional<LocalDateTime> maxEndTime = subtasks.stream()
-                .map(Subtask::getEndTime)
-                .filter(Objects::nonNull)
-                .max(LocalDateTime::compareTo);
+    private void applyTimeParameters() {
+        Aggregates current = aggregates();
+        this.startTime = current.startTimes.isEmpty() ? null : current.startTimes.firstKey();
+        this.endTime = current.endTimes.isEmpty() ? null : current.endTimes.lastKey();
+        this.duration = current.totalMinutes > 0 ? Duration.ofMinutes(current.totalMinutes) : null;
+        invalidateTime();
+    }
 
-        long totalMinutes = subtasks.stream()
-                .map(Subtask::getDuration)
-                .filter(Objects::nonNull)
-                .mapToLong(Duration::toMinutes)
-                .sum();
+    @Override
+    public Epic copy() {
+        return TaskUtils.copyEpic(this);
+    }
 
-        this.startTime = minStartTime.orElse(null);
-        this.endTime = maxEndTime.orElse(null);
-        this.duration = totalMinutes > 0 ? Duration.ofMinutes(totalMinutes) : null;
+    @Override
+    public Epic freeze() {
+        super.freeze();
+        return this;
     }
 
+    // Снимок кешируется до следующего изменения, поэтому повторные чтения не копируют эпик
     @Override
-    public String toCsv() {
-        String subTasksIds = String.join(";", subIds.stream()
-                .map(String::valueOf)
-                .toArray(String[]::new));
-        return TaskUtils.toCsv(this, subTasksIds);
+    public Epic snapshot() {
+        if (isFrozen()) {
+            return this;
+        }
+        Epic current = snapshot;
+        if (current == null) {
+            current = copy().freeze();
+            snapshot = current;
+        }
+        return current;
     }
 
+    // Хранимый эпик меняется на месте, поэтому его версия — версия текущего снимка
     @Override
-    public Epic copy() {
-        return TaskUtils.copyEpic(this);
+    public long getVersion() {
+        return isFrozen() ? super.getVersion() : snapshot().getVersion();
+    }
+
+    @Override
+    protected void beforeChange() {
+        super.beforeChange();
+        snapshot = null;
     }
 
     @Override
@@ -119,4 +219,53 @@ public class Epic extends Task {
                 ", endTime=" + getEndTime() +
                 '}';
     }
-}
\ No newline at end of file
+
+    // Счётчики статусов, сумма длительностей и мультимножества начал и окончаний подзадач
+    private static final class Aggregates {
+        private final int[] statusCounts = new int[Status.values().length];
+        private final TreeMap<LocalDateTime, Integer> startTimes = new TreeMap<>();
+        private final TreeMap<LocalDateTime, Integer> endTimes = new TreeMap<>();
+        private int count;
+        private long totalMinutes;
+
+        private int count(Status status) {
+            return statusCounts[status.ordinal()];
+        }
+
+        private void add(Subtask subtask) {
+            count++;
+            if (subtask.getStatus() != null) {
+                statusCounts[subtask.getStatus().ordinal()]++;
+            }
+            if (subtask.getDuration() != null) {
+                totalMinutes += subtask.getDuration().toMinutes();
+            }
+            increment(startTimes, subtask.getStartTime());
+            increment(endTimes, subtask.getEndTime());
+        }
+
+        private void remove(Subtask subtask) {
+            count--;
+            if (subtask.getStatus() != null) {
+                statusCounts[subtask.getStatus().ordinal()]--;
+            }
+            if (subtask.getDuration() != null) {
+                totalMinutes -= subtask.getDuration().toMinutes();
+            }
+            decrement(startTimes, subtask.getStartTime());
+            decrement(endTimes, subtask.getEndTime());
+        }
+
+        private static void increment(Map<LocalDateTime, Integer> times, LocalDateTime time) {
+            if (time != null) {
+                times.merge(time, 1, Integer::sum);
+            }
+        }
+
+        private static void decrement(Map<LocalDateTime, Integer> times, LocalDateTime time) {
+            if (time != null) {
+                times.computeIfPresent(time, (key, value) -> value == 1 ? null : value - 1);
+            }
+        }
+    }
+}
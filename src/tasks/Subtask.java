@@ -37,13 +37,19 @@ public class Subtask extends Task {
     }
 
     @Override
-    public String toCsv() {
-        return TaskUtils.toCsv(this, String.valueOf(epicId));
+    public Subtask copy() {
+        return TaskUtils.copySubtask(this);
     }
 
     @Override
-    public Subtask copy() {
-        return TaskUtils.copySubtask(this);
+    public Subtask freeze() {
+        super.freeze();
+        return this;
+    }
+
+    @Override
+    public Subtask snapshot() {
+        return isFrozen() ? this : copy().freeze();
     }
 
     @Override
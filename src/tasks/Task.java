@@ -2,17 +2,39 @@ package tasks;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import util.CsvCodec;
 import util.Status;
 import util.TaskUtils;
 
 public class Task {
+    private static final long NO_TIME = Long.MIN_VALUE; // Время не задано
+    // Источник версий: каждая заморозка получает номер больше всех выданных ранее
+    private static final AtomicLong VERSIONS = new AtomicLong();
+
     protected String name;
     protected String description;
     protected int id;
     protected Status status;
     protected Duration duration;
     protected LocalDateTime startTime;
+    // Замороженный экземпляр неизменяем и может разделяться между читателями без копирования
+    private transient boolean frozen;
+    private transient long version;
+
+    /*
+     * Кеш времени в примитивах: секунды эпохи (в UTC) и наносекунды начала и конца.
+     * Сравнения и проверки пересечений идут по нему без создания объектов. Строится лениво
+     * и сбрасывается при изменении времени; у замороженной задачи строится при заморозке.
+     */
+    private transient boolean timeCached;
+    private transient LocalDateTime cachedEndTime;
+    private transient long startSecond;
+    private transient int startNano;
+    private transient long endSecond;
+    private transient int endNano;
 
     // Конструкторы
     public Task(String name, String description) {
@@ -46,6 +68,7 @@ public class Task {
     }
 
     public void setName(String name) {
+        beforeChange();
         this.name = name;
     }
 
@@ -54,6 +77,7 @@ public class Task {
     }
 
     public void setDescription(String description) {
+        beforeChange();
         this.description = description;
     }
 
@@ -62,6 +86,7 @@ public class Task {
     }
 
     public void setId(int id) {
+        beforeChange();
         this.id = id;
     }
 
@@ -70,6 +95,7 @@ public class Task {
     }
 
     public void setStatus(Status status) {
+        beforeChange();
         this.status = status;
     }
 
@@ -78,7 +104,9 @@ public class Task {
     }
 
     public void setDuration(Duration duration) {
+        beforeChange();
         this.duration = duration;
+        invalidateTime();
     }
 
     public LocalDateTime getStartTime() {
@@ -86,27 +114,129 @@ public class Task {
     }
 
     public void setStartTime(LocalDateTime startTime) {
+        beforeChange();
         this.startTime = startTime;
+        invalidateTime();
     }
 
     public LocalDateTime getEndTime() {
+        ensureTimeCached();
+        return cachedEndTime;
+    }
+
+    // Есть ли у задачи интервал [startTime, endTime)
+    public boolean hasTimeInterval() {
+        ensureTimeCached();
+        return startSecond != NO_TIME && endSecond != NO_TIME;
+    }
+
+    // Сравнение по startTime; у обеих задач время начала должно быть задано
+    public int compareStartTo(Task other) {
+        ensureTimeCached();
+        other.ensureTimeCached();
+        return compareInstants(startSecond, startNano, other.startSecond, other.startNano);
+    }
+
+    // Сравнение по endTime; у обеих задач интервал должен быть задан
+    public int compareEndTo(Task other) {
+        ensureTimeCached();
+        other.ensureTimeCached();
+        return compareInstants(endSecond, endNano, other.endSecond, other.endNano);
+    }
+
+    // Заканчивается ли задача строго позже начала other
+    public boolean endsAfterStartOf(Task other) {
+        ensureTimeCached();
+        other.ensureTimeCached();
+        return compareInstants(endSecond, endNano, other.startSecond, other.startNano) > 0;
+    }
+
+    // Пересекаются ли интервалы [startTime, endTime) двух задач
+    public boolean overlaps(Task other) {
+        return hasTimeInterval() && other.hasTimeInterval()
+                && endsAfterStartOf(other) && other.endsAfterStartOf(this);
+    }
+
+    // Время окончания по полям задачи; у эпика оно хранится отдельно
+    protected LocalDateTime computeEndTime() {
         if (startTime == null || duration == null) {
             return null;
         }
         return startTime.plus(duration);
     }
 
+    // Вызывается после изменения startTime, duration или времени окончания
+    protected void invalidateTime() {
+        timeCached = false;
+    }
+
+    private void ensureTimeCached() {
+        if (timeCached) {
+            return;
+        }
+        LocalDateTime end = computeEndTime();
+        cachedEndTime = end;
+        startSecond = startTime == null ? NO_TIME : startTime.toEpochSecond(ZoneOffset.UTC);
+        startNano = startTime == null ? 0 : startTime.getNano();
+        endSecond = end == null ? NO_TIME : end.toEpochSecond(ZoneOffset.UTC);
+        endNano = end == null ? 0 : end.getNano();
+        timeCached = true;
+    }
+
+    private static int compareInstants(long secondA, int nanoA, long secondB, int nanoB) {
+        int result = Long.compare(secondA, secondB);
+        return result != 0 ? result : Integer.compare(nanoA, nanoB);
+    }
+
     // Методы для работы с задачами
     public String getType() {
         return "TASK";
     }
 
+    // Изменяемая копия: через неё меняют замороженные задачи
     public Task copy() {
         return TaskUtils.copyTask(this);
     }
 
+    // Запрещает дальнейшие изменения экземпляра
+    public Task freeze() {
+        ensureTimeCached(); // Кеш заполняется до публикации: читатели из других потоков его не пишут
+        if (!frozen) {
+            version = VERSIONS.incrementAndGet();
+        }
+        frozen = true;
+        return this;
+    }
+
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    /*
+     * Версия содержимого. Хранимая задача меняется только заменой на новую замороженную копию,
+     * поэтому версия растёт с каждым изменением и однозначно определяет содержимое задачи
+     * с данным id. У незамороженного экземпляра версия 0.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    // Неизменяемое представление задачи: сам экземпляр, если он заморожен, иначе замороженная копия
+    public Task snapshot() {
+        return frozen ? this : copy().freeze();
+    }
+
+    // Вызывается перед каждым изменением полей; изменение замороженной задачи — ошибка программы,
+    // а не конфликт данных, поэтому исключение не путается с ответами обработчиков
+    protected void beforeChange() {
+        if (frozen) {
+            throw new UnsupportedOperationException("Задача " + id + " заморожена, изменяйте её копию из copy()");
+        }
+    }
+
+    // Строка CSV снимка; поле эпика заполняют подзадачи и эпики (см. CsvCodec)
     public String toCsv() {
-        return TaskUtils.toCsv(this);
+        return CsvCodec.toCsv(this);
     }
 
     // Переопределенные методы Object
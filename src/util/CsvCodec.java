@@ -0,0 +1,485 @@
+package util;
+
+import exceptions.ManagerSaveException;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.function.IntConsumer;
+
+import tasks.Epic;
+import tasks.Subtask;
+import tasks.Task;
+
+/**
+ * Потоковый кодек строк CSV задач: {@code id,type,name,status,description,epic,duration,startTime}.
+ * <p>
+ * Запись идёт в переиспользуемый буфер символов и побайтно совпадает с {@link TaskUtils#toCsv}
+ * (включая экранирование {@link TaskUtils#escapeCsvField}); в поле epic подзадача пишет id эпика,
+ * эпик — id своих подзадач через ';'. Чтение разбирает поля прямо в буфере: числа, тип, статус
+ * и время не проходят через промежуточные строки, строки создаются только для имени и описания.
+ * Поддерживается формат, который выдаёт LocalDateTime.toString(); прочие значения разбираются
+ * стандартными методами, поэтому и ошибки для них прежние.
+ * <p>
+ * Экземпляр хранит буферы и не потокобезопасен: по одному кодеку на поток.
+ */
+public final class CsvCodec {
+    private static final int FIELDS = 8;
+    private static final Status[] STATUSES = Status.values();
+
+    private char[] row = new char[256];
+    private int rowLength;
+    private final IntConsumer subtaskIdAppender = this::appendSubtaskId;
+    private boolean firstSubtaskId;
+
+    // Поля разобранной строки: символы без кавычек и границы каждого поля
+    private char[] fields = new char[256];
+    private final int[] fieldStart = new int[FIELDS + 1];
+    private final int[] fieldEnd = new int[FIELDS + 1];
+    private int fieldCount;
+    private char[] line = new char[256];
+
+    public static String toCsv(Task task) {
+        return new CsvCodec().encode(task).toString();
+    }
+
+    // Кодирует задачу в буфер, заменяя предыдущее содержимое; перевод строки не добавляется
+    public CsvCodec encode(Task task) {
+        rowLength = 0;
+        appendInt(task.getId());
+        append(',');
+        append(task.getType());
+        append(',');
+        appendEscaped(task.getName());
+        append(',');
+        append(task.getStatus().name());
+        append(',');
+        appendEscaped(task.getDescription());
+        append(',');
+        if (task instanceof Subtask) {
+            appendInt(((Subtask) task).getEpicId());
+        } else if (task instanceof Epic) {
+            firstSubtaskId = true;
+            ((Epic) task).forEachSubtaskId(subtaskIdAppender);
+        }
+        append(',');
+        Duration duration = task.getDuration();
+        if (duration != null) {
+            appendLong(duration.toMinutes());
+        }
+        append(',');
+        LocalDateTime startTime = task.getStartTime();
+        if (startTime != null) {
+            appendDateTime(startTime);
+        }
+        return this;
+    }
+
+    // Кодирует задачу и пишет её строку с переводом строки
+    public void writeRow(Task task, Writer out) throws IOException {
+        encode(task);
+        append('\n');
+        out.write(row, 0, rowLength);
+    }
+
+    public char[] buffer() {
+        return row;
+    }
+
+    public int length() {
+        return rowLength;
+    }
+
+    @Override
+    public String toString() {
+        return new String(row, 0, rowLength);
+    }
+
+    public Task decode(String value) {
+        int length = value.length();
+        if (line.length < length) {
+            line = new char[Math.max(length, line.length * 2)];
+        }
+        value.getChars(0, length, line, 0);
+        return decode(line, 0, length);
+    }
+
+    /**
+     * Разбирает строку chars[start, end). Ошибки формата сообщаются ManagerSaveException
+     * с текстом строки, как и раньше; значения полей обрезаются от пробелов.
+     */
+    public Task decode(char[] chars, int start, int end) {
+        split(chars, start, end);
+        if (isBlank(chars, start, end)) {
+            throw new ManagerSaveException("Строка не может быть пустой");
+        }
+        if (fieldCount < 6) {
+            throw new ManagerSaveException("Недостаточно данных в строке: " + text(chars, start, end));
+        }
+        try {
+            int id = parseInt(0);
+            TaskType type = parseType();
+            String name = string(2);
+            Status status = parseStatus();
+            String description = string(4);
+            Duration duration = null;
+            LocalDateTime startTime = null;
+            if (fieldCount > 6 && fieldEnd[6] > fieldStart[6]) {
+                duration = Duration.ofMinutes(parseLong(6));
+            }
+            if (fieldCount > 7 && fieldEnd[7] > fieldStart[7]) {
+                startTime = parseDateTime(7);
+            }
+            if (type == null) {
+                throw new ManagerSaveException("Неизвестный тип задачи: " + string(1));
+            }
+
+            switch (type) {
+                case TASK:
+                    return new Task(name, description, id, status, duration, startTime);
+                case EPIC:
+                    Epic epic = new Epic(name, description);
+                    epic.setId(id);
+                    epic.setStatus(status);
+                    epic.setDuration(duration);
+                    epic.setStartTime(startTime);
+                    return epic;
+                default:
+                    trim(5);
+                    if (fieldEnd[5] == fieldStart[5]) {
+                        throw new ManagerSaveException("Для подзадачи не указан ID эпика");
+                    }
+                    return new Subtask(name, description, id, status, parseInt(5), duration, startTime);
+            }
+        } catch (NumberFormatException e) {
+            throw new ManagerSaveException("Ошибка формата числа в строке: " + text(chars, start, end), e);
+        } catch (IllegalArgumentException e) {
+            throw new ManagerSaveException(
+                    "Некорректное значение статуса в строке: " + text(chars, start, end), e);
+        }
+    }
+
+    // Строка из одних пробельных символов (в смысле String.trim)
+    public static boolean isBlank(char[] chars, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (chars[i] > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void appendSubtaskId(int subtaskId) {
+        if (!firstSubtaskId) {
+            append(';');
+        }
+        firstSubtaskId = false;
+        appendInt(subtaskId);
+    }
+
+    private void append(char c) {
+        ensureRowCapacity(1);
+        row[rowLength++] = c;
+    }
+
+    private void append(String value) {
+        int length = value.length();
+        ensureRowCapacity(length);
+        value.getChars(0, length, row, rowLength);
+        rowLength += length;
+    }
+
+    // Как TaskUtils.escapeCsvField: в кавычки берутся только поля с запятой, кавычкой или переводом строки
+    private void appendEscaped(String value) {
+        if (value == null) {
+            return;
+        }
+        int length = value.length();
+        boolean quote = false;
+        int quotes = 0;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                quotes++;
+                quote = true;
+            } else if (c == ',' || c == '\n' || c == '\r') {
+                quote = true;
+            }
+        }
+        if (!quote) {
+            append(value);
+            return;
+        }
+        ensureRowCapacity(length + quotes + 2);
+        row[rowLength++] = '"';
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                row[rowLength++] = '"';
+            }
+            row[rowLength++] = c;
+        }
+        row[rowLength++] = '"';
+    }
+
+    private void appendInt(int value) {
+        appendLong(value);
+    }
+
+    private void appendLong(long value) {
+        if (value == Long.MIN_VALUE) {
+            append(Long.toString(value));
+            return;
+        }
+        ensureRowCapacity(20);
+        if (value < 0) {
+            row[rowLength++] = '-';
+            value = -value;
+        }
+        int digits = 1;
+        for (long rest = value / 10; rest != 0; rest /= 10) {
+            digits++;
+        }
+        for (int i = rowLength + digits - 1; i >= rowLength; i--) {
+            row[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        rowLength += digits;
+    }
+
+    private void appendDigits(int value, int width) {
+        ensureRowCapacity(width);
+        for (int i = rowLength + width - 1; i >= rowLength; i--) {
+            row[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        rowLength += width;
+    }
+
+    // Тот же текст, что LocalDateTime.toString(): секунды и доли выводятся, только если не нулевые
+    private void appendDateTime(LocalDateTime value) {
+        int year = value.getYear();
+        if (year < 0 || year > 9999) {
+            append(value.toString());
+            return;
+        }
+        appendDigits(year, 4);
+        append('-');
+        appendDigits(value.getMonthValue(), 2);
+        append('-');
+        appendDigits(value.getDayOfMonth(), 2);
+        append('T');
+        appendDigits(value.getHour(), 2);
+        append(':');
+        appendDigits(value.getMinute(), 2);
+        int second = value.getSecond();
+        int nano = value.getNano();
+        if (second > 0 || nano > 0) {
+            append(':');
+            appendDigits(second, 2);
+            if (nano > 0) {
+                append('.');
+                if (nano % 1_000_000 == 0) {
+                    appendDigits(nano / 1_000_000, 3);
+                } else if (nano % 1000 == 0) {
+                    appendDigits(nano / 1000, 6);
+                } else {
+                    appendDigits(nano, 9);
+                }
+            }
+        }
+    }
+
+    private void ensureRowCapacity(int extra) {
+        if (rowLength + extra > row.length) {
+            char[] grown = new char[Math.max(rowLength + extra, row.length * 2)];
+            System.arraycopy(row, 0, grown, 0, rowLength);
+            row = grown;
+        }
+    }
+
+    /*
+     * Делит строку на поля по запятым вне кавычек. Кавычка открывает или закрывает
+     * кавычки и в поле не попадает; удвоенная кавычка внутри кавычек — сам символ '"'.
+     * Поля после восьмого не нужны и не сохраняются, но учитываются в fieldCount.
+     */
+    private void split(char[] chars, int start, int end) {
+        if (fields.length < end - start) {
+            fields = new char[Math.max(end - start, fields.length * 2)];
+        }
+        int length = 0;
+        fieldCount = 0;
+        fieldStart[0] = 0;
+        boolean inQuotes = false;
+        for (int i = start; i < end; i++) {
+            char c = chars[i];
+            if (c == '"') {
+                if (inQuotes && i + 1 < end && chars[i + 1] == '"') {
+                    fields[length++] = '"';
+                    i++;
+                } else {
+                    inQuotes = !inQuotes;
+                }
+            } else if (c == ',' && !inQuotes) {
+                closeField(length);
+            } else {
+                fields[length++] = c;
+            }
+        }
+        closeField(length);
+    }
+
+    private void closeField(int length) {
+        if (fieldCount < FIELDS) {
+            fieldEnd[fieldCount] = length;
+            fieldStart[fieldCount + 1] = length;
+        }
+        fieldCount++;
+    }
+
+    // Обрезает поле так же, как String.trim()
+    private void trim(int field) {
+        int from = fieldStart[field];
+        int to = fieldEnd[field];
+        while (from < to && fields[from] <= ' ') {
+            from++;
+        }
+        while (to > from && fields[to - 1] <= ' ') {
+            to--;
+        }
+        fieldStart[field] = from;
+        fieldEnd[field] = to;
+    }
+
+    private String string(int field) {
+        trim(field);
+        return new String(fields, fieldStart[field], fieldEnd[field] - fieldStart[field]);
+    }
+
+    private TaskType parseType() {
+        trim(1);
+        int from = fieldStart[1];
+        int length = fieldEnd[1] - from;
+        for (TaskType type : TaskType.values()) {
+            if (matches(type.name(), from, length)) {
+                return type;
+            }
+        }
+        return null;
+    }
+
+    private Status parseStatus() {
+        trim(3);
+        int from = fieldStart[3];
+        int length = fieldEnd[3] - from;
+        for (Status status : STATUSES) {
+            if (matches(status.name(), from, length)) {
+                return status;
+            }
+        }
+        return Status.valueOf(string(3).toUpperCase());
+    }
+
+    private boolean matches(String expected, int from, int length) {
+        if (expected.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (fields[from + i] != expected.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int parseInt(int field) {
+        long value = parseLong(field);
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            return Integer.parseInt(string(field));
+        }
+        return (int) value;
+    }
+
+    // Знак и до 18 цифр ASCII разбираются на месте, остальное — через Long.parseLong
+    private long parseLong(int field) {
+        trim(field);
+        int from = fieldStart[field];
+        int to = fieldEnd[field];
+        boolean negative = from < to && fields[from] == '-';
+        int digitsFrom = from < to && (fields[from] == '-' || fields[from] == '+') ? from + 1 : from;
+        if (digitsFrom == to || to - digitsFrom > 18) {
+            return Long.parseLong(string(field));
+        }
+        long value = 0;
+        for (int i = digitsFrom; i < to; i++) {
+            int digit = fields[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return Long.parseLong(string(field));
+            }
+            value = value * 10 + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    // yyyy-MM-ddTHH:mm[:ss[.fraction]] разбирается на месте; иначе — LocalDateTime.parse
+    private LocalDateTime parseDateTime(int field) {
+        trim(field);
+        int from = fieldStart[field];
+        int length = fieldEnd[field] - from;
+        if (length < 16 || fields[from + 4] != '-' || fields[from + 7] != '-' || fields[from + 10] != 'T'
+                || fields[from + 13] != ':') {
+            return LocalDateTime.parse(string(field));
+        }
+        int year = digits(from, 4);
+        int month = digits(from + 5, 2);
+        int day = digits(from + 8, 2);
+        int hour = digits(from + 11, 2);
+        int minute = digits(from + 14, 2);
+        int second = 0;
+        int nano = 0;
+        int position = from + 16;
+        int end = from + length;
+        if (position < end) {
+            if (fields[position] != ':' || end - position < 3) {
+                return LocalDateTime.parse(string(field));
+            }
+            second = digits(position + 1, 2);
+            position += 3;
+            if (position < end) {
+                int fractionDigits = end - position - 1;
+                if (fields[position] != '.' || fractionDigits < 1 || fractionDigits > 9) {
+                    return LocalDateTime.parse(string(field));
+                }
+                nano = digits(position + 1, fractionDigits);
+                for (int i = fractionDigits; i < 9 && nano >= 0; i++) {
+                    nano *= 10;
+                }
+            }
+        }
+        if (year < 0 || month < 1 || month > 12 || day < 1 || hour < 0 || hour > 23 || minute < 0 || minute > 59
+                || second < 0 || second > 59 || nano < 0
+                || day > YearMonth.of(year, month).lengthOfMonth()) {
+            return LocalDateTime.parse(string(field));
+        }
+        return LocalDateTime.of(year, month, day, hour, minute, second, nano);
+    }
+
+    // Число из count цифр ASCII или -1
+    private int digits(int from, int count) {
+        int value = 0;
+        for (int i = from; i < from + count; i++) {
+            int digit = fields[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private static String text(char[] chars, int start, int end) {
+        return new String(chars, start, end - start);
+    }
+}
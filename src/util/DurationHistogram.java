@@ -0,0 +1,77 @@
+package util;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Гистограмма длительностей с фиксированными границами корзин, как у гистограмм Prometheus.
+ * Запись без блокировок (LongAdder на корзину), поэтому её можно вызывать на каждом запросе
+ * из любого числа потоков; чтение отдаёт накопленные (cumulative) счётчики по границам.
+ */
+public final class DurationHistogram {
+    // 100 мкс ... 10 с
+    private static final long[] DEFAULT_BOUNDS_NANOS = {
+            100_000L, 250_000L, 500_000L,
+            1_000_000L, 2_500_000L, 5_000_000L,
+            10_000_000L, 25_000_000L, 50_000_000L,
+            100_000_000L, 250_000_000L, 500_000_000L,
+            1_000_000_000L, 2_500_000_000L, 5_000_000_000L, 10_000_000_000L
+    };
+
+    private final long[] bounds;
+    private final LongAdder[] buckets; // последняя корзина — всё, что больше последней границы
+    private final LongAdder sumNanos = new LongAdder();
+
+    public DurationHistogram() {
+        this(DEFAULT_BOUNDS_NANOS);
+    }
+
+    // Границы корзин в наносекундах по возрастанию
+    public DurationHistogram(long... boundsNanos) {
+        for (int i = 1; i < boundsNanos.length; i++) {
+            if (boundsNanos[i] <= boundsNanos[i - 1]) {
+                throw new IllegalArgumentException("Границы корзин должны возрастать");
+            }
+        }
+        this.bounds = boundsNanos.clone();
+        this.buckets = new LongAdder[bounds.length + 1];
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    public void record(long nanos) {
+        int bucket = 0;
+        while (bucket < bounds.length && nanos > bounds[bucket]) {
+            bucket++;
+        }
+        buckets[bucket].increment();
+        sumNanos.add(nanos);
+    }
+
+    public long[] getBoundsNanos() {
+        return bounds.clone();
+    }
+
+    // Число записей не больше каждой границы; последний элемент — общее число записей
+    public long[] cumulativeCounts() {
+        long[] counts = new long[buckets.length];
+        long total = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            total += buckets[i].sum();
+            counts[i] = total;
+        }
+        return counts;
+    }
+
+    public long getCount() {
+        long total = 0;
+        for (LongAdder bucket : buckets) {
+            total += bucket.sum();
+        }
+        return total;
+    }
+
+    public long getSumNanos() {
+        return sumNanos.sum();
+    }
+}
@@ -0,0 +1,276 @@
+package util;
+
+import com.google.gson.annotations.JsonAdapter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.IntConsumer;
+
+/**
+ * Множество int без упаковки, сохраняющее порядок добавления.
+ * Значения лежат подряд в массиве, хеш-таблица с открытой адресацией хранит их позиции,
+ * поэтому проверка, добавление и удаление выполняются за O(1). Удалённые позиции
+ * помечаются и вычищаются при перестроении. Класс не потокобезопасен.
+ * В JSON записывается как массив чисел.
+ */
+@JsonAdapter(IntSetAdapter.class)
+public final class IntSet {
+    private static final int EMPTY = 0; // Пустая ячейка таблицы; позиции хранятся со сдвигом на 1
+    private static final int DEFAULT_CAPACITY = 4;
+
+    private int[] values;      // Значения в порядке добавления, включая удалённые
+    private boolean[] removed; // Помеченные как удалённые позиции values
+    private int[] table;       // Позиция значения в values + 1
+    private int end;           // Занятая часть values
+    private int size;
+    private int modCount;
+
+    public IntSet() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public IntSet(int expectedSize) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("Размер не может быть отрицательным: " + expectedSize);
+        }
+        int capacity = Math.max(DEFAULT_CAPACITY, expectedSize);
+        values = new int[capacity];
+        removed = new boolean[capacity];
+        table = new int[tableSizeFor(capacity)];
+    }
+
+    public IntSet(IntSet other) {
+        this(other.size);
+        other.forEach(this::add);
+    }
+
+    public static IntSet of(Iterable<Integer> values) {
+        IntSet set = new IntSet();
+        for (Integer value : values) {
+            set.add(value);
+        }
+        return set;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean contains(int value) {
+        return find(value) >= 0;
+    }
+
+    public boolean add(int value) {
+        if (find(value) >= 0) return false;
+        if (end == values.length) {
+            grow();
+        }
+        values[end] = value;
+        removed[end] = false;
+        insertIntoTable(value, end);
+        end++;
+        size++;
+        modCount++;
+        return true;
+    }
+
+    public boolean remove(int value) {
+        int slot = find(value);
+        if (slot < 0) return false;
+        removed[table[slot] - 1] = true;
+        deleteFromTable(slot);
+        size--;
+        modCount++;
+        if (size == 0) {
+            end = 0; // Все позиции свободны — начинаем массив заново
+        } else if (end - size > size) {
+            rebuild(values.length); // Удалённых больше половины — уплотняем
+        }
+        return true;
+    }
+
+    public void clear() {
+        Arrays.fill(table, EMPTY);
+        end = 0;
+        size = 0;
+        modCount++;
+    }
+
+    public void forEach(IntConsumer action) {
+        int expectedModCount = modCount;
+        for (int i = 0; i < end; i++) {
+            if (!removed[i]) {
+                action.accept(values[i]);
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
+
+    public PrimitiveIterator.OfInt iterator() {
+        return new PrimitiveIterator.OfInt() {
+            private final int expectedModCount = modCount;
+            private int next = skipRemoved(0);
+
+            @Override
+            public boolean hasNext() {
+                return next < end;
+            }
+
+            @Override
+            public int nextInt() {
+                if (modCount != expectedModCount) {
+                    throw new ConcurrentModificationException();
+                }
+                if (next >= end) {
+                    throw new NoSuchElementException();
+                }
+                int value = values[next];
+                next = skipRemoved(next + 1);
+                return value;
+            }
+        };
+    }
+
+    public int[] toArray() {
+        int[] result = new int[size];
+        int index = 0;
+        for (int i = 0; i < end; i++) {
+            if (!removed[i]) {
+                result[index++] = values[i];
+            }
+        }
+        return result;
+    }
+
+    public List<Integer> toList() {
+        List<Integer> result = new ArrayList<>(size);
+        forEach(result::add);
+        return result;
+    }
+
+    private int skipRemoved(int from) {
+        int i = from;
+        while (i < end && removed[i]) {
+            i++;
+        }
+        return i;
+    }
+
+    // Индекс ячейки таблицы со значением или -1
+    private int find(int value) {
+        int mask = table.length - 1;
+        for (int slot = hash(value) & mask; table[slot] != EMPTY; slot = (slot + 1) & mask) {
+            if (values[table[slot] - 1] == value) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    private void insertIntoTable(int value, int position) {
+        int mask = table.length - 1;
+        int slot = hash(value) & mask;
+        while (table[slot] != EMPTY) {
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = position + 1;
+    }
+
+    // Удаление со сдвигом следующих элементов цепочки, без надгробий
+    private void deleteFromTable(int slot) {
+        int mask = table.length - 1;
+        int hole = slot;
+        int current = (slot + 1) & mask;
+        while (table[current] != EMPTY) {
+            int home = hash(values[table[current] - 1]) & mask;
+            if (((current - home) & mask) >= ((current - hole) & mask)) {
+                table[hole] = table[current];
+                hole = current;
+            }
+            current = (current + 1) & mask;
+        }
+        table[hole] = EMPTY;
+    }
+
+    private void grow() {
+        int capacity = size * 2 > values.length ? values.length * 2 : values.length;
+        rebuild(capacity);
+    }
+
+    // Переносит живые значения в начало массива и перестраивает таблицу
+    private void rebuild(int capacity) {
+        int[] newValues = new int[capacity];
+        int count = 0;
+        for (int i = 0; i < end; i++) {
+            if (!removed[i]) {
+                newValues[count++] = values[i];
+            }
+        }
+        values = newValues;
+        removed = new boolean[capacity];
+        table = new int[tableSizeFor(capacity)];
+        end = count;
+        for (int i = 0; i < count; i++) {
+            insertIntoTable(values[i], i);
+        }
+    }
+
+    // Таблица вдвое больше массива значений: заполнение не выше 50%
+    private static int tableSizeFor(int capacity) {
+        return Integer.highestOneBit(capacity * 2 - 1) << 1;
+    }
+
+    private static int hash(int value) {
+        int h = value * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof IntSet)) return false;
+        IntSet other = (IntSet) o;
+        if (size != other.size) return false;
+        for (int i = 0; i < end; i++) {
+            if (!removed[i] && !other.contains(values[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = 0;
+        for (int i = 0; i < end; i++) {
+            if (!removed[i]) {
+                result += values[i];
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("[");
+        for (int i = 0; i < end; i++) {
+            if (!removed[i]) {
+                if (builder.length() > 1) {
+                    builder.append(", ");
+                }
+                builder.append(values[i]);
+            }
+        }
+        return builder.append(']').toString();
+    }
+}
@@ -0,0 +1,40 @@
+package util;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.PrimitiveIterator;
+
+public class IntSetAdapter extends TypeAdapter<IntSet> {
+
+    @Override
+    public void write(JsonWriter out, IntSet value) throws IOException {
+        if (value == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginArray(); // например: [2, 3]
+        for (PrimitiveIterator.OfInt it = value.iterator(); it.hasNext(); ) {
+            out.value(it.nextInt());
+        }
+        out.endArray();
+    }
+
+    @Override
+    public IntSet read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        IntSet set = new IntSet();
+        in.beginArray();
+        while (in.hasNext()) {
+            set.add(in.nextInt());
+        }
+        in.endArray();
+        return set;
+    }
+}
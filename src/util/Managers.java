@@ -1,14 +1,34 @@
 package util;
 
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import java.time.Duration;
+import java.time.LocalDateTime;
 import managers.*;
 
 public class Managers {
+    // Gson неизменяем и потокобезопасен, поэтому один экземпляр на всё приложение
+    private static final Gson GSON = new GsonBuilder()
+            .registerTypeAdapterFactory(new TaskAdapterFactory())
+            .registerTypeAdapter(Duration.class, new DurationAdapter())
+            .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeAdapter())
+            .create();
 
     public static TaskManager getDefault() {
         return new InMemoryTaskManager();
     }
 
+    // Потокобезопасный менеджер для многопоточного HTTP-сервера
+    public static TaskManager getConcurrent() {
+        return new ConcurrentTaskManager();
+    }
+
     public static HistoryManager getDefaultHistory() {
         return new InMemoryHistoryManager();
     }
+
+    // Общий Gson: задачи, эпики и подзадачи (де)сериализуются потоково через TaskAdapterFactory
+    public static Gson getGson() {
+        return GSON;
+    }
 }
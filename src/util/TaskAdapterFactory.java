@@ -0,0 +1,193 @@
+package util;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.PrimitiveIterator;
+import tasks.Epic;
+import tasks.Subtask;
+import tasks.Task;
+
+/**
+ * Потоковые адаптеры Task, Epic и Subtask без рефлексии и без промежуточного JsonElement.
+ * Формат совпадает с прежним рефлективным (имена полей, null-поля опускаются) и дополнен полем
+ * "type" со значением getType(). При чтении в Task.class по "type" создаётся нужный подкласс,
+ * без него — Task; при чтении в Epic.class или Subtask.class другой "type" — ошибка.
+ * Некорректные значения полей дают JsonSyntaxException, как и синтаксические ошибки.
+ */
+public final class TaskAdapterFactory implements TypeAdapterFactory {
+    private static final DurationAdapter DURATION = new DurationAdapter();
+    private static final LocalDateTimeAdapter DATE_TIME = new LocalDateTimeAdapter();
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+        Class<? super T> raw = type.getRawType();
+        if (raw == Task.class) {
+            return (TypeAdapter<T>) new Adapter(null);
+        }
+        if (raw == Epic.class) {
+            return (TypeAdapter<T>) new Adapter(TaskType.EPIC);
+        }
+        if (raw == Subtask.class) {
+            return (TypeAdapter<T>) new Adapter(TaskType.SUBTASK);
+        }
+        return null;
+    }
+
+    private static final class Adapter extends TypeAdapter<Task> {
+        // null — любой тип по полю "type"
+        private final TaskType required;
+
+        Adapter(TaskType required) {
+            this.required = required;
+        }
+
+        @Override
+        public void write(JsonWriter out, Task task) throws IOException {
+            if (task == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("type").value(task.getType());
+            out.name("id").value(task.getId());
+            writeString(out, "name", task.getName());
+            writeString(out, "description", task.getDescription());
+            if (task.getStatus() != null) {
+                out.name("status").value(task.getStatus().name());
+            }
+            if (task.getDuration() != null) {
+                out.name("duration");
+                DURATION.write(out, task.getDuration());
+            }
+            if (task.getStartTime() != null) {
+                out.name("startTime");
+                DATE_TIME.write(out, task.getStartTime());
+            }
+            if (task instanceof Subtask) {
+                out.name("epicId").value(((Subtask) task).getEpicId());
+            } else if (task instanceof Epic) {
+                Epic epic = (Epic) task;
+                out.name("subIds").beginArray();
+                for (PrimitiveIterator.OfInt it = epic.subtaskIdIterator(); it.hasNext(); ) {
+                    out.value(it.nextInt());
+                }
+                out.endArray();
+                if (epic.getEndTime() != null) {
+                    out.name("endTime");
+                    DATE_TIME.write(out, epic.getEndTime());
+                }
+            }
+            out.endObject();
+        }
+
+        private static void writeString(JsonWriter out, String name, String value) throws IOException {
+            if (value != null) {
+                out.name(name).value(value);
+            }
+        }
+
+        @Override
+        public Task read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            TaskType type = null;
+            String name = null;
+            String description = null;
+            int id = 0;
+            Status status = null;
+            Duration duration = null;
+            LocalDateTime startTime = null;
+            LocalDateTime endTime = null;
+            int epicId = 0;
+            IntSet subIds = null;
+            in.beginObject();
+            try {
+                while (in.hasNext()) {
+                    String field = in.nextName();
+                    if (in.peek() == JsonToken.NULL) {
+                        in.nextNull();
+                        continue;
+                    }
+                    switch (field) {
+                        case "type":
+                            type = TaskType.valueOf(in.nextString().toUpperCase());
+                            break;
+                        case "name":
+                            name = in.nextString();
+                            break;
+                        case "description":
+                            description = in.nextString();
+                            break;
+                        case "id":
+                            id = in.nextInt();
+                            break;
+                        case "status":
+                            status = Status.valueOf(in.nextString());
+                            break;
+                        case "duration":
+                            duration = DURATION.read(in);
+                            break;
+                        case "startTime":
+                            startTime = DATE_TIME.read(in);
+                            break;
+                        case "endTime":
+                            endTime = DATE_TIME.read(in);
+                            break;
+                        case "epicId":
+                            epicId = in.nextInt();
+                            break;
+                        case "subIds":
+                            subIds = new IntSet();
+                            in.beginArray();
+                            while (in.hasNext()) {
+                                subIds.add(in.nextInt());
+                            }
+                            in.endArray();
+                            break;
+                        default:
+                            in.skipValue();
+                    }
+                }
+            } catch (IllegalArgumentException | DateTimeException e) {
+                throw new JsonSyntaxException("Некорректное значение поля в " + in.getPath(), e);
+            }
+            in.endObject();
+
+            if (type == null) {
+                type = required == null ? TaskType.TASK : required;
+            } else if (required != null && type != required) {
+                throw new JsonSyntaxException("Ожидался тип " + required + ", получен " + type);
+            }
+            switch (type) {
+                case EPIC:
+                    Epic epic = new Epic(name, description);
+                    epic.setId(id);
+                    epic.setStatus(status);
+                    epic.setDuration(duration);
+                    epic.setStartTime(startTime);
+                    epic.setEndTime(endTime);
+                    if (subIds != null) {
+                        subIds.forEach(epic::addSubtaskId);
+                    }
+                    return epic;
+                case SUBTASK:
+                    return new Subtask(name, description, id, status, epicId, duration, startTime);
+                default:
+                    return new Task(name, description, id, status, duration, startTime);
+            }
+        }
+    }
+}
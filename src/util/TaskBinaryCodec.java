@@ -0,0 +1,128 @@
+package util;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+import tasks.Epic;
+import tasks.Subtask;
+import tasks.Task;
+
+/**
+ * Двоичное представление одной задачи. Числа фиксированной ширины, перечисления —
+ * порядковыми номерами, строки — длина (int) и байты UTF-8. Порядок байтов задаёт буфер.
+ * <pre>
+ * byte  тип (TaskType.ordinal)       int   id
+ * byte  статус (ordinal, -1 — null)  int   id эпика (0, если не подзадача)
+ * long  длительность, секунды        int   длительность, наносекунды
+ * long  начало, секунды эпохи (UTC)  int   начало, наносекунды
+ * str   имя                          str   описание
+ * </pre>
+ * Отсутствующие длительность и начало записываются как Long.MIN_VALUE, строка null — длиной -1.
+ * Подзадачи эпика не пишутся: при загрузке они восстанавливаются по id эпика у подзадач.
+ */
+public final class TaskBinaryCodec {
+    public static final int FIXED_SIZE = 1 + 4 + 1 + 4 + 8 + 4 + 8 + 4;
+
+    private static final long NO_VALUE = Long.MIN_VALUE;
+    private static final TaskType[] TYPES = TaskType.values();
+    private static final Status[] STATUSES = Status.values();
+
+    private TaskBinaryCodec() {
+    }
+
+    // Размер записи; name и description — уже закодированные в UTF-8 строки задачи
+    public static int encodedSize(byte[] name, byte[] description) {
+        return FIXED_SIZE + stringSize(name) + stringSize(description);
+    }
+
+    public static byte[] utf8(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    // Пишет задачу в буфер; места должно хватать на encodedSize(name, description) байт
+    public static void write(ByteBuffer buffer, Task task, byte[] name, byte[] description) {
+        buffer.put((byte) TaskType.valueOf(task.getType()).ordinal());
+        buffer.putInt(task.getId());
+        buffer.put(task.getStatus() == null ? -1 : (byte) task.getStatus().ordinal());
+        buffer.putInt(task instanceof Subtask ? ((Subtask) task).getEpicId() : 0);
+        Duration duration = task.getDuration();
+        buffer.putLong(duration == null ? NO_VALUE : duration.getSeconds());
+        buffer.putInt(duration == null ? 0 : duration.getNano());
+        LocalDateTime start = task.getStartTime();
+        buffer.putLong(start == null ? NO_VALUE : start.toEpochSecond(ZoneOffset.UTC));
+        buffer.putInt(start == null ? 0 : start.getNano());
+        putString(buffer, name);
+        putString(buffer, description);
+    }
+
+    public static void write(ByteBuffer buffer, Task task) {
+        write(buffer, task, utf8(task.getName()), utf8(task.getDescription()));
+    }
+
+    // Читает задачу с текущей позиции буфера
+    public static Task read(ByteBuffer buffer) {
+        int typeOrdinal = buffer.get();
+        if (typeOrdinal < 0 || typeOrdinal >= TYPES.length) {
+            throw new IllegalArgumentException("Неизвестный тип задачи: " + typeOrdinal);
+        }
+        int id = buffer.getInt();
+        int statusOrdinal = buffer.get();
+        if (statusOrdinal < -1 || statusOrdinal >= STATUSES.length) {
+            throw new IllegalArgumentException("Неизвестный статус задачи: " + statusOrdinal);
+        }
+        Status status = statusOrdinal < 0 ? null : STATUSES[statusOrdinal];
+        int epicId = buffer.getInt();
+        long durationSeconds = buffer.getLong();
+        int durationNanos = buffer.getInt();
+        Duration duration = durationSeconds == NO_VALUE ? null : Duration.ofSeconds(durationSeconds, durationNanos);
+        long startSecond = buffer.getLong();
+        int startNano = buffer.getInt();
+        LocalDateTime start = startSecond == NO_VALUE
+                ? null : LocalDateTime.ofEpochSecond(startSecond, startNano, ZoneOffset.UTC);
+        String name = getString(buffer);
+        String description = getString(buffer);
+
+        switch (TYPES[typeOrdinal]) {
+            case TASK:
+                return new Task(name, description, id, status, duration, start);
+            case SUBTASK:
+                return new Subtask(name, description, id, status, epicId, duration, start);
+            default:
+                Epic epic = new Epic(name, description);
+                epic.setId(id);
+                epic.setStatus(status);
+                epic.setDuration(duration);
+                epic.setStartTime(start);
+                return epic;
+        }
+    }
+
+    private static int stringSize(byte[] value) {
+        return 4 + (value == null ? 0 : value.length);
+    }
+
+    private static void putString(ByteBuffer buffer, byte[] value) {
+        if (value == null) {
+            buffer.putInt(-1);
+            return;
+        }
+        buffer.putInt(value.length);
+        buffer.put(value);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        if (length > buffer.remaining()) {
+            throw new IllegalArgumentException("Строка выходит за пределы данных: " + length + " байт");
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -4,8 +4,6 @@ import tasks.Epic;
 import tasks.Subtask;
 import tasks.Task;
 
-import java.util.ArrayList;
-
 public class TaskUtils {
     public static String toCsv(Task task, String additionalField) {
         return String.join(",",
@@ -26,7 +24,7 @@ public class TaskUtils {
 
     public static String escapeCsvField(String field) {
         if (field == null) return "";
-        if (field.contains(",") || field.contains("\"")) {
+        if (field.contains(",") || field.contains("\"") || field.contains("\n") || field.contains("\r")) {
             return "\"" + field.replace("\"", "\"\"") + "\"";
         }
         return field;
@@ -58,15 +56,13 @@ public class TaskUtils {
     }
 
     public static Epic copyEpic(Epic original) {
-        Epic copy = new Epic(
-                original.getName(),
-                original.getDescription(),
-                new ArrayList<>(original.getSubIds())
-        );
+        Epic copy = new Epic(original.getName(), original.getDescription());
+        original.forEachSubtaskId(copy::addSubtaskId);
         copy.setId(original.getId());
         copy.setStatus(original.getStatus());
         copy.setDuration(original.getDuration());
         copy.setStartTime(original.getStartTime());
+        copy.setEndTime(original.getEndTime());
         return copy;
     }
 }
\ No newline at end of file
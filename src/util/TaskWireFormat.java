@@ -0,0 +1,145 @@
+package util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.http.HttpResponse;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PrimitiveIterator;
+
+import tasks.Epic;
+import tasks.Task;
+
+/**
+ * Двоичное представление задач в HTTP API (application/x-kanban-binary) для машинных клиентов.
+ * <pre>
+ * 4 байта  "KBN" и версия формата (1)
+ * далее до конца тела записи:
+ *   int    длина записи
+ *   запись TaskBinaryCodec
+ *   для эпика: long конец, секунды эпохи (UTC; Long.MIN_VALUE — нет), int наносекунды,
+ *              int число подзадач, id подзадач по int
+ * </pre>
+ * Порядок байтов — сетевой (big-endian). Длина записи позволяет читателю пропускать поля,
+ * добавленные в конец записи новыми версиями сервера. Ответ с одной задачей — тот же формат
+ * с одной записью. Клиенту достаточно {@link #decode(byte[])} или {@link #bodyHandler()}.
+ */
+public final class TaskWireFormat {
+    public static final String CONTENT_TYPE = "application/x-kanban-binary";
+
+    private static final byte[] HEADER = {'K', 'B', 'N', 1};
+    private static final long NO_VALUE = Long.MIN_VALUE;
+
+    private TaskWireFormat() {
+    }
+
+    /*
+     * Потоковая запись: заголовок пишется при создании, затем по записи на задачу.
+     * Буфер записи переиспользуется и растёт под самую длинную задачу.
+     */
+    public static final class Encoder {
+        private final OutputStream out;
+        private ByteBuffer buffer = ByteBuffer.allocate(256);
+
+        public Encoder(OutputStream out) throws IOException {
+            this.out = out;
+            out.write(HEADER);
+        }
+
+        public void write(Task task) throws IOException {
+            byte[] name = TaskBinaryCodec.utf8(task.getName());
+            byte[] description = TaskBinaryCodec.utf8(task.getDescription());
+            Epic epic = task instanceof Epic ? (Epic) task : null;
+            int size = TaskBinaryCodec.encodedSize(name, description)
+                    + (epic == null ? 0 : 8 + 4 + 4 + 4 * epic.getSubtaskCount());
+            if (buffer.capacity() < 4 + size) {
+                buffer = ByteBuffer.allocate(Math.max(4 + size, buffer.capacity() * 2));
+            }
+            buffer.clear();
+            buffer.putInt(size);
+            TaskBinaryCodec.write(buffer, task, name, description);
+            if (epic != null) {
+                LocalDateTime end = epic.getEndTime();
+                buffer.putLong(end == null ? NO_VALUE : end.toEpochSecond(ZoneOffset.UTC));
+                buffer.putInt(end == null ? 0 : end.getNano());
+                buffer.putInt(epic.getSubtaskCount());
+                for (PrimitiveIterator.OfInt it = epic.subtaskIdIterator(); it.hasNext(); ) {
+                    buffer.putInt(it.nextInt());
+                }
+            }
+            out.write(buffer.array(), 0, buffer.position());
+        }
+    }
+
+    public static byte[] encode(Iterable<? extends Task> tasks) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            Encoder encoder = new Encoder(out);
+            for (Task task : tasks) {
+                encoder.write(task);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // ByteArrayOutputStream не бросает IOException
+        }
+        return out.toByteArray();
+    }
+
+    // Разбор тела ответа; некорректные данные — IllegalArgumentException
+    public static List<Task> decode(byte[] body) {
+        ByteBuffer buffer = ByteBuffer.wrap(body);
+        if (body.length < HEADER.length || buffer.getInt() != ByteBuffer.wrap(HEADER).getInt()) {
+            throw new IllegalArgumentException("Тело не в формате " + CONTENT_TYPE);
+        }
+        List<Task> tasks = new ArrayList<>();
+        try {
+            while (buffer.hasRemaining()) {
+                int size = buffer.getInt();
+                if (size < TaskBinaryCodec.FIXED_SIZE || size > buffer.remaining()) {
+                    throw new IllegalArgumentException("Некорректная длина записи: " + size);
+                }
+                int end = buffer.position() + size;
+                ByteBuffer record = buffer.slice(buffer.position(), size);
+                Task task = TaskBinaryCodec.read(record);
+                if (task instanceof Epic) {
+                    readEpicTail(record, (Epic) task);
+                }
+                tasks.add(task);
+                buffer.position(end);
+            }
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Запись обрывается раньше конца", e);
+        }
+        return tasks;
+    }
+
+    public static List<Task> decode(InputStream in) throws IOException {
+        return decode(in.readAllBytes());
+    }
+
+    // Для java.net.http.HttpClient: client.send(request, TaskWireFormat.bodyHandler())
+    public static HttpResponse.BodyHandler<List<Task>> bodyHandler() {
+        return info -> HttpResponse.BodySubscribers.mapping(HttpResponse.BodySubscribers.ofByteArray(),
+                body -> info.statusCode() == 200 ? decode(body) : List.of());
+    }
+
+    private static void readEpicTail(ByteBuffer record, Epic epic) {
+        long endSecond = record.getLong();
+        int endNano = record.getInt();
+        if (endSecond != NO_VALUE) {
+            epic.setEndTime(LocalDateTime.ofEpochSecond(endSecond, endNano, ZoneOffset.UTC));
+        }
+        int count = record.getInt();
+        if (count < 0 || count > record.remaining() / 4) {
+            throw new IllegalArgumentException("Некорректное число подзадач эпика: " + count);
+        }
+        for (int i = 0; i < count; i++) {
+            epic.addSubtaskId(record.getInt());
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package managers;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import exceptions.ManagerSaveException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import tasks.Epic;
+import tasks.Subtask;
+import tasks.Task;
+import util.Status;
+
+public class BinaryFileBackedTaskManagerTest extends TaskManagerTest<FileBackedTaskManager> {
+    private File tempFile;
+    private File convertedFile;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        tempFile = File.createTempFile("tasks", ".bin");
+        convertedFile = File.createTempFile("tasks", ".converted");
+        super.setUp();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        Files.deleteIfExists(tempFile.toPath());
+        Files.deleteIfExists(convertedFile.toPath());
+    }
+
+    @Override
+    protected FileBackedTaskManager createTaskManager() {
+        return new FileBackedTaskManager(tempFile, SnapshotFormat.BINARY);
+    }
+
+    private void fillManager(FileBackedTaskManager manager) {
+        Epic epic = new Epic("Эпик", "С подзадачами");
+        manager.addEpic(epic);
+        manager.addSubtask(new Subtask("Подзадача", "Первая", 0, Status.DONE, epic.getId(),
+                Duration.ofMinutes(30), LocalDateTime.of(2024, 3, 1, 9, 0)));
+        manager.addSubtask(new Subtask("Подзадача", null, 0, Status.NEW, epic.getId(),
+                Duration.ofMinutes(45), LocalDateTime.of(2024, 3, 1, 11, 0)));
+        manager.addTask(new Task("Задача; с \"кавычками\"", "Многобайтовые символы: ✓", 0, Status.IN_PROGRESS,
+                Duration.ofMinutes(15), LocalDateTime.of(2024, 3, 2, 8, 0)));
+        manager.addTask(new Task("Без времени", "Описание"));
+    }
+
+    private static void assertSameContent(TaskManager expected, TaskManager actual) {
+        assertEquals(expected.getAllTasks(), actual.getAllTasks());
+        assertEquals(expected.getAllEpics(), actual.getAllEpics());
+        assertEquals(expected.getAllSubtasks(), actual.getAllSubtasks());
+        assertEquals(expected.getPrioritizedTasks(), actual.getPrioritizedTasks());
+        for (Epic epic : expected.getAllEpics()) {
+            Epic loaded = actual.getEpicById(epic.getId());
+            assertEquals(epic.getStatus(), loaded.getStatus());
+            assertEquals(epic.getStartTime(), loaded.getStartTime());
+            assertEquals(epic.getEndTime(), loaded.getEndTime());
+            assertEquals(epic.getSubIds(), loaded.getSubIds());
+        }
+    }
+
+    @Test
+    void shouldWriteBinarySnapshotAndDetectFormatOnLoad() {
+        fillManager(taskManager);
+
+        assertEquals(SnapshotFormat.BINARY, SnapshotFormat.detect(tempFile));
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(tempFile);
+
+        assertSameContent(taskManager, loaded);
+        Task task = loaded.getTaskById(taskManager.getAllTasks().get(0).getId());
+        assertEquals("Задача; с \"кавычками\"", task.getName());
+        assertEquals("Многобайтовые символы: ✓", task.getDescription());
+    }
+
+    @Test
+    void shouldKeepBinaryFormatAfterReloadAndContinueIds() {
+        fillManager(taskManager);
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(tempFile);
+
+        Task added = new Task("Новая", "После загрузки");
+        loaded.addTask(added);
+
+        assertEquals(SnapshotFormat.BINARY, SnapshotFormat.detect(tempFile));
+        assertEquals(6, added.getId());
+        assertEquals(3, FileBackedTaskManager.loadFromFile(tempFile).getAllTasks().size());
+    }
+
+    @Test
+    void shouldConvertBetweenCsvAndBinary() throws IOException {
+        File csvFile = File.createTempFile("tasks", ".csv");
+        try {
+            FileBackedTaskManager csvManager = new FileBackedTaskManager(csvFile);
+            fillManager(csvManager);
+
+            FileBackedTaskManager.convert(csvFile, convertedFile, SnapshotFormat.BINARY);
+            assertEquals(SnapshotFormat.BINARY, SnapshotFormat.detect(convertedFile));
+            assertSameContent(csvManager, FileBackedTaskManager.loadFromFile(convertedFile));
+
+            FileBackedTaskManager.convert(convertedFile, csvFile, SnapshotFormat.CSV);
+            assertEquals(SnapshotFormat.CSV, SnapshotFormat.detect(csvFile));
+            assertSameContent(csvManager, FileBackedTaskManager.loadFromFile(csvFile));
+        } finally {
+            Files.deleteIfExists(csvFile.toPath());
+        }
+    }
+
+    @Test
+    void shouldRejectCorruptedSnapshot() throws IOException {
+        fillManager(taskManager);
+
+        try (RandomAccessFile file = new RandomAccessFile(tempFile, "rw")) {
+            long position = file.length() - 1;
+            file.seek(position);
+            int last = file.read();
+            file.seek(position);
+            file.write(last ^ 0xFF);
+        }
+
+        ManagerSaveException e = assertThrows(ManagerSaveException.class,
+                () -> FileBackedTaskManager.loadFromFile(tempFile));
+        assertTrue(e.getMessage().contains("контрольная сумма"));
+    }
+
+    @Test
+    void shouldRejectTruncatedSnapshot() throws IOException {
+        fillManager(taskManager);
+
+        try (RandomAccessFile file = new RandomAccessFile(tempFile, "rw")) {
+            file.setLength(file.length() - 3);
+        }
+
+        assertThrows(ManagerSaveException.class, () -> FileBackedTaskManager.loadFromFile(tempFile));
+    }
+}
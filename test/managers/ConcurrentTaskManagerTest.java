@@ -0,0 +1,172 @@
+package managers;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import exceptions.TimeConflictException;
+import tasks.*;
+import util.Status;
+
+class ConcurrentTaskManagerTest extends TaskManagerTest<ConcurrentTaskManager> {
+    private static final int THREADS = 8;
+
+    private ExecutorService executor;
+
+    @BeforeEach
+    void startExecutor() {
+        executor = Executors.newFixedThreadPool(THREADS);
+    }
+
+    @AfterEach
+    void stopExecutor() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    protected ConcurrentTaskManager createTaskManager() {
+        return new ConcurrentTaskManager();
+    }
+
+    private void runConcurrently(Callable<Void> action) throws Exception {
+        List<Future<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            futures.add(executor.submit(action));
+        }
+        for (Future<Void> future : futures) {
+            future.get();
+        }
+    }
+
+    @Test
+    void shouldNotGiveSameIdToEpicAndTaskAddedConcurrently() throws Exception {
+        AtomicInteger round = new AtomicInteger();
+        runConcurrently(() -> {
+            for (int i = 0; i < 200; i++) {
+                int id = 10_000 + i;
+                if (round.getAndIncrement() % 2 == 0) {
+                    Epic epic = new Epic("Epic", "Description");
+                    epic.setId(id);
+                    taskManager.addEpic(epic);
+                } else {
+                    taskManager.addTask(new Task("Task", "Description", id, Status.NEW));
+                    taskManager.addEpic(new Epic("Epic", "Description"));
+                }
+            }
+            return null;
+        });
+
+        Set<Integer> ids = new HashSet<>();
+        taskManager.getAllTasks().forEach(task -> ids.add(task.getId()));
+        taskManager.getAllEpics().forEach(epic -> ids.add(epic.getId()));
+        assertEquals(taskManager.getAllTasks().size() + taskManager.getAllEpics().size(), ids.size());
+    }
+
+    @Test
+    void shouldGenerateUniqueIdsUnderContention() throws Exception {
+        runConcurrently(() -> {
+            for (int i = 0; i < 200; i++) {
+                taskManager.addTask(new Task("Task", "Description"));
+            }
+            return null;
+        });
+
+        List<Task> tasks = taskManager.getAllTasks();
+        Set<Integer> ids = new HashSet<>();
+        tasks.forEach(task -> ids.add(task.getId()));
+        assertEquals(THREADS * 200, tasks.size());
+        assertEquals(tasks.size(), ids.size(), "ID задач должны быть уникальными");
+    }
+
+    @Test
+    void shouldAcceptOnlyOneOfConflictingTasks() throws Exception {
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 10, 0);
+        AtomicInteger conflicts = new AtomicInteger();
+
+        runConcurrently(() -> {
+            try {
+                taskManager.addTask(new Task("Slot", "Description", Status.NEW, Duration.ofHours(1), start));
+            } catch (TimeConflictException e) {
+                conflicts.incrementAndGet();
+            }
+            return null;
+        });
+
+        assertEquals(1, taskManager.getAllTasks().size());
+        assertEquals(THREADS - 1, conflicts.get());
+        assertEquals(1, taskManager.getPrioritizedTasks().size());
+    }
+
+    @Test
+    void shouldKeepEpicStatusConsistentUnderConcurrentUpdates() throws Exception {
+        Epic epic = new Epic("Epic", "Description");
+        taskManager.addEpic(epic);
+        List<Subtask> created = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            Subtask subtask = new Subtask("Subtask " + i, "Description", epic.getId());
+            taskManager.addSubtask(subtask);
+            created.add(subtask);
+        }
+        AtomicInteger next = new AtomicInteger();
+
+        runConcurrently(() -> {
+            Subtask subtask = created.get(next.getAndIncrement()).copy();
+            subtask.setStatus(Status.DONE);
+            taskManager.updateSubtask(subtask);
+            return null;
+        });
+
+        assertEquals(Status.DONE, taskManager.getEpicById(epic.getId()).getStatus());
+    }
+
+    @Test
+    void shouldServeOrderedPriorityPagesWhileTasksAreAdded() throws Exception {
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 0, 0);
+        AtomicInteger slot = new AtomicInteger();
+        runConcurrently(() -> {
+            for (int i = 0; i < 100; i++) {
+                taskManager.addTask(new Task("Task", "Description", Status.NEW, Duration.ofMinutes(1),
+                        base.plusMinutes(slot.getAndIncrement())));
+                List<Task> page = taskManager.getNextPrioritizedTasks(20);
+                List<Task> range = taskManager.getPrioritizedTasks(base, base.plusMinutes(50));
+                for (List<Task> tasks : List.of(page, range)) {
+                    for (int j = 1; j < tasks.size(); j++) {
+                        assertTrue(tasks.get(j - 1).getStartTime().isBefore(tasks.get(j).getStartTime()));
+                    }
+                }
+            }
+            return null;
+        });
+
+        assertEquals(THREADS * 100, taskManager.getPrioritizedTasks().size());
+        assertEquals(THREADS * 100, taskManager.getStats().getPrioritizedTasks());
+        assertEquals(50, taskManager.getPrioritizedTasks(base, base.plusMinutes(50)).size());
+    }
+
+    @Test
+    void shouldRemoveEpicWithSubtasksFromIndexes() {
+        Epic epic = new Epic("Epic", "Description");
+        taskManager.addEpic(epic);
+        Subtask subtask = new Subtask("Subtask", "Description", 0, Status.NEW, epic.getId(),
+                Duration.ofHours(1), LocalDateTime.of(2024, 1, 1, 10, 0));
+        taskManager.addSubtask(subtask);
+
+        taskManager.removeEpicById(epic.getId());
+
+        assertTrue(taskManager.getAllSubtasks().isEmpty());
+        assertTrue(taskManager.getPrioritizedTasks().isEmpty());
+        assertFalse(taskManager.hasTimeOverlap(subtask));
+    }
+}
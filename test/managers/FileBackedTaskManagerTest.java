@@ -8,7 +8,11 @@ import exceptions.*;
 import util.Status;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
 import java.time.*;
+import java.util.concurrent.ForkJoinPool;
 
 public class FileBackedTaskManagerTest extends TaskManagerTest<FileBackedTaskManager> {
     private File tempFile;
@@ -64,6 +68,22 @@ public class FileBackedTaskManagerTest extends TaskManagerTest<FileBackedTaskMan
         );
     }
 
+    @Test
+    void shouldReportSaveStats() {
+        taskManager.addTask(new Task("Test Task", "Description"));
+        taskManager.getTaskById(taskManager.getAllTasks().get(0).getId());
+
+        ManagerStats stats = taskManager.getStats();
+
+        assertAll(
+                () -> assertEquals(1, stats.getTasks()),
+                () -> assertEquals(1, stats.getHistorySize()),
+                () -> assertTrue(stats.isPersistent()),
+                () -> assertTrue(stats.getSaveLatency().getCount() > 0),
+                () -> assertTrue(stats.getBytesWritten() > 0)
+        );
+    }
+
     //Проверка пересечения времени у подзадач одного эпика
     @Test
     void shouldThrowExceptionForOverlappingSubtasksInSameEpic() {
@@ -145,4 +165,96 @@ public class FileBackedTaskManagerTest extends TaskManagerTest<FileBackedTaskMan
                 () -> assertNull(updatedEpic.getDuration())
         );
     }
+
+    @Test
+    void shouldLoadInParallelSameStateAsSequential() throws IOException {
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 0, 0);
+        for (int i = 0; i < 50; i++) {
+            Epic epic = new Epic("Эпик " + i, "Описание, с запятой");
+            taskManager.addEpic(epic);
+            for (int j = 0; j < 5; j++) {
+                Status status = Status.values()[(i + j) % Status.values().length];
+                taskManager.addSubtask(new Subtask("Подзадача \"" + j + "\"", "✓", 0, status, epic.getId(),
+                        Duration.ofMinutes(10), start.plusMinutes(15L * (i * 5 + j))));
+            }
+            taskManager.addTask(new Task("Задача " + i, "Без времени"));
+        }
+        // Строки, которые разбирает только общий код чтения: \r\n, пустые строки и повтор id
+        Files.writeString(tempFile.toPath(), "\r\n\n1,TASK,Повтор,DONE,заменяет эпик?,,,,\r\n"
+                + "7,TASK,Повтор задачи,DONE,,,,,", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        FileBackedTaskManager sequential = FileBackedTaskManager.loadFromFile(tempFile);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            FileBackedTaskManager parallel = FileBackedTaskManager.loadFromFileParallel(tempFile, pool, 256);
+
+            assertEquals(sequential.getAllTasks(), parallel.getAllTasks());
+            assertEquals(sequential.getAllSubtasks(), parallel.getAllSubtasks());
+            assertEquals(sequential.getAllEpics(), parallel.getAllEpics());
+            assertEquals(sequential.getPrioritizedTasks(), parallel.getPrioritizedTasks());
+            for (Epic epic : sequential.getAllEpics()) {
+                Epic loaded = parallel.getEpicById(epic.getId());
+                assertEquals(epic.getStatus(), loaded.getStatus());
+                assertEquals(epic.getSubIds(), loaded.getSubIds());
+                assertEquals(epic.getStartTime(), loaded.getStartTime());
+                assertEquals(epic.getEndTime(), loaded.getEndTime());
+                assertEquals(epic.getDuration(), loaded.getDuration());
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void shouldReportFirstBrokenLineWhenLoadingInParallel() throws IOException {
+        for (int i = 0; i < 200; i++) {
+            taskManager.addTask(new Task("Задача " + i, "Описание"));
+        }
+        Files.writeString(tempFile.toPath(), "broken\n201,TASK,x,UNKNOWN,,,,,\n",
+                StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            ManagerSaveException sequential = assertThrows(ManagerSaveException.class,
+                    () -> FileBackedTaskManager.loadFromFile(tempFile));
+            ManagerSaveException parallel = assertThrows(ManagerSaveException.class,
+                    () -> FileBackedTaskManager.loadFromFileParallel(tempFile, pool, 64));
+
+            assertEquals(sequential.getMessage(), parallel.getMessage());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void shouldRoundTripQuotesAndLongLines() {
+        String description = "Длинное \"описание\", ".repeat(2_000);
+        Task task = new Task("Имя \"в кавычках\"", description);
+        taskManager.addTask(task);
+
+        Task loaded = FileBackedTaskManager.loadFromFile(tempFile).getTaskById(task.getId());
+
+        assertEquals("Имя \"в кавычках\"", loaded.getName());
+        assertEquals(description.trim(), loaded.getDescription());
+    }
+
+    @Test
+    void shouldRoundTripLineBreaksSequentiallyAndInParallel() {
+        String description = "Первая строка\nвторая,\r\nтретья\n".repeat(40) + "конец";
+        for (int i = 0; i < 20; i++) {
+            taskManager.addTask(new Task("Задача\n" + i, description));
+        }
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            FileBackedTaskManager sequential = FileBackedTaskManager.loadFromFile(tempFile);
+            FileBackedTaskManager parallel = FileBackedTaskManager.loadFromFileParallel(tempFile, pool, 64);
+
+            assertEquals(20, sequential.getAllTasks().size());
+            assertEquals("Задача\n0", sequential.getAllTasks().get(0).getName());
+            assertEquals(description, sequential.getAllTasks().get(19).getDescription());
+            assertEquals(sequential.getAllTasks(), parallel.getAllTasks());
+            assertEquals(description, parallel.getAllTasks().get(19).getDescription());
+        } finally {
+            pool.shutdown();
+        }
+    }
 }
@@ -0,0 +1,376 @@
+package managers;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import tasks.Epic;
+import tasks.Subtask;
+import tasks.Task;
+import util.Status;
+import util.TaskType;
+
+public class JournaledFileBackedTaskManagerTest extends TaskManagerTest<FileBackedTaskManager> {
+    private static final JournalConfig CONFIG = JournalConfig.of(JournalConfig.SyncPolicy.ALWAYS);
+
+    private File tempFile;
+    private Path journalFile;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        tempFile = File.createTempFile("tasks", ".csv");
+        journalFile = Path.of(tempFile.getPath() + ".journal");
+        super.setUp();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        taskManager.close();
+        Files.deleteIfExists(journalFile);
+        Files.deleteIfExists(Path.of(journalFile + ".old"));
+        Files.deleteIfExists(tempFile.toPath());
+    }
+
+    @Override
+    protected FileBackedTaskManager createTaskManager() {
+        return new FileBackedTaskManager(tempFile, CONFIG);
+    }
+
+    private FileBackedTaskManager reload() {
+        taskManager.close();
+        return FileBackedTaskManager.loadFromFile(tempFile, CONFIG);
+    }
+
+    @Test
+    void shouldAppendOneRecordPerMutationWithoutRewritingSnapshot() throws IOException {
+        long snapshotSize = Files.size(tempFile.toPath());
+
+        for (int i = 0; i < 10; i++) {
+            taskManager.addTask(new Task("Task " + i, "Description"));
+        }
+
+        assertEquals(10, Files.readAllLines(journalFile).size());
+        assertEquals(snapshotSize, Files.size(tempFile.toPath()), "Снимок не должен перезаписываться");
+    }
+
+    @Test
+    void shouldRestoreStateFromJournal() {
+        Epic epic = new Epic("Epic", "Description");
+        taskManager.addEpic(epic);
+        Subtask subtask = new Subtask("Subtask", "Description", 0, Status.NEW, epic.getId(),
+                Duration.ofMinutes(30), LocalDateTime.of(2024, 1, 1, 10, 0));
+        taskManager.addSubtask(subtask);
+        Task removed = new Task("Removed", "Description");
+        taskManager.addTask(removed);
+        Task kept = new Task("Kept", "Description");
+        taskManager.addTask(kept);
+
+        subtask.setStatus(Status.DONE);
+        taskManager.updateSubtask(subtask);
+        taskManager.removeTaskById(removed.getId());
+
+        FileBackedTaskManager loaded = reload();
+        taskManager = loaded;
+
+        assertAll(
+                () -> assertEquals(1, loaded.getAllTasks().size()),
+                () -> assertEquals("Kept", loaded.getAllTasks().get(0).getName()),
+                () -> assertEquals(Status.DONE, loaded.getEpicById(epic.getId()).getStatus()),
+                () -> assertEquals(subtask.getStartTime(), loaded.getEpicById(epic.getId()).getStartTime()),
+                () -> assertEquals(1, loaded.getPrioritizedTasks().size())
+        );
+    }
+
+    @Test
+    void shouldReplayRecordsWithLineBreaksInNames() {
+        taskManager.addTask(new Task("line1\nline2", "back\\slash\r\nend"));
+        taskManager.addTask(new Task("second", "Description"));
+        taskManager.addTask(new Task("third", "Description"));
+
+        taskManager = reload();
+        FileBackedTaskManager loaded = reload();
+        taskManager = loaded;
+
+        assertEquals(List.of("line1\nline2", "second", "third"),
+                loaded.getAllTasks().stream().map(Task::getName).toList());
+        assertEquals("back\\slash\r\nend", loaded.getAllTasks().get(0).getDescription());
+    }
+
+    @Test
+    void shouldWriteBatchAsSingleJournalRecord() throws IOException {
+        Epic epic = new Epic("Epic", "Description");
+        taskManager.addEpic(epic);
+        Task removed = new Task("Removed", "Description");
+        taskManager.addTask(removed);
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 10, 0);
+
+        BatchResult result = taskManager.applyBatch(List.of(
+                BatchOperation.create(new Subtask("First", "Description", 0, Status.DONE, epic.getId(),
+                        Duration.ofMinutes(30), start)),
+                BatchOperation.create(new Subtask("Second, with comma", "Description", 0, Status.DONE,
+                        epic.getId(), Duration.ofMinutes(30), start.plusHours(1))),
+                BatchOperation.delete(removed.getId())
+        ), BatchMode.ATOMIC);
+        assertTrue(result.isApplied());
+        assertEquals(3, Files.readAllLines(journalFile).size());
+
+        FileBackedTaskManager loaded = reload();
+        taskManager = loaded;
+
+        assertAll(
+                () -> assertTrue(loaded.getAllTasks().isEmpty()),
+                () -> assertEquals(2, loaded.getAllSubtasks().size()),
+                () -> assertEquals(Status.DONE, loaded.getEpicById(epic.getId()).getStatus()),
+                () -> assertEquals(start.plusMinutes(90), loaded.getEpicById(epic.getId()).getEndTime())
+        );
+    }
+
+    @Test
+    void shouldJournalImportAsOneRecordPerChunk() throws IOException {
+        Epic epic = new Epic("Epic", "Description");
+        taskManager.addEpic(epic);
+
+        ImportResult result = taskManager.importTasks(List.of(
+                new Task("Task", "Description"),
+                new Subtask("Subtask", "Description", 0, Status.DONE, epic.getId())
+        ).iterator());
+        assertEquals(2, result.getApplied());
+        assertEquals(2, Files.readAllLines(journalFile).size());
+
+        FileBackedTaskManager loaded = reload();
+        taskManager = loaded;
+
+        assertAll(
+                () -> assertEquals(1, loaded.getAllTasks().size()),
+                () -> assertEquals(1, loaded.getAllSubtasks().size()),
+                () -> assertEquals(Status.DONE, loaded.getEpicById(epic.getId()).getStatus())
+        );
+    }
+
+    @Test
+    void shouldNotBlockMutatorsWhileImportSourceStalls() throws Exception {
+        CountDownLatch stalled = new CountDownLatch(1);
+        CountDownLatch resume = new CountDownLatch(1);
+        Iterator<Task> source = new Iterator<>() {
+            private int produced;
+
+            @Override
+            public boolean hasNext() {
+                if (produced == TaskManager.IMPORT_CHUNK_SIZE) {
+                    stalled.countDown();
+                    try {
+                        resume.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return produced <= TaskManager.IMPORT_CHUNK_SIZE;
+            }
+
+            @Override
+            public Task next() {
+                produced++;
+                return new Task("Imported " + produced, "Description");
+            }
+        };
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<ImportResult> importing = executor.submit(() -> taskManager.importTasks(source));
+        try {
+            assertTrue(stalled.await(10, TimeUnit.SECONDS));
+            // Первый пакет уже применён, а источник стоит — добавление не должно ждать импорт
+            taskManager.addTask(new Task("Task", "Description"));
+            assertEquals(TaskManager.IMPORT_CHUNK_SIZE + 1, taskManager.getAllTasks().size());
+        } finally {
+            resume.countDown();
+        }
+        assertEquals(TaskManager.IMPORT_CHUNK_SIZE + 1, importing.get(10, TimeUnit.SECONDS).getApplied());
+        executor.shutdown();
+
+        FileBackedTaskManager loaded = reload();
+        taskManager = loaded;
+        assertEquals(TaskManager.IMPORT_CHUNK_SIZE + 2, loaded.getAllTasks().size());
+    }
+
+    @Test
+    void shouldReplayClearRecords() {
+        Epic epic = new Epic("Epic", "Description");
+        taskManager.addEpic(epic);
+        taskManager.addSubtask(new Subtask("Subtask", "Description", epic.getId()));
+        taskManager.addTask(new Task("Task", "Description"));
+        taskManager.removeAllSubtasks();
+        taskManager.removeAllTasks();
+
+        FileBackedTaskManager loaded = reload();
+        taskManager = loaded;
+
+        assertTrue(loaded.getAllTasks().isEmpty());
+        assertTrue(loaded.getAllSubtasks().isEmpty());
+        assertTrue(loaded.getEpicById(epic.getId()).getSubIds().isEmpty());
+    }
+
+    @Test
+    void shouldCompactJournalIntoSnapshot() {
+        taskManager.close();
+        taskManager = new FileBackedTaskManager(tempFile, CONFIG.withCompactionThreshold(5));
+        for (int i = 0; i < 12; i++) {
+            taskManager.addTask(new Task("Task " + i, "Description"));
+        }
+
+        FileBackedTaskManager loaded = reload();
+        taskManager = loaded;
+
+        assertEquals(12, loaded.getAllTasks().size());
+        assertFalse(Files.exists(Path.of(journalFile + ".old")));
+    }
+
+    @Test
+    void shouldCountFailedCompactionInStatsAndRecover() throws Exception {
+        // Каталог на месте временного файла снимка не даёт компактификации записать снимок
+        Path blocker = Path.of(tempFile.getPath() + ".tmp");
+        Files.createDirectory(blocker);
+        Files.writeString(blocker.resolve("keep"), "x");
+        try {
+            for (int i = 0; i < 3; i++) {
+                taskManager.addTask(new Task("Task " + i, "Description"));
+            }
+            taskManager.compact();
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (taskManager.getStats().getCompactionFailures() == 0 && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+
+            ManagerStats stats = taskManager.getStats();
+            assertEquals(1, stats.getCompactionFailures());
+            assertEquals(0, stats.getSyncFailures());
+            assertTrue(Files.exists(Path.of(journalFile + ".old")), "Журнал не должен теряться без снимка");
+        } finally {
+            Files.delete(blocker.resolve("keep"));
+            Files.delete(blocker);
+        }
+
+        taskManager.compact();
+        assertFalse(Files.exists(Path.of(journalFile + ".old")), "Журнал должен свернуться синхронно");
+        assertEquals(1, taskManager.getStats().getCompactionFailures());
+
+        FileBackedTaskManager loaded = reload();
+        taskManager = loaded;
+        assertEquals(3, loaded.getAllTasks().size());
+    }
+
+    @Test
+    void shouldStopReplayAtCorruptRecordInRotatedJournal() throws IOException {
+        taskManager.addTask(new Task("First", "Description"));
+        taskManager.addTask(new Task("Second", "Description"));
+        taskManager.close();
+        List<String> records = Files.readAllLines(journalFile);
+        Files.write(Path.of(journalFile + ".old"), List.of(records.get(0), "1a2b U,99,TASK,Torn"));
+        Files.write(journalFile, List.of(records.get(1)));
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(tempFile, CONFIG);
+        taskManager = loaded;
+
+        assertEquals(List.of("First"), loaded.getAllTasks().stream().map(Task::getName).toList());
+    }
+
+    @Test
+    void shouldIgnoreTornRecordAtJournalTail() throws IOException {
+        taskManager.addTask(new Task("Task", "Description"));
+        Files.writeString(journalFile, "1a2b U,99,TASK,Torn", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        FileBackedTaskManager loaded = reload();
+        taskManager = loaded;
+
+        assertEquals(1, loaded.getAllTasks().size());
+    }
+
+    @Test
+    void shouldGroupCommitConcurrentMutations() throws Exception {
+        taskManager.close();
+        taskManager = new FileBackedTaskManager(tempFile, JournalConfig.of(JournalConfig.SyncPolicy.GROUP)
+                .withGroupCommitWindowMicros(1_000)
+                .withMaxBatchSize(32));
+        int threads = 8;
+        int tasksPerThread = 50;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < tasksPerThread; i++) {
+                    taskManager.addTask(new Task("Task", "Description"));
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        // Каждый addTask вернул управление только после fsync, поэтому записи уже в журнале
+        assertEquals(threads * tasksPerThread, Files.readAllLines(journalFile).size());
+
+        FileBackedTaskManager loaded = reload();
+        taskManager = loaded;
+        assertEquals(threads * tasksPerThread, loaded.getAllTasks().size());
+    }
+
+    @Test
+    void shouldReadConsistentlyWhileOtherThreadsCommit() throws Exception {
+        taskManager.close();
+        taskManager = new FileBackedTaskManager(tempFile, JournalConfig.of(JournalConfig.SyncPolicy.GROUP)
+                .withGroupCommitWindowMicros(500));
+        int writers = 4;
+        int tasksPerWriter = 200;
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 0, 0);
+        ExecutorService executor = Executors.newFixedThreadPool(writers + 2);
+        List<Future<?>> writes = new ArrayList<>();
+        for (int w = 0; w < writers; w++) {
+            int writer = w;
+            writes.add(executor.submit(() -> {
+                for (int i = 0; i < tasksPerWriter; i++) {
+                    taskManager.addTask(new Task("Task", "Description", Status.NEW, Duration.ofMinutes(1),
+                            base.plusMinutes((long) i * writers + writer)));
+                }
+            }));
+        }
+        List<Future<?>> reads = new ArrayList<>();
+        for (int r = 0; r < 2; r++) {
+            reads.add(executor.submit(() -> {
+                while (writes.stream().anyMatch(write -> !write.isDone())) {
+                    List<Task> prioritized = taskManager.getPrioritizedTasks();
+                    for (int i = 1; i < prioritized.size(); i++) {
+                        assertTrue(prioritized.get(i - 1).getStartTime().isBefore(prioritized.get(i).getStartTime()));
+                    }
+                    taskManager.findTasks(TaskQuery.of(TaskType.TASK).withLimit(50));
+                    taskManager.getAllTasks().forEach(task -> taskManager.getTaskById(task.getId()));
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : writes) {
+            future.get();
+        }
+        for (Future<?> future : reads) {
+            future.get();
+        }
+        executor.shutdown();
+
+        assertEquals(writers * tasksPerWriter, taskManager.getPrioritizedTasks().size());
+    }
+}
@@ -3,6 +3,7 @@ package managers;
 import org.junit.jupiter.api.Test;
 import util.Managers;
 
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 
 class ManagersTest {
@@ -18,4 +19,9 @@ class ManagersTest {
     void shouldNotBeNullInGetDefaultHistory() {
         assertNotNull(Managers.getDefaultHistory());
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldReturnThreadSafeManagerInGetConcurrent() {
+        assertInstanceOf(ConcurrentTaskManager.class, Managers.getConcurrent());
+    }
+}
@@ -1,11 +1,16 @@
 package managers;
 
+import exceptions.TimeConflictException;
 import org.junit.jupiter.api.*;
 import tasks.*;
 import util.Status;
+import util.TaskType;
 
 import java.io.IOException;
 import java.time.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
 import static org.junit.jupiter.api.Assertions.*;
 
 public abstract class TaskManagerTest<T extends TaskManager> {
@@ -110,4 +115,451 @@ public abstract class TaskManagerTest<T extends TaskManager> {
 
         assertFalse(taskManager.hasTimeOverlap(task3), "Не должно быть пересечения");
     }
+
+    @Test
+    void shouldListOverlappingTasks() {
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 9, 0);
+        Task task1 = new Task("Task 1", "Description", Status.NEW, Duration.ofHours(1), base);
+        Task task2 = new Task("Task 2", "Description", Status.NEW, Duration.ofHours(1), base.plusHours(1));
+        Task task3 = new Task("Task 3", "Description", Status.NEW, Duration.ofHours(1), base.plusHours(3));
+        taskManager.addTask(task1);
+        taskManager.addTask(task2);
+        taskManager.addTask(task3);
+
+        Task candidate = new Task("Candidate", "Description", Status.NEW,
+                Duration.ofMinutes(90), base.plusMinutes(30));
+
+        assertEquals(List.of(task1, task2), taskManager.getOverlappingTasks(candidate));
+    }
+
+    @Test
+    void shouldUpdateTimedTaskWithoutSelfConflict() {
+        Task task = new Task("Task", "Description", Status.NEW,
+                Duration.ofHours(1), LocalDateTime.of(2024, 1, 1, 9, 0));
+        taskManager.addTask(task);
+
+        task.setStartTime(task.getStartTime().plusMinutes(30));
+        taskManager.updateTask(task);
+
+        assertEquals(task.getStartTime(), taskManager.getTaskById(task.getId()).getStartTime());
+        assertEquals(1, taskManager.getPrioritizedTasks().size());
+    }
+
+    @Test
+    void shouldRejectOverlappingTaskCarryingExistingId() {
+        Task existing = new Task("Existing", "Description", Status.NEW,
+                Duration.ofHours(1), LocalDateTime.of(2024, 1, 1, 9, 0));
+        taskManager.addTask(existing);
+        Task overlapping = new Task("Overlapping", "Description", existing.getId(), Status.NEW,
+                Duration.ofHours(1), LocalDateTime.of(2024, 1, 1, 9, 30));
+
+        assertThrows(TimeConflictException.class, () -> taskManager.addTask(overlapping));
+        assertEquals(1, taskManager.getPrioritizedTasks().size());
+        assertEquals("Existing", taskManager.getTaskById(existing.getId()).getName());
+    }
+
+    @Test
+    void shouldRemoveSubtasksOfDeletedEpicFromPrioritized() {
+        Epic epic = new Epic("Epic", "Description");
+        taskManager.addEpic(epic);
+        Subtask subtask = new Subtask("Subtask", "Description", 0, Status.NEW, epic.getId(),
+                Duration.ofHours(1), LocalDateTime.of(2024, 1, 1, 9, 0));
+        taskManager.addSubtask(subtask);
+
+        taskManager.removeEpicById(epic.getId());
+
+        assertTrue(taskManager.getPrioritizedTasks().isEmpty());
+        assertFalse(taskManager.hasTimeOverlap(subtask));
+    }
+
+    @Test
+    void shouldUpdateEpicTimeIncrementally() {
+        Epic epic = new Epic("Epic", "Description");
+        taskManager.addEpic(epic);
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 9, 0);
+        Subtask first = new Subtask("First", "Description", 0, Status.NEW, epic.getId(),
+                Duration.ofHours(1), start);
+        Subtask second = new Subtask("Second", "Description", 0, Status.NEW, epic.getId(),
+                Duration.ofHours(2), start.plusHours(3));
+        taskManager.addSubtask(first);
+        taskManager.addSubtask(second);
+
+        Subtask moved = second.copy();
+        moved.setStatus(Status.DONE);
+        moved.setStartTime(start.plusHours(5));
+        taskManager.updateSubtask(moved);
+
+        Epic stored = taskManager.getEpicById(epic.getId());
+        assertEquals(Status.IN_PROGRESS, stored.getStatus());
+        assertEquals(start, stored.getStartTime());
+        assertEquals(start.plusHours(7), stored.getEndTime());
+        assertEquals(Duration.ofHours(3), stored.getDuration());
+
+        taskManager.removeSubtaskById(first.getId());
+        stored = taskManager.getEpicById(epic.getId());
+        assertEquals(Status.DONE, stored.getStatus());
+        assertEquals(start.plusHours(5), stored.getStartTime());
+        assertEquals(Duration.ofHours(2), stored.getDuration());
+    }
+
+    @Test
+    void shouldMoveSubtaskBetweenEpics() {
+        Epic source = new Epic("Source", "Description");
+        Epic target = new Epic("Target", "Description");
+        taskManager.addEpic(source);
+        taskManager.addEpic(target);
+        Subtask subtask = new Subtask("Subtask", "Description", 0, Status.DONE, source.getId(),
+                Duration.ofHours(1), LocalDateTime.of(2024, 1, 1, 9, 0));
+        taskManager.addSubtask(subtask);
+
+        taskManager.updateSubtask(new Subtask("Subtask", "Description", subtask.getId(), Status.DONE,
+                target.getId(), subtask.getDuration(), subtask.getStartTime()));
+
+        Epic storedSource = taskManager.getEpicById(source.getId());
+        Epic storedTarget = taskManager.getEpicById(target.getId());
+        assertTrue(storedSource.getSubIds().isEmpty());
+        assertEquals(Status.NEW, storedSource.getStatus());
+        assertNull(storedSource.getStartTime());
+        assertEquals(List.of(subtask.getId()), storedTarget.getSubIds());
+        assertEquals(Status.DONE, storedTarget.getStatus());
+        assertEquals(subtask.getStartTime(), storedTarget.getStartTime());
+    }
+
+    @Test
+    void shouldShareFrozenSnapshotsOnRead() {
+        Task task = new Task("Task", "Description");
+        taskManager.addTask(task);
+        Epic epic = new Epic("Epic", "Description");
+        taskManager.addEpic(epic);
+
+        Task stored = taskManager.getTaskById(task.getId());
+        assertSame(stored, taskManager.getTaskById(task.getId()), "Чтение не должно копировать задачу");
+        assertThrows(UnsupportedOperationException.class, () -> stored.setStatus(Status.DONE));
+
+        Epic epicSnapshot = taskManager.getEpicById(epic.getId());
+        assertSame(epicSnapshot, taskManager.getEpicById(epic.getId()));
+        taskManager.addSubtask(new Subtask("Subtask", "Description", epic.getId()));
+        Epic changed = taskManager.getEpicById(epic.getId());
+        assertNotSame(epicSnapshot, changed, "Изменение эпика должно сбрасывать снимок");
+        assertTrue(epicSnapshot.getSubIds().isEmpty());
+        assertEquals(1, changed.getSubIds().size());
+
+        Task update = stored.copy();
+        update.setStatus(Status.DONE);
+        taskManager.updateTask(update);
+        assertEquals(Status.DONE, taskManager.getTaskById(task.getId()).getStatus());
+    }
+
+    @Test
+    void shouldFindTasksPageByPage() {
+        Epic epic = new Epic("Epic", "Description");
+        taskManager.addEpic(epic);
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 9, 0);
+        for (int i = 0; i < 5; i++) {
+            taskManager.addTask(new Task("Task " + i, "Description", i % 2 == 0 ? Status.NEW : Status.DONE,
+                    Duration.ofMinutes(30), start.plusHours(i)));
+            taskManager.addSubtask(new Subtask("Subtask " + i, "Description", epic.getId()));
+        }
+
+        TaskQuery query = TaskQuery.of(TaskType.TASK).withLimit(2);
+        List<Task> first = taskManager.findTasks(query);
+        List<Task> second = taskManager.findTasks(query.withAfterId(first.get(1).getId()));
+        List<Task> third = taskManager.findTasks(query.withAfterId(second.get(1).getId()));
+        assertEquals(2, first.size());
+        assertEquals(2, second.size());
+        assertEquals(1, third.size());
+        assertTrue(first.get(1).getId() < second.get(0).getId(), "Страницы должны идти по возрастанию id");
+
+        assertEquals(3, taskManager.findTasks(TaskQuery.of(TaskType.TASK).withStatus(Status.NEW)).size());
+        assertEquals(2, taskManager.findTasks(TaskQuery.of(TaskType.TASK)
+                .withStartBetween(start.plusHours(1), start.plusHours(3))).size());
+        assertEquals(5, taskManager.findTasks(TaskQuery.of(TaskType.SUBTASK).withEpicId(epic.getId())).size());
+        assertEquals(11, taskManager.findTasks(TaskQuery.all()).size());
+    }
+
+    @Test
+    void shouldPageIndexedFiltersInIdOrder() {
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 9, 0);
+        Epic epic = new Epic("Epic", "Description");
+        taskManager.addEpic(epic);
+        // Поздние по времени задачи получают меньшие id, чтобы порядок индекса не совпадал с порядком id
+        for (int i = 4; i >= 0; i--) {
+            taskManager.addSubtask(new Subtask("Subtask " + i, "Description", 0, Status.NEW, epic.getId(),
+                    Duration.ofMinutes(30), start.plusHours(i)));
+            taskManager.addTask(new Task("Task " + i, "Description", Status.NEW, Duration.ofMinutes(30),
+                    start.plusHours(i).plusMinutes(30)));
+        }
+
+        TaskQuery bySubtasks = TaskQuery.of(TaskType.SUBTASK).withEpicId(epic.getId()).withLimit(2);
+        List<Task> first = taskManager.findTasks(bySubtasks);
+        List<Task> rest = taskManager.findTasks(bySubtasks.withAfterId(first.get(1).getId()).withLimit(10));
+        TaskQuery byTime = TaskQuery.all().withStartBetween(start, start.plusHours(2)).withLimit(3);
+        List<Task> window = taskManager.findTasks(byTime);
+        List<Task> windowRest = taskManager.findTasks(byTime.withAfterId(window.get(2).getId()));
+
+        assertAll(
+                () -> assertEquals(2, first.size()),
+                () -> assertEquals(3, rest.size()),
+                () -> assertTrue(first.get(0).getId() < first.get(1).getId()),
+                () -> assertTrue(first.get(1).getId() < rest.get(0).getId()),
+                () -> assertEquals(List.of(epic.getId()), window.subList(0, 1).stream().map(Task::getId).toList(),
+                        "Эпик начинается в окне и идёт первым по id"),
+                () -> assertEquals(3, window.size()),
+                () -> assertEquals(2, windowRest.size()),
+                () -> assertTrue(window.get(2).getId() < windowRest.get(0).getId()),
+                () -> assertTrue(taskManager.findTasks(TaskQuery.of(TaskType.TASK).withEpicId(epic.getId()))
+                        .isEmpty()),
+                () -> assertTrue(taskManager.findTasks(TaskQuery.of(TaskType.SUBTASK).withEpicId(9999)).isEmpty())
+        );
+    }
+
+    @Test
+    void shouldQueryPrioritizedTasksByRange() {
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 9, 0);
+        // Без длительности задачи не пересекаются, поэтому могут начинаться одновременно
+        Task first = new Task("First", "Description", Status.NEW, null, start);
+        Task second = new Task("Second", "Description", Status.NEW, null, start);
+        Task later = new Task("Later", "Description", Status.NEW, Duration.ofHours(1), start.plusHours(2));
+        taskManager.addTask(first);
+        taskManager.addTask(second);
+        taskManager.addTask(later);
+
+        List<Task> prioritized = taskManager.getPrioritizedTasks();
+        assertEquals(3, prioritized.size(), "Задачи с одинаковым началом не должны теряться");
+        assertSame(prioritized, taskManager.getPrioritizedTasks(), "Снимок без изменений должен переиспользоваться");
+        assertEquals(2, taskManager.getPrioritizedTasks(start, start.plusHours(1)).size());
+        assertEquals(List.of(first.getId()), ids(taskManager.getNextPrioritizedTasks(1)));
+        assertEquals(List.of(second.getId(), later.getId()),
+                ids(taskManager.getPrioritizedTasksAfter(first.getId(), 5)));
+
+        taskManager.removeTaskById(second.getId());
+        assertEquals(2, taskManager.getPrioritizedTasks().size());
+    }
+
+    @Test
+    void shouldApplyAtomicBatchAndRecalculateEpicOnce() {
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 9, 0);
+        Epic epic = new Epic("Epic", "Description");
+        taskManager.addEpic(epic);
+        Task moved = new Task("Moved", "Description", Status.NEW, Duration.ofHours(1), start);
+        taskManager.addTask(moved);
+        Task removed = new Task("Removed", "Description");
+        taskManager.addTask(removed);
+
+        // Задача освобождает своё время, и его сразу занимает подзадача того же пакета
+        Task movedUpdate = new Task("Moved", "Description", moved.getId(), Status.DONE,
+                Duration.ofHours(1), start.plusHours(5));
+        BatchResult result = taskManager.applyBatch(List.of(
+                BatchOperation.create(new Subtask("First", "Description", 0, Status.DONE, epic.getId(),
+                        Duration.ofHours(1), start)),
+                BatchOperation.create(new Subtask("Second", "Description", 0, Status.NEW, epic.getId(),
+                        Duration.ofHours(1), start.plusHours(1))),
+                BatchOperation.update(movedUpdate),
+                BatchOperation.delete(removed.getId()),
+                BatchOperation.create(new Task("Created", "Description"))
+        ), BatchMode.ATOMIC);
+
+        assertTrue(result.isApplied(), "Пакет должен примениться целиком");
+        int createdId = result.getItem(4).getId();
+        Epic savedEpic = taskManager.getEpicById(epic.getId());
+        assertAll(
+                () -> assertEquals(2, taskManager.getAllSubtasksOfEpic(savedEpic).size()),
+                () -> assertEquals(Status.IN_PROGRESS, savedEpic.getStatus()),
+                () -> assertEquals(start, savedEpic.getStartTime()),
+                () -> assertEquals(start.plusHours(2), savedEpic.getEndTime()),
+                () -> assertEquals(start.plusHours(5), taskManager.getTaskById(moved.getId()).getStartTime()),
+                () -> assertNull(taskManager.getTaskById(removed.getId())),
+                () -> assertEquals("Created", taskManager.getTaskById(createdId).getName()),
+                () -> assertEquals(3, taskManager.getPrioritizedTasks().size())
+        );
+    }
+
+    @Test
+    void shouldRejectWholeAtomicBatchOnConflict() {
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 9, 0);
+        Task existing = new Task("Existing", "Description", Status.NEW, Duration.ofHours(1), start);
+        taskManager.addTask(existing);
+
+        BatchResult result = taskManager.applyBatch(List.of(
+                BatchOperation.create(new Task("Valid", "Description", Status.NEW,
+                        Duration.ofHours(1), start.plusHours(3))),
+                BatchOperation.create(new Task("Overlaps existing", "Description", Status.NEW,
+                        Duration.ofMinutes(30), start.plusMinutes(30))),
+                BatchOperation.create(new Task("Overlaps next", "Description", Status.NEW,
+                        Duration.ofHours(1), start.plusHours(5))),
+                BatchOperation.create(new Task("Overlaps previous", "Description", Status.NEW,
+                        Duration.ofHours(1), start.plusHours(5).plusMinutes(30))),
+                BatchOperation.delete(9999)
+        ), BatchMode.ATOMIC);
+
+        assertFalse(result.isApplied());
+        assertAll(
+                () -> assertEquals(BatchResult.Outcome.ABORTED, result.getItem(0).getOutcome()),
+                () -> assertEquals(BatchResult.Outcome.CONFLICT, result.getItem(1).getOutcome()),
+                () -> assertEquals(BatchResult.Outcome.CONFLICT, result.getItem(2).getOutcome()),
+                () -> assertEquals(BatchResult.Outcome.CONFLICT, result.getItem(3).getOutcome()),
+                () -> assertEquals(BatchResult.Outcome.NOT_FOUND, result.getItem(4).getOutcome()),
+                () -> assertEquals(List.of(existing.getId()), ids(taskManager.getAllTasks())),
+                () -> assertEquals(1, taskManager.getPrioritizedTasks().size())
+        );
+    }
+
+    @Test
+    void shouldApplyValidItemsOfPerItemBatch() {
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 9, 0);
+        Epic epic = new Epic("Epic", "Description");
+        taskManager.addEpic(epic);
+
+        BatchResult result = taskManager.applyBatch(List.of(
+                BatchOperation.create(new Subtask("First", "Description", 0, Status.DONE, epic.getId(),
+                        Duration.ofHours(1), start)),
+                BatchOperation.create(new Subtask("Conflicting", "Description", 0, Status.NEW, epic.getId(),
+                        Duration.ofHours(1), start.plusMinutes(30))),
+                BatchOperation.create(new Subtask("Orphan", "Description", 9999)),
+                BatchOperation.update(new Task("Not a task", "Description", epic.getId(), Status.NEW))
+        ), BatchMode.PER_ITEM);
+
+        assertAll(
+                () -> assertEquals(1, result.getAppliedCount()),
+                () -> assertEquals(BatchResult.Outcome.CONFLICT, result.getItem(1).getOutcome()),
+                () -> assertEquals(BatchResult.Outcome.NOT_FOUND, result.getItem(2).getOutcome()),
+                () -> assertEquals(BatchResult.Outcome.INVALID, result.getItem(3).getOutcome()),
+                () -> assertEquals(1, taskManager.getAllSubtasks().size()),
+                () -> assertEquals(Status.DONE, taskManager.getEpicById(epic.getId()).getStatus())
+        );
+    }
+
+    @Test
+    void shouldNotHandOutIdsKeptFromClient() {
+        Task probe = new Task("Probe", "Description");
+        taskManager.addTask(probe);
+        int first = probe.getId() + 1;
+
+        BatchResult result = taskManager.applyBatch(List.of(
+                BatchOperation.create(new Task("Explicit 1", "Description", first, Status.NEW)),
+                BatchOperation.create(new Task("Explicit 2", "Description", first + 1, Status.NEW))
+        ), BatchMode.PER_ITEM);
+        Task added = new Task("Added", "Description");
+        taskManager.addTask(added);
+        Epic epic = new Epic("Epic", "Description");
+        epic.setId(probe.getId());
+        taskManager.addEpic(epic);
+
+        assertAll(
+                () -> assertEquals(List.of(first, first + 1),
+                        result.getItems().stream().map(BatchResult.Item::getId).toList()),
+                () -> assertTrue(added.getId() > first + 1),
+                () -> assertEquals("Explicit 2", taskManager.getTaskById(first + 1).getName()),
+                () -> assertNotEquals(probe.getId(), epic.getId(), "Эпик не должен занять id задачи"),
+                () -> assertNotEquals(added.getId(), epic.getId()),
+                () -> assertEquals(4, taskManager.getAllTasks().size())
+        );
+    }
+
+    @Test
+    void shouldKeepSubtaskIdWhenEpicIsMissing() {
+        Task task = new Task("Task", "Description");
+        taskManager.addTask(task);
+        Subtask orphan = new Subtask("Orphan", "Description", 9999);
+        orphan.setId(task.getId());
+
+        taskManager.addSubtask(orphan);
+
+        assertEquals(task.getId(), orphan.getId(), "id не должен меняться, если подзадача не добавлена");
+        assertTrue(taskManager.getAllSubtasks().isEmpty());
+    }
+
+    @Test
+    void shouldImportTasksOneByOneAndRecalculateEpicsAtEnd() {
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 9, 0);
+        Epic epic = new Epic("Imported epic", "Description");
+        epic.setId(900_000);
+        long version = taskManager.getVersion(TaskType.EPIC);
+
+        ImportResult result = taskManager.importTasks(List.of(
+                epic,
+                new Subtask("First", "Description", 0, Status.DONE, epic.getId(), Duration.ofHours(1), start),
+                new Subtask("Conflicting", "Description", 0, Status.NEW, epic.getId(),
+                        Duration.ofHours(1), start.plusMinutes(30)),
+                new Subtask("Second", "Description", 0, Status.DONE, epic.getId(),
+                        Duration.ofHours(1), start.plusHours(2)),
+                new Subtask("Orphan", "Description", 9999)
+        ).iterator());
+
+        Epic stored = taskManager.getEpicById(epic.getId());
+        assertAll(
+                () -> assertEquals(3, result.getApplied()),
+                () -> assertEquals(2, result.getRejected()),
+                () -> assertEquals(3, result.getFailures().get(0).getPosition()),
+                () -> assertEquals(BatchResult.Outcome.CONFLICT, result.getFailures().get(0).getOutcome()),
+                () -> assertEquals(BatchResult.Outcome.NOT_FOUND, result.getFailures().get(1).getOutcome()),
+                () -> assertEquals(2, taskManager.getAllSubtasks().size()),
+                () -> assertEquals(Status.DONE, stored.getStatus()),
+                () -> assertEquals(start.plusHours(3), stored.getEndTime()),
+                () -> assertTrue(taskManager.getVersion(TaskType.EPIC) > version)
+        );
+    }
+
+    @Test
+    void shouldImportMoreTasksThanOneChunk() {
+        int count = TaskManager.IMPORT_CHUNK_SIZE * 2 + 1;
+        List<Task> source = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            source.add(new Task("Task " + i, "Description"));
+        }
+
+        ImportResult result = taskManager.importTasks(source.iterator());
+
+        assertEquals(count, result.getApplied());
+        assertEquals(count, taskManager.getAllTasks().size());
+    }
+
+    @Test
+    void shouldAdvanceVersionOnEveryChange() {
+        long initial = taskManager.getVersion();
+        Task task = new Task("Task", "Description");
+        taskManager.addTask(task);
+        long afterAdd = taskManager.getVersion();
+        Task stored = taskManager.getTaskById(task.getId());
+        assertEquals(afterAdd, taskManager.getVersion(), "Чтение не должно менять версию");
+
+        Task changed = stored.copy();
+        changed.setStatus(Status.DONE);
+        taskManager.updateTask(changed);
+        long afterUpdate = taskManager.getVersion();
+        Task updated = taskManager.getTaskById(task.getId());
+        taskManager.removeTaskById(task.getId());
+
+        assertAll(
+                () -> assertTrue(afterAdd > initial),
+                () -> assertTrue(afterUpdate > afterAdd),
+                () -> assertTrue(taskManager.getVersion() > afterUpdate),
+                () -> assertNotEquals(stored.getVersion(), updated.getVersion())
+        );
+    }
+
+    @Test
+    void shouldAdvanceOnlyVersionsOfChangedLists() {
+        Epic epic = new Epic("Epic", "Description");
+        taskManager.addEpic(epic);
+        long tasksVersion = taskManager.getVersion(TaskType.TASK);
+        long epicsVersion = taskManager.getVersion(TaskType.EPIC);
+        long historyVersion = taskManager.getHistoryVersion();
+
+        taskManager.addSubtask(new Subtask("Subtask", "Description", epic.getId()));
+
+        assertAll(
+                () -> assertEquals(tasksVersion, taskManager.getVersion(TaskType.TASK)),
+                () -> assertTrue(taskManager.getVersion(TaskType.EPIC) > epicsVersion,
+                        "Подзадача меняет статус эпика"),
+                () -> assertEquals(taskManager.getVersion(), taskManager.getVersion(TaskType.SUBTASK)),
+                () -> assertEquals(historyVersion, taskManager.getHistoryVersion())
+        );
+        taskManager.getEpicById(epic.getId());
+        assertTrue(taskManager.getHistoryVersion() > historyVersion);
+    }
+
+    private static List<Integer> ids(List<Task> tasks) {
+        return tasks.stream().map(Task::getId).collect(Collectors.toList());
+    }
 }
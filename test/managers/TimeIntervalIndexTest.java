@@ -0,0 +1,87 @@
+package managers;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import tasks.Task;
+import util.Status;
+
+class TimeIntervalIndexTest {
+    private static final LocalDateTime BASE = LocalDateTime.of(2024, 1, 1, 10, 0);
+
+    private TimeIntervalIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new TimeIntervalIndex();
+    }
+
+    private Task task(int id, int startOffsetMinutes, int durationMinutes) {
+        return new Task("Task " + id, "Desc", id, Status.NEW,
+                Duration.ofMinutes(durationMinutes), BASE.plusMinutes(startOffsetMinutes));
+    }
+
+    @Test
+    void shouldDetectOverlapWithNeighbours() {
+        index.add(task(1, 0, 60));
+        index.add(task(2, 120, 60));
+
+        assertTrue(index.hasOverlap(task(10, 30, 10)), "Внутри первого интервала");
+        assertTrue(index.hasOverlap(task(10, 90, 60)), "Захватывает начало второго интервала");
+        assertFalse(index.hasOverlap(task(10, 60, 60)), "Стык интервалов не является пересечением");
+        assertFalse(index.hasOverlap(task(10, 180, 30)), "После всех интервалов");
+    }
+
+    @Test
+    void shouldListAllOverlapsInStartOrder() {
+        index.add(task(1, 0, 60));
+        index.add(task(2, 60, 60));
+        index.add(task(3, 120, 60));
+        index.add(task(4, 240, 60));
+
+        List<Task> overlaps = index.findOverlaps(task(10, 30, 120));
+
+        assertEquals(List.of(1, 2, 3), overlaps.stream().map(Task::getId).toList());
+    }
+
+    @Test
+    void shouldIgnoreOnlyExplicitlyExcludedTask() {
+        index.add(task(1, 0, 60));
+
+        assertFalse(index.hasOverlap(task(1, 30, 60), 1), "Обновляемая задача не пересекается сама с собой");
+        assertTrue(index.hasOverlap(task(1, 30, 60)), "Новая задача с тем же id должна пересекаться");
+        assertEquals(List.of(1), index.findOverlaps(task(1, 30, 60)).stream().map(Task::getId).toList());
+    }
+
+    @Test
+    void shouldHandleZeroLengthIntervals() {
+        index.add(task(1, 60, 0));
+        index.add(task(2, 60, 60));
+
+        assertTrue(index.hasOverlap(task(10, 90, 10)));
+        assertFalse(index.hasOverlap(task(10, 0, 60)));
+        assertEquals(List.of(2), index.findOverlaps(task(10, 60, 30)).stream().map(Task::getId).toList());
+    }
+
+    @Test
+    void shouldForgetRemovedIntervals() {
+        Task task = task(1, 0, 60);
+        index.add(task);
+        index.remove(task);
+
+        assertEquals(0, index.size());
+        assertFalse(index.hasOverlap(task(10, 0, 60)));
+    }
+
+    @Test
+    void shouldIgnoreTasksWithoutTime() {
+        index.add(new Task("No time", "Desc"));
+
+        assertEquals(0, index.size());
+        assertFalse(index.hasOverlap(new Task("No time", "Desc")));
+    }
+}
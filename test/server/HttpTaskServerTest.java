@@ -0,0 +1,78 @@
+package server;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import managers.ConcurrentTaskManager;
+import managers.InMemoryTaskManager;
+import managers.TaskQuery;
+import org.junit.jupiter.api.Test;
+import tasks.Task;
+
+class HttpTaskServerTest {
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    private HttpRequest get(HttpTaskServer server, String path) {
+        return HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:" + server.getPort() + path))
+                .GET()
+                .build();
+    }
+
+    @Test
+    void shouldServeParallelRequestsOnVirtualThreads() throws Exception {
+        ConcurrentTaskManager manager = new ConcurrentTaskManager();
+        manager.addTask(new Task("Task", "Description"));
+        HttpTaskServer server = new HttpTaskServer(manager, HttpServerConfig.defaults()
+                .withPort(0)
+                .withExecutionMode(HttpServerConfig.ExecutionMode.VIRTUAL_THREADS));
+        server.start();
+        try {
+            List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                responses.add(client.sendAsync(get(server, "/tasks"), HttpResponse.BodyHandlers.ofString()));
+            }
+            for (CompletableFuture<HttpResponse<String>> response : responses) {
+                assertEquals(200, response.get().statusCode());
+            }
+        } finally {
+            server.stop();
+        }
+    }
+
+    @Test
+    void shouldDrainInFlightRequestsOnStop() throws Exception {
+        CountDownLatch requestStarted = new CountDownLatch(1);
+        InMemoryTaskManager slowManager = new InMemoryTaskManager() {
+            @Override
+            public List<Task> findTasks(TaskQuery query) {
+                requestStarted.countDown();
+                try {
+                    Thread.sleep(300);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.findTasks(query);
+            }
+        };
+        HttpTaskServer server = new HttpTaskServer(slowManager, HttpServerConfig.defaults()
+                .withPort(0)
+                .withExecutionMode(HttpServerConfig.ExecutionMode.POOLED)
+                .withPoolSize(2));
+        server.start();
+
+        CompletableFuture<HttpResponse<String>> inFlight =
+                client.sendAsync(get(server, "/tasks"), HttpResponse.BodyHandlers.ofString());
+        requestStarted.await();
+        server.stop();
+
+        assertEquals(200, inFlight.get().statusCode(), "Начатый запрос должен завершиться");
+    }
+}
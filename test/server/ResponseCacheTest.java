@@ -0,0 +1,113 @@
+package server;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import tasks.Task;
+import util.Status;
+
+class ResponseCacheTest {
+
+    private static Task frozenTask(int id, String name) {
+        Task task = new Task(name, "Description", id, Status.NEW);
+        return task.freeze();
+    }
+
+    @Test
+    void shouldSerializeEntityOncePerVersion() {
+        ResponseCache cache = new ResponseCache(1024 * 1024);
+        AtomicInteger serialized = new AtomicInteger();
+        Task first = frozenTask(1, "First");
+
+        byte[] body = cache.entity(first, () -> bytes(serialized, "first"));
+        assertSame(body, cache.entity(first, () -> bytes(serialized, "first")));
+        assertEquals(1, serialized.get());
+
+        Task updated = first.copy();
+        updated.setName("Updated");
+        updated.freeze();
+        assertNotEquals(first.getVersion(), updated.getVersion());
+        assertEquals("updated", new String(cache.entity(updated, () -> bytes(serialized, "updated")),
+                StandardCharsets.UTF_8));
+        assertAll(
+                () -> assertEquals(2, serialized.get()),
+                () -> assertEquals(1, cache.getHits()),
+                () -> assertEquals(2, cache.getMisses()),
+                () -> assertEquals(1, cache.getEntries())
+        );
+    }
+
+    @Test
+    void shouldNotCacheUnfrozenTasks() {
+        ResponseCache cache = new ResponseCache(1024 * 1024);
+        AtomicInteger serialized = new AtomicInteger();
+        Task draft = new Task("Draft", "Description", 1, Status.NEW);
+
+        cache.entity(draft, () -> bytes(serialized, "draft"));
+        cache.entity(draft, () -> bytes(serialized, "draft"));
+
+        assertEquals(2, serialized.get());
+        assertEquals(0, cache.getEntries());
+    }
+
+    @Test
+    void shouldMissCollectionOnOtherVersion() {
+        ResponseCache cache = new ResponseCache(1024 * 1024);
+        cache.putCollection("/tasks", 5, "[]".getBytes(StandardCharsets.UTF_8), "abc");
+
+        ResponseCache.Entry entry = cache.collection("/tasks", 5);
+        assertNotNull(entry);
+        assertEquals("abc", entry.getNextCursor());
+        assertNull(cache.collection("/tasks", 6));
+        assertNull(cache.collection("/tasks?limit=1", 5));
+    }
+
+    @Test
+    void shouldEvictOldestEntriesOverBudget() {
+        ResponseCache cache = new ResponseCache(64 * 1024);
+        byte[] body = new byte[30 * 1024];
+        cache.putCollection("/a", 1, body, null);
+        cache.putCollection("/b", 1, body, null);
+        cache.putCollection("/c", 1, body, null);
+
+        assertAll(
+                () -> assertNull(cache.collection("/a", 1)),
+                () -> assertNotNull(cache.collection("/b", 1)),
+                () -> assertNotNull(cache.collection("/c", 1)),
+                () -> assertEquals(1, cache.getEvictions()),
+                () -> assertEquals(60 * 1024 + 2 * ResponseCache.ENTRY_OVERHEAD, cache.getBytes())
+        );
+    }
+
+    @Test
+    void shouldBoundNumberOfTinyEntries() {
+        ResponseCache cache = new ResponseCache(64 * 1024);
+        byte[] empty = "[]".getBytes(StandardCharsets.UTF_8);
+        for (int i = 0; i < 100_000; i++) {
+            cache.putCollection("/tasks?nonce=" + i, 1, empty, null);
+        }
+
+        assertTrue(cache.getEntries() <= 64 * 1024 / ResponseCache.ENTRY_OVERHEAD);
+        assertTrue(cache.getBytes() <= 64 * 1024);
+    }
+
+    @Test
+    void shouldSkipOversizedAndDisabled() {
+        ResponseCache cache = new ResponseCache(64 * 1024);
+        cache.putCollection("/big", 1, new byte[cache.getMaxEntryBytes() + 1], null);
+        assertNull(cache.collection("/big", 1));
+        assertEquals(0, cache.getBytes());
+
+        ResponseCache disabled = ResponseCache.disabled();
+        disabled.putCollection("/tasks", 1, new byte[1], null);
+        assertFalse(disabled.isEnabled());
+        assertNull(disabled.collection("/tasks", 1));
+    }
+
+    private static byte[] bytes(AtomicInteger counter, String text) {
+        counter.incrementAndGet();
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+}
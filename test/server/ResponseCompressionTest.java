@@ -0,0 +1,79 @@
+package server;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+import org.junit.jupiter.api.Test;
+
+class ResponseCompressionTest {
+    private final ResponseCompression compression = new ResponseCompression(256, 6);
+
+    @Test
+    void shouldNegotiateByQuality() {
+        assertAll(
+                () -> assertEquals("gzip", compression.negotiate("gzip, deflate, br")),
+                () -> assertEquals("deflate", compression.negotiate("gzip;q=0.5, deflate")),
+                () -> assertEquals("gzip", compression.negotiate("br, *")),
+                () -> assertNull(compression.negotiate("gzip;q=0, identity")),
+                () -> assertNull(compression.negotiate("br")),
+                () -> assertNull(compression.negotiate(null)),
+                () -> assertNull(ResponseCompression.disabled().negotiate("gzip"))
+        );
+    }
+
+    @Test
+    void shouldRoundTripGzipAndDeflate() throws IOException {
+        byte[] body = sampleJson();
+
+        assertArrayEquals(body, new GZIPInputStream(new ByteArrayInputStream(compress(body, "gzip"))).readAllBytes());
+        assertArrayEquals(body,
+                new InflaterInputStream(new ByteArrayInputStream(compress(body, "deflate"))).readAllBytes());
+    }
+
+    @Test
+    void shouldCountBytesAndResponses() throws IOException {
+        byte[] body = sampleJson();
+        byte[] compressed = compress(body, "gzip");
+
+        assertAll(
+                () -> assertEquals(1, compression.getCompressedResponses()),
+                () -> assertEquals(body.length, compression.getBytesIn()),
+                () -> assertEquals(compressed.length, compression.getBytesOut()),
+                () -> assertTrue(compressed.length * 5 < body.length, "Повторяющийся JSON должен сжиматься"),
+                () -> assertTrue(compression.getCompressionNanos() > 0)
+        );
+    }
+
+    @Test
+    void shouldRejectInvalidSettings() {
+        assertThrows(IllegalArgumentException.class, () -> new ResponseCompression(-1, 6));
+        assertThrows(IllegalArgumentException.class, () -> new ResponseCompression(0, 10));
+    }
+
+    private byte[] compress(byte[] body, String encoding) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (OutputStream compressing = compression.compress(out, encoding)) {
+            // Частями, как пишет потоковый ответ
+            for (int off = 0; off < body.length; off += 1000) {
+                compressing.write(body, off, Math.min(1000, body.length - off));
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] sampleJson() {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < 500; i++) {
+            json.append(i == 0 ? "" : ",").append("{\"name\":\"Task ").append(i)
+                    .append("\",\"description\":\"Description\",\"id\":").append(i).append(",\"status\":\"NEW\"}");
+        }
+        return json.append(']').toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
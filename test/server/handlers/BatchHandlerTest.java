@@ -0,0 +1,81 @@
+package server.handlers;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import org.junit.jupiter.api.Test;
+import tasks.Epic;
+import tasks.Task;
+import util.Status;
+
+class BatchHandlerTest extends BaseHttpHandlerTest {
+
+    private HttpResponse<String> postBatch(String body) throws Exception {
+        return client.send(HttpRequest.newBuilder()
+                .uri(URI.create(getBaseUrl() + "/batch"))
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    @Test
+    void testPostBatch_atomic() throws Exception {
+        Epic epic = createTestEpic("Epic");
+        Task removed = createTestTask("Removed", Status.NEW);
+        String body = "{\"operations\":["
+                + "{\"op\":\"create\",\"type\":\"SUBTASK\",\"task\":{\"name\":\"Sub\",\"description\":\"D\","
+                + "\"status\":\"DONE\",\"epicId\":" + epic.getId() + ",\"duration\":\"PT30M\","
+                + "\"startTime\":\"2024-01-01T10:00:00\"}},"
+                + "{\"op\":\"create\",\"type\":\"TASK\",\"task\":{\"name\":\"New\",\"description\":\"D\","
+                + "\"status\":\"NEW\"}},"
+                + "{\"op\":\"delete\",\"id\":" + removed.getId() + "}]}";
+
+        HttpResponse<String> response = postBatch(body);
+
+        assertEquals(200, response.statusCode());
+        JsonArray items = JsonParser.parseString(response.body()).getAsJsonObject().getAsJsonArray("items");
+        assertEquals(3, items.size());
+        assertEquals("APPLIED", items.get(0).getAsJsonObject().get("outcome").getAsString());
+        int createdId = items.get(1).getAsJsonObject().get("id").getAsInt();
+        assertEquals("New", taskManager.getTaskById(createdId).getName());
+        assertNull(taskManager.getTaskById(removed.getId()));
+        assertEquals(Status.DONE, taskManager.getEpicById(epic.getId()).getStatus());
+    }
+
+    @Test
+    void testPostBatch_atomicRejected() throws Exception {
+        String body = "{\"mode\":\"ATOMIC\",\"operations\":["
+                + "{\"op\":\"create\",\"type\":\"TASK\",\"task\":{\"name\":\"New\",\"description\":\"D\"}},"
+                + "{\"op\":\"delete\",\"id\":9999}]}";
+
+        HttpResponse<String> response = postBatch(body);
+
+        assertEquals(404, response.statusCode());
+        JsonObject result = JsonParser.parseString(response.body()).getAsJsonObject();
+        assertEquals("ABORTED", result.getAsJsonArray("items").get(0).getAsJsonObject().get("outcome").getAsString());
+        assertTrue(taskManager.getAllTasks().isEmpty());
+    }
+
+    @Test
+    void testPostBatch_perItem() throws Exception {
+        String body = "{\"mode\":\"per_item\",\"operations\":["
+                + "{\"op\":\"create\",\"type\":\"TASK\",\"task\":{\"name\":\"New\",\"description\":\"D\"}},"
+                + "{\"op\":\"delete\",\"id\":9999}]}";
+
+        HttpResponse<String> response = postBatch(body);
+
+        assertEquals(200, response.statusCode());
+        assertEquals(1, taskManager.getAllTasks().size());
+    }
+
+    @Test
+    void testPostBatch_invalidOperation() throws Exception {
+        HttpResponse<String> response = postBatch("{\"operations\":[{\"op\":\"create\",\"task\":{}}]}");
+
+        assertEquals(400, response.statusCode());
+    }
+}
@@ -5,10 +5,13 @@ import static org.junit.jupiter.api.Assertions.*;
 import java.net.URI;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.util.List;
 import org.junit.jupiter.api.Test;
 import tasks.Epic;
 import tasks.Subtask;
+import tasks.Task;
 import util.Status;
+import util.TaskWireFormat;
 
 class EpicsHandlerTest extends BaseHttpHandlerTest {
 
@@ -166,4 +169,45 @@ class EpicsHandlerTest extends BaseHttpHandlerTest {
         assertTrue(taskManager.getAllEpics().isEmpty());
         assertTrue(taskManager.getAllSubtasks().isEmpty());
     }
+
+    @Test
+    void testGetEpics_binaryWhenRequested() throws Exception {
+        Epic epic = createTestEpic("Epic 1");
+        Subtask subtask = createTestSubtask("Subtask 1", epic.getId());
+        HttpRequest binary = HttpRequest.newBuilder()
+                .uri(URI.create(getBaseUrl() + "/epics"))
+                .header("Accept", TaskWireFormat.CONTENT_TYPE + ", application/json;q=0.5")
+                .GET()
+                .build();
+
+        HttpResponse<List<Task>> response = client.send(binary, TaskWireFormat.bodyHandler());
+
+        assertEquals(200, response.statusCode());
+        assertEquals(TaskWireFormat.CONTENT_TYPE, response.headers().firstValue("Content-Type").orElseThrow());
+        assertEquals(1, response.body().size());
+        Epic decoded = (Epic) response.body().get(0);
+        assertEquals(epic.getName(), decoded.getName());
+        assertEquals(List.of(subtask.getId()), decoded.getSubIds());
+
+        HttpResponse<String> json = client.send(HttpRequest.newBuilder()
+                .uri(URI.create(getBaseUrl() + "/epics"))
+                .header("Accept", "*/*")
+                .GET()
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertTrue(json.headers().firstValue("Content-Type").orElseThrow().startsWith("application/json"));
+        assertNotEquals(json.headers().firstValue("ETag"), response.headers().firstValue("ETag"));
+    }
+
+    @Test
+    void testGetEpicById_binaryWhenRequested() throws Exception {
+        Epic epic = createTestEpic("Epic 1");
+        HttpResponse<List<Task>> response = client.send(HttpRequest.newBuilder()
+                .uri(URI.create(getBaseUrl() + "/epics/" + epic.getId()))
+                .header("Accept", TaskWireFormat.CONTENT_TYPE)
+                .GET()
+                .build(), TaskWireFormat.bodyHandler());
+
+        assertEquals(200, response.statusCode());
+        assertEquals(List.of(epic.getId()), response.body().stream().map(Task::getId).toList());
+    }
 }
@@ -44,4 +44,29 @@ class HistoryHandlerTest extends BaseHttpHandlerTest {
         Task[] history = gson.fromJson(response.body(), Task[].class);
         assertEquals(2, history.length);
     }
-}
\ No newline at end of file
+
+    @Test
+    void testGetHistory_notModifiedUntilNextView() throws Exception {
+        Task task = createTestTask("Task 1", Status.NEW);
+        taskManager.getTaskById(task.getId());
+        HttpResponse<String> first = client.send(HttpRequest.newBuilder()
+                .uri(URI.create(getBaseUrl() + "/history"))
+                .GET()
+                .build(), HttpResponse.BodyHandlers.ofString());
+        String etag = first.headers().firstValue("ETag").orElseThrow();
+        HttpRequest conditional = HttpRequest.newBuilder()
+                .uri(URI.create(getBaseUrl() + "/history"))
+                .header("If-None-Match", etag)
+                .GET()
+                .build();
+
+        HttpResponse<String> unchanged = client.send(conditional, HttpResponse.BodyHandlers.ofString());
+        assertEquals(304, unchanged.statusCode());
+        assertEquals("", unchanged.body());
+
+        taskManager.getTaskById(task.getId());
+        HttpResponse<String> viewed = client.send(conditional, HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, viewed.statusCode());
+        assertNotEquals(etag, viewed.headers().firstValue("ETag").orElseThrow());
+    }
+}
@@ -0,0 +1,100 @@
+package server.handlers;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+import org.junit.jupiter.api.Test;
+import tasks.Epic;
+import util.Status;
+
+class ImportHandlerTest extends BaseHttpHandlerTest {
+
+    private HttpResponse<String> postImport(HttpRequest.BodyPublisher body, String... headers) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder()
+                .uri(URI.create(getBaseUrl() + "/import"))
+                .header("Content-Type", "application/x-ndjson")
+                .POST(body);
+        if (headers.length > 0) {
+            request.headers(headers);
+        }
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    @Test
+    void testImport_mixedLines() throws Exception {
+        Epic epic = createTestEpic("Epic");
+        String body = "{\"type\":\"TASK\",\"name\":\"Task\",\"description\":\"D\",\"status\":\"NEW\"}\n"
+                + "\r\n"
+                + "{\"type\":\"SUBTASK\",\"name\":\"Sub\",\"description\":\"D\",\"status\":\"DONE\",\"epicId\":"
+                + epic.getId() + "}\r\n"
+                + "{not json\n"
+                + "{\"type\":\"SUBTASK\",\"name\":\"Orphan\",\"description\":\"D\",\"epicId\":9999}\n"
+                + "{\"name\":\"Last line without newline\",\"description\":\"D\"}";
+
+        HttpResponse<String> response = postImport(HttpRequest.BodyPublishers.ofString(body));
+
+        assertEquals(200, response.statusCode());
+        JsonObject summary = JsonParser.parseString(response.body()).getAsJsonObject();
+        assertEquals(6, summary.get("lines").getAsLong());
+        assertEquals(body.getBytes(StandardCharsets.UTF_8).length, summary.get("bytes").getAsLong());
+        assertEquals(3, summary.get("applied").getAsLong());
+        assertEquals(1, summary.get("rejected").getAsLong());
+        assertEquals(1, summary.get("malformed").getAsLong());
+        assertEquals(4, summary.getAsJsonArray("malformedLines").get(0).getAsJsonObject().get("line").getAsLong());
+        assertEquals("NOT_FOUND",
+                summary.getAsJsonArray("failures").get(0).getAsJsonObject().get("outcome").getAsString());
+        assertEquals(2, taskManager.getAllTasks().size());
+        assertEquals(Status.DONE, taskManager.getEpicById(epic.getId()).getStatus());
+    }
+
+    @Test
+    void testImport_gzipBody() throws Exception {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            body.append("{\"name\":\"Task ").append(i).append("\",\"description\":\"D\"}\n");
+        }
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+            out.write(body.toString().getBytes(StandardCharsets.UTF_8));
+        }
+
+        HttpResponse<String> response = postImport(HttpRequest.BodyPublishers.ofByteArray(compressed.toByteArray()),
+                "Content-Encoding", "gzip");
+
+        assertEquals(200, response.statusCode());
+        JsonObject summary = JsonParser.parseString(response.body()).getAsJsonObject();
+        assertEquals(500, summary.get("applied").getAsLong());
+        assertEquals(compressed.size(), summary.get("bytes").getAsLong());
+        assertEquals(500, taskManager.getAllTasks().size());
+    }
+
+    @Test
+    void testImport_lineTooLong() throws Exception {
+        String body = "{\"name\":\"" + "x".repeat(ImportHandler.MAX_LINE_CHARS) + "\",\"description\":\"D\"}\n"
+                + "{\"name\":\"Task\",\"description\":\"D\"}\n";
+
+        HttpResponse<String> response = postImport(HttpRequest.BodyPublishers.ofString(body));
+
+        assertEquals(200, response.statusCode());
+        JsonObject summary = JsonParser.parseString(response.body()).getAsJsonObject();
+        assertEquals(1, summary.get("malformed").getAsLong());
+        assertEquals(1, summary.get("applied").getAsLong());
+        assertEquals("Task", taskManager.getAllTasks().get(0).getName());
+    }
+
+    @Test
+    void testImport_unsupportedEncoding() throws Exception {
+        HttpResponse<String> response = postImport(HttpRequest.BodyPublishers.ofString("{}"),
+                "Content-Encoding", "br");
+
+        assertEquals(415, response.statusCode());
+        assertTrue(taskManager.getAllTasks().isEmpty());
+    }
+}
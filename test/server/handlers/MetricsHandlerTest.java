@@ -0,0 +1,57 @@
+package server.handlers;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import org.junit.jupiter.api.Test;
+import util.Status;
+
+class MetricsHandlerTest extends BaseHttpHandlerTest {
+
+    @Test
+    void testGetMetrics() throws Exception {
+        createTestTask("Task 1", Status.NEW);
+        createTestSubtask("Subtask 1", createTestEpic("Epic 1").getId());
+        for (int i = 0; i < 3; i++) {
+            client.send(HttpRequest.newBuilder()
+                    .uri(URI.create(getBaseUrl() + "/tasks"))
+                    .GET()
+                    .build(), HttpResponse.BodyHandlers.ofString());
+        }
+        client.send(HttpRequest.newBuilder()
+                .uri(URI.create(getBaseUrl() + "/tasks/9999"))
+                .GET()
+                .build(), HttpResponse.BodyHandlers.ofString());
+
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder()
+                .uri(URI.create(getBaseUrl() + "/metrics"))
+                .GET()
+                .build(), HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, response.statusCode());
+        assertTrue(response.headers().firstValue("Content-Type").orElseThrow().startsWith("text/plain"));
+        String body = response.body();
+        assertTrue(body.contains("kanban_http_requests_total{route=\"/tasks\",method=\"GET\",code=\"200\"} 3\n"));
+        assertTrue(body.contains("kanban_http_requests_total{route=\"/tasks\",method=\"GET\",code=\"404\"} 1\n"));
+        assertTrue(body.contains("kanban_http_request_duration_seconds_count{route=\"/tasks\",method=\"GET\"} 4\n"));
+        assertTrue(body.contains("kanban_http_request_duration_seconds_bucket{route=\"/tasks\",method=\"GET\",le=\"+Inf\"} 4\n"));
+        assertTrue(body.contains("kanban_http_requests_in_flight{route=\"/tasks\"} 0\n"));
+        assertTrue(body.contains("kanban_tasks{type=\"TASK\"} 1\n"));
+        assertTrue(body.contains("kanban_tasks{type=\"EPIC\"} 1\n"));
+        assertTrue(body.contains("kanban_tasks{type=\"SUBTASK\"} 1\n"));
+        assertFalse(body.contains("kanban_save_duration_seconds"));
+        assertFalse(body.contains("kanban_journal_sync_failures_total"));
+    }
+
+    @Test
+    void testPostMetrics_methodNotAllowed() throws Exception {
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder()
+                .uri(URI.create(getBaseUrl() + "/metrics"))
+                .POST(HttpRequest.BodyPublishers.noBody())
+                .build(), HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(405, response.statusCode());
+    }
+}
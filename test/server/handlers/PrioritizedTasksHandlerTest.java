@@ -35,4 +35,27 @@ class PrioritizedTasksHandlerTest extends BaseHttpHandlerTest {
         assertEquals(2, prioritized.length);
         assertEquals("Task 2", prioritized[0].getName()); // Должен быть первым
     }
-}
\ No newline at end of file
+
+    @Test
+    void testGetPrioritizedTasks_pagedWithCursor() throws Exception {
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 9, 0);
+        for (int i = 0; i < 3; i++) {
+            taskManager.addTask(new Task("Task " + i, "Desc", Status.NEW, Duration.ofMinutes(30), start.plusHours(i)));
+        }
+
+        HttpResponse<String> first = client.send(HttpRequest.newBuilder()
+                .uri(URI.create(getBaseUrl() + "/prioritized?limit=2"))
+                .GET()
+                .build(), HttpResponse.BodyHandlers.ofString());
+        String cursor = first.headers().firstValue("X-Next-Cursor").orElseThrow();
+        HttpResponse<String> second = client.send(HttpRequest.newBuilder()
+                .uri(URI.create(getBaseUrl() + "/prioritized?limit=2&after=" + cursor))
+                .GET()
+                .build(), HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(2, gson.fromJson(first.body(), Task[].class).length);
+        Task[] rest = gson.fromJson(second.body(), Task[].class);
+        assertEquals(1, rest.length);
+        assertEquals("Task 2", rest[0].getName());
+    }
+}
@@ -2,9 +2,14 @@ package server.handlers;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.io.ByteArrayInputStream;
 import java.net.URI;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.zip.GZIPInputStream;
 import org.junit.jupiter.api.Test;
 import tasks.Task;
 import util.Status;
@@ -40,6 +45,24 @@ class TasksHandlerTest extends BaseHttpHandlerTest {
         assertEquals(400, response.statusCode());
     }
 
+    @Test
+    void testCreateTask_timeConflict() throws Exception {
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 9, 0);
+        taskManager.addTask(new Task("Existing", "Desc", Status.NEW, Duration.ofHours(1), start));
+        String json = gson.toJson(new Task("Overlapping", "Desc", Status.NEW, Duration.ofHours(1),
+                start.plusMinutes(30)));
+
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(getBaseUrl() + "/tasks"))
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .header("Content-Type", "application/json")
+                .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(406, response.statusCode());
+        assertEquals(1, taskManager.getAllTasks().size());
+    }
+
     @Test
     void testGetTaskById_success() throws Exception {
         Task task = createTestTask("Test", Status.NEW);
@@ -111,4 +134,209 @@ class TasksHandlerTest extends BaseHttpHandlerTest {
         assertEquals(200, response.statusCode());
         assertEquals(0, taskManager.getAllTasks().size());
     }
-}
\ No newline at end of file
+
+    @Test
+    void testGetAllTasks_streamedChunked() throws Exception {
+        for (int i = 0; i < 500; i++) {
+            createTestTask("Task " + i, Status.NEW);
+        }
+
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(getBaseUrl() + "/tasks"))
+                .GET()
+                .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, response.statusCode());
+        assertEquals("chunked", response.headers().firstValue("Transfer-Encoding").orElse(null));
+        Task[] tasks = gson.fromJson(response.body(), Task[].class);
+        assertEquals(500, tasks.length);
+    }
+
+    @Test
+    void testGetTasks_pagedWithCursor() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            createTestTask("Task " + i, i < 3 ? Status.NEW : Status.DONE);
+        }
+
+        HttpResponse<String> first = client.send(HttpRequest.newBuilder()
+                .uri(URI.create(getBaseUrl() + "/tasks?limit=2&status=NEW"))
+                .GET()
+                .build(), HttpResponse.BodyHandlers.ofString());
+        Task[] firstPage = gson.fromJson(first.body(), Task[].class);
+        String cursor = first.headers().firstValue("X-Next-Cursor").orElseThrow();
+
+        HttpResponse<String> second = client.send(HttpRequest.newBuilder()
+                .uri(URI.create(getBaseUrl() + "/tasks?limit=2&status=NEW&after=" + cursor))
+                .GET()
+                .build(), HttpResponse.BodyHandlers.ofString());
+        Task[] secondPage = gson.fromJson(second.body(), Task[].class);
+
+        assertEquals(2, firstPage.length);
+        assertEquals(1, secondPage.length);
+        assertTrue(second.headers().firstValue("X-Next-Cursor").isEmpty());
+    }
+
+    @Test
+    void testGetTasks_invalidFilter() throws Exception {
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder()
+                .uri(URI.create(getBaseUrl() + "/tasks?status=UNKNOWN"))
+                .GET()
+                .build(), HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(400, response.statusCode());
+    }
+
+    @Test
+    void testGetTask_servedFromCacheUntilUpdated() throws Exception {
+        Task task = createTestTask("Cached", Status.NEW);
+        HttpRequest get = HttpRequest.newBuilder()
+                .uri(URI.create(getBaseUrl() + "/tasks/" + task.getId()))
+                .GET()
+                .build();
+        HttpResponse<String> first = client.send(get, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> second = client.send(get, HttpResponse.BodyHandlers.ofString());
+        assertEquals(first.body(), second.body());
+        assertEquals(1, taskServer.getResponseCache().getHits());
+
+        Task changed = taskManager.getTaskById(task.getId()).copy();
+        changed.setStatus(Status.DONE);
+        taskManager.updateTask(changed);
+
+        HttpResponse<String> third = client.send(get, HttpResponse.BodyHandlers.ofString());
+        assertEquals(Status.DONE, gson.fromJson(third.body(), Task.class).getStatus());
+        assertEquals(1, taskServer.getResponseCache().getHits());
+    }
+
+    @Test
+    void testGetTasks_collectionCachedByManagerVersion() throws Exception {
+        createTestTask("First", Status.NEW);
+        HttpRequest get = HttpRequest.newBuilder()
+                .uri(URI.create(getBaseUrl() + "/tasks"))
+                .GET()
+                .build();
+        client.send(get, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> cached = client.send(get, HttpResponse.BodyHandlers.ofString());
+        assertEquals(1, taskServer.getResponseCache().getHits());
+
+        createTestTask("Second", Status.NEW);
+        HttpResponse<String> fresh = client.send(get, HttpResponse.BodyHandlers.ofString());
+        assertEquals(1, gson.fromJson(cached.body(), Task[].class).length);
+        assertEquals(2, gson.fromJson(fresh.body(), Task[].class).length);
+    }
+
+    @Test
+    void testGetTasks_unknownParametersShareCacheEntry() throws Exception {
+        createTestTask("First", Status.NEW);
+        for (int i = 0; i < 5; i++) {
+            client.send(HttpRequest.newBuilder()
+                    .uri(URI.create(getBaseUrl() + "/tasks?nonce=" + i))
+                    .GET()
+                    .build(), HttpResponse.BodyHandlers.ofString());
+        }
+
+        assertEquals(1, taskServer.getResponseCache().getEntries());
+        assertEquals(4, taskServer.getResponseCache().getHits());
+    }
+
+    @Test
+    void testGetTasks_conditionalGetByListVersion() throws Exception {
+        Task task = createTestTask("First", Status.NEW);
+        HttpResponse<String> first = client.send(HttpRequest.newBuilder()
+                .uri(URI.create(getBaseUrl() + "/tasks"))
+                .GET()
+                .build(), HttpResponse.BodyHandlers.ofString());
+        String etag = first.headers().firstValue("ETag").orElseThrow();
+        HttpRequest conditional = HttpRequest.newBuilder()
+                .uri(URI.create(getBaseUrl() + "/tasks"))
+                .header("If-None-Match", "\"other\", " + etag)
+                .GET()
+                .build();
+
+        assertEquals(304, client.send(conditional, HttpResponse.BodyHandlers.ofString()).statusCode());
+        // Эпики не входят в /tasks: их изменение не меняет версию списка
+        createTestEpic("Epic");
+        assertEquals(304, client.send(conditional, HttpResponse.BodyHandlers.ofString()).statusCode());
+
+        taskManager.removeTaskById(task.getId());
+        HttpResponse<String> changed = client.send(conditional, HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, changed.statusCode());
+        assertEquals("[]", changed.body());
+    }
+
+    @Test
+    void testGetTask_notModifiedByEntityVersion() throws Exception {
+        Task task = createTestTask("Task", Status.NEW);
+        URI uri = URI.create(getBaseUrl() + "/tasks/" + task.getId());
+        HttpResponse<String> first = client.send(HttpRequest.newBuilder(uri).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+        String etag = first.headers().firstValue("ETag").orElseThrow();
+        HttpRequest conditional = HttpRequest.newBuilder(uri).header("If-None-Match", etag).GET().build();
+
+        assertEquals(304, client.send(conditional, HttpResponse.BodyHandlers.ofString()).statusCode());
+
+        Task changed = taskManager.getTaskById(task.getId()).copy();
+        changed.setStatus(Status.IN_PROGRESS);
+        taskManager.updateTask(changed);
+        assertEquals(200, client.send(conditional, HttpResponse.BodyHandlers.ofString()).statusCode());
+    }
+
+    @Test
+    void testGetTasks_gzipAboveThreshold() throws Exception {
+        for (int i = 0; i < 50; i++) {
+            createTestTask("Task " + i, Status.NEW);
+        }
+        HttpRequest gzip = HttpRequest.newBuilder()
+                .uri(URI.create(getBaseUrl() + "/tasks"))
+                .header("Accept-Encoding", "gzip")
+                .GET()
+                .build();
+        HttpResponse<byte[]> response = client.send(gzip, HttpResponse.BodyHandlers.ofByteArray());
+
+        assertEquals(200, response.statusCode());
+        assertEquals("gzip", response.headers().firstValue("Content-Encoding").orElseThrow());
+        assertTrue(response.headers().allValues("Vary").contains("Accept-Encoding"));
+        String etag = response.headers().firstValue("ETag").orElseThrow();
+        assertTrue(etag.startsWith("W/"), "ETag сжатого ответа слабый");
+        String json = new String(new GZIPInputStream(new ByteArrayInputStream(response.body())).readAllBytes(),
+                StandardCharsets.UTF_8);
+        assertEquals(50, gson.fromJson(json, Task[].class).length);
+
+        HttpRequest conditional = HttpRequest.newBuilder()
+                .uri(URI.create(getBaseUrl() + "/tasks"))
+                .header("Accept-Encoding", "gzip")
+                .header("If-None-Match", etag)
+                .GET()
+                .build();
+        assertEquals(304, client.send(conditional, HttpResponse.BodyHandlers.ofByteArray()).statusCode());
+        assertEquals(1, taskServer.getResponseCompression().getCompressedResponses());
+    }
+
+    @Test
+    void testGetTask_belowThresholdSentAsIs() throws Exception {
+        Task task = createTestTask("Small", Status.NEW);
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder()
+                .uri(URI.create(getBaseUrl() + "/tasks/" + task.getId()))
+                .header("Accept-Encoding", "gzip, deflate")
+                .GET()
+                .build(), HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, response.statusCode());
+        assertTrue(response.headers().firstValue("Content-Encoding").isEmpty());
+        assertEquals(task.getName(), gson.fromJson(response.body(), Task.class).getName());
+    }
+
+    @Test
+    void testCreateTask_otherType_failure() throws Exception {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(getBaseUrl() + "/tasks"))
+                .POST(HttpRequest.BodyPublishers.ofString("{\"type\":\"EPIC\",\"name\":\"Epic\"}"))
+                .header("Content-Type", "application/json")
+                .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(400, response.statusCode());
+        assertTrue(taskManager.getAllTasks().isEmpty());
+        assertTrue(taskManager.getAllEpics().isEmpty());
+    }
+}
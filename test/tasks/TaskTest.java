@@ -2,7 +2,10 @@ package tasks;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
 import org.junit.jupiter.api.Test;
+import util.Status;
 
 class TaskTest {
     //проверка, что экземпляры класса Task равны если равны их ID
@@ -23,4 +26,21 @@ class TaskTest {
         task2.setId(2);
         assertNotEquals(task1, task2, "задачи совпадают");
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldRecalculateCachedEndTimeAfterChange() {
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 10, 0);
+        Task task = new Task("Name", "Description", Status.NEW, Duration.ofMinutes(30), start);
+        Task other = new Task("Other", "Description", Status.NEW, Duration.ofMinutes(30), start.plusMinutes(30));
+        assertEquals(start.plusMinutes(30), task.getEndTime());
+        assertFalse(task.overlaps(other), "Смежные интервалы не пересекаются");
+
+        task.setDuration(Duration.ofMinutes(31));
+
+        assertEquals(start.plusMinutes(31), task.getEndTime());
+        assertTrue(task.overlaps(other));
+        task.setStartTime(null);
+        assertNull(task.getEndTime());
+        assertFalse(task.hasTimeInterval());
+    }
+}
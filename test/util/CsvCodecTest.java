@@ -0,0 +1,119 @@
+package util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import exceptions.ManagerSaveException;
+import java.io.StringWriter;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import tasks.Epic;
+import tasks.Subtask;
+import tasks.Task;
+
+class CsvCodecTest {
+    private static final String[] TEXTS = {"", "Обычный текст", "a,b", "\"в кавычках\"", "a\"\"b", " пробелы ",
+            "✓ эмодзи 🚀", ",", "\"", "x;y"};
+
+    private static LocalDateTime randomTime(Random random) {
+        LocalDateTime time = LocalDateTime.of(1990 + random.nextInt(50), 1 + random.nextInt(12),
+                1 + random.nextInt(28), random.nextInt(24), random.nextInt(60));
+        switch (random.nextInt(4)) {
+            case 0:
+                return time;
+            case 1:
+                return time.withSecond(random.nextInt(60));
+            case 2:
+                return time.withSecond(random.nextInt(60)).withNano(random.nextInt(1000) * 1_000_000);
+            default:
+                return time.withNano(1 + random.nextInt(999_999_999));
+        }
+    }
+
+    @Test
+    void shouldEncodeExactlyAsTaskUtils() {
+        Random random = new Random(7);
+        CsvCodec codec = new CsvCodec();
+        for (int i = 0; i < 5_000; i++) {
+            String name = TEXTS[random.nextInt(TEXTS.length)];
+            String description = random.nextInt(10) == 0 ? null : TEXTS[random.nextInt(TEXTS.length)];
+            Status status = Status.values()[random.nextInt(3)];
+            Duration duration = random.nextBoolean() ? null : Duration.ofSeconds(random.nextInt(1_000_000));
+            LocalDateTime start = random.nextBoolean() ? null : randomTime(random);
+            int id = random.nextInt(Integer.MAX_VALUE);
+
+            Task task = new Task(name, description, id, status, duration, start);
+            assertEquals(TaskUtils.toCsv(task), codec.encode(task).toString());
+
+            Subtask subtask = new Subtask(name, description, id, status, -id, duration, start);
+            assertEquals(TaskUtils.toCsv(subtask, String.valueOf(-id)), codec.encode(subtask).toString());
+        }
+        Task ancient = new Task("a", "b", 1, Status.NEW, null, LocalDateTime.of(-42, 1, 1, 0, 0));
+        assertEquals(TaskUtils.toCsv(ancient), codec.encode(ancient).toString());
+    }
+
+    @Test
+    void shouldWriteEpicSubtaskIdsAndNewline() throws Exception {
+        Epic epic = new Epic("Эпик", "Описание");
+        epic.setId(3);
+        epic.addSubtaskId(7);
+        epic.addSubtaskId(5);
+        StringWriter out = new StringWriter();
+
+        new CsvCodec().writeRow(epic, out);
+
+        assertEquals("3,EPIC,Эпик,NEW,Описание,7;5,,\n", out.toString());
+    }
+
+    @Test
+    void shouldDecodeWhatItEncodes() {
+        Random random = new Random(11);
+        CsvCodec codec = new CsvCodec();
+        CsvCodec decoder = new CsvCodec();
+        for (int i = 0; i < 5_000; i++) {
+            String name = TEXTS[random.nextInt(TEXTS.length)].trim();
+            String description = TEXTS[random.nextInt(TEXTS.length)].trim();
+            LocalDateTime start = random.nextBoolean() ? null : randomTime(random);
+            Task task = random.nextBoolean()
+                    ? new Task(name, description, i + 1, Status.DONE, Duration.ofMinutes(i), start)
+                    : new Subtask(name, description, i + 1, Status.IN_PROGRESS, 1, null, start);
+            codec.encode(task);
+
+            Task decoded = decoder.decode(codec.buffer(), 0, codec.length());
+
+            assertEquals(task.getClass(), decoded.getClass());
+            assertEquals(task.getName(), decoded.getName());
+            assertEquals(task.getDescription(), decoded.getDescription());
+            assertEquals(task.getStartTime(), decoded.getStartTime());
+            assertEquals(codec.toString(), decoder.encode(decoded).toString());
+        }
+    }
+
+    @Test
+    void shouldAcceptLegacyVariantsAndReportErrors() {
+        CsvCodec codec = new CsvCodec();
+
+        Task task = codec.decode(" 5 , TASK , Имя , done , описание ,, 30 , 2024-03-01T10:15:30.5 ");
+        assertEquals(5, task.getId());
+        assertEquals("Имя", task.getName());
+        assertEquals(Status.DONE, task.getStatus());
+        assertEquals(Duration.ofMinutes(30), task.getDuration());
+        assertEquals(LocalDateTime.of(2024, 3, 1, 10, 15, 30, 500_000_000), task.getStartTime());
+        assertEquals(LocalDateTime.of(2024, 2, 29, 0, 0),
+                codec.decode("1,TASK,a,NEW,b,,,2024-02-29t00:00").getStartTime());
+
+        assertEquals("Ошибка формата числа в строке: x,TASK,a,NEW,b,,,",
+                assertThrows(ManagerSaveException.class, () -> codec.decode("x,TASK,a,NEW,b,,,")).getMessage());
+        assertEquals("Некорректное значение статуса в строке: 1,TASK,a,OPEN,b,,,",
+                assertThrows(ManagerSaveException.class, () -> codec.decode("1,TASK,a,OPEN,b,,,")).getMessage());
+        assertEquals("Неизвестный тип задачи: NOTE",
+                assertThrows(ManagerSaveException.class, () -> codec.decode("1,NOTE,a,NEW,b,,,")).getMessage());
+        assertEquals("Для подзадачи не указан ID эпика",
+                assertThrows(ManagerSaveException.class, () -> codec.decode("1,SUBTASK,a,NEW,b, ,,")).getMessage());
+        assertEquals("Недостаточно данных в строке: 1,TASK,\"a,b\"",
+                assertThrows(ManagerSaveException.class, () -> codec.decode("1,TASK,\"a,b\"")).getMessage());
+        assertThrows(DateTimeParseException.class, () -> codec.decode("1,TASK,a,NEW,b,,,2023-02-29T00:00"));
+    }
+}
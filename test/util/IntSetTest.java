@@ -0,0 +1,77 @@
+package util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.google.gson.Gson;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+class IntSetTest {
+
+    @Test
+    void shouldKeepInsertionOrderAndRejectDuplicates() {
+        IntSet set = new IntSet();
+        assertTrue(set.add(5));
+        assertTrue(set.add(1));
+        assertTrue(set.add(3));
+        assertFalse(set.add(1), "дубликат не должен добавляться");
+
+        assertEquals(3, set.size());
+        assertEquals(List.of(5, 1, 3), set.toList());
+    }
+
+    @Test
+    void shouldRemoveAndKeepOrderOfRemaining() {
+        IntSet set = new IntSet();
+        for (int i = 1; i <= 10; i++) {
+            set.add(i);
+        }
+        for (int i = 1; i <= 10; i += 2) {
+            assertTrue(set.remove(i));
+        }
+        assertFalse(set.remove(1));
+
+        assertArrayEquals(new int[]{2, 4, 6, 8, 10}, set.toArray());
+        assertFalse(set.contains(3));
+        assertTrue(set.contains(4));
+        set.add(1);
+        assertEquals(List.of(2, 4, 6, 8, 10, 1), set.toList());
+    }
+
+    @Test
+    void shouldMatchLinkedHashSetOnRandomOperations() {
+        Random random = new Random(42);
+        IntSet set = new IntSet();
+        Set<Integer> expected = new LinkedHashSet<>();
+        for (int i = 0; i < 20_000; i++) {
+            int value = random.nextInt(500) - 250;
+            if (random.nextBoolean()) {
+                assertEquals(expected.add(value), set.add(value));
+            } else {
+                assertEquals(expected.remove(value), set.remove(value));
+            }
+        }
+        assertEquals(new ArrayList<>(expected), set.toList());
+        List<Integer> iterated = new ArrayList<>();
+        for (PrimitiveIterator.OfInt it = set.iterator(); it.hasNext(); ) {
+            iterated.add(it.nextInt());
+        }
+        assertEquals(new ArrayList<>(expected), iterated);
+    }
+
+    @Test
+    void shouldSerializeAsJsonArray() {
+        Gson gson = new Gson();
+        IntSet set = IntSet.of(List.of(3, 7));
+
+        String json = gson.toJson(set);
+
+        assertEquals("[3,7]", json);
+        assertEquals(set, gson.fromJson(json, IntSet.class));
+    }
+}
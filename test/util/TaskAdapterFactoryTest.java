@@ -0,0 +1,77 @@
+package util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonSyntaxException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import tasks.Epic;
+import tasks.Subtask;
+import tasks.Task;
+
+class TaskAdapterFactoryTest {
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 9, 0);
+
+    private final Gson gson = Managers.getGson();
+
+    @Test
+    void shouldRoundTripAllTypesThroughTaskClass() {
+        Task task = new Task("Task", "Description", 1, Status.IN_PROGRESS, Duration.ofMinutes(30), START);
+        Subtask subtask = new Subtask("Subtask", "Description", 3, Status.DONE, 2,
+                Duration.ofHours(1), START.plusHours(1));
+        Epic epic = new Epic("Epic", "Description", List.of(3));
+        epic.setId(2);
+        epic.setStatus(Status.DONE);
+        epic.setEndTime(START.plusHours(2));
+
+        for (Task original : List.of(task, subtask, epic)) {
+            Task restored = gson.fromJson(gson.toJson(original), Task.class);
+            assertAll(
+                    () -> assertSame(original.getClass(), restored.getClass()),
+                    () -> assertEquals(original.getName(), restored.getName()),
+                    () -> assertEquals(original.getStatus(), restored.getStatus()),
+                    () -> assertEquals(original.getDuration(), restored.getDuration()),
+                    () -> assertEquals(original.getStartTime(), restored.getStartTime()),
+                    () -> assertEquals(original.getEndTime(), restored.getEndTime())
+            );
+        }
+        assertEquals(2, gson.fromJson(gson.toJson(subtask), Subtask.class).getEpicId());
+        assertEquals(List.of(3), gson.fromJson(gson.toJson(epic), Epic.class).getSubIds());
+    }
+
+    @Test
+    void shouldWriteTypeAndOmitNulls() {
+        String json = gson.toJson(new Task("Task", null, 5, Status.NEW));
+
+        assertEquals("{\"type\":\"TASK\",\"id\":5,\"name\":\"Task\",\"status\":\"NEW\"}", json);
+    }
+
+    @Test
+    void shouldReadReflectiveFormatWithoutType() {
+        Gson reflective = new GsonBuilder()
+                .registerTypeAdapter(Duration.class, new DurationAdapter())
+                .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeAdapter())
+                .create();
+        Subtask subtask = new Subtask("Subtask", "Description", 3, Status.NEW, 2, Duration.ofMinutes(15), START);
+
+        Subtask restored = gson.fromJson(reflective.toJson(subtask), Subtask.class);
+
+        assertEquals(subtask, restored);
+        assertEquals(2, restored.getEpicId());
+        assertEquals(Duration.ofMinutes(15), restored.getDuration());
+    }
+
+    @Test
+    void shouldRejectMismatchedTypeAndBadValues() {
+        assertThrows(JsonSyntaxException.class,
+                () -> gson.fromJson("{\"type\":\"SUBTASK\",\"name\":\"x\"}", Epic.class));
+        assertThrows(JsonSyntaxException.class,
+                () -> gson.fromJson("{\"name\":\"x\",\"status\":\"UNKNOWN\"}", Task.class));
+        assertThrows(JsonSyntaxException.class,
+                () -> gson.fromJson("{\"name\":\"x\",\"duration\":30}", Task.class));
+    }
+}
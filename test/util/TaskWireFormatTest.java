@@ -0,0 +1,62 @@
+package util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import tasks.Epic;
+import tasks.Subtask;
+import tasks.Task;
+
+class TaskWireFormatTest {
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 9, 0);
+
+    @Test
+    void shouldRoundTripTasksWithEpicTail() {
+        Task task = new Task("Задача", null, 1, Status.NEW, Duration.ofMinutes(30), START);
+        Subtask subtask = new Subtask("Subtask", "Description", 3, Status.DONE, 2, Duration.ofHours(1), START);
+        Epic epic = new Epic("Epic", "Description", List.of(3, 4));
+        epic.setId(2);
+        epic.setStatus(Status.IN_PROGRESS);
+        epic.setEndTime(START.plusHours(3));
+
+        List<Task> decoded = TaskWireFormat.decode(TaskWireFormat.encode(List.of(task, subtask, epic)));
+
+        assertEquals(3, decoded.size());
+        Task first = decoded.get(0);
+        Subtask second = (Subtask) decoded.get(1);
+        Epic third = (Epic) decoded.get(2);
+        assertAll(
+                () -> assertEquals("Задача", first.getName()),
+                () -> assertNull(first.getDescription()),
+                () -> assertEquals(START, first.getStartTime()),
+                () -> assertEquals(2, second.getEpicId()),
+                () -> assertEquals(Duration.ofHours(1), second.getDuration()),
+                () -> assertEquals(List.of(3, 4), third.getSubIds()),
+                () -> assertEquals(START.plusHours(3), third.getEndTime()),
+                () -> assertEquals(Status.IN_PROGRESS, third.getStatus())
+        );
+    }
+
+    @Test
+    void shouldBeSmallerThanJson() {
+        List<Task> tasks = List.of(
+                new Subtask("Subtask", "Description", 3, Status.DONE, 2, Duration.ofHours(1), START),
+                new Task("Task", "Description", 4, Status.NEW, Duration.ofMinutes(30), START.plusHours(2)));
+
+        assertTrue(TaskWireFormat.encode(tasks).length < Managers.getGson().toJson(tasks).length());
+    }
+
+    @Test
+    void shouldRejectForeignOrTruncatedBody() {
+        byte[] body = TaskWireFormat.encode(List.of(new Task("Task", "Description", 1, Status.NEW)));
+
+        assertThrows(IllegalArgumentException.class, () -> TaskWireFormat.decode("[{}]".getBytes()));
+        assertThrows(IllegalArgumentException.class,
+                () -> TaskWireFormat.decode(Arrays.copyOf(body, body.length - 1)));
+        assertTrue(TaskWireFormat.decode(Arrays.copyOf(body, 4)).isEmpty());
+    }
+}